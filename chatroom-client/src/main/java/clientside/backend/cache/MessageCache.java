@@ -0,0 +1,330 @@
+package clientside.backend.cache;
+
+import static config.CacheConfig.CACHE_DIRECTORY;
+import static config.CacheConfig.CACHE_MAX_BYTES;
+
+import clientside.backend.ChatMessage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The broadcasts of one server the client has shown, kept on disk between runs,
+ * so the chat can show the latest of them as soon as it opens, and only ask the server for newer ones.
+ *
+ * <p>The cache is a file of a fixed size, mapped into memory, that messages are appended to
+ * in the order of their numbers. Each record is its length, the number of the broadcast,
+ * and the broadcast encrypted with AES-GCM under a key kept next to the caches,
+ * readable by its owner only. The length is written last, so a record cut short by a crash is never read,
+ * and reading stops at the first record that is not newer than the one before.
+ * Once the file is full, the older half of the messages is dropped.
+ * Appended messages are in the file as soon as they are written to memory; the system writes them to the disk.
+ *
+ * <p>It is only a cache: a file that cannot be read is started over, and a record that does not decrypt
+ * is skipped. Only one client at a time keeps the cache of a server; it holds a lock on the file
+ * while it runs, and other clients of the same server go without.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class MessageCache {
+  private static final int MAGIC = 0x43484331;  // "CHC1"
+  private static final int HEADER_BYTES = 16;
+  private static final int NONCE_BYTES = 12;
+  private static final int TAG_BITS = 128;
+  private static final int RECORD_HEADER_BYTES = Integer.BYTES + Long.BYTES + NONCE_BYTES;
+  private static final String KEY_FILE = "cache.key";
+  private static final String CIPHER = "AES/GCM/NoPadding";
+  private static final SecureRandom RANDOM = new SecureRandom();
+  private static final Set<Path> OPEN_FILES = ConcurrentHashMap.newKeySet();  // Caches kept by this client
+
+  /**
+   * What became of a message handed to the cache.
+   */
+  public enum Appended {
+    ADDED,  // Kept in the cache
+    DUPLICATE,  // The cache has the message, or newer ones, already
+    NOT_CACHED  // New, but could not be kept
+  }
+
+  private final MappedByteBuffer buffer;
+  private final FileChannel channel;  // Open, and locked, for as long as the client runs
+  private final SecretKey key;
+  private int end;  // Where the next record goes
+  private long lastId;  // The number of the newest message, 0 if there is none
+
+  /**
+   * Create a cache on a mapped file, and find where its records end.
+   *
+   * @param buffer The file
+   * @param channel The channel of the file, holding its lock
+   * @param key The key the messages are encrypted with
+   * @since 1.0
+   */
+  private MessageCache(MappedByteBuffer buffer, FileChannel channel, SecretKey key) {
+    this.buffer = buffer;
+    this.channel = channel;
+    this.key = key;
+    int magic = buffer.getInt(0);
+    if (magic != MAGIC) {
+      if (magic != 0) {
+        clear(0);  // Not a cache, or of another format
+      }
+      buffer.putInt(0, MAGIC);
+    }
+    end = HEADER_BYTES;
+    int length;
+    while ((length = recordLength(end)) > 0 && buffer.getLong(end + Integer.BYTES) > lastId) {
+      lastId = buffer.getLong(end + Integer.BYTES);
+      end += length;
+    }
+  }
+
+  /**
+   * Open the cache of a server, creating it and the key if needed.
+   *
+   * @param host The host of the server
+   * @param port The port of the server
+   * @return The cache
+   * @throws IOException If the cache cannot be opened, is kept by another client, or caching is turned off
+   * @since 1.0
+   */
+  public static MessageCache open(String host, int port) throws IOException {
+    if (CACHE_MAX_BYTES <= HEADER_BYTES) {
+      throw new IOException("The message cache is turned off");
+    }
+    Path directory = Path.of(CACHE_DIRECTORY);
+    Files.createDirectories(directory);
+    SecretKey key = loadKey(directory.resolve(KEY_FILE));
+    Path file = directory.resolve(host.replaceAll("[^A-Za-z0-9.-]", "_") + "_" + port + ".cache");
+    if (!OPEN_FILES.add(file.toAbsolutePath().normalize())) {  // Closing a second channel would drop the lock
+      throw new IOException("The message cache is kept by this client already");
+    }
+    FileChannel channel = null;
+    try {
+      channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      if (channel.tryLock() == null) {
+        throw new IOException("The message cache is kept by another client");
+      }
+      return new MessageCache(channel.map(FileChannel.MapMode.READ_WRITE, 0, CACHE_MAX_BYTES), channel, key);
+    } catch (IOException | RuntimeException e) {
+      OPEN_FILES.remove(file.toAbsolutePath().normalize());
+      if (channel != null) {
+        channel.close();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the key of the caches, or creates one that only the owner can read.
+   * A new key is written to a file of its own first, and only then put in place,
+   * so a client never sees a key file that is not written yet.
+   *
+   * @param file The key file
+   * @return The key
+   * @throws IOException If the key cannot be read or created
+   * @since 1.0
+   */
+  private static SecretKey loadKey(Path file) throws IOException {
+    if (!Files.exists(file)) {
+      byte[] bytes = new byte[32];
+      RANDOM.nextBytes(bytes);
+      FileAttribute<?>[] ownerOnly = file.getFileSystem().supportedFileAttributeViews().contains("posix")
+          ? new FileAttribute<?>[] {PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))}
+          : new FileAttribute<?>[0];
+      Path written = Files.createTempFile(file.getParent(), KEY_FILE, ".new", ownerOnly);
+      try {
+        Files.write(written, bytes);
+        try {
+          Files.createLink(file, written);
+        } catch (UnsupportedOperationException e) {
+          Files.move(written, file);  // No links, only fails if the key is there already
+        }
+      } catch (FileAlreadyExistsException e) {
+        // Created by another client in the meantime
+      } finally {
+        Files.deleteIfExists(written);
+      }
+    }
+    byte[] bytes = Files.readAllBytes(file);
+    if (bytes.length != 32) {
+      throw new IOException("Malformed cache key " + file);
+    }
+    return new SecretKeySpec(bytes, "AES");
+  }
+
+  /**
+   * Returns the length of the record at an offset, if there is a whole one.
+   *
+   * @param offset Where the record starts
+   * @return The length of the record, or 0 if there is none
+   * @since 1.0
+   */
+  private int recordLength(int offset) {
+    if (offset + RECORD_HEADER_BYTES > buffer.capacity()) {
+      return 0;
+    }
+    int length = buffer.getInt(offset);
+    if (length <= RECORD_HEADER_BYTES || length > buffer.capacity() - offset) {
+      return 0;
+    }
+    return length;
+  }
+
+  /**
+   * Returns the number of the newest message in the cache.
+   *
+   * @return The number, or 0 if the cache is empty
+   * @since 1.0
+   */
+  public synchronized long getLastId() {
+    return lastId;
+  }
+
+  /**
+   * Returns the newest messages, oldest first.
+   *
+   * @param count The most messages to return
+   * @return The messages
+   * @since 1.0
+   */
+  public synchronized List<ChatMessage> tail(int count) {
+    Deque<Integer> offsets = new ArrayDeque<>(count + 1);
+    for (int offset = HEADER_BYTES; offset < end; offset += buffer.getInt(offset)) {
+      offsets.addLast(offset);
+      if (offsets.size() > count) {
+        offsets.removeFirst();
+      }
+    }
+    List<ChatMessage> messages = new ArrayList<>(offsets.size());
+    for (int offset : offsets) {
+      ChatMessage message = read(offset);
+      if (message != null) {
+        messages.add(message);
+      }
+    }
+    return messages;
+  }
+
+  /**
+   * Adds a message, unless it is no newer than the newest one in the cache.
+   * Makes room by dropping the older half of the messages if the file is full.
+   * A new message that cannot be kept still counts as the newest, so it is not taken for new again.
+   *
+   * @param message The message, numbered
+   * @return Whether the message was added, was a duplicate, or was new but could not be kept
+   * @since 1.0
+   */
+  public synchronized Appended append(ChatMessage message) {
+    if (!message.isNumbered()) {
+      return Appended.NOT_CACHED;
+    }
+    if (message.id() <= lastId) {
+      return Appended.DUPLICATE;
+    }
+    byte[] nonce = new byte[NONCE_BYTES];
+    RANDOM.nextBytes(nonce);
+    byte[] encrypted;
+    try {
+      Cipher cipher = Cipher.getInstance(CIPHER);
+      cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+      cipher.updateAAD(ByteBuffer.allocate(Long.BYTES).putLong(message.id()).array());
+      encrypted = cipher.doFinal(message.text().getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      lastId = message.id();
+      return Appended.NOT_CACHED;
+    }
+    int length = RECORD_HEADER_BYTES + encrypted.length;
+    if (length > (buffer.capacity() - HEADER_BYTES) / 2) {
+      lastId = message.id();
+      return Appended.NOT_CACHED;  // Would not fit even after making room
+    }
+    if (end + length > buffer.capacity()) {
+      compact();
+    }
+    buffer.putLong(end + Integer.BYTES, message.id());
+    buffer.put(end + Integer.BYTES + Long.BYTES, nonce);
+    buffer.put(end + RECORD_HEADER_BYTES, encrypted);
+    buffer.putInt(end, length);  // Last, so the record only counts once it is whole
+    end += length;
+    lastId = message.id();
+    return Appended.ADDED;
+  }
+
+  /**
+   * Decrypts the record at an offset.
+   *
+   * @param offset Where the record starts
+   * @return The message, or null if it does not decrypt
+   * @since 1.0
+   */
+  private ChatMessage read(int offset) {
+    int length = buffer.getInt(offset);
+    long id = buffer.getLong(offset + Integer.BYTES);
+    byte[] nonce = new byte[NONCE_BYTES];
+    buffer.get(offset + Integer.BYTES + Long.BYTES, nonce);
+    byte[] encrypted = new byte[length - RECORD_HEADER_BYTES];
+    buffer.get(offset + RECORD_HEADER_BYTES, encrypted);
+    try {
+      Cipher cipher = Cipher.getInstance(CIPHER);
+      cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, nonce));
+      cipher.updateAAD(ByteBuffer.allocate(Long.BYTES).putLong(id).array());
+      return new ChatMessage(id, new String(cipher.doFinal(encrypted), StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      return null;  // Written with another key, or damaged
+    }
+  }
+
+  /**
+   * Drops the older messages, keeping the newest that fit in half of the file, and moves them to the front.
+   *
+   * @since 1.0
+   */
+  private void compact() {
+    int keep = (buffer.capacity() - HEADER_BYTES) / 2;
+    int from = HEADER_BYTES;
+    while (end - from > keep) {
+      from += buffer.getInt(from);
+    }
+    byte[] kept = new byte[end - from];
+    buffer.get(from, kept);
+    buffer.put(HEADER_BYTES, kept);
+    end = HEADER_BYTES + kept.length;
+    clear(end);
+  }
+
+  /**
+   * Zeroes the file from an offset to its end.
+   *
+   * @param offset Where to start
+   * @since 1.0
+   */
+  private void clear(int offset) {
+    byte[] zeroes = new byte[Math.min(64 * 1024, buffer.capacity())];
+    for (int position = offset; position < buffer.capacity(); position += zeroes.length) {
+      buffer.put(position, zeroes, 0, Math.min(zeroes.length, buffer.capacity() - position));
+    }
+  }
+}
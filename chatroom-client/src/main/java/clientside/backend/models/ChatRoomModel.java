@@ -0,0 +1,244 @@
+package clientside.backend.models;
+
+import static config.CacheConfig.CACHE_SCREENFUL;
+import static config.CacheConfig.HELD_BACK_LIMIT;
+import static config.CacheConfig.HISTORY_TIMEOUT_MILLIS;
+
+import clientside.backend.ChatMessage;
+import clientside.backend.Client;
+import clientside.backend.ConnectionFailedException;
+import clientside.backend.RecieveChatObserver;
+import clientside.backend.cache.MessageCache;
+import clientside.frontend.controllers.ChatRoomController;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * The model of the chat room.
+ * The broadcasts shown are kept in the message cache of the server, see {@link MessageCache}.
+ * When the chat opens, the latest of them are shown right away, and only newer ones are asked for.
+ * Broadcasts that arrive before those are held back, so the chat shows every broadcast in order.
+ * If the server does not answer in time, or too many broadcasts are held back, they are shown anyway,
+ * and the ones asked for are left out, since the cache keeps nothing older than what it has.
+ *
+ * @version 1.5
+ * @author Jonas Birkeli
+ * @since 16.06.2024
+ */
+public class ChatRoomModel implements RecieveChatObserver {
+  private final ChatRoomController controller;
+  private MessageCache cache;  // Null if the broadcasts cannot be kept
+  private boolean catchingUp;  // Until the broadcasts asked for have arrived, or were given up on
+  private int catchUps;  // Numbers each catch up, so a timeout ends only its own
+  private final List<Held> heldBack = new ArrayList<>();
+
+  /**
+   * A broadcast that arrived while catching up, to be shown after the ones asked for.
+   *
+   * @param message The broadcast
+   * @param displayed To be run once the message is shown, or null
+   */
+  private record Held(ChatMessage message, Runnable displayed) {}
+
+  /**
+   * Initializes the model.
+   * The controller is passed to the model to allow the model to call methods in the controller.
+   * The model is also added as a subscriber to the client.
+   *
+   * @param controller The controller to pass to the model
+   * @since 1.0
+   */
+  public ChatRoomModel(ChatRoomController controller) {
+    this.controller = controller;
+    try {
+      Client client = Client.getInstance();
+      client.addSubscriber(this);
+      cache = MessageCache.open(client.getHost(), client.getPort());
+    } catch (ConnectionFailedException e) {
+      Logger.getLogger(this.getClass().getName()).severe("Failed to create client" + e.getMessage());
+    } catch (IOException e) {
+      Logger.getLogger(this.getClass().getName()).warning("Messages will not be cached: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Shows the latest cached broadcasts, and asks the server for the ones that are newer.
+   * Called once the chat is shown.
+   *
+   * @since 1.3
+   */
+  public void showCached() {
+    if (cache == null) {
+      return;
+    }
+    int catchUp;
+    synchronized (this) {
+      catchingUp = true;
+      catchUp = ++catchUps;
+    }
+    for (ChatMessage message : cache.tail(CACHE_SCREENFUL)) {
+      controller.appendMessage(message.text());
+    }
+    try {
+      Client.getInstance().requestHistory(cache.getLastId());
+    } catch (ConnectionFailedException e) {
+      Logger.getLogger(this.getClass().getName()).severe("Failed to catch up" + e.getMessage());
+      giveUpCatchingUp(catchUp);
+      return;
+    }
+    CompletableFuture.delayedExecutor(HISTORY_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+        .execute(() -> giveUpCatchingUp(catchUp));
+  }
+
+  /**
+   * Shows the broadcasts held back, if the server has not answered since this catch up started.
+   *
+   * @param catchUp The number of the catch up
+   * @since 1.5
+   */
+  private synchronized void giveUpCatchingUp(int catchUp) {
+    if (catchingUp && catchUp == catchUps) {
+      Logger.getLogger(this.getClass().getName()).warning("Gave up catching up, older messages are left out");
+      stopCatchingUp();
+    }
+  }
+
+  /**
+   * Sends a message to the server, or starts a file transfer if it is one of the attachment commands.
+   *
+   * @param input The message to send
+   */
+  public void sendMessage(String input) {
+    try {
+      Client client = Client.getInstance();
+      if (!client.handleIfAttachmentCommand(input)) {
+        client.sendSymmetricEncryptedMessage(input);
+      }
+    } catch (ConnectionFailedException e) {
+      Logger.getLogger(this.getClass().getName()).severe("Failed to send message" + e.getMessage());
+    }
+  }
+
+  /**
+   * Tells the server that the user is typing.
+   * Called on every keystroke; the client sends at most one signal per debounce interval.
+   *
+   * @since 1.1
+   */
+  public void typing() {
+    try {
+      Client.getInstance().typing();
+    } catch (ConnectionFailedException e) {
+      Logger.getLogger(this.getClass().getName()).severe("Failed to signal typing" + e.getMessage());
+    }
+  }
+
+  /**
+   * Shows who else is typing.
+   *
+   * @param description Who is typing, or an empty string if no one is
+   * @since 1.1
+   */
+  @Override
+  public void typingChanged(String description) {
+    controller.showTyping(description);
+  }
+
+  /**
+   * Receives a message, numbered if it is a broadcast.
+   * Broadcasts are held back while catching up, and ones already shown are skipped.
+   *
+   * @param message The message
+   * @param displayed To be run once the message is shown, or null
+   * @since 1.3
+   */
+  @Override
+  public synchronized void receiveChat(ChatMessage message, Runnable displayed) {
+    if (catchingUp && message.isNumbered()) {
+      heldBack.add(new Held(message, displayed));
+      if (heldBack.size() >= HELD_BACK_LIMIT) {
+        Logger.getLogger(this.getClass().getName()).warning("Too many messages held back, older ones are left out");
+        stopCatchingUp();
+      }
+      return;
+    }
+    show(message, displayed);
+  }
+
+  /**
+   * Shows the broadcasts asked for, then those held back in the meantime.
+   * If catching up was given up on, they are older than those shown since, and the cache skips them.
+   *
+   * @param messages The broadcasts the server still had, oldest first
+   * @since 1.3
+   */
+  @Override
+  public synchronized void receiveHistory(List<ChatMessage> messages) {
+    for (ChatMessage message : messages) {
+      show(message, null);
+    }
+    stopCatchingUp();
+  }
+
+  /**
+   * Stops holding broadcasts back, and shows those held back so far.
+   *
+   * @since 1.5
+   */
+  private void stopCatchingUp() {
+    catchingUp = false;
+    for (Held held : heldBack) {
+      show(held.message(), held.displayed());
+    }
+    heldBack.clear();
+  }
+
+  /**
+   * Shows a message and keeps it in the cache, unless it is a broadcast that was shown already.
+   * A broadcast the cache cannot keep is shown all the same.
+   *
+   * @param message The message
+   * @param displayed To be run once the message is shown, or null
+   * @since 1.3
+   */
+  private void show(ChatMessage message, Runnable displayed) {
+    if (message.isNumbered() && cache != null && cache.append(message) == MessageCache.Appended.DUPLICATE) {
+      return;
+    }
+    if (displayed == null) {
+      receiveChat(message.text());
+    } else {
+      receiveChat(message.text(), displayed);
+    }
+  }
+
+  /**
+   * Receives a chat message.
+   *
+   * @param message The message to receive
+   * @since 1.0
+   */
+  @Override
+  public void receiveChat(String message) {
+    System.out.println("Received message in model: " + message);
+    controller.appendMessage(message);
+    controller.clearInputField();
+  }
+
+  /**
+   * Receives a chat message whose latency is measured, which counts as shown once it is in the chat.
+   *
+   * @param message The message to receive
+   * @param displayed To be run once the message is shown
+   * @since 1.2
+   */
+  @Override
+  public void receiveChat(String message, Runnable displayed) {
+    controller.appendMessage(message, displayed);
+    controller.clearInputField();
+  }
+}
@@ -0,0 +1,162 @@
+package clientside.backend.models;
+
+import static config.ConnectionConfig.CONNECT_TIMEOUT_MILLIS;
+import static config.ConnectionConfig.LOGIN_TIMEOUT_MILLIS;
+
+import clientside.backend.Client;
+import clientside.backend.ConnectionFailedException;
+import clientside.backend.LoginResult;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * The model of the login page.
+ * Connecting and every login step run on a background thread, one after another,
+ * and are handed to the page as futures, so the window never waits for the network.
+ * The password is kept until the username is entered too, and both are sent together,
+ * so logging in takes a single answer from the server, see {@link Client#attemptLogin}.
+ * Each step fails with a {@link java.util.concurrent.TimeoutException} if the server does not answer in time,
+ * or with a {@link ConnectionFailedException} if the server cannot be reached.
+ * After either, the connection is dropped, and the next step connects anew, starting with the password.
+ *
+ * @version 1.2
+ * @author Jonas Birkeli
+ * @since 13.06.2024
+ */
+public class MainPageModel {
+  private final ExecutorService worker = Executors.newSingleThreadExecutor(task -> {
+    Thread thread = new Thread(task, "login");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private CompletableFuture<Client> connection;
+  private volatile String password;  // Entered, and checked along with the username
+  private volatile boolean passwordCorrect;
+
+  /**
+   * Starts connecting to the server, unless connected or connecting already.
+   * A connection that failed is retried.
+   *
+   * @return The connected client, once connected
+   * @since 1.1
+   */
+  public synchronized CompletableFuture<Client> connect() {
+    if (connection == null || connection.isCompletedExceptionally()) {
+      connection = CompletableFuture.supplyAsync(MainPageModel::openClient, worker)
+          .orTimeout(CONNECT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+    return connection;
+  }
+
+  /**
+   * Connects the shared client, generating its keys if needed.
+   *
+   * @return The client
+   * @since 1.1
+   */
+  private static Client openClient() {
+    try {
+      return Client.getInstance();
+    } catch (ConnectionFailedException e) {
+      Logger.getLogger(MainPageModel.class.getName()).severe("Failed to create client" + e.getMessage());
+      throw new CompletionException(e);
+    }
+  }
+
+  /**
+   * Keeps the password, to be checked once the username is entered.
+   *
+   * @param input The password
+   * @since 1.2
+   */
+  public void enterPassword(String input) {
+    password = input;
+  }
+
+  /**
+   * Returns whether a password has been entered, and not been rejected since.
+   *
+   * @return True if a password is kept
+   * @since 1.2
+   */
+  public boolean isPasswordEntered() {
+    return password != null;
+  }
+
+  /**
+   * Logs in with the password entered and a username, waiting for a single answer.
+   * Once the password was accepted, only the username is sent again.
+   * A rejected password is forgotten, so the next one can be entered.
+   *
+   * @param name The username
+   * @return Whether the user joined, and otherwise which step was rejected, once the server has answered
+   * @since 1.2
+   */
+  public CompletableFuture<LoginResult> login(String name) {
+    String entered = password;
+    return attempt(client -> {
+      if (passwordCorrect) {
+        return client.attemptUsernameLogin(name) ? LoginResult.JOINED : LoginResult.USERNAME_REJECTED;
+      }
+      LoginResult result = client.attemptLogin(entered, name);
+      passwordCorrect = result == LoginResult.JOINED || result == LoginResult.USERNAME_REJECTED;
+      if (result == LoginResult.PASSWORD_REJECTED) {
+        password = null;
+      }
+      return result;
+    });
+  }
+
+  /**
+   * Runs a login step once connected.
+   * A step the server rejects because the connection was lost fails instead.
+   *
+   * @param step The step, returning whether the server accepted it
+   * @return Whether the user joined, and otherwise which step was rejected
+   * @since 1.1
+   */
+  private CompletableFuture<LoginResult> attempt(Function<Client, LoginResult> step) {
+    return connect()
+        .thenApplyAsync(client -> {
+          LoginResult result = step.apply(client);
+          if (result == LoginResult.FAILED || result != LoginResult.JOINED && !client.isConnected()) {
+            throw new CompletionException(new ConnectionFailedException("Connection lost while logging in"));
+          }
+          return result;
+        }, worker)
+        .orTimeout(LOGIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)
+        .whenComplete((result, error) -> {
+          if (error != null) {
+            disconnect();
+          }
+        });
+  }
+
+  /**
+   * Drops the connection, so the next step connects anew.
+   * A step still waiting for the server fails, and frees the background thread.
+   *
+   * @since 1.1
+   */
+  private synchronized void disconnect() {
+    connection = null;
+    password = null;
+    passwordCorrect = false;
+    Client.shutdownInstance();
+  }
+
+  /**
+   * Returns whether the correct password has been entered.
+   *
+   * @return True if the correct password has been entered, false otherwise
+   * @since 1.0
+   */
+  public boolean isPasswordCorrect() {
+    return passwordCorrect;
+  }
+}
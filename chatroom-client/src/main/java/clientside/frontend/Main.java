@@ -14,7 +14,7 @@ import javafx.stage.Stage;
 /**
  * The main class for the application.
  *
- * @version 1.0
+ * @version 1.1
  * @author Jonas Birkeli
  * @since 11.06.2024
  */
@@ -57,9 +57,6 @@ public class Main extends Application {
   @Override
   public void stop() {
     System.out.println("Exiting application");
-    try {
-      Client.getInstance().shutdown();
-    } catch (Exception ignored) {
-    }
+    Client.shutdownInstance();
   }
 }
@@ -15,12 +15,16 @@ public class ChatRoomController {
   public ScrollPane scrollPane;
   @FXML
   private TextField inputField;
+  @FXML
+  private Label typingLabel;
   private VBox chatBox;
 
   public void initialize() {
     chatBox = new VBox();
     scrollPane.setContent(chatBox);
     // Bind the prefWidthProperty and prefHeightProperty of the ScrollPane to the width and height properties of the Scene
+    inputField.setOnKeyTyped(event -> model.typing());
+    model.showCached();
   }
 
   public ChatRoomController() {
@@ -48,6 +52,30 @@ public class ChatRoomController {
     });
   }
 
+  /**
+   * Appends a message to the chat, and runs a callback once it has been added.
+   *
+   * @param message The message
+   * @param displayed To be run on the application thread, after the message has been added
+   * @since 1.2
+   */
+  public void appendMessage(String message, Runnable displayed) {
+    Platform.runLater(() -> {
+      chatBox.getChildren().add(new Label(message));
+      displayed.run();
+    });
+  }
+
+  /**
+   * Shows who else is typing, below the chat.
+   *
+   * @param description Who is typing, or an empty string if no one is
+   * @since 1.1
+   */
+  public void showTyping(String description) {
+    Platform.runLater(() -> typingLabel.setText(description));
+  }
+
   /**
    * Clears the input field.
    *
@@ -1,16 +1,21 @@
 package clientside.frontend.controllers;
 
+import clientside.backend.LoginResult;
 import clientside.backend.models.MainPageModel;
 import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 import javafx.animation.FadeTransition;
 import javafx.animation.PauseTransition;
 import javafx.animation.SequentialTransition;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.VBox;
@@ -19,8 +24,12 @@ import javafx.util.Duration;
 
 /**
  * The MainPageController class is responsible for handling the main page of the chatroom.
+ * The page is shown at once, while the client connects in the background.
+ * While connecting or waiting for the server to answer, the input is disabled and the progress is shown;
+ * if the server cannot be reached or does not answer in time, the user can try again.
+ * The password and the username are entered first, and then checked together.
  *
- * @version 1.2
+ * @version 1.4
  * @author Jonas Birkeli
  * @since 13.06.2024
  */
@@ -32,6 +41,12 @@ public class MainPageController {
   private Label header;
   @FXML
   private TextField inputField;
+  @FXML
+  private Button loginButton;
+  @FXML
+  private Label status;
+  private String passwordHeader;
+  private boolean busy;
 
   /**
    * Initializes the controller.
@@ -41,12 +56,21 @@ public class MainPageController {
    */
   public void initialize() {
     this.model = new MainPageModel();
+    this.passwordHeader = header.getText();
     inputField.sceneProperty().addListener((observable, oldScene, newScene) -> {
       if (newScene != null) {
         inputField.minWidthProperty().bind(newScene.widthProperty().multiply(0.25));
         inputField.maxWidthProperty().bind(newScene.widthProperty().multiply(0.25));
       }
     });
+
+    setBusy("Connecting to the server...");
+    model.connect().whenComplete((client, error) -> Platform.runLater(() -> {
+      setIdle();
+      if (error != null) {
+        showFailure(error);
+      }
+    }));
   }
 
   /**
@@ -58,35 +82,92 @@ public class MainPageController {
   public void handleLoginButton(ActionEvent actionEvent) {
     actionEvent.consume();
     String input = inputField.getText();
-    if (input.isEmpty() || input.isBlank()) {
+    if (busy || input.isEmpty() || input.isBlank()) {
       return;
     }
-    boolean result;
-
-    if (!model.isPasswordCorrect()) {
-      result = model.checkPassword(input);
-
-      if (result) {
-        showSuccessBox("Correct password entered!");
-        header.setText("Enter your username");
-        inputField.clear();
-        inputField.setPromptText("Username");
-      } else {
-        showErrorBox("Incorrect password!");
-      }
+
+    if (!model.isPasswordEntered()) {
+      model.enterPassword(input);
+      header.setText("Enter your username");
+      inputField.clear();
+      inputField.setPromptText("Username");
       return;
     }
 
-    result = model.checkUsername(input);
+    setBusy("Joining the chat...");
+    model.login(input).whenComplete(
+        (result, error) -> Platform.runLater(() -> loggedIn(result, error)));
+  }
 
-    if (result) {
+  /**
+   * Shows the answer to the password and the username, and opens the chat if both were accepted.
+   * A rejected password is asked for again, a rejected username alone.
+   *
+   * @param result Whether the user joined, and otherwise which step was rejected, null if logging in failed
+   * @param error Why logging in failed, null if the server answered
+   * @since 1.4
+   */
+  private void loggedIn(LoginResult result, Throwable error) {
+    setIdle();
+    if (error != null) {
+      showFailure(error);
+    } else if (result == LoginResult.JOINED) {
       showSuccessBox("Welcome!");
       loadChatPage();
+    } else if (result == LoginResult.PASSWORD_REJECTED) {
+      showErrorBox("Incorrect password!");
+      header.setText(passwordHeader);
+      inputField.clear();
+      inputField.setPromptText("Password");
     } else {
       showErrorBox("Name already taken.");
     }
   }
 
+  /**
+   * Disables the input and shows what the page is waiting for.
+   *
+   * @param progress What the page is waiting for
+   * @since 1.3
+   */
+  private void setBusy(String progress) {
+    busy = true;
+    inputField.setDisable(true);
+    loginButton.setDisable(true);
+    status.setText(progress);
+  }
+
+  /**
+   * Enables the input again, once the page no longer waits.
+   *
+   * @since 1.3
+   */
+  private void setIdle() {
+    busy = false;
+    inputField.setDisable(false);
+    loginButton.setDisable(false);
+    status.setText("");
+    inputField.requestFocus();
+  }
+
+  /**
+   * Shows why connecting or logging in failed, and starts over with the password,
+   * which is checked again on a new connection.
+   *
+   * @param error Why it failed
+   * @since 1.3
+   */
+  private void showFailure(Throwable error) {
+    Throwable cause = error instanceof CompletionException && error.getCause() != null
+        ? error.getCause() : error;
+    showErrorBox(cause instanceof TimeoutException
+        ? "The server is not answering." : "Could not reach the server.");
+    status.setText("Press Enter to try again.");
+    header.setText(passwordHeader);
+    inputField.clear();
+    inputField.setPromptText("Password");
+  }
+
   /**
    * Loads the chat page.
    *
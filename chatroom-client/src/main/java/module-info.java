@@ -1,14 +1,12 @@
-module chatroom {
+module chatroom.client {
+  requires chatroom.core;
   requires java.logging;
   requires javafx.base;
   requires javafx.controls;
   requires javafx.fxml;
-  requires org.json;
 
   exports clientside.frontend;
-  exports clientside.backend;
-  exports config;
 
   opens clientside.frontend.controllers;
   exports clientside.backend.models;
-}
\ No newline at end of file
+}
@@ -0,0 +1,451 @@
+package clientside.backend;
+
+import static config.AttachmentConfig.ATTACH_COMMAND;
+import static config.AttachmentConfig.ATTACH_READY_MESSAGE;
+import static config.AttachmentConfig.ATTACH_REJECTED_MESSAGE;
+import static config.AttachmentConfig.CANCEL_COMMAND;
+import static config.AttachmentConfig.CHUNK_BYTES;
+import static config.AttachmentConfig.CHUNK_COMMAND;
+import static config.AttachmentConfig.CREDIT_COMMAND;
+import static config.AttachmentConfig.DOWNLOAD_DIRECTORY;
+import static config.AttachmentConfig.FETCH_COMMAND;
+import static config.AttachmentConfig.FILE_MESSAGE;
+import static config.AttachmentConfig.WINDOW_CHUNKS;
+
+import eventlog.EventLog;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The attachment transfers of a client, in both directions.
+ * Uploads read the file one chunk at a time on a thread of low priority, and wait for credit
+ * from the server once a window of chunks is in flight, so chat messages are never stuck behind a file.
+ * Downloads are written to disk as their chunks arrive, granting the server more credit
+ * for every half window written.
+ *
+ * <p>After the session was resumed, downloads are fetched again from the first byte missing.
+ * Uploads cannot tell which of their chunks arrived, so they are cancelled and the user is told.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+class Attachments {
+  private static final EventLog LOG = EventLog.get(Attachments.class);
+  private static final int CREDIT_BATCH = Math.max(1, WINDOW_CHUNKS / 2);
+
+  private final Client client;
+  private final AtomicLong nextTag = new AtomicLong(1);
+  private final Map<String, Outgoing> pending = new ConcurrentHashMap<>();  // By tag, until accepted
+  private final Map<String, Outgoing> uploads = new ConcurrentHashMap<>();  // By id
+  private final Map<String, Incoming> downloads = new ConcurrentHashMap<>();  // By id
+  private final ExecutorService uploader = Executors.newCachedThreadPool(task -> {
+    Thread thread = new Thread(task, "attachment-upload");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+  private volatile boolean closed;
+
+  /**
+   * A file being sent, chunk by chunk as credit allows.
+   *
+   * @version 1.0
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  private final class Outgoing implements Runnable {
+    private final Path file;
+    private final long size;
+    private final Semaphore credit = new Semaphore(0);
+    private volatile String id;
+    private volatile boolean cancelled;
+
+    /**
+     * Create an upload.
+     *
+     * @param file The file to send
+     * @param size The size of the file in bytes
+     * @since 1.0
+     */
+    private Outgoing(Path file, long size) {
+      this.file = file;
+      this.size = size;
+    }
+
+    /**
+     * Sends the chunks of the file, each once the server has credit for it.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void run() {
+      byte[] bytes = new byte[CHUNK_BYTES];
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        long offset = 0;
+        while (offset < size) {
+          credit.acquire();
+          if (cancelled) {
+            return;
+          }
+          ByteBuffer chunk = ByteBuffer.wrap(bytes, 0, (int) Math.min(CHUNK_BYTES, size - offset));
+          while (chunk.hasRemaining() && channel.read(chunk) >= 0) {
+            // Read until the chunk is full or the file ends
+          }
+          if (chunk.hasRemaining()) {
+            throw new IOException("File shrank while it was sent");
+          }
+          client.sendSymmetricEncryptedMessage(CHUNK_COMMAND + " " + id + " "
+              + Base64.getEncoder().encodeToString(Arrays.copyOf(bytes, chunk.position())));
+          offset += chunk.position();
+        }
+        LOG.info("attachment.sent", "id", id, "bytes", size);
+      } catch (IOException e) {
+        LOG.warn("attachment.upload_failed", "id", id, "error", e.getMessage());
+        client.sendSymmetricEncryptedMessage(CANCEL_COMMAND + " " + id);
+        client.updateSubscribers("Could not send " + file.getFileName() + ": " + e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        uploads.remove(id, this);
+        idle();
+      }
+    }
+
+    /**
+     * Stops sending, waking the upload if it waits for credit.
+     *
+     * @since 1.0
+     */
+    private void cancel() {
+      cancelled = true;
+      credit.release(WINDOW_CHUNKS);
+    }
+  }
+
+  /**
+   * A file being received, and written to disk as its chunks arrive.
+   * Only touched by the thread reading the connection.
+   *
+   * @version 1.0
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  private static final class Incoming {
+    private Path target;
+    private FileChannel channel;
+    private long size;
+    private long received;
+    private int uncredited;
+  }
+
+  /**
+   * Create the transfers of a client.
+   *
+   * @param client The client, which carries the chunks
+   * @since 1.0
+   */
+  Attachments(Client client) {
+    this.client = client;
+  }
+
+  /**
+   * Starts sending a file to everyone in the chat.
+   * The user is told if the file cannot be read, and the server announces it once it has all of it.
+   *
+   * @param file The file to send
+   * @since 1.0
+   */
+  void send(Path file) {
+    long size;
+    try {
+      size = Files.size(file);
+    } catch (IOException e) {
+      client.updateSubscribers("Could not read " + file + ".");
+      return;
+    }
+    String tag = Long.toString(nextTag.getAndIncrement());
+    pending.put(tag, new Outgoing(file, size));
+    client.sendSymmetricEncryptedMessage(ATTACH_COMMAND + " " + tag + " " + size + " " + file.getFileName());
+  }
+
+  /**
+   * Starts downloading an attachment into the download directory.
+   *
+   * @param id The id of the attachment, as announced by the server
+   * @since 1.0
+   */
+  void save(String id) {
+    if (downloads.putIfAbsent(id, new Incoming()) != null) {
+      client.updateSubscribers("Attachment " + id + " is already being saved.");
+      return;
+    }
+    client.sendSymmetricEncryptedMessage(FETCH_COMMAND + " " + id + " 0 " + WINDOW_CHUNKS);
+  }
+
+  /**
+   * Handles a message from the server if it is part of an attachment transfer.
+   *
+   * @param message The message
+   * @return True if the message was handled, false if it is something else
+   * @since 1.0
+   */
+  boolean handle(String message) {
+    if (!message.startsWith("/")) {
+      return false;
+    }
+    int space = message.indexOf(' ');
+    String command = space < 0 ? message : message.substring(0, space);
+    try {
+      switch (command) {
+        case CHUNK_COMMAND -> chunk(message.split(" ", 3));
+        case CREDIT_COMMAND -> credit(message.split(" "));
+        case FILE_MESSAGE -> file(message.split(" ", 4));
+        case ATTACH_READY_MESSAGE -> ready(message.split(" "));
+        case ATTACH_REJECTED_MESSAGE -> rejected(message.split(" ", 3));
+        case CANCEL_COMMAND -> cancelled(message.split(" "));
+        default -> {
+          return false;
+        }
+      }
+    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      LOG.warn("attachment.malformed", "command", command);
+    }
+    return true;
+  }
+
+  /**
+   * Starts sending the chunks of an accepted upload: {@code /attach_ready <tag> <id> <window>}.
+   *
+   * @param parts The message and its arguments
+   * @since 1.0
+   */
+  private void ready(String[] parts) {
+    Outgoing outgoing = pending.remove(parts[1]);
+    if (outgoing == null) {
+      return;
+    }
+    outgoing.id = parts[2];
+    outgoing.credit.release(Integer.parseInt(parts[3]));
+    uploads.put(outgoing.id, outgoing);
+    uploader.execute(outgoing);
+  }
+
+  /**
+   * Tells the user why the server refused an upload: {@code /attach_rejected <tag> <reason>}.
+   *
+   * @param parts The message and its arguments
+   * @since 1.0
+   */
+  private void rejected(String[] parts) {
+    Outgoing outgoing = pending.remove(parts[1]);
+    if (outgoing != null) {
+      client.updateSubscribers("Could not send " + outgoing.file.getFileName() + ": "
+          + (parts.length > 2 ? parts[2].replace('_', ' ') : "rejected"));
+      idle();
+    }
+  }
+
+  /**
+   * Lets an upload send more chunks: {@code /credit <id> <chunks>}.
+   *
+   * @param parts The message and its arguments
+   * @since 1.0
+   */
+  private void credit(String[] parts) {
+    Outgoing outgoing = uploads.get(parts[1]);
+    if (outgoing != null) {
+      outgoing.credit.release(Integer.parseInt(parts[2]));
+    }
+  }
+
+  /**
+   * Opens the file a download is written to: {@code /file <id> <size> <name>}.
+   * The header sent again when a download continues after a resume is ignored.
+   * The name given by the sender is stripped of anything that could lead outside the download directory,
+   * and prefixed with the id if a file of that name already exists.
+   *
+   * @param parts The message and its arguments
+   * @since 1.0
+   */
+  private void file(String[] parts) {
+    String id = parts[1];
+    Incoming incoming = downloads.get(id);
+    if (incoming == null || incoming.channel != null) {
+      return;
+    }
+    String name = parts[3].replaceAll("[^A-Za-z0-9._-]", "_");
+    if (name.startsWith(".")) {
+      name = "_" + name;
+    }
+    Path target = Path.of(DOWNLOAD_DIRECTORY).resolve(name);
+    if (Files.exists(target)) {
+      target = target.resolveSibling(id + "-" + name);
+    }
+    try {
+      incoming.channel = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    } catch (IOException e) {
+      downloads.remove(id);
+      client.sendSymmetricEncryptedMessage(CANCEL_COMMAND + " " + id);
+      client.updateSubscribers("Could not save attachment " + id + ": " + e.getMessage());
+      idle();
+      return;
+    }
+    incoming.target = target;
+    incoming.size = Long.parseLong(parts[2]);
+  }
+
+  /**
+   * Writes the next chunk of a download: {@code /chunk <id> <data>}.
+   *
+   * @param parts The message and its arguments
+   * @since 1.0
+   */
+  private void chunk(String[] parts) {
+    String id = parts[1];
+    Incoming incoming = downloads.get(id);
+    if (incoming == null || incoming.channel == null) {
+      return;
+    }
+    try {
+      ByteBuffer chunk = ByteBuffer.wrap(Base64.getDecoder().decode(parts[2]));
+      incoming.received += chunk.remaining();
+      while (chunk.hasRemaining()) {
+        incoming.channel.write(chunk);
+      }
+      if (incoming.received >= incoming.size) {
+        incoming.channel.close();
+        downloads.remove(id);
+        LOG.info("attachment.saved", "id", id, "bytes", incoming.size);
+        client.updateSubscribers("Saved attachment " + id + " to " + incoming.target);
+        idle();
+      } else if (++incoming.uncredited >= CREDIT_BATCH) {
+        client.sendSymmetricEncryptedMessage(CREDIT_COMMAND + " " + id + " " + incoming.uncredited);
+        incoming.uncredited = 0;
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      LOG.warn("attachment.save_failed", "id", id, "error", e.getMessage());
+      client.sendSymmetricEncryptedMessage(CANCEL_COMMAND + " " + id);
+      discard(incoming);
+      downloads.remove(id);
+      client.updateSubscribers("Could not save attachment " + id + ": " + e.getMessage());
+      idle();
+    }
+  }
+
+  /**
+   * Ends a transfer the server cancelled: {@code /cancel <id>}.
+   *
+   * @param parts The message and its arguments
+   * @since 1.0
+   */
+  private void cancelled(String[] parts) {
+    String id = parts[1];
+    Outgoing outgoing = uploads.remove(id);
+    if (outgoing != null) {
+      outgoing.cancel();
+      client.updateSubscribers("Sending " + outgoing.file.getFileName() + " failed.");
+    }
+    Incoming incoming = downloads.remove(id);
+    if (incoming != null) {
+      discard(incoming);
+      client.updateSubscribers("Attachment " + id + " is not available.");
+    }
+    idle();
+  }
+
+  /**
+   * Continues the transfers after the session was resumed on a new connection.
+   * Chunks sent while disconnected are lost: downloads are fetched again from the first byte missing,
+   * and uploads, which cannot know what arrived, are cancelled.
+   *
+   * @since 1.0
+   */
+  void resumed() {
+    for (Outgoing outgoing : pending.values()) {
+      client.updateSubscribers("Sending " + outgoing.file.getFileName() + " was interrupted, send it again.");
+    }
+    pending.clear();
+    for (Outgoing outgoing : uploads.values()) {
+      uploads.remove(outgoing.id);
+      outgoing.cancel();
+      client.sendSymmetricEncryptedMessage(CANCEL_COMMAND + " " + outgoing.id);
+      client.updateSubscribers("Sending " + outgoing.file.getFileName() + " was interrupted, send it again.");
+    }
+    downloads.forEach((id, incoming) -> {
+      incoming.uncredited = 0;
+      client.sendSymmetricEncryptedMessage(
+          FETCH_COMMAND + " " + id + " " + incoming.received + " " + WINDOW_CHUNKS);
+    });
+    idle();
+  }
+
+  /**
+   * Closes and deletes the file of a download that did not complete.
+   *
+   * @param incoming The download
+   * @since 1.0
+   */
+  private static void discard(Incoming incoming) {
+    if (incoming.channel == null) {
+      return;
+    }
+    try {
+      incoming.channel.close();
+      Files.deleteIfExists(incoming.target);
+    } catch (IOException e) {
+      LOG.warn("attachment.discard_failed", "target", incoming.target, "error", e.getMessage());
+    }
+  }
+
+  /**
+   * Wakes those waiting for the transfers to end, if none are left.
+   *
+   * @since 1.0
+   */
+  private synchronized void idle() {
+    if (closed || (pending.isEmpty() && uploads.isEmpty() && downloads.isEmpty())) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Waits until every transfer has ended, or the client was closed.
+   *
+   * @throws InterruptedException If interrupted while waiting
+   * @since 1.0
+   */
+  synchronized void awaitIdle() throws InterruptedException {
+    while (!closed && !(pending.isEmpty() && uploads.isEmpty() && downloads.isEmpty())) {
+      wait();
+    }
+  }
+
+  /**
+   * Abandons every transfer, once the client shuts down.
+   * Downloads that did not complete are deleted.
+   *
+   * @since 1.0
+   */
+  void close() {
+    closed = true;
+    uploads.values().forEach(Outgoing::cancel);
+    uploader.shutdownNow();
+    downloads.values().forEach(Attachments::discard);
+    downloads.clear();
+    pending.clear();
+    idle();
+  }
+}
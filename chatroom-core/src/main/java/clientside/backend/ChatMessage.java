@@ -0,0 +1,46 @@
+package clientside.backend;
+
+import static config.ConnectionConfig.HISTORY_ID_PREFIX;
+
+/**
+ * A message from the server, with the number the server keeps it under if it is a broadcast.
+ * Only broadcasts are numbered; replies and whispers are meant for one user, and are not kept.
+ *
+ * @param id The number of the broadcast, or 0 if the message is not numbered
+ * @param text The message
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public record ChatMessage(long id, String text) {
+
+  /**
+   * Reads the number of a broadcast off a message: {@code /id <id> <message>}.
+   *
+   * @param line The message as the server sent it, without other stamps
+   * @return The message, with the number 0 if it has none
+   * @since 1.0
+   */
+  public static ChatMessage parse(String line) {
+    if (!line.startsWith(HISTORY_ID_PREFIX + " ")) {
+      return new ChatMessage(0, line);
+    }
+    int start = HISTORY_ID_PREFIX.length() + 1;
+    int end = line.indexOf(' ', start);
+    try {
+      return new ChatMessage(Long.parseLong(end < 0 ? "" : line.substring(start, end)), line.substring(end + 1));
+    } catch (NumberFormatException e) {
+      return new ChatMessage(0, line);
+    }
+  }
+
+  /**
+   * Checks whether the server keeps the message, so that it can be asked for again.
+   *
+   * @return True if the message is a numbered broadcast
+   * @since 1.0
+   */
+  public boolean isNumbered() {
+    return id > 0;
+  }
+}
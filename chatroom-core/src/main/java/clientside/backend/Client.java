@@ -0,0 +1,1263 @@
+package clientside.backend;
+
+import static config.AttachmentConfig.SAVE_FILE_COMMAND;
+import static config.AttachmentConfig.SEND_FILE_COMMAND;
+import static config.ConnectionConfig.ACK_COMMAND;
+import static config.ConnectionConfig.ACK_INTERVAL;
+import static config.ConnectionConfig.CONNECT_TIMEOUT_MILLIS;
+import static config.ConnectionConfig.FAST_LOGIN;
+import static config.ConnectionConfig.HISTORY_COMMAND;
+import static config.ConnectionConfig.HISTORY_END_MESSAGE;
+import static config.ConnectionConfig.HISTORY_ID_PREFIX;
+import static config.ConnectionConfig.HISTORY_MESSAGE;
+import static config.ConnectionConfig.LOGIN_COMMAND;
+import static config.ConnectionConfig.LOGIN_FAILED_MESSAGE;
+import static config.ConnectionConfig.LOGIN_STEP_PASSWORD;
+import static config.ConnectionConfig.PASSWORD_SUCCESS_MESSAGE;
+import static config.ConnectionConfig.PING_MESSAGE;
+import static config.ConnectionConfig.PONG_MESSAGE;
+import static config.ConnectionConfig.REATTACH_COMMAND;
+import static config.ConnectionConfig.REORDER_LIMIT;
+import static config.ConnectionConfig.RESUMED_MESSAGE;
+import static config.ConnectionConfig.RESUME_ATTEMPTS;
+import static config.ConnectionConfig.RESUME_BACKOFF_MILLIS;
+import static config.ConnectionConfig.RESUME_COMMAND;
+import static config.ConnectionConfig.RESUME_FAILED_MESSAGE;
+import static config.ConnectionConfig.SECRET_KEY_COMMAND;
+import static config.ConnectionConfig.SEQUENCED_CONTROL_PREFIX;
+import static config.ConnectionConfig.SEQUENCED_PREFIX;
+import static config.ConnectionConfig.SERVER_BUSY_MESSAGE;
+import static config.ConnectionConfig.SERVER_CLOSING_NOTICE;
+import static config.ConnectionConfig.SESSION_TOKEN_MESSAGE;
+import static config.ConnectionConfig.STANDBY_MESSAGE;
+import static config.ConnectionConfig.TLS_READY_MESSAGE;
+import static config.ConnectionConfig.TRACE_COMMAND;
+import static config.ConnectionConfig.TRACE_RATE_MESSAGE;
+import static config.ConnectionConfig.USERNAME_SUCCESS_MESSAGE;
+import static config.UserConfig.QUIT_COMMAND;
+import static config.UserConfig.TYPING_COMMAND;
+import static config.UserConfig.TYPING_DEBOUNCE_MILLIS;
+import static config.UserConfig.TYPING_NAME_SEPARATOR;
+import static eventlog.EventLogConfig.HIGH_VOLUME_SAMPLE_RATE;
+import static keyGen.KeyConfig.ASYMMETRIC_ALGORITHM_CREATE_KEY;
+import static keyGen.KeyConfig.ASYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT;
+import static keyGen.KeyConfig.SYMMETRIC_ALGORITHM_CREATE_KEY;
+import static keyGen.KeyConfig.SYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT;
+
+import config.ConnectionConfig;
+import eventlog.EventLog;
+import eventlog.Sampler;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.security.KeyFactory;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import keyGen.KeyClass;
+import keyGen.TlsTransport;
+import keyGen.TransportMode;
+
+/**
+ * The client class is responsible for handling the client side of the chatroom.
+ * Once logged in, messages from the server are numbered. The client acknowledges them now and then,
+ * and if the connection is lost, reconnects and resumes its session from the last message it received.
+ * Files are shared and saved with {@code /send <path>} and {@code /save <id>}, see {@link Attachments}.
+ * Replies may overtake broadcasts the server sent earlier, so numbered messages can arrive out of order.
+ *
+ * <p>With fast login, the client chooses the AES key of the connection itself,
+ * and sends it with the password and the username in a single flight once the server's public key
+ * has arrived, instead of taking three round trips for the key, the password and the username.
+ *
+ * <p>Connecting and the key exchange give up after a timeout, so a client connecting in the background
+ * is never stuck on an unreachable or unresponsive server.
+ *
+ * <p>While the user types, the server is told so at most once per debounce interval,
+ * and who else is typing is passed on to the subscribers, see {@link RecieveChatObserver#typingChanged}.
+ *
+ * <p>When the server asks for it, some chat messages are traced from the sender's send to the screen,
+ * and the latencies are reported to the server now and then, see {@link LatencyTracker}.
+ *
+ * <p>Broadcasts come numbered, and are passed on with their numbers, see {@link ChatMessage}.
+ * Subscribers that keep messages of their own ask for only the broadcasts newer than their last one,
+ * see {@link #requestHistory}.
+ *
+ * <p>A server with a standby tells the client where the standby is. If the server fails, or shuts down,
+ * the client resumes its session on the standby, which took it over, without exchanging keys or logging in,
+ * and the standby is the server from then on, see {@link #failOver}.
+ *
+ * @version 1.15
+ * @author Jonas Birkeli
+ * @since 09.06.2024
+ */
+public class Client extends KeyClass implements Runnable {
+  private static final EventLog LOG = EventLog.get(Client.class);
+  private static final Sampler MESSAGE_SAMPLER = new Sampler(HIGH_VOLUME_SAMPLE_RATE);
+
+  private volatile String host;  // Of the standby, once the client failed over
+  private volatile int port;
+  private final TransportMode transport;
+  private boolean fastLogin;
+
+  private volatile Socket socket;
+  private volatile BufferedReader in;
+  private volatile PrintWriter out;
+
+  private volatile boolean running = true;
+  private int retryAfterSeconds = -1;
+  private String loginMessage;  // Why the last login was rejected
+  private volatile String username;  // Set once logged in
+  private volatile long typingSignalledAt;  // When the server was last told the user is typing
+  private volatile String resumeToken;  // Set once logged in
+  private long lastSequence;  // Every numbered message up to this one was received
+  private final TreeMap<Long, String> receivedAhead = new TreeMap<>();  // Broadcasts held back behind a gap
+  private final TreeSet<Long> shownAhead = new TreeSet<>();  // Control messages shown beyond a gap
+  private long lastAcknowledged;
+  private ExecutorService pool;
+  private final Attachments attachments = new Attachments(this);
+  private final LatencyTracker latency = new LatencyTracker();
+  private final List<ChatMessage> history = new ArrayList<>();  // Of a history on its way, read by the input handler
+  private volatile long lastBroadcastId;  // The number of the latest broadcast received
+  private volatile Standby standby;  // Where to resume if the server fails, null if there is none
+
+  /**
+   * A standby of the server, as the server announced it.
+   *
+   * @param host The host of the standby
+   * @param port The port clients connect to once the standby took over
+   * @param reattachPort The port clients of the failed server resume their sessions on
+   */
+  private record Standby(String host, int port, int reattachPort) {}
+
+  private static volatile Client instance;
+
+  private final List<RecieveChatObserver> observers;
+  private final CountDownLatch disconnected = new CountDownLatch(1);
+
+  /**
+   * Constructor for the client class.
+   * It creates the streams for the client.
+   * No RSA key pair is generated when the connection uses TLS, or the client logs in fast.
+   *
+   * @param host The host of the server
+   * @param port The port of the server
+   * @param transport How the connection is protected
+   * @param fastLogin Whether to log in with a single flight
+   * @throws ConnectionFailedException If the connection to the server fails
+   * @since 1.2
+   */
+  private Client(String host, int port, TransportMode transport, boolean fastLogin)
+      throws ConnectionFailedException {
+    super(transport == TransportMode.RSA_AES && !fastLogin);
+    this.host = host;
+    this.port = port;
+    this.transport = transport;
+    this.fastLogin = fastLogin;
+    observers = new ArrayList<>();
+    createStreams();
+  }
+
+  /**
+   * Open a new connection to a server, independent of the shared instance.
+   * Used by tools that need several connections in one process, such as benchmarks.
+   *
+   * @param host The host of the server
+   * @param port The port of the server
+   * @param transport How the connection is protected
+   * @return The connected client
+   * @throws ConnectionFailedException If the connection to the server fails
+   * @since 1.5
+   */
+  public static Client connect(String host, int port, TransportMode transport)
+      throws ConnectionFailedException {
+    return connect(host, port, transport, FAST_LOGIN);
+  }
+
+  /**
+   * Open a new connection to a server, independent of the shared instance,
+   * choosing whether to log in fast.
+   *
+   * @param host The host of the server
+   * @param port The port of the server
+   * @param transport How the connection is protected
+   * @param fastLogin Whether to log in with a single flight, see {@link #attemptLogin}
+   * @return The connected client
+   * @throws ConnectionFailedException If the connection to the server fails
+   * @since 1.9
+   */
+  public static Client connect(String host, int port, TransportMode transport, boolean fastLogin)
+      throws ConnectionFailedException {
+    return new Client(host, port, transport, fastLogin);
+  }
+
+  /**
+   * Get the instance of the client.
+   * If the instance is null, a new instance is created.
+   *
+   * @return The instance of the client
+   * @throws ConnectionFailedException If the connection to the server fails
+   * @since 1.2
+   */
+  public static Client getInstance() throws ConnectionFailedException {
+    if (instance == null) {
+      try {
+        instance = new Client(ConnectionConfig.SERVER_HOST, ConnectionConfig.SERVER_PORT,
+            ConnectionConfig.TRANSPORT, FAST_LOGIN);
+      } catch (ConnectionFailedException e) {
+        throw new ConnectionFailedException("Failed to connect to server" + e.getMessage());
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * Connects to the server and sets up the protection of the connection.
+   * When logging in fast, the AES key is only queued, to go out with the first message.
+   *
+   * @throws ConnectionFailedException If the connection to the server fails
+   * @since 1.0
+   */
+  public synchronized void createStreams() throws ConnectionFailedException {
+    try {
+      if (transport == TransportMode.TLS) {
+        socket = TlsTransport.createSocket(host, port, CONNECT_TIMEOUT_MILLIS);
+      } else {
+        socket = new Socket();
+        socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT_MILLIS);
+      }
+      socket.setTcpNoDelay(true);  // Chat lines are small and latency sensitive
+      socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);  // Until the key exchange is done
+
+      // Not auto-flushing, so that pipelined sends can share a single flush
+      out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())));
+      in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+      if (transport == TransportMode.TLS) {
+        awaitTlsReady();
+      } else {
+        receiveOtherPartyPublicKeyFromServer();
+        if (fastLogin) {
+          queueSecretKey();
+        } else {
+          sendPublicKeyToServer();
+          receiveSecretKeyFromServer();
+        }
+      }
+      if (socket.isClosed()) {
+        throw new IOException("Key exchange failed");
+      }
+      socket.setSoTimeout(0);
+
+    } catch (IOException e) {
+      LOG.error("connect.failed", "error", e.getMessage());
+      closeConnection();
+      throw new ConnectionFailedException("Failed to connect to server" + e.getMessage());
+    }
+  }
+
+  @Override
+  public void run() {
+    pool = Executors.newCachedThreadPool();
+    pool.execute(new InputHandler());
+  }
+
+  /**
+   * Receive a symmetrically encrypted message from the server.
+   * The Message is decrypted before being returned.
+   *
+   * @return The decrypted message
+   * @since 1.3
+   */
+  public String receiveSymmetricEncryptedMessage() {
+    try {
+      String input = in.readLine();
+      String decryptedMessage = symmetricDecryptMessage(input);
+
+      if (input == null || decryptedMessage == null) {
+        return null;
+      }
+
+      if (LOG.isDebugEnabled() && MESSAGE_SAMPLER.sample()) {
+        LOG.debug("message.received", "body", EventLog.body(decryptedMessage));
+      }
+      return decryptedMessage;
+    } catch (IOException e) {
+      LOG.error("read.failed", "error", e.getMessage());
+      shutdown();
+    }
+    return null;
+  }
+
+  /**
+   * Send a symmetrically encrypted message to the server.
+   * If the encryption fails, a message is logged, and the client is shut down.
+   *
+   * @param message The message to send
+   * @since 1.3
+   */
+  public void sendSymmetricEncryptedMessage(String message) {
+    queueSymmetricEncryptedMessage(message);
+    flush();
+  }
+
+  /**
+   * Encrypt a message and write it to the outgoing buffer without flushing.
+   * Used to pipeline several messages onto the socket before a single {@link #flush()}.
+   *
+   * @param message The message to queue
+   * @since 1.4
+   */
+  public synchronized void queueSymmetricEncryptedMessage(String message) {
+    boolean chat = !message.startsWith("/");
+    String encryptedMessage = symmetricEncryptMessage(chat ? latency.stamp(message) : message);
+    out.println(encryptedMessage);
+    if (chat) {
+      typingSignalledAt = 0;  // The server ends the user's typing with the message
+    }
+
+    if (LOG.isDebugEnabled() && MESSAGE_SAMPLER.sample()) {
+      LOG.debug("message.sent", "body", EventLog.body(message));
+    }
+  }
+
+  /**
+   * Asks the server for the broadcasts newer than the last one the subscribers have.
+   * They arrive all at once, see {@link RecieveChatObserver#receiveHistory}.
+   *
+   * @param after The number of the last broadcast the subscribers have, 0 for none
+   * @since 1.13
+   */
+  public void requestHistory(long after) {
+    sendSymmetricEncryptedMessage(HISTORY_COMMAND + " " + after);
+  }
+
+  /**
+   * Tells the server that the user is typing, unless it was told so recently.
+   * Called on every keystroke; only one signal per debounce interval is sent.
+   * Nothing is sent before the user has joined.
+   *
+   * @since 1.11
+   */
+  public void typing() {
+    long now = System.currentTimeMillis();
+    if (username == null || now - typingSignalledAt < TYPING_DEBOUNCE_MILLIS) {
+      return;
+    }
+    typingSignalledAt = now;
+    sendSymmetricEncryptedMessage(TYPING_COMMAND);
+  }
+
+  /**
+   * Tells the subscribers who is typing, from an update of the server: {@code /typing <count> [names]}.
+   * The user is left out of the names; without names, only the count is told.
+   *
+   * @param update The update
+   * @since 1.11
+   */
+  private void typingUpdated(String update) {
+    String[] parts = update.split(" ", 3);
+    int count;
+    try {
+      count = Integer.parseInt(parts[1]);
+    } catch (NumberFormatException e) {
+      return;
+    }
+    String description;
+    if (parts.length < 3) {
+      description = count == 0 ? "" : count + " people are typing...";
+    } else {
+      List<String> names = new ArrayList<>(List.of(parts[2].split(TYPING_NAME_SEPARATOR)));
+      names.remove(username);
+      description = switch (names.size()) {
+        case 0 -> "";
+        case 1 -> names.get(0) + " is typing...";
+        default -> String.join(", ", names.subList(0, names.size() - 1))
+            + " and " + names.get(names.size() - 1) + " are typing...";
+      };
+    }
+    for (RecieveChatObserver observer : observers) {
+      observer.typingChanged(description);
+    }
+  }
+
+  /**
+   * Flush all queued messages to the server.
+   *
+   * @since 1.4
+   */
+  public synchronized void flush() {
+    out.flush();
+  }
+
+  /**
+   * Starts a file transfer if the input is {@code /send <path>} or {@code /save <id>}.
+   * The transfer runs in the background, and its outcome is told to the subscribers.
+   *
+   * @param input The input from the user
+   * @return True if the input was a file transfer command, false if it should be sent as it is
+   * @since 1.7
+   */
+  public boolean handleIfAttachmentCommand(String input) {
+    String[] parts = input.split(" ", 2);
+    if (!parts[0].equals(SEND_FILE_COMMAND) && !parts[0].equals(SAVE_FILE_COMMAND)) {
+      return false;
+    }
+    if (parts.length < 2 || parts[1].isBlank()) {
+      updateSubscribers("Usage: " + SEND_FILE_COMMAND + " <path>, " + SAVE_FILE_COMMAND + " <id>");
+      return true;
+    }
+    if (parts[0].equals(SAVE_FILE_COMMAND)) {
+      attachments.save(parts[1].trim());
+      return true;
+    }
+    try {
+      attachments.send(Path.of(parts[1].trim()));
+    } catch (InvalidPathException e) {
+      updateSubscribers("Could not read " + parts[1] + ".");
+    }
+    return true;
+  }
+
+  /**
+   * Wait until every file transfer has ended, or the client has shut down.
+   *
+   * @since 1.7
+   */
+  public void awaitTransfers() {
+    try {
+      attachments.awaitIdle();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Wait until the connection to the server has been closed.
+   *
+   * @param timeoutMillis The maximum time to wait
+   * @return True if the connection closed within the timeout, false otherwise
+   * @since 1.4
+   */
+  public boolean awaitDisconnect(long timeoutMillis) {
+    try {
+      return disconnected.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Encrypt the message using symmetric encryption, allowing for longer messages.
+   * If the encryption fails, a message is logged, and null is returned.
+   *
+   * @param message The message to encrypt
+   * @return The encrypted message
+   * @since 1.3
+   */
+  private String symmetricEncryptMessage(String message) {
+    if (transport == TransportMode.TLS) {
+      return TlsTransport.escape(message);
+    }
+    try {
+      Cipher cipher = Cipher.getInstance(SYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT);
+      cipher.init(Cipher.ENCRYPT_MODE, getSecretKey());
+      byte[] encryptedMessageBytes = cipher.doFinal(message.getBytes());
+      return Base64.getEncoder().encodeToString(encryptedMessageBytes);
+    } catch (Exception e) {
+      LOG.error("encrypt.failed", "error", e.getMessage());
+      shutdown();
+    }
+    return null;
+  }
+
+  /**
+   * Decrypt the message using symmetric decryption.
+   * If the decryption fails, a message is logged, and null is returned.
+   *
+   * @param encryptedMessage The message to decrypt
+   * @return The decrypted message
+   * @since 1.3
+   */
+  private String symmetricDecryptMessage(String encryptedMessage) {
+    if (encryptedMessage == null) {
+      return null;
+    }
+    if (transport == TransportMode.TLS) {
+      return TlsTransport.unescape(encryptedMessage);
+    }
+    try {
+      Cipher cipher = Cipher.getInstance(SYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT);
+      cipher.init(Cipher.DECRYPT_MODE, getSecretKey());
+      byte[] decryptedMessageBytes = cipher.doFinal(Base64.getDecoder().decode(encryptedMessage));
+      return new String(decryptedMessageBytes);
+    } catch (Exception e) {
+      LOG.error("decrypt.failed", "error", e.getMessage());
+      shutdown();
+    }
+    return null;
+  }
+
+  /**
+   * Log in with the password and the username at once.
+   * With fast login, both are sent in one message, in the same flight as the AES key,
+   * and the server answers once. Otherwise, or if the username contains a space,
+   * they are sent one after the other, each waiting for its answer.
+   * A server that does not know fast login closes the connection;
+   * the client then reconnects and logs in step by step.
+   *
+   * @param password The password
+   * @param username The username
+   * @return Whether the user joined, and otherwise which step failed, see {@link #getLoginMessage()}
+   * @since 1.9
+   */
+  public LoginResult attemptLogin(String password, String username) {
+    if (!fastLogin || username.contains(" ")) {
+      return attemptStepByStepLogin(password, username);
+    }
+    sendSymmetricEncryptedMessage(LOGIN_COMMAND + " " + username + " " + password);
+    String response = receiveSymmetricEncryptedMessage();
+    if (response == null) {
+      if (!running) {
+        return LoginResult.FAILED;
+      }
+      LOG.warn("login.fast_unsupported");
+      fastLogin = false;
+      if (transport == TransportMode.RSA_AES) {
+        generateKeys();
+      }
+      closeConnection();
+      try {
+        createStreams();
+      } catch (ConnectionFailedException e) {
+        return LoginResult.FAILED;
+      }
+      return attemptStepByStepLogin(password, username);
+    }
+    if (response.equals(USERNAME_SUCCESS_MESSAGE)) {
+      this.username = username;
+      startInputHandlerThread();
+      return LoginResult.JOINED;
+    }
+    if (response.startsWith(LOGIN_FAILED_MESSAGE + " ")) {
+      String[] parts = response.split(" ", 3);
+      loginMessage = parts.length > 2 ? parts[2] : null;
+      return parts[1].equals(LOGIN_STEP_PASSWORD)
+          ? LoginResult.PASSWORD_REJECTED : LoginResult.USERNAME_REJECTED;
+    }
+    return LoginResult.FAILED;
+  }
+
+  /**
+   * Log in with the password, then with the username, each waiting for its answer.
+   *
+   * @param password The password
+   * @param username The username
+   * @return Whether the user joined, and otherwise which step failed
+   * @since 1.9
+   */
+  private LoginResult attemptStepByStepLogin(String password, String username) {
+    if (!attemptPasswordLogin(password)) {
+      loginMessage = "Incorrect password.";
+      return LoginResult.PASSWORD_REJECTED;
+    }
+    return attemptUsernameLogin(username) ? LoginResult.JOINED : LoginResult.USERNAME_REJECTED;
+  }
+
+  /**
+   * Get why the server rejected the last login.
+   *
+   * @return The reason given by the server, or null if none was given
+   * @since 1.9
+   */
+  public String getLoginMessage() {
+    return loginMessage;
+  }
+
+  /**
+   * Get the host of the server the client connects to, which is the standby once the client failed over.
+   *
+   * @return The host
+   * @since 1.13
+   */
+  public String getHost() {
+    return host;
+  }
+
+  /**
+   * Get the port of the server the client connects to, which is the standby's once the client failed over.
+   *
+   * @return The port
+   * @since 1.13
+   */
+  public int getPort() {
+    return port;
+  }
+
+  /**
+   * Attempt to log in with a password.
+   * If the password is correct, the user is logged in.
+   *
+   * @param password The password to attempt to log in with
+   * @return True if the password is correct, false otherwise
+   * @since 1.3
+   */
+  public boolean attemptPasswordLogin(String password) {
+    sendSymmetricEncryptedMessage(password);
+
+    String response = receiveSymmetricEncryptedMessage();
+    return PASSWORD_SUCCESS_MESSAGE.equals(response);
+  }
+
+  /**
+   * Attempt to login with a username.
+   *
+   * @param username The username to attempt to log in with
+   * @return True if the username is accepted, false otherwise
+   * @since 1.3
+   */
+  public boolean attemptUsernameLogin(String username) {
+    sendSymmetricEncryptedMessage(username);
+
+    String response = receiveSymmetricEncryptedMessage();
+
+    if (response == null) {
+      return false;
+    }
+
+    // Start the input handler if the username is accepted
+    if (response.equals(USERNAME_SUCCESS_MESSAGE)) {
+      this.username = username;
+      startInputHandlerThread();
+      return true;
+    }
+    loginMessage = response;
+    return false;
+  }
+
+  /**
+   * Start the input handler thread.
+   *
+   * @since 1.3
+   */
+  private void startInputHandlerThread() {
+    this.run();
+  }
+
+  /**
+   * Shuts down the shared instance, if there is one, without connecting.
+   * The next call to {@link #getInstance()} connects anew.
+   *
+   * @since 1.10
+   */
+  public static void shutdownInstance() {
+    Client current = instance;
+    instance = null;
+    if (current != null) {
+      current.shutdown();
+    }
+  }
+
+  /**
+   * Checks whether the client is still connected, and has not been shut down.
+   *
+   * @return True if the connection is open
+   * @since 1.10
+   */
+  public boolean isConnected() {
+    Socket current = socket;
+    return running && current != null && !current.isClosed();
+  }
+
+  /**
+   * Stops the thread and closes the socket.
+   *
+   * @since 1.0
+   */
+  public void shutdown() {
+    running = false;
+    disconnected.countDown();
+
+    if (pool != null) {
+      pool.shutdown();
+    }
+    attachments.close();
+    closeConnection();
+  }
+
+  /**
+   * Closes the socket, leaving the client free to reconnect.
+   *
+   * @since 1.6
+   */
+  private void closeConnection() {
+    try {
+      if (socket != null) {
+        socket.close();
+      }
+    } catch (IOException ignored) {
+    }
+  }
+
+  /**
+   * Reconnects after the connection was lost, and resumes the session on the server.
+   * The server replays every message after the last one received, so none are lost or repeated.
+   * Nothing is sent while the connection is replaced.
+   * Gives up after the configured number of attempts, or once the server no longer has the session.
+   * Each attempt that cannot reach the server tries the standby, if there is one.
+   *
+   * @return True if the session was resumed
+   * @since 1.6
+   */
+  private boolean resumeSession() {
+    String token = resumeToken;
+    if (token == null) {
+      return false;  // Not logged in, nothing to resume
+    }
+    for (int attempt = 1; attempt <= RESUME_ATTEMPTS && running; attempt++) {
+      try {
+        Thread.sleep(RESUME_BACKOFF_MILLIS * attempt);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return false;
+      }
+      synchronized (this) {
+        try {
+          closeConnection();
+          createStreams();
+          sendSymmetricEncryptedMessage(RESUME_COMMAND + " " + token + " " + lastSequence + " " + lastBroadcastId);
+          String reply = symmetricDecryptMessage(in.readLine());
+          if (reply != null && reply.startsWith(RESUMED_MESSAGE)) {
+            lastAcknowledged = lastSequence;  // The server dropped what it no longer has to replay
+            LOG.info("connection.resumed", "attempt", attempt, "last_seen", lastSequence);
+            return true;
+          }
+          if (reply != null && reply.startsWith(SERVER_CLOSING_NOTICE + " ")) {
+            handleClosingNotice(reply);
+          }
+          LOG.warn("connection.resume_rejected", "reply", reply);
+          return false;
+        } catch (ConnectionFailedException | IOException e) {
+          LOG.warn("connection.resume_failed", "attempt", attempt, "error", e.getMessage());
+          if (failOver(token)) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Resumes the session on the standby, which took it over from the failed server.
+   * The standby knows the AES key of the session, so no keys are exchanged: the client names its session
+   * by an id that does not give the token away, and proves it has the key with its resume request,
+   * which also tells the last broadcast it received. The standby then gives the session a new token.
+   * The standby numbers its messages on from the last one the client received, and sends the broadcasts missed.
+   * From then on, the standby is the server. A standby that has not taken over yet refuses the connection.
+   *
+   * @param token The resume token
+   * @return True if the session was resumed on the standby
+   * @since 1.14
+   */
+  private synchronized boolean failOver(String token) {
+    Standby target = standby;
+    if (target == null || transport != TransportMode.RSA_AES) {
+      return false;
+    }
+    try {
+      closeConnection();
+      socket = new Socket();
+      socket.connect(new InetSocketAddress(target.host(), target.reattachPort()), CONNECT_TIMEOUT_MILLIS);
+      socket.setTcpNoDelay(true);
+      socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+      out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(socket.getOutputStream())));
+      in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+
+      out.println(REATTACH_COMMAND + " " + sessionId(token));  // In plain text, the standby looks up the key by it
+      sendSymmetricEncryptedMessage(RESUME_COMMAND + " " + token + " " + lastSequence + " " + lastBroadcastId);
+      String reply = in.readLine();
+      if (reply == null || reply.equals(RESUME_FAILED_MESSAGE) || reply.equals(SERVER_BUSY_MESSAGE)) {
+        LOG.warn("connection.failover_rejected", "reply", reply);
+        closeConnection();
+        return false;
+      }
+      reply = symmetricDecryptMessage(reply);
+      if (reply == null || !reply.startsWith(RESUMED_MESSAGE)) {
+        LOG.warn("connection.failover_rejected", "reply", reply);
+        closeConnection();
+        return false;
+      }
+      socket.setSoTimeout(0);
+      host = target.host();
+      port = target.port();
+      standby = null;
+      receivedAhead.clear();  // The standby numbers anew from the last message received
+      shownAhead.clear();
+      lastAcknowledged = lastSequence;
+      LOG.info("connection.failed_over", "host", host, "port", port, "last_seen", lastSequence);
+      return true;
+    } catch (IOException e) {
+      LOG.warn("connection.failover_failed", "error", e.getMessage());
+      closeConnection();
+      return false;
+    }
+  }
+
+  /**
+   * Remembers the standby of the server: {@code /standby <host> <port> <reattach port>}.
+   *
+   * @param notice The notice of the server
+   * @since 1.14
+   */
+  private void standbyAnnounced(String notice) {
+    String[] parts = notice.split(" ");
+    try {
+      standby = new Standby(parts[1], Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+      LOG.info("connection.standby", "host", parts[1], "port", parts[2]);
+    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      LOG.warn("connection.malformed_standby", "notice", notice);
+    }
+  }
+
+  /**
+   * Accepts a numbered message from the server, and acknowledges it once enough have arrived.
+   * Messages already received, such as those replayed after a resume, are skipped.
+   * Replies and notices, marked as control messages, overtake a backlog of broadcasts on their way
+   * and are shown as they arrive. A broadcast that arrives beyond a gap in the numbers is held back until
+   * the gap fills, so broadcasts are shown in the order of their numbers.
+   * Only the messages up to the first gap are acknowledged, or resumed from; control messages shown already
+   * are skipped when they are replayed.
+   * If more than the reorder limit are beyond the gap, it is not going to fill; the connection is dropped,
+   * and the session resumed from the gap.
+   *
+   * @param message The message, starting with either sequenced prefix and the sequence number
+   * @return The messages without their numbers to handle now, none if the message was already received
+   *     or is held back
+   * @since 1.6
+   */
+  private List<String> acceptSequenced(String message) {
+    boolean control = message.startsWith(SEQUENCED_CONTROL_PREFIX + " ");
+    int start = (control ? SEQUENCED_CONTROL_PREFIX : SEQUENCED_PREFIX).length() + 1;
+    int end = message.indexOf(' ', start);
+    long sequence;
+    try {
+      sequence = Long.parseLong(end < 0 ? "" : message.substring(start, end));
+    } catch (NumberFormatException e) {
+      return List.of(message);
+    }
+    if (sequence <= lastSequence || receivedAhead.containsKey(sequence) || shownAhead.contains(sequence)) {
+      return List.of();
+    }
+    String body = message.substring(end + 1);
+    if (sequence != lastSequence + 1) {
+      if (receivedAhead.size() + shownAhead.size() >= REORDER_LIMIT) {
+        LOG.warn("connection.reorder_overflow", "last_seen", lastSequence,
+            "held", receivedAhead.size() + shownAhead.size());
+        closeConnection();  // Resumed from the gap by the input handler
+        return List.of();
+      }
+      if (control) {
+        shownAhead.add(sequence);
+        return List.of(body);
+      }
+      receivedAhead.put(sequence, body);
+      return List.of();
+    }
+    List<String> inOrder = new ArrayList<>();
+    inOrder.add(body);
+    lastSequence = sequence;
+    while (true) {
+      if (shownAhead.remove(lastSequence + 1)) {
+        lastSequence++;
+        continue;
+      }
+      String next = receivedAhead.remove(lastSequence + 1);
+      if (next == null) {
+        break;
+      }
+      inOrder.add(next);
+      lastSequence++;
+    }
+    if (lastSequence - lastAcknowledged >= ACK_INTERVAL) {
+      lastAcknowledged = lastSequence;
+      sendSymmetricEncryptedMessage(ACK_COMMAND + " " + lastSequence);
+    }
+    return inOrder;
+  }
+
+  /**
+   * Wait for the server to accept a TLS connection.
+   *
+   * @throws IOException If the server closed the connection
+   * @throws ConnectionFailedException If the server is too busy to take the connection
+   * @since 1.5
+   */
+  private void awaitTlsReady() throws IOException, ConnectionFailedException {
+    String greeting = in.readLine();
+    if (SERVER_BUSY_MESSAGE.equals(greeting)) {
+      LOG.warn("connect.rejected_busy");
+      closeConnection();
+      throw new ConnectionFailedException("Server is busy, try again later");
+    }
+    if (!TLS_READY_MESSAGE.equals(greeting)) {
+      throw new IOException("Unexpected greeting from server");
+    }
+  }
+
+  /**
+   * Receive the public key of the other party from the server.
+   *
+   * @throws ConnectionFailedException If the server is too busy to take the connection
+   * @since 1.1
+   */
+  private void receiveOtherPartyPublicKeyFromServer() throws ConnectionFailedException {
+    try {
+      String serverPublicKeyString = in.readLine();
+      if (SERVER_BUSY_MESSAGE.equals(serverPublicKeyString)) {
+        LOG.warn("connect.rejected_busy");
+        closeConnection();
+        throw new ConnectionFailedException("Server is busy, try again later");
+      }
+      byte[] serverPublicKeyBytes = Base64.getDecoder().decode(serverPublicKeyString);
+      X509EncodedKeySpec spec = new X509EncodedKeySpec(serverPublicKeyBytes);
+      KeyFactory keyFactory = KeyFactory.getInstance(ASYMMETRIC_ALGORITHM_CREATE_KEY);
+
+      setOtherPartyPublicKey(keyFactory.generatePublic(spec));
+
+    } catch (ConnectionFailedException e) {
+      throw e;
+    } catch (Exception e) {
+      LOG.error("handshake.public_key_failed", "error", e.getMessage());
+      closeConnection();
+    }
+  }
+
+  /**
+   * Receive the secret key from the server.
+   * The server may still turn the client away as busy before it works on the client's public key.
+   *
+   * @throws ConnectionFailedException If the server is too busy to take the connection
+   * @since 1.3
+   */
+  private void receiveSecretKeyFromServer() throws ConnectionFailedException {
+    try {
+      String encryptedKey = in.readLine();
+      if (SERVER_BUSY_MESSAGE.equals(encryptedKey)) {
+        LOG.warn("connect.rejected_busy");
+        closeConnection();
+        throw new ConnectionFailedException("Server is busy, try again later");
+      }
+      Cipher cipher = Cipher.getInstance(ASYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT);
+      cipher.init(Cipher.DECRYPT_MODE, getPrivateKey());
+      byte[] decryptedMessageBytes = cipher.doFinal(Base64.getDecoder().decode(encryptedKey));
+      String serverSecretKeyString = new String(decryptedMessageBytes);
+      byte[] serverSecretKeyBytes = Base64.getDecoder().decode(serverSecretKeyString);
+      setSecretKey(new SecretKeySpec(serverSecretKeyBytes, SYMMETRIC_ALGORITHM_CREATE_KEY));
+    } catch (ConnectionFailedException e) {
+      throw e;
+    } catch (Exception e) {
+      LOG.error("handshake.secret_key_failed", "error", e);
+      closeConnection();
+    }
+  }
+
+  /**
+   * Choose the AES key of the connection, and queue it for the server,
+   * encrypted with the server's public key.
+   * It is sent with the first message, so the login takes no round trip of its own.
+   *
+   * @throws IOException If the key cannot be encrypted
+   * @since 1.9
+   */
+  private void queueSecretKey() throws IOException {
+    generateAESKey();
+    try {
+      Cipher cipher = Cipher.getInstance(ASYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT);
+      cipher.init(Cipher.ENCRYPT_MODE, getOtherPartyPublicKey());
+      String key = Base64.getEncoder().encodeToString(getSecretKey().getEncoded());
+      out.println(SECRET_KEY_COMMAND + " "
+          + Base64.getEncoder().encodeToString(cipher.doFinal(key.getBytes())));
+    } catch (Exception e) {
+      throw new IOException("Failed to encrypt the secret key", e);
+    }
+  }
+
+  /**
+   * Send the public key to the server.
+   *
+   * @since 1.1
+   */
+  private void sendPublicKeyToServer() {
+    String publicKeyString = Base64.getEncoder().encodeToString(getPublicKey().getEncoded());
+    out.println(publicKeyString);
+    out.flush();
+  }
+
+  /**
+   * Handle the notice sent by the server when it is shutting down.
+   * Remembers the retry-after hint and tells the subscribers.
+   *
+   * @param notice The closing notice, followed by the retry-after time in seconds
+   * @since 1.4
+   */
+  private void handleClosingNotice(String notice) {
+    try {
+      retryAfterSeconds = Integer.parseInt(notice.substring(SERVER_CLOSING_NOTICE.length()).trim());
+    } catch (NumberFormatException e) {
+      retryAfterSeconds = 0;
+    }
+    updateSubscribers("Server is shutting down. Try again in " + retryAfterSeconds + " seconds.");
+  }
+
+  /**
+   * Get how long the server asked the client to wait before reconnecting.
+   *
+   * @return The retry-after time in seconds, or -1 if the server did not send one
+   * @since 1.4
+   */
+  public int getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+
+  /**
+   * Add a subscriber to the client.
+   *
+   * @param observer The subscriber to add
+   * @since 1.1
+   */
+  public void addSubscriber(RecieveChatObserver observer) {
+    observers.add(observer);
+  }
+
+  /**
+   * Remove a subscriber from the client.
+   * If the subscriber is not found, nothing happens.
+   *
+   * @param observer The subscriber to remove
+   * @since 1.1
+   */
+  public void removeSubscriber(RecieveChatObserver observer) {
+    observers.remove(observer);
+  }
+
+  /**
+   * Update all subscribers with a message.
+   * If the message is null, nothing happens.
+   *
+   * @param message The message to send to the subscribers
+   * @since 1.1
+   */
+  public void updateSubscribers(String message) {
+    for (RecieveChatObserver observer : observers) {
+      observer.receiveChat(message);
+    }
+  }
+
+  /**
+   * Update all subscribers with a message from the server, numbered if it is a broadcast.
+   *
+   * @param message The message, with its number if it has one
+   * @param displayed To be run once the message is shown, or null if its latency is not measured
+   * @since 1.13
+   */
+  private void chatReceived(String message, Runnable displayed) {
+    ChatMessage numbered = ChatMessage.parse(message);
+    lastBroadcastId = Math.max(lastBroadcastId, numbered.id());
+    for (RecieveChatObserver observer : observers) {
+      observer.receiveChat(numbered, displayed);
+    }
+  }
+
+  /**
+   * Collects a broadcast of a history asked for, or hands the history to the subscribers once it is complete.
+   *
+   * @param message The broadcast, {@code /history <id> <message>}, or the end of the history
+   * @since 1.13
+   */
+  private void historyReceived(String message) {
+    if (message.equals(HISTORY_END_MESSAGE)) {
+      List<ChatMessage> messages = List.copyOf(history);
+      history.clear();
+      for (RecieveChatObserver observer : observers) {
+        observer.receiveHistory(messages);
+      }
+      return;
+    }
+    ChatMessage numbered = ChatMessage.parse(HISTORY_ID_PREFIX + message.substring(HISTORY_MESSAGE.length()));
+    if (numbered.isNumbered()) {
+      history.add(numbered);
+      lastBroadcastId = Math.max(lastBroadcastId, numbered.id());
+    }
+  }
+
+  /**
+   * Reads a traced chat message, shows it and reports the latencies measured, if a report is due.
+   *
+   * @param line The traced message, with its stamps
+   * @since 1.12
+   */
+  private void tracedReceived(String line) {
+    LatencyTracker.Traced traced = latency.received(line, username);
+    if (traced == null) {
+      updateSubscribers(line);
+    } else {
+      chatReceived(traced.message(), traced.displayed());
+    }
+    String report = latency.report();
+    if (report != null) {
+      sendSymmetricEncryptedMessage(report);
+    }
+  }
+
+  /**
+   * The input handler is responsible for reading input from the server.
+   * When the connection is lost, it resumes the session before reading on.
+   * Attachment transfers are continued once the session has resumed.
+   * Typing updates are told to the subscribers apart from chat messages.
+   * Traced messages are shown without their stamps.
+   * Histories asked for are collected, and handed on once complete.
+   * A server that shuts down is replaced by its standby, if it has one.
+   * Numbered messages are handled in the order of their numbers.
+   *
+   * @version 1.8
+   * @author Jonas Birkeli
+   * @since 09.06.2024
+   */
+  private class InputHandler implements Runnable {
+
+    /**
+     * The run method is called when the thread is started.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void run() {
+      while (running) {
+        String input;
+        try {
+          input = in.readLine();
+        } catch (IOException e) {
+          if (running) {
+            LOG.warn("read.failed", "error", e.getMessage());
+          }
+          input = null;
+        }
+        if (input == null) {
+          if (running && resumeSession()) {
+            attachments.resumed();
+            continue;
+          }
+          break;  // Server closed the connection
+        }
+
+        String decryptedMessage = symmetricDecryptMessage(input);
+        if (decryptedMessage == null) {
+          continue;
+        }
+        boolean sequenced = decryptedMessage.startsWith(SEQUENCED_PREFIX + " ")
+            || decryptedMessage.startsWith(SEQUENCED_CONTROL_PREFIX + " ");
+        List<String> messages = sequenced
+            ? acceptSequenced(decryptedMessage)
+            : List.of(decryptedMessage);
+        boolean reading = true;
+        for (int i = 0; i < messages.size() && reading; i++) {
+          reading = handle(messages.get(i));
+        }
+        if (!reading) {
+          break;
+        }
+      }
+      shutdown();
+    }
+
+    /**
+     * Handles a single message from the server, in the order of its number if it had one.
+     *
+     * @param decryptedMessage The decrypted message, without its number
+     * @return False if the server is closing the connection, and reading should stop
+     * @since 1.8
+     */
+    private boolean handle(String decryptedMessage) {
+      if (attachments.handle(decryptedMessage)) {
+        return true;
+      }
+      if (decryptedMessage.equals(PING_MESSAGE)) {
+        if (lastSequence > lastAcknowledged) {
+          lastAcknowledged = lastSequence;
+          queueSymmetricEncryptedMessage(ACK_COMMAND + " " + lastSequence);
+        }
+        sendSymmetricEncryptedMessage(PONG_MESSAGE);
+        return true;
+      }
+      if (decryptedMessage.startsWith(TYPING_COMMAND + " ")) {
+        typingUpdated(decryptedMessage);
+        return true;
+      }
+      if (decryptedMessage.startsWith(TRACE_COMMAND + " ")) {
+        tracedReceived(decryptedMessage);
+        return true;
+      }
+      if (decryptedMessage.startsWith(HISTORY_MESSAGE + " ") || decryptedMessage.equals(HISTORY_END_MESSAGE)) {
+        historyReceived(decryptedMessage);
+        return true;
+      }
+      if (decryptedMessage.startsWith(TRACE_RATE_MESSAGE + " ")) {
+        String rate = decryptedMessage.substring(TRACE_RATE_MESSAGE.length() + 1);
+        try {
+          latency.setSampleRate(Integer.parseInt(rate));
+        } catch (NumberFormatException ignored) {/* Ignored */}
+        return true;
+      }
+      if (decryptedMessage.startsWith(STANDBY_MESSAGE + " ")) {
+        standbyAnnounced(decryptedMessage);
+        return true;
+      }
+      if (decryptedMessage.startsWith(SESSION_TOKEN_MESSAGE + " ")) {
+        resumeToken = decryptedMessage.substring(SESSION_TOKEN_MESSAGE.length() + 1);
+        return true;
+      }
+      if (decryptedMessage.equals(QUIT_COMMAND)) {
+        return false;  // Server is closing the connection
+      }
+      if (decryptedMessage.startsWith(SERVER_CLOSING_NOTICE + " ")) {
+        if (standby != null && resumeSession()) {
+          attachments.resumed();
+          return true;
+        }
+        handleClosingNotice(decryptedMessage);
+        return false;
+      }
+
+      chatReceived(decryptedMessage, null);
+      return true;
+    }
+  }
+
+  /**
+   * The main method is the entry point of the program.
+   * Starts the headless terminal client, see {@link HeadlessClient}.
+   *
+   * @param args The command line arguments, passed on to the headless client
+   * @since 1.0
+   */
+  public static void main(String[] args) {
+    HeadlessClient.main(args);
+  }
+}
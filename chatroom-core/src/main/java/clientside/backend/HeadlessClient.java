@@ -0,0 +1,134 @@
+package clientside.backend;
+
+import static config.ConnectionConfig.CONNECTION_FAILED_EXIT_CODE;
+import static config.ConnectionConfig.DISCONNECT_TIMEOUT_MILLIS;
+import static config.ConnectionConfig.LOGIN_FAILED_EXIT_CODE;
+import static config.UserConfig.PASSWORD_ENVIRONMENT_VARIABLE;
+import static config.UserConfig.QUIT_COMMAND;
+import static config.UserConfig.USERNAME_ENVIRONMENT_VARIABLE;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.logging.Logger;
+
+/**
+ * Headless terminal client for the chatroom, usable from scripts and bots.
+ * Logs in with a password and username given as arguments or environment variables,
+ * prints every received message to standard output and sends every line read from standard input.
+ *
+ * <p>Lines from standard input are pipelined: they are written to the socket as they are read,
+ * and only flushed once no more input is immediately available, without waiting for the echo.
+ * When standard input ends, the client waits for its file transfers to end, then quits
+ * and waits for the server to close the connection.
+ * {@code /send <path>} shares a file and {@code /save <id>} saves one, as in the desktop client.
+ * The password and the username are sent at once, see {@link Client#attemptLogin}.
+ *
+ * <p>Usage: {@code HeadlessClient [password] [username]}
+ *
+ * @version 1.2
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class HeadlessClient implements RecieveChatObserver {
+
+  /**
+   * Prints a received message to standard output.
+   *
+   * @param message The message to print
+   * @since 1.0
+   */
+  @Override
+  public void receiveChat(String message) {
+    System.out.println(message);
+  }
+
+  /**
+   * Reads standard input until it ends, sending each non-blank line to the server.
+   *
+   * @param client The logged in client
+   * @throws IOException If standard input cannot be read
+   * @since 1.0
+   */
+  private void pipeStandardInput(Client client) throws IOException {
+    BufferedReader stdin = new BufferedReader(new InputStreamReader(System.in));
+    String line;
+    while ((line = stdin.readLine()) != null) {
+      if (!line.isBlank() && !client.handleIfAttachmentCommand(line)) {
+        client.queueSymmetricEncryptedMessage(line);
+      }
+      if (!stdin.ready()) {
+        client.flush();
+      }
+    }
+    client.flush();
+    client.awaitTransfers();
+    client.queueSymmetricEncryptedMessage(QUIT_COMMAND);
+    client.flush();
+  }
+
+  /**
+   * Resolves a login value from the arguments, falling back to an environment variable.
+   *
+   * @param args The command line arguments
+   * @param index The index of the value in the arguments
+   * @param environmentVariable The environment variable to fall back to
+   * @return The value, or null if neither is set
+   * @since 1.0
+   */
+  private static String resolve(String[] args, int index, String environmentVariable) {
+    if (args.length > index && !args[index].isBlank()) {
+      return args[index];
+    }
+    return System.getenv(environmentVariable);
+  }
+
+  /**
+   * The main method is the entry point of the headless client.
+   *
+   * @param args Optional password and username, in that order
+   * @since 1.0
+   */
+  public static void main(String[] args) {
+    String password = resolve(args, 0, PASSWORD_ENVIRONMENT_VARIABLE);
+    String username = resolve(args, 1, USERNAME_ENVIRONMENT_VARIABLE);
+    if (password == null || username == null) {
+      System.err.println("Usage: HeadlessClient <password> <username>, or set "
+          + PASSWORD_ENVIRONMENT_VARIABLE + " and " + USERNAME_ENVIRONMENT_VARIABLE);
+      System.exit(LOGIN_FAILED_EXIT_CODE);
+    }
+
+    Client client;
+    try {
+      client = Client.getInstance();
+    } catch (ConnectionFailedException e) {
+      Logger.getLogger(HeadlessClient.class.getName()).severe("Failed to connect to server. Exiting...");
+      System.exit(CONNECTION_FAILED_EXIT_CODE);
+      return;
+    }
+
+    HeadlessClient headlessClient = new HeadlessClient();
+    client.addSubscriber(headlessClient);
+
+    LoginResult result = client.attemptLogin(password, username);
+    if (result != LoginResult.JOINED) {
+      System.err.println(switch (result) {
+        case PASSWORD_REJECTED -> "Incorrect password.";
+        case USERNAME_REJECTED -> "Username rejected: " + username
+            + (client.getLoginMessage() == null ? "" : " (" + client.getLoginMessage() + ")");
+        default -> "Connection lost while logging in.";
+      });
+      client.shutdown();
+      System.exit(LOGIN_FAILED_EXIT_CODE);
+    }
+
+    try {
+      headlessClient.pipeStandardInput(client);
+    } catch (IOException e) {
+      Logger.getLogger(HeadlessClient.class.getName()).severe("Failed to read standard input");
+    }
+
+    client.awaitDisconnect(DISCONNECT_TIMEOUT_MILLIS);
+    client.shutdown();
+  }
+}
@@ -0,0 +1,182 @@
+package clientside.backend;
+
+import static config.ConnectionConfig.LATENCY_COMMAND;
+import static config.ConnectionConfig.LATENCY_REPORT_MILLIS;
+import static config.ConnectionConfig.TRACE_COMMAND;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import latency.LatencyHistogram;
+import latency.LatencySegment;
+
+/**
+ * Measures how long chat messages take from the sender's send to this user's screen, leg by leg.
+ * Once the server asks for it, one in so many chat messages is stamped with the time it is sent,
+ * and the server adds when it read, broadcast and wrote the message to each recipient.
+ * The recipient adds when it read the message, and when the message was shown,
+ * and counts the legs in a histogram each, see {@link LatencySegment}.
+ * The histograms are reported to the server now and then, and start over.
+ *
+ * <p>The sender and the recipient compare their clocks through the server's.
+ * A client learns how far its clock is from the server's from the echoes of its own traced messages,
+ * trusting the echoes with the shortest round trips, and sends its offset along with each stamp.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+final class LatencyTracker {
+  private final Map<LatencySegment, LatencyHistogram> histograms = new EnumMap<>(LatencySegment.class);
+  private volatile int sampleRate;  // Trace one in this many messages, 0 until the server asks
+  private volatile long offsetMillis;  // The server's clock minus ours
+  private long shortestRoundTrip = Long.MAX_VALUE;
+  private long lastReportMillis = System.currentTimeMillis();
+
+  /**
+   * A traced message as read from the server, without its stamps.
+   *
+   * @param message The message
+   * @param displayed To be run once the message is shown, to count the legs of its way
+   * @version 1.0
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  record Traced(String message, Runnable displayed) {}
+
+  /**
+   * Create a tracker that traces nothing until the server asks for it.
+   *
+   * @since 1.0
+   */
+  LatencyTracker() {
+    for (LatencySegment segment : LatencySegment.values()) {
+      histograms.put(segment, new LatencyHistogram());
+    }
+  }
+
+  /**
+   * Sets how many chat messages are sent per traced one, as the server asked.
+   *
+   * @param rate One in this many messages is traced, 0 for none
+   * @since 1.0
+   */
+  void setSampleRate(int rate) {
+    sampleRate = Math.max(0, rate);
+  }
+
+  /**
+   * Stamps a chat message with the time it is sent and the offset of our clock, if it is to be traced:
+   * {@code /trace <sent> <offset> <message>}.
+   *
+   * @param message The chat message
+   * @return The line to send
+   * @since 1.0
+   */
+  String stamp(String message) {
+    int rate = sampleRate;
+    if (rate <= 0 || ThreadLocalRandom.current().nextInt(rate) != 0) {
+      return message;
+    }
+    return TRACE_COMMAND + " " + System.currentTimeMillis() + " " + offsetMillis + " " + message;
+  }
+
+  /**
+   * Reads the stamps of a traced message:
+   * {@code /trace <written> <sent> <offset> <received> <broadcast> <message>}.
+   * The echo of one of our own messages tells how far our clock is from the server's.
+   * The message keeps its number, if it is a numbered broadcast.
+   *
+   * @param line The line from the server
+   * @param username The name of this user, to recognise echoes by
+   * @return The message and what to run once it is shown, or null if the stamps are malformed
+   * @since 1.0
+   */
+  Traced received(String line, String username) {
+    long arrived = System.currentTimeMillis();
+    String[] parts = line.substring(TRACE_COMMAND.length() + 1).split(" ", 6);
+    if (parts.length < 6) {
+      return null;
+    }
+    long written;
+    long sent;
+    long senderOffset;
+    long read;
+    long broadcast;
+    try {
+      written = Long.parseLong(parts[0]);
+      sent = Long.parseLong(parts[1]);
+      senderOffset = Long.parseLong(parts[2]);
+      read = Long.parseLong(parts[3]);
+      broadcast = Long.parseLong(parts[4]);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    String message = parts[5];
+    if (username != null && ChatMessage.parse(message).text().startsWith(username + ": ")) {
+      synchronize(sent, read, written, arrived);
+    }
+
+    AtomicBoolean counted = new AtomicBoolean();
+    return new Traced(message, () -> {
+      if (!counted.compareAndSet(false, true)) {
+        return;  // Shown by more than one subscriber
+      }
+      long shown = System.currentTimeMillis();
+      long offset = offsetMillis;
+      long sentOnServer = sent + senderOffset;
+      synchronized (this) {
+        histograms.get(LatencySegment.TOTAL).record(shown + offset - sentOnServer);
+        histograms.get(LatencySegment.UP).record(read - sentOnServer);
+        histograms.get(LatencySegment.HANDLING).record(broadcast - read);
+        histograms.get(LatencySegment.QUEUE).record(written - broadcast);
+        histograms.get(LatencySegment.DOWN).record(arrived + offset - written);
+        histograms.get(LatencySegment.UI).record(shown - arrived);
+      }
+    });
+  }
+
+  /**
+   * Works out the offset of our clock from the echo of one of our own messages, as NTP does.
+   * Echoes that took much longer than the quickest one so far are not trusted.
+   *
+   * @param sent When we sent the message, by our clock
+   * @param read When the server read it, by its clock
+   * @param written When the server wrote the echo, by its clock
+   * @param arrived When the echo arrived, by our clock
+   * @since 1.0
+   */
+  private synchronized void synchronize(long sent, long read, long written, long arrived) {
+    long roundTrip = (arrived - sent) - (written - read);
+    if (roundTrip < 0) {
+      return;
+    }
+    shortestRoundTrip = Math.min(shortestRoundTrip, roundTrip);
+    if (roundTrip <= 2 * shortestRoundTrip + 1) {
+      offsetMillis = ((read - sent) + (written - arrived)) / 2;
+    }
+  }
+
+  /**
+   * Builds the report of the latencies counted since the last one, if a report is due,
+   * and starts over: {@code /latency total=<histogram> up=<histogram> ...}.
+   *
+   * @return The report, or null if none is due or nothing was counted
+   * @since 1.0
+   */
+  synchronized String report() {
+    long now = System.currentTimeMillis();
+    if (now - lastReportMillis < LATENCY_REPORT_MILLIS
+        || histograms.get(LatencySegment.TOTAL).getCount() == 0) {
+      return null;
+    }
+    lastReportMillis = now;
+    StringBuilder report = new StringBuilder(LATENCY_COMMAND);
+    for (Map.Entry<LatencySegment, LatencyHistogram> entry : histograms.entrySet()) {
+      report.append(' ').append(entry.getKey().getName()).append('=').append(entry.getValue().encode());
+      entry.getValue().clear();
+    }
+    return report.toString();
+  }
+}
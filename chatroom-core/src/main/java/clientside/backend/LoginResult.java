@@ -0,0 +1,15 @@
+package clientside.backend;
+
+/**
+ * The outcome of logging in with the password and the username at once.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public enum LoginResult {
+  JOINED,  // Logged in and in the chat
+  PASSWORD_REJECTED,  // The password was wrong; the client may try again
+  USERNAME_REJECTED,  // The password was accepted, but not the username; the client may send another
+  FAILED  // The connection was lost
+}
@@ -0,0 +1,70 @@
+package clientside.backend;
+
+import java.util.List;
+
+/**
+ * The RecieveChatObserver interface is used to observe the recieving of chat messages.
+ *
+ * @version 1.3
+ * @author Jonas Birkeli
+ * @since 16.06.2024
+ */
+public interface RecieveChatObserver {
+
+  /**
+   * Receives a chat message.
+   *
+   * @param message The message to recieve
+   * @since 1.0
+   */
+  void receiveChat(String message);
+
+  /**
+   * Receives a chat message whose latency is measured, up to when it is shown.
+   * Subscribers that show messages later than they receive them, such as windows,
+   * run the callback once the message is shown; by default it runs on receipt.
+   *
+   * @param message The message to recieve
+   * @param displayed To be run once the message is shown
+   * @since 1.2
+   */
+  default void receiveChat(String message, Runnable displayed) {
+    receiveChat(message);
+    displayed.run();
+  }
+
+  /**
+   * Receives a message with the number the server keeps it under, if it is a broadcast.
+   * Subscribers that keep messages of their own use the number to tell which ones they have.
+   * By default the number is dropped.
+   *
+   * @param message The message, numbered if it is a broadcast
+   * @param displayed To be run once the message is shown, or null if its latency is not measured
+   * @since 1.3
+   */
+  default void receiveChat(ChatMessage message, Runnable displayed) {
+    if (displayed == null) {
+      receiveChat(message.text());
+    } else {
+      receiveChat(message.text(), displayed);
+    }
+  }
+
+  /**
+   * Receives the broadcasts asked for with {@link Client#requestHistory}, all at once, oldest first.
+   * Broadcasts that arrive while the history is on its way may be newer than some of the history,
+   * or in it as well.
+   *
+   * @param messages The broadcasts the server still had, none if it has nothing newer
+   * @since 1.3
+   */
+  default void receiveHistory(List<ChatMessage> messages) {}
+
+  /**
+   * Receives who else is typing, whenever it changes.
+   *
+   * @param description For example "alice and bob are typing...", or an empty string if no one is
+   * @since 1.1
+   */
+  default void typingChanged(String description) {}
+}
@@ -0,0 +1,40 @@
+package config;
+
+/**
+ * Configuration constants for attachments.
+ * Attachments travel as chunks of a fixed size, each on a line of its own between chat lines.
+ * The receiving side grants credit for a window of chunks per transfer, and more as it stores them.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class AttachmentConfig {
+  public static final String ATTACH_COMMAND = "/attach";  // Followed by a tag, the size in bytes and the file name
+  public static final String ATTACH_READY_MESSAGE = "/attach_ready";  // Followed by the tag, the id and the window
+  public static final String ATTACH_REJECTED_MESSAGE = "/attach_rejected";  // Followed by the tag and the reason
+  public static final String CHUNK_COMMAND = "/chunk";  // Followed by the id and the chunk in Base64
+  public static final String CREDIT_COMMAND = "/credit";  // Followed by the id and the number of chunks
+  public static final String FETCH_COMMAND = "/fetch";  // Followed by the id, the offset and the window
+  public static final String FILE_MESSAGE = "/file";  // Followed by the id, the size in bytes and the file name
+  public static final String CANCEL_COMMAND = "/cancel";  // Followed by the id
+
+  public static final String SEND_FILE_COMMAND = "/send";  // Typed in the client, followed by the path of the file
+  public static final String SAVE_FILE_COMMAND = "/save";  // Typed in the client, followed by the id
+
+  public static final int CHUNK_BYTES = RuntimeConfig.fixed("attachment.chunk_bytes", 32 * 1024);
+  public static final int WINDOW_CHUNKS =  // Chunks in flight per transfer
+      RuntimeConfig.fixed("attachment.window_chunks", 8);
+  public static final Setting<Long> MAX_BYTES = RuntimeConfig.live("attachment.max_bytes", 64L << 20);
+  public static final Setting<Long> RETENTION_MILLIS =  // How long the server keeps an attachment
+      RuntimeConfig.live("attachment.retention_millis", 3_600_000L);
+  public static final Setting<Long> STORE_MAX_BYTES =  // All attachments the server keeps, counting uploads at full size
+      RuntimeConfig.live("attachment.store_max_bytes", 1L << 30);
+  public static final Setting<Long> UPLOAD_IDLE_MILLIS =  // An upload with no chunk for this long is abandoned
+      RuntimeConfig.live("attachment.upload_idle_millis", 60_000L);
+  public static final String STORE_DIRECTORY =  // Where the server spills attachments, null = a temporary directory
+      RuntimeConfig.fixed("attachment.store_dir", (String) null);
+  public static final String DOWNLOAD_DIRECTORY = RuntimeConfig.fixed("attachment.download_dir", ".");
+
+  private AttachmentConfig() {} // Prevent instantiation
+}
@@ -0,0 +1,27 @@
+package config;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration constants for the message cache of the client.
+ * The client keeps the broadcasts it has shown in a file per server, encrypted with a key of its own,
+ * so it can show them right away when it is opened again.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class CacheConfig {
+  public static final String CACHE_DIRECTORY =  // Where the cache files and their key are kept
+      RuntimeConfig.fixed("cache.dir", Path.of(System.getProperty("user.home"), ".chatroom", "cache").toString());
+  public static final int CACHE_MAX_BYTES =  // Size of the cache file of a server, 0 for no cache
+      RuntimeConfig.fixed("cache.max_bytes", 4 << 20);
+  public static final int CACHE_SCREENFUL =  // Cached messages shown when the chat opens
+      RuntimeConfig.fixed("cache.screenful", 50);
+  public static final int HISTORY_TIMEOUT_MILLIS =  // Wait for the broadcasts asked for, before showing newer ones
+      RuntimeConfig.fixed("cache.history_timeout_millis", 10_000);
+  public static final int HELD_BACK_LIMIT =  // Newer broadcasts held back meanwhile, before they are shown anyway
+      RuntimeConfig.fixed("cache.held_back_limit", 1000);
+
+  private CacheConfig() {} // Prevent instantiation
+}
@@ -0,0 +1,79 @@
+package config;
+
+import java.util.Objects;
+import keyGen.TransportMode;
+
+/**
+ * Configuration constants for the connection.
+ * Constants declared through {@link RuntimeConfig} can be set without a rebuild;
+ * those of type {@link Setting} can also be changed while the server runs.
+ *
+ * @version 1.7
+ * @author Jonas Birkeli
+ * @since 08.06.2024
+ */
+public class ConnectionConfig {
+  public static final int PORT = RuntimeConfig.fixed("server.port", 8687);
+  public static final String LOCALHOST = "::1";  // IPv6 localhost because it looks cooler
+  public static final String SERVER_HOST = RuntimeConfig.fixed("host", LOCALHOST);
+  public static final int SERVER_PORT = RuntimeConfig.fixed("port", PORT);  // Where clients connect, a gateway for example
+  public static final TransportMode TRANSPORT = RuntimeConfig.fixed("transport", TransportMode.RSA_AES,
+      name -> Objects.requireNonNull(TransportMode.parse(name, null)));
+
+  public static final boolean USE_WORDLE_SOLUTION_AS_PASSWORD = true;
+  public static final Setting<String> PASSWORD = RuntimeConfig.liveSecret("server.password", "password");
+  public static final int WRONG_PASSWORD_TIMEOUT_MILLIS = 0;
+  public static final String PASSWORD_SUCCESS_MESSAGE = "approved";
+  public static final String PASSWORD_INCORRECT_MESSAGE = "denied";
+  public static final String USERNAME_SUCCESS_MESSAGE = "approved";
+  public static final String LOGIN_COMMAND = "/login";  // Followed by the username and the password
+  public static final String LOGIN_FAILED_MESSAGE = "/login_failed";  // Followed by the step that failed and why
+  public static final String LOGIN_STEP_PASSWORD = "password";
+  public static final String LOGIN_STEP_USERNAME = "username";
+  public static final boolean FAST_LOGIN =  // Send key, password and username in one flight
+      RuntimeConfig.fixed("client.fast_login", true);
+  public static final int CONNECT_TIMEOUT_MILLIS =  // Longer than the server lets a handshake wait before "busy"
+      RuntimeConfig.fixed("client.connect_timeout_millis", 15_000);
+  public static final int LOGIN_TIMEOUT_MILLIS =  // Wait for the server to answer a login step
+      RuntimeConfig.fixed("client.login_timeout_millis", 10_000);
+
+  public static final String SERVER_BUSY_MESSAGE = "busy";  // Sent unencrypted instead of a public key
+  public static final String TLS_READY_MESSAGE = "ready";  // Sent instead of a public key over TLS
+  public static final String SECRET_KEY_COMMAND = "/key";  // Followed by the client's AES key, for fast login
+  public static final String PING_MESSAGE = "/ping";
+  public static final String PONG_MESSAGE = "/pong";
+  public static final String SERVER_CLOSING_NOTICE = "/closing";  // Followed by retry-after seconds
+  public static final String SEQUENCED_PREFIX = "/seq";  // Followed by the sequence number and the message
+  public static final String SEQUENCED_CONTROL_PREFIX =  // As the sequenced prefix, for a message shown as it arrives
+      "/seqc";
+  public static final String ACK_COMMAND = "/ack";  // Followed by the last sequence number received
+  public static final String SESSION_TOKEN_MESSAGE = "/session";  // Followed by the token to resume with
+  public static final String RESUME_COMMAND = "/resume";  // Followed by the token and the last sequence number
+  public static final String RESUMED_MESSAGE = "/resumed";  // Followed by the number of messages replayed
+  public static final String RESUME_FAILED_MESSAGE = "/resume_failed";
+  public static final String STANDBY_MESSAGE = "/standby";  // Followed by the host, port and reattach port of the standby
+  public static final String REATTACH_COMMAND = "/reattach";  // Followed by the session id, in plain text, on the reattach port
+  public static final String TRACE_COMMAND = "/trace";  // Followed by the stamps of a traced chat message, then the message
+  public static final String TRACE_RATE_MESSAGE = "/trace_rate";  // Followed by N, to trace one in N chat messages
+  public static final String HISTORY_ID_PREFIX = "/id";  // Followed by the number of a broadcast, then the broadcast
+  public static final String HISTORY_COMMAND = "/history";  // Followed by the number of the last broadcast the client has
+  public static final String HISTORY_MESSAGE = "/history";  // Followed by the number of a broadcast and the broadcast
+  public static final String HISTORY_END_MESSAGE = "/history_end";  // After the broadcasts asked for
+  public static final String LATENCY_COMMAND = "/latency";  // Followed by segment=histogram pairs
+  public static final long LATENCY_REPORT_MILLIS =  // How often a client reports the latencies it measured
+      RuntimeConfig.fixed("client.latency_report_millis", 10_000);
+  public static final int ACK_INTERVAL = RuntimeConfig.fixed("client.ack_interval", 64);  // Messages per acknowledgement
+  public static final int REORDER_LIMIT =  // Numbered messages held back behind a gap before the client resumes instead
+      RuntimeConfig.fixed("client.reorder_limit", 1024);
+  public static final int RESUME_ATTEMPTS = RuntimeConfig.fixed("client.resume_attempts", 5);
+  public static final long RESUME_BACKOFF_MILLIS = RuntimeConfig.fixed("client.resume_backoff_millis", 500);
+  public static final Setting<Long> DRAIN_DEADLINE_MILLIS = RuntimeConfig.live("drain.deadline_millis", 5000L);
+  public static final Setting<Integer> DRAIN_RETRY_AFTER_SECONDS = RuntimeConfig.live("drain.retry_after_seconds", 30);
+  public static final Setting<Integer> DRAIN_PARALLELISM = RuntimeConfig.live("drain.parallelism", 16);
+
+  public static final int CONNECTION_FAILED_EXIT_CODE = 50;
+  public static final int LOGIN_FAILED_EXIT_CODE = 51;
+  public static final long DISCONNECT_TIMEOUT_MILLIS = 5000;
+
+  private ConnectionConfig() {} // Prevent instantiation
+}
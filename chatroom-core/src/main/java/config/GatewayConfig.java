@@ -0,0 +1,33 @@
+package config;
+
+import static config.ConnectionConfig.LOCALHOST;
+
+/**
+ * Configuration constants for gateways and the links between gateways and the server.
+ *
+ * @version 1.2
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class GatewayConfig {
+  public static final int GATEWAY_PORT = RuntimeConfig.fixed("gateway.port", 8689);
+  public static final String UPSTREAM_HOST = RuntimeConfig.fixed("gateway.upstream", LOCALHOST);
+  public static final int UPSTREAM_LINKS = RuntimeConfig.fixed("gateway.links", 2);
+
+  public static final int LINK_PORT = RuntimeConfig.fixed("gateway.link.port", 8688);
+  public static final String LINK_ADDRESS =  // Links are not encrypted, so they stay on loopback by default
+      RuntimeConfig.fixed("gateway.link.address", LOCALHOST);
+  public static final String LINK_SECRET = RuntimeConfig.secret("gateway.secret", null);  // Links are off without it
+  public static final String LINK_HELLO = "HELLO";  // First line of a link, followed by the secret
+  public static final int STREAM_QUEUE =  // Frames of a user waiting for its session before the user is dropped
+      RuntimeConfig.fixed("gateway.link.stream_queue", 256);
+
+  public static final char FRAME_OPEN = 'O';  // Gateway to server, payload is the user's address
+  public static final char FRAME_DATA = 'D';  // Either way, payload is one line to or from the user
+  public static final char FRAME_JOINED = 'J';  // Server to gateway, the user now receives broadcasts
+  public static final char FRAME_BROADCAST = 'B';  // Server to gateway, for every joined user
+  public static final char FRAME_SIGNAL = 'S';  // Server to gateway, ephemeral, for every joined user
+  public static final char FRAME_CLOSE = 'C';  // Either way, the stream has ended
+
+  private GatewayConfig() {} // Prevent instantiation
+}
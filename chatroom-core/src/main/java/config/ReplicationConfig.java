@@ -0,0 +1,42 @@
+package config;
+
+import static config.ConnectionConfig.LOCALHOST;
+
+/**
+ * Configuration constants for hot standby servers and the links they follow their primary over.
+ * A server given the address of a primary is a standby: it takes over the primary's sessions
+ * once the primary can no longer be reached.
+ * Links carry every user's AES key and resume token in plain text, so they must stay on the loopback address
+ * or a private network.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class ReplicationConfig {
+  public static final int REPLICATION_PORT = RuntimeConfig.fixed("replication.port", 8690);
+  public static final String REPLICATION_ADDRESS =  // Links carry keys in plain text, so they stay on loopback by default
+      RuntimeConfig.fixed("replication.address", LOCALHOST);
+  public static final String REPLICATION_SECRET =  // Replication is off without it
+      RuntimeConfig.secret("replication.secret", null);
+  public static final String PRIMARY_HOST =  // Set on a standby only, the host of the primary it follows
+      RuntimeConfig.fixed("replication.primary", (String) null);
+  public static final String ADVERTISED_HOST =  // Where clients reach the standby once it took over
+      RuntimeConfig.fixed("replication.advertised_host", LOCALHOST);
+  public static final int REATTACH_PORT =  // Where clients of the primary resume without a key exchange
+      RuntimeConfig.fixed("replication.reattach_port", 8691);
+  public static final int FAILOVER_TIMEOUT_MILLIS =  // How long the primary is unreachable before the standby takes over
+      RuntimeConfig.fixed("replication.failover_millis", 3000);
+  public static final int REPLICATION_QUEUE =  // Records waiting for a standby before it is dropped to catch up anew
+      RuntimeConfig.fixed("replication.queue", 65536);
+  public static final String REPLICATION_HELLO = "HELLO";  // First line of a link, followed by the secret
+
+  public static final char RECORD_STANDBY = 'A';  // Standby to primary, payload is its host, port and reattach port
+  public static final char RECORD_SESSION = 'J';  // A user joined or changed, payload is token, admin, key, username
+  public static final char RECORD_LEFT = 'L';  // A user left, payload is the token
+  public static final char RECORD_BROADCAST = 'B';  // Payload is the number of the broadcast and the broadcast
+  public static final char RECORD_PING = 'P';  // Sent when there is nothing else to send
+  public static final char RECORD_STEP_DOWN = 'D';  // From a standby that took over, payload is its instance id
+
+  private ReplicationConfig() {} // Prevent instantiation
+}
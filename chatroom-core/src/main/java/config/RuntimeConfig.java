@@ -0,0 +1,378 @@
+package config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Resolves the settings of the application from outside the code.
+ * A setting named {@code heartbeat.idle_timeout_millis} is looked up, from highest to lowest precedence, as
+ * <ol>
+ *   <li>the system property {@code chatroom.heartbeat.idle_timeout_millis},</li>
+ *   <li>the environment variable {@code CHATROOM_HEARTBEAT_IDLE_TIMEOUT_MILLIS},</li>
+ *   <li>the key {@code heartbeat.idle_timeout_millis} in the configuration file,</li>
+ * </ol>
+ * and falls back to its default otherwise.
+ * The configuration file is {@code chatroom.properties} in the working directory,
+ * or the file named by {@code -Dchatroom.config} or {@code CHATROOM_CONFIG}.
+ *
+ * <p>Settings are declared as constants of the configuration classes, so a setting is resolved
+ * when its class is first used. {@link #reload()} reads the sources again;
+ * live settings take their new values, the others are reported as needing a restart.
+ *
+ * <p>Nothing is logged from here, since the event log is itself configured through this class.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public final class RuntimeConfig {
+  public static final String SOURCE_DEFAULT = "default";
+  public static final String SOURCE_FILE = "file";
+  public static final String SOURCE_ENVIRONMENT = "environment";
+  public static final String SOURCE_PROPERTY = "property";
+
+  private static final String PROPERTY_PREFIX = "chatroom.";
+  private static final String ENVIRONMENT_PREFIX = "CHATROOM_";
+  private static final String DEFAULT_FILE = "chatroom.properties";
+
+  private static final Path FILE = locateFile();
+  private static final Map<String, Setting<?>> SETTINGS = new TreeMap<>();
+  private static final List<String> STARTUP_PROBLEMS = new ArrayList<>();
+  private static Properties fileValues = new Properties();
+  private static long fileModified = -1;
+
+  static {
+    readFile(STARTUP_PROBLEMS);
+  }
+
+  private RuntimeConfig() {} // Prevent instantiation
+
+  /**
+   * Declare a setting that keeps its startup value.
+   *
+   * @param name The name of the setting
+   * @param fallback The default value
+   * @param parser Parses a value from text, throwing an unchecked exception if it is malformed
+   * @param <T> The type of the value
+   * @return The effective value
+   * @since 1.0
+   */
+  public static <T> T fixed(String name, T fallback, Function<String, T> parser) {
+    return register(new Setting<>(name, fallback, parser, false, false)).get();
+  }
+
+  /**
+   * Declare a whole number setting that keeps its startup value.
+   *
+   * @param name The name of the setting
+   * @param fallback The default value
+   * @return The effective value
+   * @since 1.0
+   */
+  public static int fixed(String name, int fallback) {
+    return fixed(name, fallback, RuntimeConfig::parseInt);
+  }
+
+  /**
+   * Declare a flag that keeps its startup value.
+   *
+   * @param name The name of the setting
+   * @param fallback The default value
+   * @return The effective value
+   * @since 1.1
+   */
+  public static boolean fixed(String name, boolean fallback) {
+    return fixed(name, fallback, RuntimeConfig::parseBoolean);
+  }
+
+  /**
+   * Declare a text setting that keeps its startup value.
+   *
+   * @param name The name of the setting
+   * @param fallback The default value, may be null
+   * @return The effective value
+   * @since 1.0
+   */
+  public static String fixed(String name, String fallback) {
+    return fixed(name, fallback, Function.identity());
+  }
+
+  /**
+   * Declare a text setting that keeps its startup value, and is hidden when shown.
+   *
+   * @param name The name of the setting
+   * @param fallback The default value, may be null
+   * @return The effective value
+   * @since 1.0
+   */
+  public static String secret(String name, String fallback) {
+    return register(new Setting<>(name, fallback, Function.identity(), false, true)).get();
+  }
+
+  /**
+   * Declare a setting that takes new values on reload.
+   *
+   * @param name The name of the setting
+   * @param fallback The default value
+   * @param parser Parses a value from text, throwing an unchecked exception if it is malformed
+   * @param <T> The type of the value
+   * @return The setting
+   * @since 1.0
+   */
+  public static <T> Setting<T> live(String name, T fallback, Function<String, T> parser) {
+    return register(new Setting<>(name, fallback, parser, true, false));
+  }
+
+  /**
+   * Declare a whole number setting that takes new values on reload.
+   *
+   * @param name The name of the setting
+   * @param fallback The default value
+   * @return The setting
+   * @since 1.0
+   */
+  public static Setting<Integer> live(String name, int fallback) {
+    return live(name, fallback, RuntimeConfig::parseInt);
+  }
+
+  /**
+   * Declare a duration or size setting that takes new values on reload.
+   *
+   * @param name The name of the setting
+   * @param fallback The default value
+   * @return The setting
+   * @since 1.0
+   */
+  public static Setting<Long> live(String name, long fallback) {
+    return live(name, fallback, RuntimeConfig::parseLong);
+  }
+
+  /**
+   * Declare a flag that takes new values on reload.
+   *
+   * @param name The name of the setting
+   * @param fallback The default value
+   * @return The setting
+   * @since 1.0
+   */
+  public static Setting<Boolean> live(String name, boolean fallback) {
+    return live(name, fallback, RuntimeConfig::parseBoolean);
+  }
+
+  /**
+   * Declare a text setting that takes new values on reload, and is hidden when shown.
+   *
+   * @param name The name of the setting
+   * @param fallback The default value
+   * @return The setting
+   * @since 1.0
+   */
+  public static Setting<String> liveSecret(String name, String fallback) {
+    return register(new Setting<>(name, fallback, Function.identity(), true, true));
+  }
+
+  /**
+   * Add a setting and give it its value.
+   *
+   * @param setting The setting
+   * @param <T> The type of the value
+   * @return The setting
+   * @since 1.0
+   */
+  private static synchronized <T> Setting<T> register(Setting<T> setting) {
+    if (SETTINGS.putIfAbsent(setting.getName(), setting) != null) {
+      throw new IllegalStateException("Setting declared twice: " + setting.getName());
+    }
+    resolve(setting, STARTUP_PROBLEMS);
+    return setting;
+  }
+
+  /**
+   * Read the sources again and give live settings their new values.
+   *
+   * @return A line per changed setting, followed by a line per value that was malformed
+   *     or needs a restart to take effect
+   * @since 1.0
+   */
+  public static synchronized List<String> reload() {
+    List<String> changes = new ArrayList<>();
+    List<String> problems = new ArrayList<>();
+    readFile(problems);
+    for (Setting<?> setting : SETTINGS.values()) {
+      String change = resolve(setting, problems);
+      if (change != null) {
+        changes.add(change);
+      }
+    }
+    changes.addAll(problems);
+    return changes;
+  }
+
+  /**
+   * Reload if the configuration file was changed, created or removed since it was last read.
+   *
+   * @return What the reload changed, see {@link #reload()}, or an empty list if the file is unchanged
+   * @since 1.0
+   */
+  public static synchronized List<String> reloadIfChanged() {
+    return modifiedTime() == fileModified ? List.of() : reload();
+  }
+
+  /**
+   * Get every setting declared so far, by name.
+   *
+   * @return The settings, sorted by name
+   * @since 1.0
+   */
+  public static synchronized Collection<Setting<?>> getSettings() {
+    return List.copyOf(SETTINGS.values());
+  }
+
+  /**
+   * Get the values that were malformed when the settings were first resolved.
+   * These are reported once the event log is running.
+   *
+   * @return A line per problem
+   * @since 1.0
+   */
+  public static synchronized List<String> getStartupProblems() {
+    return List.copyOf(STARTUP_PROBLEMS);
+  }
+
+  /**
+   * Get the configuration file, which need not exist.
+   *
+   * @return The path of the file
+   * @since 1.0
+   */
+  public static Path getFile() {
+    return FILE;
+  }
+
+  /**
+   * Look a setting up in every source and give it the value found.
+   *
+   * @param setting The setting
+   * @param problems Collects malformed values
+   * @return A line describing the new value, or null if nothing changed
+   * @since 1.0
+   */
+  private static String resolve(Setting<?> setting, List<String> problems) {
+    String name = setting.getName();
+    String value = System.getProperty(PROPERTY_PREFIX + name);
+    if (value != null) {
+      return setting.resolve(value, SOURCE_PROPERTY, problems);
+    }
+    value = System.getenv(ENVIRONMENT_PREFIX + name.toUpperCase(Locale.ROOT).replace('.', '_'));
+    if (value != null) {
+      return setting.resolve(value, SOURCE_ENVIRONMENT, problems);
+    }
+    return setting.resolve(fileValues.getProperty(name), SOURCE_FILE, problems);
+  }
+
+  /**
+   * Find the configuration file.
+   *
+   * @return The file named by the system property or the environment, or the default file
+   * @since 1.0
+   */
+  private static Path locateFile() {
+    String file = System.getProperty(PROPERTY_PREFIX + "config");
+    if (file == null) {
+      file = System.getenv(ENVIRONMENT_PREFIX + "CONFIG");
+    }
+    return Path.of(file == null ? DEFAULT_FILE : file);
+  }
+
+  /**
+   * Read the configuration file, if it exists.
+   * If it cannot be read, the values read before are kept.
+   *
+   * @param problems Collects the reason the file cannot be read
+   * @since 1.0
+   */
+  private static void readFile(List<String> problems) {
+    long modified = modifiedTime();
+    if (modified < 0) {
+      fileValues = new Properties();
+      fileModified = modified;
+      return;
+    }
+    Properties values = new Properties();
+    try (InputStream in = Files.newInputStream(FILE)) {
+      values.load(in);
+      fileValues = values;
+      fileModified = modified;
+    } catch (IOException | IllegalArgumentException e) {
+      problems.add(FILE + ": cannot be read, " + e.getMessage());
+    }
+  }
+
+  /**
+   * Get when the configuration file was last modified.
+   *
+   * @return The time in milliseconds, or -1 if there is no file
+   * @since 1.0
+   */
+  private static long modifiedTime() {
+    try {
+      return Files.getLastModifiedTime(FILE).toMillis();
+    } catch (IOException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Parse a whole number that must not be negative.
+   *
+   * @param text The text
+   * @return The number
+   * @since 1.0
+   */
+  private static int parseInt(String text) {
+    int value = Integer.parseInt(text.replace("_", ""));
+    if (value < 0) {
+      throw new IllegalArgumentException("Negative value");
+    }
+    return value;
+  }
+
+  /**
+   * Parse a duration or size that must not be negative.
+   *
+   * @param text The text
+   * @return The number
+   * @since 1.0
+   */
+  private static long parseLong(String text) {
+    long value = Long.parseLong(text.replace("_", ""));
+    if (value < 0) {
+      throw new IllegalArgumentException("Negative value");
+    }
+    return value;
+  }
+
+  /**
+   * Parse a flag, accepting only {@code true} or {@code false}.
+   *
+   * @param text The text
+   * @return The flag
+   * @since 1.0
+   */
+  private static boolean parseBoolean(String text) {
+    if (text.equalsIgnoreCase("true") || text.equalsIgnoreCase("false")) {
+      return Boolean.parseBoolean(text);
+    }
+    throw new IllegalArgumentException("Not a flag");
+  }
+}
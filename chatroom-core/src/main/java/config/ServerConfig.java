@@ -0,0 +1,92 @@
+package config;
+
+/**
+ * Configuration constants for the server.
+ * Settings can be changed while the server runs, the other constants take effect on restart.
+ *
+ * @version 1.7
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class ServerConfig {
+  public static final Setting<Integer> PRESENCE_COALESCE_THRESHOLD =  // Connected users before coalescing
+      RuntimeConfig.live("presence.coalesce_threshold", 50);
+  public static final Setting<Long> PRESENCE_WINDOW_MILLIS = RuntimeConfig.live("presence.window_millis", 1000L);
+  public static final Setting<Integer> PRESENCE_MAX_DEFERRALS =  // Windows to wait for chat traffic to pass
+      RuntimeConfig.live("presence.max_deferrals", 3);
+  public static final Setting<Integer> PRESENCE_SUMMARY_NAME_LIMIT =  // Above this, only counts are shown
+      RuntimeConfig.live("presence.summary_name_limit", 5);
+
+  public static final Setting<Long> TYPING_INTERVAL_MILLIS =  // At most one typing update per interval
+      RuntimeConfig.live("typing.interval_millis", 1000L);
+  public static final Setting<Long> TYPING_EXPIRY_MILLIS =  // How long a typing signal lasts unless repeated
+      RuntimeConfig.live("typing.expiry_millis", 6000L);
+  public static final Setting<Integer> TYPING_NAME_LIMIT =  // Above this, only the count is sent
+      RuntimeConfig.live("typing.name_limit", 3);
+
+  public static final Setting<Long> INTERCEPTOR_BUDGET_MILLIS =  // Time a stage may take before it is skipped
+      RuntimeConfig.live("interceptor.budget_millis", 20L);
+  public static final int INTERCEPTOR_THREADS = RuntimeConfig.fixed("interceptor.threads", 4);
+  public static final int INTERCEPTOR_QUEUE =  // Stages waiting for a thread before more are skipped
+      RuntimeConfig.fixed("interceptor.queue", 256);
+  public static final Setting<Integer> INTERCEPTOR_SESSION_PENDING =  // A user's messages in the stages at once
+      RuntimeConfig.live("interceptor.session_pending", 32);
+
+  public static final Setting<Integer> TRACE_SAMPLE_RATE =  // Clients trace one in N chat messages, 0 for none
+      RuntimeConfig.live("trace.sample_rate", 10);
+  public static final Setting<Long> LATENCY_WINDOW_MILLIS =  // Reported latencies are shown for one to two windows
+      RuntimeConfig.live("latency.window_millis", 60_000L);
+
+  public static final String TRAFFIC_RECORD_FILE =  // Where to record traffic for replay, .gz to compress
+      RuntimeConfig.fixed("traffic.record_file", (String) null);  // null = not recording
+  public static final int TRAFFIC_RECORD_QUEUE =  // Events waiting to be written before more are dropped
+      RuntimeConfig.fixed("traffic.record_queue", 65_536);
+
+  public static final Setting<Long> HEARTBEAT_IDLE_TIMEOUT_MILLIS =  // Silence before a ping is sent
+      RuntimeConfig.live("heartbeat.idle_timeout_millis", 30_000L);
+  public static final Setting<Long> HEARTBEAT_DEAD_PEER_TIMEOUT_MILLIS =  // Unanswered ping before eviction
+      RuntimeConfig.live("heartbeat.dead_peer_timeout_millis", 15_000L);
+  public static final long TIMING_WHEEL_TICK_MILLIS = RuntimeConfig.fixed("timing_wheel.tick_millis", 100);
+  public static final int TIMING_WHEEL_SIZE = RuntimeConfig.fixed("timing_wheel.size", 512);
+
+  public static final int BROADCAST_RING_CAPACITY =  // Broadcasts a subscriber may trail by
+      RuntimeConfig.fixed("broadcast.ring_capacity", 4096);
+  public static final int BROADCAST_WRITER_THREADS =  // Threads writing broadcasts, each held by a client that stalls
+      RuntimeConfig.fixed("broadcast.writer_threads", 4 * Runtime.getRuntime().availableProcessors());
+  public static final int HISTORY_CAPACITY =  // Latest broadcasts kept for clients catching up, below the replay capacity
+      RuntimeConfig.fixed("history.capacity", 512);
+
+  public static final Setting<Long> RESUME_WINDOW_MILLIS =  // How long the session of a lost connection is kept
+      RuntimeConfig.live("session.resume_window_millis", 30_000L);
+  public static final int REPLAY_CAPACITY =  // Unacknowledged messages kept per session for replay
+      RuntimeConfig.fixed("session.replay_capacity", 1024);
+
+  public static final Setting<Integer> MAX_LINE_BYTES =  // Longest line read from a client
+      RuntimeConfig.live("connection.max_line_bytes", 1 << 20);
+
+  public static final Setting<Integer> MAX_CONNECTIONS = RuntimeConfig.live("connection.max", 10_000);
+  public static final int MAX_CONCURRENT_HANDSHAKES =
+      RuntimeConfig.fixed("handshake.max_concurrent", Runtime.getRuntime().availableProcessors());
+  public static final Setting<Long> HANDSHAKE_QUEUE_TIMEOUT_MILLIS =  // Wait for a slot before "busy"
+      RuntimeConfig.live("handshake.queue_timeout_millis", 10_000L);
+  public static final Setting<Long> KEY_EXCHANGE_TIMEOUT_MILLIS =
+      RuntimeConfig.live("handshake.key_exchange_timeout_millis", 10_000L);
+  public static final int REJECT_TIMEOUT_MILLIS =  // Wait for a rejected client, over TLS for its handshake
+      RuntimeConfig.fixed("handshake.reject_timeout_millis", 2000);
+  public static final int REJECT_THREADS =  // Threads telling TLS clients the server is busy
+      RuntimeConfig.fixed("handshake.reject_threads", 2);
+  public static final int REJECT_QUEUE =  // TLS clients waiting to be told, before more are closed without a word
+      RuntimeConfig.fixed("handshake.reject_queue", 64);
+  public static final Setting<Long> PASSWORD_TIMEOUT_MILLIS =
+      RuntimeConfig.live("login.password_timeout_millis", 120_000L);
+  public static final Setting<Long> USERNAME_TIMEOUT_MILLIS =
+      RuntimeConfig.live("login.username_timeout_millis", 120_000L);
+  public static final int PASSWORD_FETCH_TIMEOUT_MILLIS =  // Wait for the day's password to connect, and again to answer
+      RuntimeConfig.fixed("login.password_fetch_timeout_millis", 3000);
+  public static final long PASSWORD_FETCH_RETRY_MILLIS =  // After a failed fetch, logins fail until it is tried again
+      RuntimeConfig.fixed("login.password_fetch_retry_millis", 60_000);
+
+  public static final long CONFIG_POLL_MILLIS = 5000;  // How often the configuration file is checked for changes
+
+  private ServerConfig() {} // Prevent instantiation
+}
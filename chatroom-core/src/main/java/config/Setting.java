@@ -0,0 +1,156 @@
+package config;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A configuration value that can be set from outside the code, see {@link RuntimeConfig}.
+ * Live settings pick up a new value on reload, and are read wherever they are used;
+ * other settings keep the value they had at startup.
+ *
+ * @param <T> The type of the value
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public final class Setting<T> {
+  private static final String SECRET_MASK = "********";
+
+  private final String name;
+  private final T fallback;
+  private final Function<String, T> parser;
+  private final boolean live;
+  private final boolean secret;
+  private final List<Consumer<T>> listeners = new CopyOnWriteArrayList<>();
+
+  private volatile T value;
+  private volatile String raw;  // As written in its source, null for the default
+  private volatile String source = RuntimeConfig.SOURCE_DEFAULT;
+  private boolean resolved;
+
+  /**
+   * Create a setting, holding its default until resolved.
+   *
+   * @param name The name of the setting
+   * @param fallback The default value, may be null
+   * @param parser Parses a value from text, throwing an unchecked exception if it is malformed
+   * @param live Whether the setting takes new values on reload
+   * @param secret Whether the value is hidden when shown
+   * @since 1.0
+   */
+  Setting(String name, T fallback, Function<String, T> parser, boolean live, boolean secret) {
+    this.name = name;
+    this.fallback = fallback;
+    this.parser = parser;
+    this.live = live;
+    this.secret = secret;
+    this.value = fallback;
+  }
+
+  /**
+   * Get the effective value.
+   *
+   * @return The value
+   * @since 1.0
+   */
+  public T get() {
+    return value;
+  }
+
+  /**
+   * Get the name of the setting, as used in the configuration file.
+   *
+   * @return The name
+   * @since 1.0
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Check whether the setting takes new values on reload.
+   *
+   * @return True if the setting is live
+   * @since 1.0
+   */
+  public boolean isLive() {
+    return live;
+  }
+
+  /**
+   * Get where the effective value came from.
+   *
+   * @return The source, such as the configuration file or a system property
+   * @since 1.0
+   */
+  public String getSource() {
+    return source;
+  }
+
+  /**
+   * Get the effective value as text, with secrets hidden.
+   *
+   * @return The value as text
+   * @since 1.0
+   */
+  public String describe() {
+    T current = value;
+    if (current == null) {
+      return "(unset)";
+    }
+    return secret ? SECRET_MASK : String.valueOf(current);
+  }
+
+  /**
+   * Run an action whenever a reload changes the value of this live setting.
+   *
+   * @param listener Called with the new value
+   * @since 1.0
+   */
+  public void onChange(Consumer<T> listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Take on the value found in a source, or the default if no source sets it.
+   * Other than the first time, only live settings take the new value.
+   *
+   * @param text The value as text, or null if no source sets it
+   * @param from Where the text came from
+   * @param problems Collects values that are malformed, or that need a restart to take effect
+   * @return A line describing the new value, or null if nothing changed
+   * @since 1.0
+   */
+  String resolve(String text, String from, List<String> problems) {
+    boolean first = !resolved;
+    resolved = true;
+    if (!first && Objects.equals(text, raw)) {
+      return null;
+    }
+    if (!first && !live) {
+      problems.add(name + ": changed, takes effect on restart");
+      return null;
+    }
+
+    T parsed;
+    try {
+      parsed = text == null ? fallback : parser.apply(text.trim());
+    } catch (RuntimeException e) {
+      raw = text;  // Reported once, not on every reload
+      problems.add(name + ": invalid value '" + (secret ? SECRET_MASK : text) + "', keeping " + describe());
+      return null;
+    }
+
+    T previous = value;
+    value = parsed;
+    raw = text;
+    source = text == null ? RuntimeConfig.SOURCE_DEFAULT : from;
+    if (!Objects.equals(previous, parsed)) {
+      listeners.forEach(listener -> listener.accept(parsed));
+    }
+    return name + " = " + describe() + " (" + source + ")";
+  }
+}
@@ -0,0 +1,31 @@
+package config;
+
+/**
+ * Configuration constants for the client.
+ *
+ * @version 1.2
+ * @author Jonas Birkeli
+ * @since 08.06.2024
+ */
+public class UserConfig {
+  public static final String USERNAME_NOT_SET = "DEFAULT_USER";
+
+  public static final String QUIT_COMMAND = "/quit";
+  public static final String NEW_NICKNAME_COMMAND = "/nick";
+  public static final String LIST_USERS_COMMAND = "/list";
+  public static final String MESSAGE_USER_COMMAND = "/msg";
+  public static final String HELP_COMMAND = "/help";
+  public static final String KICK_COMMAND = "/kick";
+  public static final String SHUTDOWN_COMMAND = "/shutdown";
+  public static final String STATS_COMMAND = "/stats";
+  public static final String CONFIG_COMMAND = "/config";  // Followed by "reload" to reload
+  public static final String TYPING_COMMAND = "/typing";  // From the server, followed by the count and the names
+  public static final String TYPING_NAME_SEPARATOR = "\t";  // Between the names of a typing update
+  public static final long TYPING_DEBOUNCE_MILLIS =  // Shorter than the server lets a typing signal last
+      RuntimeConfig.fixed("client.typing_debounce_millis", 4000);
+
+  public static final String PASSWORD_ENVIRONMENT_VARIABLE = "CHATROOM_PASSWORD";
+  public static final String USERNAME_ENVIRONMENT_VARIABLE = "CHATROOM_USERNAME";
+
+  private UserConfig() {} // Prevent instantiation
+}
@@ -0,0 +1,36 @@
+package eventlog;
+
+/**
+ * Severity levels of structured events, from the most to the least verbose.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public enum EventLevel {
+  DEBUG,
+  INFO,
+  WARN,
+  ERROR;
+
+  /**
+   * Parse a level by name, ignoring case.
+   * Falls back to the given default when the name is null or unknown.
+   *
+   * @param name The name of the level
+   * @param fallback The level to use if the name is not recognised
+   * @return The parsed level
+   * @since 1.0
+   */
+  public static EventLevel parse(String name, EventLevel fallback) {
+    if (name == null) {
+      return fallback;
+    }
+    for (EventLevel level : values()) {
+      if (level.name().equalsIgnoreCase(name.trim())) {
+        return level;
+      }
+    }
+    return fallback;
+  }
+}
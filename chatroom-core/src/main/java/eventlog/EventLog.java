@@ -0,0 +1,323 @@
+package eventlog;
+
+import static eventlog.EventLogConfig.LEVEL;
+import static eventlog.EventLogConfig.LOG_MESSAGE_BODIES;
+import static eventlog.EventLogConfig.RING_CAPACITY;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Asynchronous structured event log.
+ * Events are a name plus up to three key/value fields, for example
+ * {@code LOG.info("client.joined", "user", username)}.
+ * Publishing an event only copies references into a shared lock-free ring;
+ * formatting and I/O happen on a single background writer thread.
+ *
+ * <p>Loggers are looked up once and kept in a static field of the emitting class.
+ * Calls below the configured level return immediately.
+ * The level follows the {@code log.level} setting when the configuration is reloaded.
+ * High volume events should additionally be thinned out with a {@link Sampler}.
+ * Message bodies must be passed through {@link #body(String)}, which keeps them out of the log by default.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public final class EventLog {
+  private static final EventRing RING = new EventRing(RING_CAPACITY);
+  private static final ConcurrentMap<String, EventLog> LOGS = new ConcurrentHashMap<>();
+  private static volatile EventLevel threshold = LEVEL.get();
+
+  static {
+    LEVEL.onChange(EventLog::setLevel);
+    EventWriter.start(RING);
+  }
+
+  private final String source;
+
+  /**
+   * Create an event log for a source.
+   *
+   * @param source The name of the emitting component
+   * @since 1.0
+   */
+  private EventLog(String source) {
+    this.source = source;
+  }
+
+  /**
+   * Get the event log of a class.
+   * Intended to be stored in a static final field.
+   *
+   * @param type The emitting class
+   * @return The event log of the class
+   * @since 1.0
+   */
+  public static EventLog get(Class<?> type) {
+    return LOGS.computeIfAbsent(type.getSimpleName(), EventLog::new);
+  }
+
+  /**
+   * Set the minimum level of published events.
+   *
+   * @param level The new threshold
+   * @since 1.0
+   */
+  public static void setLevel(EventLevel level) {
+    threshold = level;
+  }
+
+  /**
+   * Get the minimum level of published events.
+   *
+   * @return The current threshold
+   * @since 1.0
+   */
+  public static EventLevel getLevel() {
+    return threshold;
+  }
+
+  /**
+   * Get the number of events dropped because the writer could not keep up.
+   *
+   * @return The number of dropped events
+   * @since 1.0
+   */
+  public static long getDroppedEvents() {
+    return RING.getDropped();
+  }
+
+  /**
+   * Describe a message body for logging.
+   * Returns only the length of the body, unless logging of bodies has been enabled.
+   *
+   * @param body The message body
+   * @return The body itself, or a placeholder with its length
+   * @since 1.0
+   */
+  public static Object body(String body) {
+    if (body == null || LOG_MESSAGE_BODIES.get()) {
+      return body;
+    }
+    return "<" + body.length() + " chars>";
+  }
+
+  /**
+   * Check whether events of a level are published.
+   *
+   * @param level The level to check
+   * @return True if events of the level are published
+   * @since 1.0
+   */
+  public boolean isEnabled(EventLevel level) {
+    return level.compareTo(threshold) >= 0;
+  }
+
+  /**
+   * Check whether debug events are published.
+   *
+   * @return True if debug events are published
+   * @since 1.0
+   */
+  public boolean isDebugEnabled() {
+    return isEnabled(EventLevel.DEBUG);
+  }
+
+  /**
+   * Publish an event with up to three fields.
+   *
+   * @param level The level of the event
+   * @param event The name of the event
+   * @param fieldCount The number of keys and values given
+   * @param k1 The first key
+   * @param v1 The first value
+   * @param k2 The second key
+   * @param v2 The second value
+   * @param k3 The third key
+   * @param v3 The third value
+   * @since 1.0
+   */
+  private void publish(EventLevel level, String event, int fieldCount,
+      String k1, Object v1, String k2, Object v2, String k3, Object v3) {
+    if (isEnabled(level)) {
+      RING.offer(level, source, event, fieldCount, k1, v1, k2, v2, k3, v3);
+    }
+  }
+
+  /**
+   * Publish a debug event.
+   *
+   * @param event The name of the event
+   * @since 1.0
+   */
+  public void debug(String event) {
+    publish(EventLevel.DEBUG, event, 0, null, null, null, null, null, null);
+  }
+
+  /**
+   * Publish a debug event.
+   *
+   * @param event The name of the event
+   * @param k1 The first key
+   * @param v1 The first value
+   * @since 1.0
+   */
+  public void debug(String event, String k1, Object v1) {
+    publish(EventLevel.DEBUG, event, 2, k1, v1, null, null, null, null);
+  }
+
+  /**
+   * Publish a debug event.
+   *
+   * @param event The name of the event
+   * @param k1 The first key
+   * @param v1 The first value
+   * @param k2 The second key
+   * @param v2 The second value
+   * @since 1.0
+   */
+  public void debug(String event, String k1, Object v1, String k2, Object v2) {
+    publish(EventLevel.DEBUG, event, 4, k1, v1, k2, v2, null, null);
+  }
+
+  /**
+   * Publish a debug event.
+   *
+   * @param event The name of the event
+   * @param k1 The first key
+   * @param v1 The first value
+   * @param k2 The second key
+   * @param v2 The second value
+   * @param k3 The third key
+   * @param v3 The third value
+   * @since 1.0
+   */
+  public void debug(String event, String k1, Object v1, String k2, Object v2, String k3, Object v3) {
+    publish(EventLevel.DEBUG, event, 6, k1, v1, k2, v2, k3, v3);
+  }
+
+  /**
+   * Publish an info event.
+   *
+   * @param event The name of the event
+   * @since 1.0
+   */
+  public void info(String event) {
+    publish(EventLevel.INFO, event, 0, null, null, null, null, null, null);
+  }
+
+  /**
+   * Publish an info event.
+   *
+   * @param event The name of the event
+   * @param k1 The first key
+   * @param v1 The first value
+   * @since 1.0
+   */
+  public void info(String event, String k1, Object v1) {
+    publish(EventLevel.INFO, event, 2, k1, v1, null, null, null, null);
+  }
+
+  /**
+   * Publish an info event.
+   *
+   * @param event The name of the event
+   * @param k1 The first key
+   * @param v1 The first value
+   * @param k2 The second key
+   * @param v2 The second value
+   * @since 1.0
+   */
+  public void info(String event, String k1, Object v1, String k2, Object v2) {
+    publish(EventLevel.INFO, event, 4, k1, v1, k2, v2, null, null);
+  }
+
+  /**
+   * Publish an info event.
+   *
+   * @param event The name of the event
+   * @param k1 The first key
+   * @param v1 The first value
+   * @param k2 The second key
+   * @param v2 The second value
+   * @param k3 The third key
+   * @param v3 The third value
+   * @since 1.0
+   */
+  public void info(String event, String k1, Object v1, String k2, Object v2, String k3, Object v3) {
+    publish(EventLevel.INFO, event, 6, k1, v1, k2, v2, k3, v3);
+  }
+
+  /**
+   * Publish a warn event.
+   *
+   * @param event The name of the event
+   * @since 1.0
+   */
+  public void warn(String event) {
+    publish(EventLevel.WARN, event, 0, null, null, null, null, null, null);
+  }
+
+  /**
+   * Publish a warn event.
+   *
+   * @param event The name of the event
+   * @param k1 The first key
+   * @param v1 The first value
+   * @since 1.0
+   */
+  public void warn(String event, String k1, Object v1) {
+    publish(EventLevel.WARN, event, 2, k1, v1, null, null, null, null);
+  }
+
+  /**
+   * Publish a warn event.
+   *
+   * @param event The name of the event
+   * @param k1 The first key
+   * @param v1 The first value
+   * @param k2 The second key
+   * @param v2 The second value
+   * @since 1.0
+   */
+  public void warn(String event, String k1, Object v1, String k2, Object v2) {
+    publish(EventLevel.WARN, event, 4, k1, v1, k2, v2, null, null);
+  }
+
+  /**
+   * Publish an error event.
+   *
+   * @param event The name of the event
+   * @since 1.0
+   */
+  public void error(String event) {
+    publish(EventLevel.ERROR, event, 0, null, null, null, null, null, null);
+  }
+
+  /**
+   * Publish an error event.
+   *
+   * @param event The name of the event
+   * @param k1 The first key
+   * @param v1 The first value
+   * @since 1.0
+   */
+  public void error(String event, String k1, Object v1) {
+    publish(EventLevel.ERROR, event, 2, k1, v1, null, null, null, null);
+  }
+
+  /**
+   * Publish an error event.
+   *
+   * @param event The name of the event
+   * @param k1 The first key
+   * @param v1 The first value
+   * @param k2 The second key
+   * @param v2 The second value
+   * @since 1.0
+   */
+  public void error(String event, String k1, Object v1, String k2, Object v2) {
+    publish(EventLevel.ERROR, event, 4, k1, v1, k2, v2, null, null);
+  }
+}
@@ -0,0 +1,26 @@
+package eventlog;
+
+import config.RuntimeConfig;
+import config.Setting;
+import java.util.Objects;
+
+/**
+ * Configuration constants for the structured event log.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class EventLogConfig {
+  public static final Setting<EventLevel> LEVEL = RuntimeConfig.live("log.level", EventLevel.INFO,
+      name -> Objects.requireNonNull(EventLevel.parse(name, null)));
+  public static final String LOG_FILE = RuntimeConfig.fixed("log.file", (String) null);  // null = stderr
+  public static final Setting<Boolean> LOG_MESSAGE_BODIES = RuntimeConfig.live("log.bodies", false);
+
+  public static final int RING_CAPACITY = 8192;  // Must be a power of two
+  public static final int WRITER_BATCH_SIZE = 256;
+  public static final long WRITER_IDLE_PARK_NANOS = 1_000_000;
+  public static final int HIGH_VOLUME_SAMPLE_RATE = 64;  // Log 1 in N high volume events
+
+  private EventLogConfig() {} // Prevent instantiation
+}
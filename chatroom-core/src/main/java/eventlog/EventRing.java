@@ -0,0 +1,141 @@
+package eventlog;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock-free ring buffer of events, with many producers and a single consumer.
+ * Slots are allocated once and reused, so publishing an event does not allocate.
+ * Each slot carries a sequence number telling producers and the consumer whose turn it is.
+ * When the ring is full, new events are dropped and counted instead of blocking the caller.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+class EventRing {
+  private final Slot[] slots;
+  private final int mask;
+  private final AtomicLong tail = new AtomicLong();  // Next sequence to claim by producers
+  private final AtomicLong dropped = new AtomicLong();
+  private long head;  // Next sequence to read, only touched by the consumer
+
+  /**
+   * A reusable event slot.
+   *
+   * @since 1.0
+   */
+  static final class Slot {
+    private volatile long sequence;
+    long timestampMillis;
+    EventLevel level;
+    String source;
+    String event;
+    final Object[] fields = new Object[6];  // Up to three key/value pairs
+    int fieldCount;
+  }
+
+  /**
+   * Create a ring with the given capacity.
+   *
+   * @param capacity The number of slots, must be a power of two
+   * @since 1.0
+   */
+  EventRing(int capacity) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Capacity must be a power of two");
+    }
+    slots = new Slot[capacity];
+    mask = capacity - 1;
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new Slot();
+      slots[i].sequence = i;
+    }
+  }
+
+  /**
+   * Publish an event to the ring.
+   *
+   * @param level The level of the event
+   * @param source The name of the component emitting the event
+   * @param event The name of the event
+   * @param fieldCount The number of keys and values given, 0, 2, 4 or 6
+   * @param k1 The first key
+   * @param v1 The first value
+   * @param k2 The second key
+   * @param v2 The second value
+   * @param k3 The third key
+   * @param v3 The third value
+   * @return True if the event was published, false if the ring was full and it was dropped
+   * @since 1.0
+   */
+  boolean offer(EventLevel level, String source, String event, int fieldCount,
+      String k1, Object v1, String k2, Object v2, String k3, Object v3) {
+    Slot slot;
+    long position;
+    while (true) {
+      position = tail.get();
+      slot = slots[(int) position & mask];
+      long difference = slot.sequence - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          break;
+        }
+      } else if (difference < 0) {
+        dropped.incrementAndGet();
+        return false;
+      } else {
+        Thread.onSpinWait();
+      }
+    }
+
+    slot.timestampMillis = System.currentTimeMillis();
+    slot.level = level;
+    slot.source = source;
+    slot.event = event;
+    Object[] fields = slot.fields;
+    fields[0] = k1;
+    fields[1] = v1;
+    fields[2] = k2;
+    fields[3] = v2;
+    fields[4] = k3;
+    fields[5] = v3;
+    slot.fieldCount = fieldCount;
+    slot.sequence = position + 1;  // Hand the slot over to the consumer
+    return true;
+  }
+
+  /**
+   * Get the next published slot, if any.
+   * Must only be called by the single consumer, followed by {@link #release(Slot)}.
+   *
+   * @return The next slot, or null if the ring is empty
+   * @since 1.0
+   */
+  Slot peek() {
+    Slot slot = slots[(int) head & mask];
+    return slot.sequence == head + 1 ? slot : null;
+  }
+
+  /**
+   * Hand a consumed slot back to the producers.
+   *
+   * @param slot The slot returned by {@link #peek()}
+   * @since 1.0
+   */
+  void release(Slot slot) {
+    Arrays.fill(slot.fields, null);
+    slot.sequence = head + slots.length;
+    head++;
+  }
+
+  /**
+   * Get the number of events dropped because the ring was full.
+   *
+   * @return The number of dropped events
+   * @since 1.0
+   */
+  long getDropped() {
+    return dropped.get();
+  }
+}
@@ -0,0 +1,174 @@
+package eventlog;
+
+import static eventlog.EventLogConfig.LOG_FILE;
+import static eventlog.EventLogConfig.WRITER_BATCH_SIZE;
+import static eventlog.EventLogConfig.WRITER_IDLE_PARK_NANOS;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Background thread draining the event ring and writing events as logfmt lines.
+ * Events are formatted into one buffer per batch, so the output is written once per batch
+ * instead of once per event.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+class EventWriter implements Runnable {
+  private final EventRing ring;
+  private final PrintStream output;
+  private final StringBuilder buffer = new StringBuilder(4096);
+  private volatile boolean running = true;
+
+  /**
+   * Create a writer for a ring.
+   *
+   * @param ring The ring to drain
+   * @param output The stream to write formatted events to
+   * @since 1.0
+   */
+  private EventWriter(EventRing ring, PrintStream output) {
+    this.ring = ring;
+    this.output = output;
+  }
+
+  /**
+   * Start the writer thread for a ring.
+   * Remaining events are written when the JVM shuts down.
+   *
+   * @param ring The ring to drain
+   * @since 1.0
+   */
+  static void start(EventRing ring) {
+    EventWriter writer = new EventWriter(ring, openOutput());
+    Thread thread = new Thread(writer, "event-log-writer");
+    thread.setDaemon(true);
+    thread.start();
+
+    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+      writer.running = false;
+      writer.drain();
+    }, "event-log-flush"));
+  }
+
+  /**
+   * Open the configured output, falling back to standard error.
+   *
+   * @return The stream to write events to
+   * @since 1.0
+   */
+  private static PrintStream openOutput() {
+    if (LOG_FILE == null) {
+      return System.err;
+    }
+    try {
+      OutputStream file = new FileOutputStream(LOG_FILE, true);
+      return new PrintStream(file, false, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      System.err.println("Failed to open event log file " + LOG_FILE + ", using stderr");
+      return System.err;
+    }
+  }
+
+  /**
+   * The run method is called when the thread is started.
+   * Drains the ring, parking briefly whenever it is empty.
+   *
+   * @since 1.0
+   */
+  @Override
+  public void run() {
+    while (running) {
+      if (drain() == 0) {
+        LockSupport.parkNanos(WRITER_IDLE_PARK_NANOS);
+      }
+    }
+  }
+
+  /**
+   * Write all events currently in the ring, one batch at a time.
+   *
+   * @return The number of events written
+   * @since 1.0
+   */
+  private synchronized int drain() {
+    int written = 0;
+    EventRing.Slot slot;
+    while ((slot = ring.peek()) != null) {
+      format(slot);
+      ring.release(slot);
+      written++;
+
+      if (written % WRITER_BATCH_SIZE == 0) {
+        flushBuffer();
+      }
+    }
+    flushBuffer();
+    return written;
+  }
+
+  /**
+   * Append an event to the buffer as a logfmt line.
+   *
+   * @param slot The slot holding the event
+   * @since 1.0
+   */
+  private void format(EventRing.Slot slot) {
+    buffer.append("ts=").append(Instant.ofEpochMilli(slot.timestampMillis))
+        .append(" level=").append(slot.level)
+        .append(" source=").append(slot.source)
+        .append(" event=").append(slot.event);
+    for (int i = 0; i + 1 < slot.fieldCount; i += 2) {
+      buffer.append(' ').append(slot.fields[i]).append('=');
+      appendValue(slot.fields[i + 1]);
+    }
+    buffer.append('\n');
+  }
+
+  /**
+   * Append a field value, quoting it if it contains spaces or quotes.
+   *
+   * @param value The value to append
+   * @since 1.0
+   */
+  private void appendValue(Object value) {
+    String text = String.valueOf(value);
+    if (text.indexOf(' ') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0) {
+      buffer.append(text);
+      return;
+    }
+    buffer.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c == '"' || c == '\\') {
+        buffer.append('\\').append(c);
+      } else if (c == '\n') {
+        buffer.append("\\n");
+      } else {
+        buffer.append(c);
+      }
+    }
+    buffer.append('"');
+  }
+
+  /**
+   * Write and clear the buffer.
+   *
+   * @since 1.0
+   */
+  private void flushBuffer() {
+    if (buffer.length() == 0) {
+      return;
+    }
+    output.print(buffer);
+    output.flush();
+    buffer.setLength(0);
+  }
+}
@@ -0,0 +1,48 @@
+package eventlog;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Thins out high volume events by letting only about one in every N through.
+ * Uses a thread local random source, so sampling shares no state between threads.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public final class Sampler {
+  private final int rate;
+
+  /**
+   * Create a sampler.
+   *
+   * @param rate Let one in every {@code rate} events through, 1 lets all through
+   * @since 1.0
+   */
+  public Sampler(int rate) {
+    if (rate < 1) {
+      throw new IllegalArgumentException("Sample rate must be at least 1");
+    }
+    this.rate = rate;
+  }
+
+  /**
+   * Decide whether the current event should be logged.
+   *
+   * @return True if the event is sampled
+   * @since 1.0
+   */
+  public boolean sample() {
+    return rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+  }
+
+  /**
+   * Get the sample rate.
+   *
+   * @return One in how many events is let through
+   * @since 1.0
+   */
+  public int getRate() {
+    return rate;
+  }
+}
@@ -5,19 +5,23 @@ import static keyGen.KeyConfig.ASYMMETRIC_KEY_SIZE;
 import static keyGen.KeyConfig.SYMMETRIC_ALGORITHM_CREATE_KEY;
 import static keyGen.KeyConfig.SYMMETRIC_KEY_SIZE;
 
+import java.nio.charset.StandardCharsets;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.util.Base64;
 import java.util.logging.Logger;
 import javax.crypto.KeyGenerator;
 import javax.crypto.SecretKey;
 
 /**
  * The KeyClass class is responsible for generating keys.
+ * Once the keys are exchanged, only the AES key is needed, and the RSA keys can be forgotten.
  *
- * @version 1.1
+ * @version 1.5
  * @author Jonas Birkeli
  * @since 13.06.2024
  */
@@ -34,6 +38,28 @@ public abstract class KeyClass {
    * @since 1.0
    */
   protected KeyClass() {
+    this(true);
+  }
+
+  /**
+   * Constructor for the KeyClass class.
+   * Key generation can be deferred, so that it does not happen on the thread creating the instance.
+   *
+   * @param generateNow Whether to create the RSA key pair and the AES key right away
+   * @since 1.2
+   */
+  protected KeyClass(boolean generateNow) {
+    if (generateNow) {
+      generateKeys();
+    }
+  }
+
+  /**
+   * Creates the RSA key pair and the AES key.
+   *
+   * @since 1.2
+   */
+  protected void generateKeys() {
     generateRSAKeyPair();
     generateAESKey();
   }
@@ -61,10 +87,11 @@ public abstract class KeyClass {
   /**
    * Generate an AES key.
    * The key is stored in the secretKey field.
+   * A client that picks the key of a connection itself needs no RSA key pair, only this.
    *
    * @since 1.1
    */
-  private void generateAESKey() {
+  protected void generateAESKey() {
     try {
       KeyGenerator keyGenerator = KeyGenerator.getInstance(SYMMETRIC_ALGORITHM_CREATE_KEY);
       keyGenerator.init(SYMMETRIC_KEY_SIZE);
@@ -118,6 +145,18 @@ public abstract class KeyClass {
     return otherPartyPublicKey;
   }
 
+  /**
+   * Forgets the RSA key pair and the public key of the other party, once the AES key is exchanged,
+   * so a long connection does not keep key material it no longer uses.
+   *
+   * @since 1.4
+   */
+  protected void forgetAsymmetricKeys() {
+    publicKey = null;
+    privateKey = null;
+    otherPartyPublicKey = null;
+  }
+
   /**
    * Sets the symmetric key.
    *
@@ -136,4 +175,22 @@ public abstract class KeyClass {
   protected SecretKey getSecretKey() {
     return secretKey;
   }
+
+  /**
+   * Derives the id that names a session on a standby's reattach port from its resume token.
+   * The id is sent in plain text, and does not give the token away.
+   *
+   * @param token The resume token
+   * @return The id, in URL-safe Base64
+   * @since 1.5
+   */
+  public static String sessionId(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(("reattach " + token).getBytes(StandardCharsets.UTF_8));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
 }
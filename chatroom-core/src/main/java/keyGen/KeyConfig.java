@@ -0,0 +1,34 @@
+package keyGen;
+
+import config.RuntimeConfig;
+
+/**
+ * Configuration constants for the key generation.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 13.06.2024
+ */
+public class KeyConfig {
+  public static final int ASYMMETRIC_KEY_SIZE = RuntimeConfig.fixed("keys.asymmetric_size", 2048);
+  public static final String ASYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT = "RSA";//ECB/OAEPWithSHA-256AndMGF1Padding";
+  //public static final String ASYMMETRIC_ALGORITHM_CREATE_KEY = "RSA";
+  public static final String ASYMMETRIC_ALGORITHM_CREATE_KEY = ASYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT;
+
+  public static final int SYMMETRIC_KEY_SIZE = RuntimeConfig.fixed("keys.symmetric_size", 128);
+  public static final String SYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT = "AES";//ECB/NoPadding";
+  //public static final String SYMMETRIC_ALGORITHM_CREATE_KEY = "AES";
+  public static final String SYMMETRIC_ALGORITHM_CREATE_KEY = SYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT;
+
+  public static final String TLS_PROTOCOL = "TLSv1.3";
+  public static final String TLS_KEYSTORE_TYPE = "PKCS12";
+  public static final String TLS_KEYSTORE = RuntimeConfig.fixed("tls.keystore", (String) null);
+  public static final String TLS_KEYSTORE_PASSWORD = RuntimeConfig.secret("tls.keystore.password", "");
+  public static final String TLS_TRUSTSTORE = RuntimeConfig.fixed("tls.truststore", (String) null);  // null = JDK default
+  public static final String TLS_TRUSTSTORE_PASSWORD = RuntimeConfig.secret("tls.truststore.password", "");
+  public static final int TLS_SESSION_CACHE_SIZE = RuntimeConfig.fixed("tls.session_cache_size", 20_000);
+  public static final int TLS_SESSION_TIMEOUT_SECONDS =
+      RuntimeConfig.fixed("tls.session_timeout_seconds", 24 * 60 * 60);
+
+  private KeyConfig() {} // Prevent instantiation
+}
@@ -0,0 +1,224 @@
+package keyGen;
+
+import static keyGen.KeyConfig.TLS_KEYSTORE;
+import static keyGen.KeyConfig.TLS_KEYSTORE_PASSWORD;
+import static keyGen.KeyConfig.TLS_KEYSTORE_TYPE;
+import static keyGen.KeyConfig.TLS_PROTOCOL;
+import static keyGen.KeyConfig.TLS_SESSION_CACHE_SIZE;
+import static keyGen.KeyConfig.TLS_SESSION_TIMEOUT_SECONDS;
+import static keyGen.KeyConfig.TLS_TRUSTSTORE;
+import static keyGen.KeyConfig.TLS_TRUSTSTORE_PASSWORD;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLServerSocket;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+
+/**
+ * TLS 1.3 transport, an alternative to the RSA key exchange and AES encrypted lines.
+ * The server's keystore and the client's truststore are loaded once per process,
+ * and each side keeps one context, so TLS sessions are cached and resumed across connections.
+ *
+ * <p>Lines sent over TLS are not encrypted again; they are only escaped,
+ * so that messages spanning several lines still travel as a single line.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public final class TlsTransport {
+  private static SSLContext serverContext;
+  private static SSLContext clientContext;
+
+  private TlsTransport() {} // Prevent instantiation
+
+  /**
+   * Create a server socket accepting TLS 1.3 connections.
+   * Requires the {@code chatroom.tls.keystore} system property to point at a PKCS12 keystore.
+   *
+   * @param port The port to listen on
+   * @return The server socket
+   * @throws IOException If the keystore cannot be loaded or the port cannot be bound
+   * @since 1.0
+   */
+  public static ServerSocket createServerSocket(int port) throws IOException {
+    SSLServerSocket serverSocket =
+        (SSLServerSocket) getServerContext().getServerSocketFactory().createServerSocket(port);
+    serverSocket.setEnabledProtocols(new String[] {TLS_PROTOCOL});
+    return serverSocket;
+  }
+
+  /**
+   * Open a TLS 1.3 connection to a server.
+   *
+   * @param host The host of the server
+   * @param port The port of the server
+   * @return The connected socket, with the handshake completed
+   * @throws IOException If the connection or the handshake fails
+   * @since 1.0
+   */
+  public static Socket createSocket(String host, int port) throws IOException {
+    return createSocket(host, port, 0);
+  }
+
+  /**
+   * Open a TLS 1.3 connection to a server, giving up if connecting or the handshake takes too long.
+   *
+   * @param host The host of the server
+   * @param port The port of the server
+   * @param timeoutMillis How long connecting and the handshake may each take, 0 to wait forever
+   * @return The connected socket, with the handshake completed
+   * @throws IOException If the connection or the handshake fails, or times out
+   * @since 1.1
+   */
+  public static Socket createSocket(String host, int port, int timeoutMillis) throws IOException {
+    SSLSocket socket = (SSLSocket) getClientContext().getSocketFactory().createSocket();
+    try {
+      socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+      socket.setEnabledProtocols(new String[] {TLS_PROTOCOL});
+      socket.setTcpNoDelay(true);
+      socket.setSoTimeout(timeoutMillis);
+      socket.startHandshake();
+      socket.setSoTimeout(0);
+    } catch (IOException e) {
+      socket.close();
+      throw e;
+    }
+    return socket;
+  }
+
+  /**
+   * Get the server context, loading the keystore the first time.
+   *
+   * @return The server context
+   * @throws IOException If the keystore cannot be loaded
+   * @since 1.0
+   */
+  private static synchronized SSLContext getServerContext() throws IOException {
+    if (serverContext == null) {
+      if (TLS_KEYSTORE == null) {
+        throw new IOException("TLS transport needs -Dchatroom.tls.keystore=<PKCS12 file>");
+      }
+      try {
+        KeyManagerFactory keyManagers =
+            KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(loadKeyStore(TLS_KEYSTORE, TLS_KEYSTORE_PASSWORD),
+            TLS_KEYSTORE_PASSWORD.toCharArray());
+
+        SSLContext context = SSLContext.getInstance(TLS_PROTOCOL);
+        context.init(keyManagers.getKeyManagers(), null, null);
+        context.getServerSessionContext().setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+        context.getServerSessionContext().setSessionTimeout(TLS_SESSION_TIMEOUT_SECONDS);
+        serverContext = context;
+      } catch (GeneralSecurityException e) {
+        throw new IOException("Failed to load TLS keystore " + TLS_KEYSTORE, e);
+      }
+    }
+    return serverContext;
+  }
+
+  /**
+   * Get the client context, loading the truststore the first time.
+   * Without a configured truststore, the JDK's default trust anchors are used.
+   *
+   * @return The client context
+   * @throws IOException If the truststore cannot be loaded
+   * @since 1.0
+   */
+  private static synchronized SSLContext getClientContext() throws IOException {
+    if (clientContext == null) {
+      try {
+        TrustManagerFactory trustManagers =
+            TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(TLS_TRUSTSTORE == null
+            ? null
+            : loadKeyStore(TLS_TRUSTSTORE, TLS_TRUSTSTORE_PASSWORD));
+
+        SSLContext context = SSLContext.getInstance(TLS_PROTOCOL);
+        context.init(null, trustManagers.getTrustManagers(), null);
+        context.getClientSessionContext().setSessionCacheSize(TLS_SESSION_CACHE_SIZE);
+        context.getClientSessionContext().setSessionTimeout(TLS_SESSION_TIMEOUT_SECONDS);
+        clientContext = context;
+      } catch (GeneralSecurityException e) {
+        throw new IOException("Failed to load TLS truststore " + TLS_TRUSTSTORE, e);
+      }
+    }
+    return clientContext;
+  }
+
+  /**
+   * Load a PKCS12 keystore from a file.
+   *
+   * @param path The path of the keystore
+   * @param password The password of the keystore
+   * @return The keystore
+   * @throws IOException If the file cannot be read
+   * @throws GeneralSecurityException If the keystore is invalid
+   * @since 1.0
+   */
+  private static KeyStore loadKeyStore(String path, String password)
+      throws IOException, GeneralSecurityException {
+    KeyStore keyStore = KeyStore.getInstance(TLS_KEYSTORE_TYPE);
+    try (InputStream input = new FileInputStream(path)) {
+      keyStore.load(input, password.toCharArray());
+    }
+    return keyStore;
+  }
+
+  /**
+   * Escape a message so that it fits on one line.
+   *
+   * @param message The message to escape
+   * @return The escaped message
+   * @since 1.0
+   */
+  public static String escape(String message) {
+    if (message.indexOf('\\') < 0 && message.indexOf('\n') < 0 && message.indexOf('\r') < 0) {
+      return message;
+    }
+    StringBuilder escaped = new StringBuilder(message.length() + 8);
+    for (int i = 0; i < message.length(); i++) {
+      char c = message.charAt(i);
+      switch (c) {
+        case '\\' -> escaped.append("\\\\");
+        case '\n' -> escaped.append("\\n");
+        case '\r' -> escaped.append("\\r");
+        default -> escaped.append(c);
+      }
+    }
+    return escaped.toString();
+  }
+
+  /**
+   * Undo {@link #escape(String)}.
+   *
+   * @param line The escaped line
+   * @return The original message
+   * @since 1.0
+   */
+  public static String unescape(String line) {
+    if (line.indexOf('\\') < 0) {
+      return line;
+    }
+    StringBuilder message = new StringBuilder(line.length());
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c != '\\' || i + 1 == line.length()) {
+        message.append(c);
+        continue;
+      }
+      char next = line.charAt(++i);
+      message.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+    }
+    return message.toString();
+  }
+}
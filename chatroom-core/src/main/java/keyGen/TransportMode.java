@@ -0,0 +1,36 @@
+package keyGen;
+
+/**
+ * How messages between the client and the server are protected.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public enum TransportMode {
+  /** RSA key exchange over the plain socket, then AES encrypted lines. */
+  RSA_AES,
+  /** TLS 1.3 socket carrying plain lines. */
+  TLS;
+
+  /**
+   * Parse a transport mode by name, ignoring case.
+   * Falls back to the given default when the name is null or unknown.
+   *
+   * @param name The name of the mode
+   * @param fallback The mode to use if the name is not recognised
+   * @return The parsed mode
+   * @since 1.0
+   */
+  public static TransportMode parse(String name, TransportMode fallback) {
+    if (name == null) {
+      return fallback;
+    }
+    for (TransportMode mode : values()) {
+      if (mode.name().equalsIgnoreCase(name.trim().replace('-', '_'))) {
+        return mode;
+      }
+    }
+    return fallback;
+  }
+}
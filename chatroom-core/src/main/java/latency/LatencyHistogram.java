@@ -0,0 +1,169 @@
+package latency;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of latencies in milliseconds, small enough to be sent in a line.
+ * Latencies below 16 ms are counted exactly, longer ones in eight buckets per doubling,
+ * so a percentile is never off by more than an eighth. Latencies below zero,
+ * which clocks that are slightly apart can produce, count as zero.
+ *
+ * <p>A histogram is encoded as its non-empty buckets, {@code index:count} separated by commas,
+ * so that clients can report theirs and the server can add them up.
+ * Not thread safe.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public final class LatencyHistogram {
+  private static final int EXACT = 16;  // Latencies counted exactly, a power of two
+  private static final int EXACT_BITS = 4;
+  private static final int SUB_BUCKETS = 8;  // Buckets per doubling above the exact ones
+  private static final int SUB_BITS = 3;
+  private static final int BUCKETS = EXACT + (Long.SIZE - 1 - EXACT_BITS) * SUB_BUCKETS;
+
+  private final long[] counts = new long[BUCKETS];
+  private long total;
+
+  /**
+   * Counts a latency.
+   *
+   * @param millis The latency in milliseconds
+   * @since 1.0
+   */
+  public void record(long millis) {
+    counts[bucket(millis)]++;
+    total++;
+  }
+
+  /**
+   * Adds the counts of another histogram to this one.
+   *
+   * @param other The other histogram
+   * @since 1.0
+   */
+  public void add(LatencyHistogram other) {
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] += other.counts[i];
+    }
+    total += other.total;
+  }
+
+  /**
+   * Returns the number of latencies counted.
+   *
+   * @return The count
+   * @since 1.0
+   */
+  public long getCount() {
+    return total;
+  }
+
+  /**
+   * Returns the latency that a share of the counted latencies do not exceed,
+   * rounded up to the end of its bucket.
+   *
+   * @param percentile The share, between 0 and 1
+   * @return The latency in milliseconds, or 0 if none were counted
+   * @since 1.0
+   */
+  public long getPercentile(double percentile) {
+    long rank = Math.max(1, (long) Math.ceil(percentile * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts[i];
+      if (seen >= rank && counts[i] > 0) {
+        return i == BUCKETS - 1 ? lowerBound(i) : lowerBound(i + 1) - 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Forgets every latency counted.
+   *
+   * @since 1.0
+   */
+  public void clear() {
+    Arrays.fill(counts, 0);
+    total = 0;
+  }
+
+  /**
+   * Encodes the histogram, for example {@code 3:12,17:4,40:1}.
+   *
+   * @return The non-empty buckets, or an empty string if none were counted
+   * @since 1.0
+   */
+  public String encode() {
+    StringBuilder encoded = new StringBuilder();
+    for (int i = 0; i < BUCKETS; i++) {
+      if (counts[i] > 0) {
+        if (!encoded.isEmpty()) {
+          encoded.append(',');
+        }
+        encoded.append(i).append(':').append(counts[i]);
+      }
+    }
+    return encoded.toString();
+  }
+
+  /**
+   * Decodes a histogram encoded by {@link #encode()}.
+   * Buckets that are malformed or out of range are skipped.
+   *
+   * @param encoded The encoded histogram
+   * @return The histogram
+   * @since 1.0
+   */
+  public static LatencyHistogram decode(String encoded) {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (String bucket : encoded.split(",")) {
+      int colon = bucket.indexOf(':');
+      try {
+        int index = Integer.parseInt(bucket.substring(0, Math.max(0, colon)));
+        long count = Long.parseLong(bucket.substring(colon + 1));
+        if (index >= 0 && index < BUCKETS && count > 0) {
+          histogram.counts[index] += count;
+          histogram.total += count;
+        }
+      } catch (NumberFormatException e) {
+        // Skip the bucket
+      }
+    }
+    return histogram;
+  }
+
+  /**
+   * Finds the bucket of a latency.
+   *
+   * @param millis The latency in milliseconds
+   * @return The index of the bucket
+   * @since 1.0
+   */
+  private static int bucket(long millis) {
+    if (millis < EXACT) {
+      return (int) Math.max(0, millis);
+    }
+    int doubling = Long.SIZE - 1 - Long.numberOfLeadingZeros(millis);
+    int sub = (int) (millis >>> (doubling - SUB_BITS)) & (SUB_BUCKETS - 1);
+    return EXACT + (doubling - EXACT_BITS) * SUB_BUCKETS + sub;
+  }
+
+  /**
+   * Returns the shortest latency of a bucket.
+   *
+   * @param index The index of the bucket
+   * @return The latency in milliseconds
+   * @since 1.0
+   */
+  private static long lowerBound(int index) {
+    if (index < EXACT) {
+      return index;
+    }
+    int doubling = (index - EXACT) / SUB_BUCKETS + EXACT_BITS;
+    int sub = (index - EXACT) % SUB_BUCKETS;
+    return (1L << doubling) + ((long) sub << (doubling - SUB_BITS));
+  }
+}
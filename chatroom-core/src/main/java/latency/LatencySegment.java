@@ -0,0 +1,45 @@
+package latency;
+
+/**
+ * The legs of a chat message's way from the sender's send to the recipient's screen.
+ * Clients report a histogram per segment, and the server keeps them apart,
+ * so a delay can be put down to the network, the server or the window of the recipient.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public enum LatencySegment {
+  TOTAL,  // From the send to the screen
+  UP,  // From the send to the server reading it
+  HANDLING,  // From the server reading it to broadcasting it, interceptors included
+  QUEUE,  // From the broadcast to the server writing it to the recipient
+  DOWN,  // From the write to the recipient reading it
+  UI;  // From the recipient reading it to showing it
+
+  /**
+   * Returns the name of the segment in reports and metrics.
+   *
+   * @return The name, in lower case
+   * @since 1.0
+   */
+  public String getName() {
+    return name().toLowerCase();
+  }
+
+  /**
+   * Parse a segment by its name.
+   *
+   * @param name The name of the segment
+   * @return The segment, or null if there is none by that name
+   * @since 1.0
+   */
+  public static LatencySegment parse(String name) {
+    for (LatencySegment segment : values()) {
+      if (segment.getName().equals(name)) {
+        return segment;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,8 @@
+module chatroom.core {
+  requires java.logging;
+
+  exports clientside.backend;
+  exports config;
+  exports eventlog;
+  exports keyGen;
+}
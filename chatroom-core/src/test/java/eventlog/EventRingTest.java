@@ -0,0 +1,111 @@
+package eventlog;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link EventRing}, from a single thread: the order events come out in,
+ * what happens when the ring is full, and that slots are handed back for reuse.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+class EventRingTest {
+
+  @Test
+  void rejectsCapacityThatIsNotAPowerOfTwo() {
+    assertThrows(IllegalArgumentException.class, () -> new EventRing(6));
+  }
+
+  @Test
+  void emptyRingHasNothingToPeek() {
+    assertNull(new EventRing(4).peek());
+  }
+
+  @Test
+  void eventsComeOutInTheOrderTheyWerePublished() {
+    EventRing ring = new EventRing(8);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(offer(ring, "event" + i));
+    }
+    assertEquals(List.of("event0", "event1", "event2", "event3", "event4"), drain(ring));
+    assertNull(ring.peek());
+  }
+
+  @Test
+  void keepsTheFieldsOfAnEvent() {
+    EventRing ring = new EventRing(4);
+    ring.offer(EventLevel.WARN, "Test", "fields", 4, "user", "alice", "count", 3, null, null);
+    EventRing.Slot slot = ring.peek();
+    assertEquals(EventLevel.WARN, slot.level);
+    assertEquals("Test", slot.source);
+    assertEquals(4, slot.fieldCount);
+    assertEquals("alice", slot.fields[1]);
+    assertEquals(3, slot.fields[3]);
+    ring.release(slot);
+    assertNull(slot.fields[1]);
+  }
+
+  @Test
+  void fullRingDropsAndCountsNewEvents() {
+    EventRing ring = new EventRing(4);
+    for (int i = 0; i < 4; i++) {
+      assertTrue(offer(ring, "kept" + i));
+    }
+    assertFalse(offer(ring, "dropped0"));
+    assertFalse(offer(ring, "dropped1"));
+    assertEquals(2, ring.getDropped());
+    assertEquals(List.of("kept0", "kept1", "kept2", "kept3"), drain(ring));
+  }
+
+  @Test
+  void releasedSlotTakesTheNextEvent() {
+    EventRing ring = new EventRing(2);
+    offer(ring, "first");
+    offer(ring, "second");
+    assertFalse(offer(ring, "dropped"));
+    ring.release(ring.peek());
+    assertTrue(offer(ring, "third"));
+    assertEquals(List.of("second", "third"), drain(ring));
+    assertEquals(1, ring.getDropped());
+  }
+
+  @Test
+  void keepsOrderOverManyWrapsAround() {
+    EventRing ring = new EventRing(4);
+    List<String> expected = new ArrayList<>();
+    List<String> received = new ArrayList<>();
+    for (int round = 0; round < 100; round++) {
+      for (int i = 0; i < 3; i++) {
+        String event = "event" + (round * 3 + i);
+        assertTrue(offer(ring, event));
+        expected.add(event);
+      }
+      received.addAll(drain(ring));
+    }
+    assertEquals(expected, received);
+    assertEquals(0, ring.getDropped());
+  }
+
+  private static boolean offer(EventRing ring, String event) {
+    return ring.offer(EventLevel.INFO, "Test", event, 0, null, null, null, null, null, null);
+  }
+
+  private static List<String> drain(EventRing ring) {
+    List<String> events = new ArrayList<>();
+    EventRing.Slot slot;
+    while ((slot = ring.peek()) != null) {
+      events.add(slot.event);
+      ring.release(slot);
+    }
+    return events;
+  }
+}
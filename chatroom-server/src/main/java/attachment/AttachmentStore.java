@@ -0,0 +1,391 @@
+package attachment;
+
+import static config.AttachmentConfig.RETENTION_MILLIS;
+import static config.AttachmentConfig.STORE_DIRECTORY;
+import static config.AttachmentConfig.STORE_MAX_BYTES;
+import static config.AttachmentConfig.UPLOAD_IDLE_MILLIS;
+
+import eventlog.EventLog;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The attachments of the server, spilled to disk as they arrive.
+ * No attachment is ever held in memory as a whole; uploads are written and downloads read
+ * one chunk at a time. Attachments are deleted once they are older than the retention time,
+ * uploads once no chunk arrived for the idle time, and all of them when the store is closed.
+ * The store holds no more than its limit in bytes: an upload counts at its announced size
+ * from its start, and one that does not fit is refused.
+ *
+ * <p>Downloads are pumped by a single thread of low priority, one chunk per turn,
+ * so transfers share it fairly and never take a core from chat traffic.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class AttachmentStore {
+  private static final EventLog LOG = EventLog.get(AttachmentStore.class);
+
+  private final Path directory;
+  private final Map<String, Attachment> attachments = new ConcurrentHashMap<>();
+  private final AtomicLong nextId = new AtomicLong(1);
+  private final AtomicLong reservedBytes = new AtomicLong();  // Announced sizes of every attachment kept
+  private final ExecutorService pump;
+
+  /**
+   * A file shared in the chat.
+   *
+   * @version 1.1
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  public static final class Attachment {
+    private final String id;
+    private final String name;
+    private final long size;
+    private final String owner;
+    private final Path file;
+    private final long createdMillis = System.currentTimeMillis();
+    private volatile long lastChunkMillis = createdMillis;
+    private volatile Upload upload;  // Null once complete
+    private volatile boolean complete;
+
+    /**
+     * Create an attachment.
+     *
+     * @param id The id of the attachment
+     * @param name The file name given by the sender
+     * @param size The size in bytes
+     * @param owner The user who sent it
+     * @param file Where the attachment is stored
+     * @since 1.0
+     */
+    private Attachment(String id, String name, long size, String owner, Path file) {
+      this.id = id;
+      this.name = name;
+      this.size = size;
+      this.owner = owner;
+      this.file = file;
+    }
+
+    /**
+     * Returns the id of the attachment, which recipients fetch it by.
+     *
+     * @return The id
+     * @since 1.0
+     */
+    public String getId() {
+      return id;
+    }
+
+    /**
+     * Returns the file name given by the sender.
+     *
+     * @return The file name
+     * @since 1.0
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns the size of the attachment.
+     *
+     * @return The size in bytes
+     * @since 1.0
+     */
+    public long getSize() {
+      return size;
+    }
+
+    /**
+     * Returns the user who sent the attachment.
+     *
+     * @return The username
+     * @since 1.0
+     */
+    public String getOwner() {
+      return owner;
+    }
+
+    /**
+     * Checks whether every byte of the attachment has arrived.
+     *
+     * @return True if the attachment can be fetched
+     * @since 1.0
+     */
+    public boolean isComplete() {
+      return complete;
+    }
+
+    /**
+     * Reads a chunk of the attachment from disk.
+     *
+     * @param offset Where to start reading
+     * @param chunk The buffer to read into, up to its limit
+     * @throws IOException If the file cannot be read
+     * @since 1.0
+     */
+    void read(long offset, ByteBuffer chunk) throws IOException {
+      try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+        while (chunk.hasRemaining() && channel.read(chunk, offset + chunk.position()) >= 0) {
+          // Read until the buffer is full or the file ends
+        }
+      }
+    }
+  }
+
+  /**
+   * An attachment that is being written to disk as its chunks arrive.
+   * Chunks are written by the thread reading the sender's connection, in order.
+   * An upload left idle is aborted by the store, after which writing fails.
+   *
+   * @version 1.1
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  public final class Upload {
+    private final Attachment attachment;
+    private final FileChannel channel;
+    private long received;
+
+    /**
+     * Create an upload.
+     *
+     * @param attachment The attachment being uploaded
+     * @throws IOException If the file cannot be created
+     * @since 1.0
+     */
+    private Upload(Attachment attachment) throws IOException {
+      this.attachment = attachment;
+      this.channel = FileChannel.open(attachment.file,
+          StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Returns the attachment being uploaded.
+     *
+     * @return The attachment
+     * @since 1.0
+     */
+    public Attachment getAttachment() {
+      return attachment;
+    }
+
+    /**
+     * Writes the next chunk to disk.
+     * Once the last byte has arrived, the attachment is complete and can be fetched.
+     *
+     * @param chunk The chunk
+     * @return True if the attachment is complete
+     * @throws IOException If the chunk does not fit in the announced size, or cannot be written
+     * @since 1.0
+     */
+    public boolean write(byte[] chunk) throws IOException {
+      if (received + chunk.length > attachment.size) {
+        throw new IOException("More bytes than announced");
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(chunk);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      received += chunk.length;
+      attachment.lastChunkMillis = System.currentTimeMillis();
+      if (received < attachment.size) {
+        return false;
+      }
+      channel.close();
+      attachment.upload = null;
+      attachment.complete = true;
+      LOG.info("attachment.stored", "id", attachment.id, "bytes", attachment.size);
+      return true;
+    }
+
+    /**
+     * Abandons the upload and deletes what was written so far.
+     *
+     * @since 1.0
+     */
+    public void abort() {
+      try {
+        channel.close();
+      } catch (IOException ignored) {/* Ignored */}
+      delete(attachment);
+    }
+  }
+
+  /**
+   * Create a store.
+   *
+   * @param directory The directory to spill attachments to, created if missing
+   * @throws IOException If the directory cannot be created
+   * @since 1.0
+   */
+  public AttachmentStore(Path directory) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.pump = Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "attachment-pump");
+      thread.setDaemon(true);
+      thread.setPriority(Thread.MIN_PRIORITY);
+      return thread;
+    });
+  }
+
+  /**
+   * Create a store in the configured directory, or in a new temporary directory.
+   *
+   * @return The store
+   * @throws IOException If the directory cannot be created
+   * @since 1.0
+   */
+  public static AttachmentStore open() throws IOException {
+    return new AttachmentStore(STORE_DIRECTORY == null
+        ? Files.createTempDirectory("chatroom-attachments")
+        : Path.of(STORE_DIRECTORY));
+  }
+
+  /**
+   * Starts storing a new attachment.
+   * Attachments past their retention time, and idle uploads, are deleted first.
+   *
+   * @param owner The user who sends it
+   * @param name The file name given by the sender
+   * @param size The size in bytes
+   * @return The upload, or null if the store has no room for the attachment
+   * @throws IOException If the file cannot be created
+   * @since 1.0
+   */
+  public Upload begin(String owner, String name, long size) throws IOException {
+    expireOld();
+    if (!reserve(size)) {
+      LOG.info("attachment.store_full", "owner", owner, "bytes", size);
+      return null;
+    }
+    String id = Long.toString(nextId.getAndIncrement());
+    Attachment attachment = new Attachment(id, name, size, owner, directory.resolve(id));
+    Upload upload;
+    try {
+      upload = new Upload(attachment);
+    } catch (IOException e) {
+      reservedBytes.addAndGet(-size);
+      throw e;
+    }
+    attachment.upload = upload;
+    attachments.put(id, attachment);
+    return upload;
+  }
+
+  /**
+   * Counts an attachment against the limit of the store, if it fits.
+   *
+   * @param size The size in bytes
+   * @return True if the attachment fits, and was counted
+   * @since 1.1
+   */
+  private boolean reserve(long size) {
+    long limit = STORE_MAX_BYTES.get();
+    long reserved;
+    do {
+      reserved = reservedBytes.get();
+      if (reserved + size > limit) {
+        return false;
+      }
+    } while (!reservedBytes.compareAndSet(reserved, reserved + size));
+    return true;
+  }
+
+  /**
+   * Returns an attachment that can be fetched.
+   *
+   * @param id The id of the attachment
+   * @return The attachment, or null if there is no complete attachment with this id
+   * @since 1.0
+   */
+  public Attachment get(String id) {
+    Attachment attachment = attachments.get(id);
+    return attachment != null && attachment.complete ? attachment : null;
+  }
+
+  /**
+   * Returns the executor downloads are pumped on.
+   *
+   * @return The executor
+   * @since 1.0
+   */
+  ExecutorService getPump() {
+    return pump;
+  }
+
+  /**
+   * Deletes complete attachments older than the retention time,
+   * and aborts uploads that have had no chunk for the idle time.
+   *
+   * @since 1.0
+   */
+  private void expireOld() {
+    long now = System.currentTimeMillis();
+    long cutoff = now - RETENTION_MILLIS.get();
+    long idleCutoff = now - UPLOAD_IDLE_MILLIS.get();
+    for (Attachment attachment : attachments.values()) {
+      Upload upload = attachment.upload;
+      if (attachment.complete && attachment.createdMillis < cutoff) {
+        delete(attachment);
+      } else if (upload != null && attachment.lastChunkMillis < idleCutoff) {
+        LOG.info("attachment.upload_expired", "id", attachment.id, "owner", attachment.owner);
+        upload.abort();
+      }
+    }
+  }
+
+  /**
+   * Forgets an attachment and deletes its file.
+   * A download still reading it fails, and tells its recipient.
+   *
+   * @param attachment The attachment
+   * @since 1.0
+   */
+  private void delete(Attachment attachment) {
+    if (attachments.remove(attachment.id, attachment)) {
+      reservedBytes.addAndGet(-attachment.size);
+    }
+    try {
+      Files.deleteIfExists(attachment.file);
+    } catch (IOException e) {
+      LOG.warn("attachment.delete_failed", "id", attachment.id, "error", e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the number of attachments and the bytes they take on disk.
+   *
+   * @return The metrics, by name
+   * @since 1.0
+   */
+  public Map<String, Long> snapshot() {
+    long bytes = 0;
+    for (Attachment attachment : attachments.values()) {
+      bytes += attachment.complete ? attachment.size : 0;
+    }
+    return Map.of("attachments.stored", (long) attachments.size(), "attachments.bytes", bytes);
+  }
+
+  /**
+   * Stops pumping downloads and deletes every attachment.
+   *
+   * @since 1.0
+   */
+  public void close() {
+    pump.shutdownNow();
+    attachments.values().forEach(this::delete);
+  }
+}
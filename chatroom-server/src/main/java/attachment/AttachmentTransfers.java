@@ -0,0 +1,409 @@
+package attachment;
+
+import static config.AttachmentConfig.ATTACH_COMMAND;
+import static config.AttachmentConfig.ATTACH_READY_MESSAGE;
+import static config.AttachmentConfig.ATTACH_REJECTED_MESSAGE;
+import static config.AttachmentConfig.CANCEL_COMMAND;
+import static config.AttachmentConfig.CHUNK_BYTES;
+import static config.AttachmentConfig.CHUNK_COMMAND;
+import static config.AttachmentConfig.CREDIT_COMMAND;
+import static config.AttachmentConfig.FETCH_COMMAND;
+import static config.AttachmentConfig.FILE_MESSAGE;
+import static config.AttachmentConfig.MAX_BYTES;
+import static config.AttachmentConfig.WINDOW_CHUNKS;
+
+import bufferpool.BufferPool;
+import bufferpool.PooledBuffer;
+import eventlog.EventLog;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import serverside.SessionChannel;
+
+/**
+ * The attachment transfers of one chat session, in both directions.
+ * Uploads are written to the store as their chunks arrive, and the sender is granted
+ * more credit for every half window stored, so a sender never has more than a window in flight.
+ * Downloads are sent one chunk per turn of the store's pump, and only while the recipient has credit,
+ * so a recipient that stops reading holds no more than a window of the attachment in memory.
+ * Credit beyond the window is ignored, so a recipient cannot have more than a window outstanding.
+ *
+ * <p>Sessions create their transfers only once the user first sends a line of a transfer,
+ * see {@link #isTransfer(String)}, so users who never share a file do not pay for them.
+ *
+ * <p>Uploads are handed in by the thread reading the user's connection;
+ * credit for downloads may arrive while the pump sends.
+ *
+ * @version 1.2
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class AttachmentTransfers {
+  private static final EventLog LOG = EventLog.get(AttachmentTransfers.class);
+  private static final int CREDIT_BATCH = Math.max(1, WINDOW_CHUNKS / 2);
+
+  private final AttachmentStore store;
+  private final SessionChannel channel;
+  private final Supplier<String> owner;
+  private final Consumer<AttachmentStore.Attachment> onShared;
+  private final Map<String, Receiving> uploads = new ConcurrentHashMap<>();
+  private final Map<String, Download> downloads = new ConcurrentHashMap<>();
+
+  /**
+   * An upload, with the chunks stored since the sender was last granted credit.
+   *
+   * @version 1.0
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  private static final class Receiving {
+    private final AttachmentStore.Upload upload;
+    private int uncredited;
+
+    /**
+     * Create the state of an upload.
+     *
+     * @param upload The upload
+     * @since 1.0
+     */
+    private Receiving(AttachmentStore.Upload upload) {
+      this.upload = upload;
+    }
+  }
+
+  /**
+   * An attachment being sent to the user, from an offset on.
+   * Scheduled on the pump only while it has credit, and never twice at once.
+   *
+   * @version 1.1
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  private final class Download implements Runnable {
+    private final AttachmentStore.Attachment attachment;
+    private final int window;
+    private final AtomicInteger credit;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile long offset;
+    private volatile boolean stopped;
+
+    /**
+     * Create a download.
+     *
+     * @param attachment The attachment
+     * @param offset The first byte the recipient does not have yet
+     * @param window The chunks the recipient accepts before granting more credit
+     * @since 1.0
+     */
+    private Download(AttachmentStore.Attachment attachment, long offset, int window) {
+      this.attachment = attachment;
+      this.offset = offset;
+      this.window = window;
+      this.credit = new AtomicInteger(window);
+    }
+
+    /**
+     * Adds credit granted by the recipient, up to the window.
+     *
+     * @param chunks The number of chunks the recipient accepts, at least one
+     * @since 1.0
+     */
+    private void grant(int chunks) {
+      credit.accumulateAndGet(chunks, (left, more) -> Math.min(left + more, window));
+      schedule();
+    }
+
+    /**
+     * Schedules the next chunk, if there is credit for it and none is scheduled yet.
+     *
+     * @since 1.0
+     */
+    private void schedule() {
+      if (!stopped && credit.get() > 0 && offset < attachment.getSize()
+          && scheduled.compareAndSet(false, true)) {
+        try {
+          store.getPump().execute(this);
+        } catch (RejectedExecutionException e) {
+          scheduled.set(false);  // Shutting down
+        }
+      }
+    }
+
+    /**
+     * Sends one chunk, then gives the pump to the next download in line.
+     *
+     * @since 1.0
+     */
+    @Override
+    public void run() {
+      try {
+        if (!stopped) {
+          sendChunk();
+        }
+      } catch (IOException e) {
+        LOG.warn("attachment.read_failed", "id", attachment.getId(), "error", e.getMessage());
+        stop();
+        channel.send(CANCEL_COMMAND + " " + attachment.getId());
+      } finally {
+        scheduled.set(false);
+      }
+      schedule();
+    }
+
+    /**
+     * Reads the chunk at the offset and sends it.
+     *
+     * @throws IOException If the attachment cannot be read, or was deleted
+     * @since 1.0
+     */
+    private void sendChunk() throws IOException {
+      int length = (int) Math.min(CHUNK_BYTES, attachment.getSize() - offset);
+      PooledBuffer pooled = BufferPool.heap().acquire(length);
+      try {
+        ByteBuffer chunk = pooled.buffer();
+        chunk.limit(length);
+        attachment.read(offset, chunk);
+        if (chunk.hasRemaining()) {
+          throw new IOException("Attachment shorter than announced");
+        }
+        chunk.flip();
+        ByteBuffer encoded = Base64.getEncoder().encode(chunk);
+        channel.send(CHUNK_COMMAND + " " + attachment.getId() + " "
+            + new String(encoded.array(), 0, encoded.limit(), StandardCharsets.ISO_8859_1));
+      } finally {
+        pooled.release();
+      }
+      credit.decrementAndGet();
+      offset += length;
+      if (offset == attachment.getSize()) {
+        downloads.remove(attachment.getId(), this);
+        LOG.info("attachment.sent", "id", attachment.getId(), "remote", channel.getRemoteAddress());
+      }
+    }
+
+    /**
+     * Stops sending chunks, for good.
+     *
+     * @since 1.0
+     */
+    private void stop() {
+      stopped = true;
+      downloads.remove(attachment.getId(), this);
+    }
+  }
+
+  /**
+   * Create the transfers of a session.
+   *
+   * @param store The store attachments are kept in
+   * @param channel The way to reach the user
+   * @param owner The name of the user, at the time an upload starts
+   * @param onShared Called with each attachment once the user has uploaded all of it
+   * @since 1.0
+   */
+  public AttachmentTransfers(AttachmentStore store, SessionChannel channel, Supplier<String> owner,
+      Consumer<AttachmentStore.Attachment> onShared) {
+    this.store = store;
+    this.channel = channel;
+    this.owner = owner;
+    this.onShared = onShared;
+  }
+
+  /**
+   * Checks whether a line is part of an attachment transfer, without handling it.
+   *
+   * @param input The line from the user
+   * @return True if {@link #handle(String)} would handle the line
+   * @since 1.1
+   */
+  public static boolean isTransfer(String input) {
+    if (!input.startsWith("/")) {
+      return false;
+    }
+    int space = input.indexOf(' ');
+    String command = space < 0 ? input : input.substring(0, space);
+    return switch (command) {
+      case ATTACH_COMMAND, CHUNK_COMMAND, FETCH_COMMAND, CREDIT_COMMAND, CANCEL_COMMAND -> true;
+      default -> false;
+    };
+  }
+
+  /**
+   * Handles a line if it is part of an attachment transfer.
+   *
+   * @param input The line from the user
+   * @return True if the line was handled, false if it is something else
+   * @since 1.0
+   */
+  public boolean handle(String input) {
+    if (!input.startsWith("/")) {
+      return false;
+    }
+    int space = input.indexOf(' ');
+    String command = space < 0 ? input : input.substring(0, space);
+    try {
+      switch (command) {
+        case ATTACH_COMMAND -> attach(input.split(" ", 4));
+        case CHUNK_COMMAND -> chunk(input.split(" ", 3));
+        case FETCH_COMMAND -> fetch(input.split(" "));
+        case CREDIT_COMMAND -> credit(input.split(" "));
+        case CANCEL_COMMAND -> cancel(input.split(" "));
+        default -> {
+          return false;
+        }
+      }
+    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      LOG.debug("attachment.malformed", "command", command, "remote", channel.getRemoteAddress());
+    }
+    return true;
+  }
+
+  /**
+   * Starts an upload: {@code /attach <tag> <size> <name>}.
+   * The sender is told the id and the window, or why the attachment is rejected.
+   *
+   * @param parts The command and its arguments
+   * @since 1.0
+   */
+  private void attach(String[] parts) {
+    String tag = parts[1];
+    if (parts.length < 4 || parts[3].isBlank()) {
+      channel.send(ATTACH_REJECTED_MESSAGE + " " + tag + " malformed");
+      return;
+    }
+    long size = Long.parseLong(parts[2]);
+    if (size < 1 || size > MAX_BYTES.get()) {
+      channel.send(ATTACH_REJECTED_MESSAGE + " " + tag + (size < 1 ? " empty" : " too_large"));
+      return;
+    }
+    AttachmentStore.Upload upload;
+    try {
+      upload = store.begin(owner.get(), parts[3], size);
+    } catch (IOException e) {
+      LOG.warn("attachment.create_failed", "error", e.getMessage());
+      channel.send(ATTACH_REJECTED_MESSAGE + " " + tag + " unavailable");
+      return;
+    }
+    if (upload == null) {
+      channel.send(ATTACH_REJECTED_MESSAGE + " " + tag + " store_full");
+      return;
+    }
+    String id = upload.getAttachment().getId();
+    uploads.put(id, new Receiving(upload));
+    channel.send(ATTACH_READY_MESSAGE + " " + tag + " " + id + " " + WINDOW_CHUNKS);
+  }
+
+  /**
+   * Stores the next chunk of an upload: {@code /chunk <id> <data>}.
+   * Chunks of an upload that was cancelled are ignored.
+   *
+   * @param parts The command and its arguments
+   * @since 1.0
+   */
+  private void chunk(String[] parts) {
+    String id = parts[1];
+    Receiving receiving = uploads.get(id);
+    if (receiving == null) {
+      return;
+    }
+    boolean complete;
+    try {
+      complete = receiving.upload.write(Base64.getDecoder().decode(parts[2]));
+    } catch (IOException | IllegalArgumentException e) {
+      LOG.warn("attachment.upload_failed", "id", id, "error", e.getMessage());
+      uploads.remove(id);
+      receiving.upload.abort();
+      channel.send(CANCEL_COMMAND + " " + id);
+      return;
+    }
+    if (complete) {
+      uploads.remove(id);
+      onShared.accept(receiving.upload.getAttachment());
+    } else if (++receiving.uncredited >= CREDIT_BATCH) {
+      channel.send(CREDIT_COMMAND + " " + id + " " + receiving.uncredited);
+      receiving.uncredited = 0;
+    }
+  }
+
+  /**
+   * Starts sending an attachment: {@code /fetch <id> <offset> <window>}.
+   * A download of the same attachment that is still running is replaced,
+   * which is how a recipient continues after reconnecting.
+   *
+   * @param parts The command and its arguments
+   * @since 1.0
+   */
+  private void fetch(String[] parts) {
+    String id = parts[1];
+    long offset = Long.parseLong(parts[2]);
+    int window = Integer.parseInt(parts[3]);
+    AttachmentStore.Attachment attachment = store.get(id);
+    if (attachment == null || offset < 0 || offset > attachment.getSize() || window < 1) {
+      channel.send(CANCEL_COMMAND + " " + id);
+      return;
+    }
+    Download download = new Download(attachment, offset, Math.min(window, WINDOW_CHUNKS));
+    Download previous = downloads.put(id, download);
+    if (previous != null) {
+      previous.stop();
+    }
+    channel.send(FILE_MESSAGE + " " + id + " " + attachment.getSize() + " " + attachment.getName());
+    download.schedule();
+  }
+
+  /**
+   * Grants a download more credit: {@code /credit <id> <chunks>}.
+   * Credit of less than a chunk is malformed, and ignored.
+   *
+   * @param parts The command and its arguments
+   * @since 1.0
+   */
+  private void credit(String[] parts) {
+    int chunks = Integer.parseInt(parts[2]);
+    if (chunks < 1) {
+      LOG.debug("attachment.malformed", "command", CREDIT_COMMAND, "remote", channel.getRemoteAddress());
+      return;
+    }
+    Download download = downloads.get(parts[1]);
+    if (download != null) {
+      download.grant(chunks);
+    }
+  }
+
+  /**
+   * Cancels a transfer in either direction: {@code /cancel <id>}.
+   *
+   * @param parts The command and its arguments
+   * @since 1.0
+   */
+  private void cancel(String[] parts) {
+    String id = parts[1];
+    Receiving receiving = uploads.remove(id);
+    if (receiving != null) {
+      receiving.upload.abort();
+    }
+    Download download = downloads.get(id);
+    if (download != null) {
+      download.stop();
+    }
+  }
+
+  /**
+   * Abandons every transfer of the session, once it has ended.
+   *
+   * @since 1.0
+   */
+  public void close() {
+    uploads.values().forEach(receiving -> receiving.upload.abort());
+    uploads.clear();
+    downloads.values().forEach(Download::stop);
+  }
+}
@@ -0,0 +1,194 @@
+package bufferpool;
+
+import static bufferpool.BufferPoolConfig.LEAK_DETECTION;
+import static bufferpool.BufferPoolConfig.LEAK_SAMPLE_RATE;
+import static bufferpool.BufferPoolConfig.MAX_POOLED_BYTES_PER_CLASS;
+import static bufferpool.BufferPoolConfig.SIZE_CLASS_COUNT;
+import static bufferpool.BufferPoolConfig.SMALLEST_BUFFER_SIZE;
+
+import eventlog.EventLog;
+import eventlog.Sampler;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of byte buffers in a few size classes, each four times the size of the one before.
+ * Released buffers are kept for reuse, up to a byte budget per class,
+ * so connections can borrow a buffer for each read or write instead of owning one for their lifetime.
+ * Requests larger than the largest class get a buffer of their own, which is not kept.
+ *
+ * <p>There is one pool of direct buffers, for socket channels, which then read and write
+ * without an extra copy, and one pool of heap buffers, for sockets that only offer streams.
+ *
+ * <p>Buffers that are never released are reported as leaks once they are garbage collected,
+ * for a sample of buffers or for all of them, see {@link LeakDetection}.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public final class BufferPool {
+  private static final EventLog LOG = EventLog.get(BufferPool.class);
+  private static final Cleaner CLEANER = Cleaner.create();
+  private static final BufferPool DIRECT = new BufferPool(true);
+  private static final BufferPool HEAP = new BufferPool(false);
+
+  private final boolean direct;
+  private final ArrayBlockingQueue<ByteBuffer>[] free;
+  private final Sampler leakSampler = new Sampler(LEAK_SAMPLE_RATE);
+  private final LongAdder inUse = new LongAdder();
+  private final LongAdder pooledBytes = new LongAdder();
+  private final LongAdder allocatedBytes = new LongAdder();
+  private final LongAdder leaks = new LongAdder();
+
+  /**
+   * Create a pool.
+   *
+   * @param direct Whether the pool hands out direct buffers
+   * @since 1.0
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private BufferPool(boolean direct) {
+    this.direct = direct;
+    this.free = new ArrayBlockingQueue[SIZE_CLASS_COUNT];
+    for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+      free[i] = new ArrayBlockingQueue<>((int) Math.max(1, MAX_POOLED_BYTES_PER_CLASS / sizeOf(i)));
+    }
+  }
+
+  /**
+   * Get the pool of direct buffers, for socket channels.
+   *
+   * @return The direct pool
+   * @since 1.0
+   */
+  public static BufferPool direct() {
+    return DIRECT;
+  }
+
+  /**
+   * Get the pool of heap buffers, for socket streams.
+   *
+   * @return The heap pool
+   * @since 1.0
+   */
+  public static BufferPool heap() {
+    return HEAP;
+  }
+
+  /**
+   * Borrow a buffer, cleared and ready to be written to.
+   * The buffer must be released exactly once, and not be used afterwards.
+   *
+   * @param minCapacity The smallest capacity needed
+   * @return The buffer, with at least the requested capacity
+   * @since 1.0
+   */
+  public PooledBuffer acquire(int minCapacity) {
+    int sizeClass = sizeClassOf(minCapacity);
+    ByteBuffer buffer = sizeClass < 0 ? null : free[sizeClass].poll();
+    if (buffer != null) {
+      pooledBytes.add(-buffer.capacity());
+    } else {
+      int capacity = sizeClass < 0 ? minCapacity : sizeOf(sizeClass);
+      buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+      allocatedBytes.add(capacity);
+    }
+    inUse.increment();
+
+    PooledBuffer pooled = new PooledBuffer(this, buffer, sizeClass);
+    LeakDetection detection = LEAK_DETECTION.get();
+    if (detection == LeakDetection.PARANOID
+        || (detection == LeakDetection.SAMPLED && leakSampler.sample())) {
+      pooled.track(CLEANER, detection == LeakDetection.PARANOID);
+    }
+    return pooled;
+  }
+
+  /**
+   * Take back a released buffer, keeping it for reuse if its class has room.
+   *
+   * @param buffer The buffer
+   * @param sizeClass The size class of the buffer, or -1 if it is larger than all classes
+   * @since 1.0
+   */
+  void recycle(ByteBuffer buffer, int sizeClass) {
+    inUse.decrement();
+    if (sizeClass < 0) {
+      allocatedBytes.add(-buffer.capacity());
+      return;
+    }
+    buffer.clear();
+    if (free[sizeClass].offer(buffer)) {
+      pooledBytes.add(buffer.capacity());
+    } else {
+      allocatedBytes.add(-buffer.capacity());  // Over budget, left to the garbage collector
+    }
+  }
+
+  /**
+   * Record a buffer that was garbage collected without being released.
+   *
+   * @param capacity The capacity of the buffer
+   * @param acquiredAt Where the buffer was acquired, or null if not recorded
+   * @since 1.0
+   */
+  void leaked(int capacity, Throwable acquiredAt) {
+    leaks.increment();
+    inUse.decrement();
+    allocatedBytes.add(-capacity);
+    Object site = "unknown, run with -Dchatroom.buffers.leak_detection=paranoid to record it";
+    if (acquiredAt != null) {
+      StackTraceElement[] trace = acquiredAt.getStackTrace();
+      site = trace.length > 2 ? trace[2] : site;  // Skip track and acquire
+    }
+    LOG.error(direct ? "buffer.leak.direct" : "buffer.leak.heap", "capacity", capacity, "acquired_at", site);
+  }
+
+  /**
+   * Get the size class that fits a capacity.
+   *
+   * @param capacity The capacity needed
+   * @return The smallest class that fits, or -1 if none does
+   * @since 1.0
+   */
+  private static int sizeClassOf(int capacity) {
+    for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+      if (capacity <= sizeOf(i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Get the buffer size of a size class.
+   *
+   * @param sizeClass The size class
+   * @return The size in bytes
+   * @since 1.0
+   */
+  private static int sizeOf(int sizeClass) {
+    return SMALLEST_BUFFER_SIZE << (2 * sizeClass);
+  }
+
+  /**
+   * Get the gauges of the pool by name, for {@code /stats}.
+   *
+   * @return Buffers in use, bytes kept for reuse, bytes allocated in total, and leaks detected
+   * @since 1.0
+   */
+  public Map<String, Long> snapshot() {
+    String prefix = direct ? "buffers.direct." : "buffers.heap.";
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put(prefix + "in_use", inUse.sum());
+    stats.put(prefix + "pooled_bytes", pooledBytes.sum());
+    stats.put(prefix + "allocated_bytes", allocatedBytes.sum());
+    stats.put(prefix + "leaks", leaks.sum());
+    return stats;
+  }
+}
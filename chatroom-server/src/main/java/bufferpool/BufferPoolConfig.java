@@ -0,0 +1,32 @@
+package bufferpool;
+
+import config.RuntimeConfig;
+import config.Setting;
+import java.util.Objects;
+
+/**
+ * Configuration constants for the pooled buffers used for socket I/O.
+ *
+ * @version 1.2
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class BufferPoolConfig {
+  public static final int SMALLEST_BUFFER_SIZE =  // Bytes, enough for most chat lines
+      RuntimeConfig.fixed("buffers.smallest_size", 512);
+  public static final int SIZE_CLASS_COUNT =  // Each class is four times the size of the one before
+      RuntimeConfig.fixed("buffers.size_classes", 5);
+  public static final long MAX_POOLED_BYTES_PER_CLASS =  // Idle buffers kept, per size class
+      RuntimeConfig.fixed("buffers.max_pooled_bytes_per_class", 4 << 20);
+  public static final Setting<LeakDetection> LEAK_DETECTION =
+      RuntimeConfig.live("buffers.leak_detection", LeakDetection.SAMPLED,
+          name -> Objects.requireNonNull(LeakDetection.parse(name, null)));
+  public static final int LEAK_SAMPLE_RATE =  // Track 1 in N buffers when sampling
+      RuntimeConfig.fixed("buffers.leak_sample_rate", 128);
+  public static final int BULK_SLICE_BYTES =  // Bulk bytes written before waiting control lines get a turn
+      RuntimeConfig.fixed("buffers.bulk_slice_bytes", 16 * 1024);
+  public static final int CONTROL_BURST =  // Control writes in a row before waiting bulk lines get a slice
+      RuntimeConfig.fixed("buffers.control_burst", 8);
+
+  private BufferPoolConfig() {} // Prevent instantiation
+}
@@ -0,0 +1,18 @@
+package bufferpool;
+
+/**
+ * The priority classes of the lines written to a connection, from most to least urgent.
+ * A {@link LineWriter} writes control lines ahead of bulk lines that are still waiting,
+ * so a reply or a notice does not queue behind a backlog of broadcasts.
+ * Signals are only written once both other lanes are empty, and only the latest one is kept,
+ * so they are the first to be dropped when a connection falls behind.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public enum Lane {
+  CONTROL,  // Heartbeats, login replies, notices and replies to the user's own commands
+  BULK,  // Broadcast chat, presence and attachment chunks
+  SIGNAL  // Ephemeral state such as who is typing, where only the latest line matters
+}
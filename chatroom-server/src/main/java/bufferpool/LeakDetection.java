@@ -0,0 +1,35 @@
+package bufferpool;
+
+/**
+ * How closely pooled buffers are watched for leaks, from cheapest to most thorough.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public enum LeakDetection {
+  DISABLED,  // Leaked buffers are not noticed
+  SAMPLED,  // A sample of buffers is tracked
+  PARANOID;  // Every buffer is tracked, with the place it was acquired
+
+  /**
+   * Parse a detection level by name, ignoring case.
+   * Falls back to the given default when the name is null or unknown.
+   *
+   * @param name The name of the level
+   * @param fallback The level to use if the name is not recognised
+   * @return The parsed level
+   * @since 1.0
+   */
+  public static LeakDetection parse(String name, LeakDetection fallback) {
+    if (name == null) {
+      return fallback;
+    }
+    for (LeakDetection level : values()) {
+      if (level.name().equalsIgnoreCase(name.trim())) {
+        return level;
+      }
+    }
+    return fallback;
+  }
+}
@@ -0,0 +1,189 @@
+package bufferpool;
+
+import static bufferpool.BufferPoolConfig.SMALLEST_BUFFER_SIZE;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads UTF-8 lines from a socket into pooled buffers.
+ * While waiting for a line to start, the reader holds no pooled buffer, only a single byte;
+ * a buffer is borrowed when the first byte arrives and returned as soon as every byte read has been handed out.
+ * Sockets with a channel are read into direct buffers, others into heap buffers.
+ *
+ * <p>Lines end with {@code \n}, optionally preceded by {@code \r}.
+ * Only the thread that reads may call {@link #release()}, once it is done reading.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public final class LineReader {
+  private final SocketChannel channel;  // Null if the socket only offers streams
+  private final InputStream in;
+  private final BufferPool pool;
+  private final int maxLineBytes;
+  private final ByteBuffer firstByte;
+
+  private PooledBuffer pooled;  // Holds the unread bytes, from 0 to its position
+  private int scanned;  // Bytes of the pooled buffer known not to end a line
+
+  /**
+   * Create a reader over a socket.
+   *
+   * @param socket The socket
+   * @param maxLineBytes The longest line accepted, in bytes
+   * @throws IOException If the input stream of the socket cannot be opened
+   * @since 1.0
+   */
+  public LineReader(Socket socket, int maxLineBytes) throws IOException {
+    this.channel = socket.getChannel();
+    this.in = channel == null ? socket.getInputStream() : null;
+    this.pool = channel == null ? BufferPool.heap() : BufferPool.direct();
+    this.maxLineBytes = maxLineBytes;
+    this.firstByte = channel == null ? null : ByteBuffer.allocateDirect(1);
+  }
+
+  /**
+   * Reads the next line, blocking until it is complete.
+   *
+   * @return The line without its line ending, or null if the socket was closed before a line started
+   * @throws IOException If reading fails, or the line is longer than allowed
+   * @since 1.0
+   */
+  public String readLine() throws IOException {
+    while (true) {
+      if (pooled == null) {
+        int first = readFirstByte();
+        if (first < 0) {
+          return null;
+        }
+        pooled = pool.acquire(SMALLEST_BUFFER_SIZE);
+        pooled.buffer().put((byte) first);
+        scanned = 0;
+      }
+
+      ByteBuffer buffer = pooled.buffer();
+      for (int i = scanned; i < buffer.position(); i++) {
+        if (buffer.get(i) == '\n') {
+          return takeLine(i, i + 1);
+        }
+      }
+      scanned = buffer.position();
+
+      if (!buffer.hasRemaining()) {
+        grow();
+        buffer = pooled.buffer();
+      }
+      if (read(buffer) < 0) {
+        return takeLine(scanned, scanned);  // The last line had no line ending
+      }
+    }
+  }
+
+  /**
+   * Blocks until the first byte of a line arrives, without holding a pooled buffer.
+   *
+   * @return The byte, or -1 if the socket was closed
+   * @throws IOException If reading fails
+   * @since 1.0
+   */
+  private int readFirstByte() throws IOException {
+    if (channel == null) {
+      return in.read();
+    }
+    firstByte.clear();
+    int read;
+    do {
+      read = channel.read(firstByte);
+    } while (read == 0);
+    return read < 0 ? -1 : firstByte.get(0) & 0xFF;
+  }
+
+  /**
+   * Reads as many bytes as are available into the buffer, blocking until there is at least one.
+   *
+   * @param buffer The buffer, with room left
+   * @return The number of bytes read, or -1 if the socket was closed
+   * @throws IOException If reading fails
+   * @since 1.0
+   */
+  private int read(ByteBuffer buffer) throws IOException {
+    if (channel != null) {
+      return channel.read(buffer);
+    }
+    int read = in.read(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+    if (read > 0) {
+      buffer.position(buffer.position() + read);
+    }
+    return read;
+  }
+
+  /**
+   * Moves the unread bytes to a buffer four times as large.
+   *
+   * @throws IOException If the line would grow beyond the longest line allowed
+   * @since 1.0
+   */
+  private void grow() throws IOException {
+    ByteBuffer old = pooled.buffer();
+    int capacity = (int) Math.min((long) old.capacity() * 4, maxLineBytes);
+    if (capacity <= old.capacity()) {
+      throw new IOException("Line longer than " + maxLineBytes + " bytes");
+    }
+    PooledBuffer larger = pool.acquire(capacity);
+    old.flip();
+    larger.buffer().put(old);
+    pooled.release();
+    pooled = larger;
+  }
+
+  /**
+   * Decodes a line from the start of the buffer and drops it from the unread bytes.
+   * The buffer is released once no unread bytes are left.
+   *
+   * @param end Where the line ends, excluding its line ending
+   * @param next Where the next line starts
+   * @return The line
+   * @since 1.0
+   */
+  private String takeLine(int end, int next) {
+    ByteBuffer buffer = pooled.buffer();
+    int length = end > 0 && buffer.get(end - 1) == '\r' ? end - 1 : end;
+    String line;
+    if (buffer.hasArray()) {
+      line = new String(buffer.array(), buffer.arrayOffset(), length, StandardCharsets.UTF_8);
+    } else {
+      byte[] bytes = new byte[length];
+      buffer.get(0, bytes);
+      line = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    if (next == buffer.position()) {
+      pooled.release();
+      pooled = null;
+    } else {
+      buffer.flip().position(next);
+      buffer.compact();
+    }
+    scanned = 0;
+    return line;
+  }
+
+  /**
+   * Returns the buffer holding a partly read line, if any, to its pool.
+   * Must be called by the reading thread once it stops reading.
+   *
+   * @since 1.0
+   */
+  public void release() {
+    if (pooled != null) {
+      pooled.release();
+      pooled = null;
+    }
+  }
+}
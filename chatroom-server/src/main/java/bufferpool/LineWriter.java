@@ -0,0 +1,412 @@
+package bufferpool;
+
+import static bufferpool.BufferPoolConfig.BULK_SLICE_BYTES;
+import static bufferpool.BufferPoolConfig.CONTROL_BURST;
+import static bufferpool.BufferPoolConfig.SMALLEST_BUFFER_SIZE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes UTF-8 lines to a socket from pooled buffers.
+ * Appended lines are collected in a borrowed buffer, which is written and returned on {@link #flush()},
+ * so an idle connection holds no buffer at all.
+ * Sockets with a channel are written from direct buffers, others from heap buffers.
+ *
+ * <p>Lines are appended to one of two {@link Lane lanes}, each with a buffer of its own.
+ * Waiting control lines are always written first. Bulk lines are written in slices of whole lines,
+ * and control lines appended while a slice is written go out before the next slice.
+ * So that a stream of control lines cannot starve the bulk lane,
+ * bulk gets a slice after every few control writes.
+ * Lines of the same lane are written in the order they were appended.
+ * The signal lane holds a single line, replaced by the next signal appended,
+ * and written only once nothing else is waiting.
+ *
+ * <p>Only one thread writes to the socket at a time, and lines can be appended while it does.
+ * A flush while another thread is writing returns at once, and that thread writes the lines too.
+ * Broadcasts are flushed with {@link #flushOrDefer(Runnable)} instead, which has the caller stop taking broadcasts
+ * until that thread is done, so a connection that cannot keep up does not pile them up in the bulk lane,
+ * and the caller holds no thread while it waits.
+ *
+ * <p>Like {@link java.io.PrintWriter}, the writer never throws; once writing fails,
+ * lines are discarded and {@link #checkError()} returns true.
+ * All methods may be called from any thread.
+ *
+ * @version 1.4
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public final class LineWriter {
+  private final SocketChannel channel;  // Null if the socket only offers streams
+  private final OutputStream out;
+  private final BufferPool pool;
+  private final ReentrantLock writing = new ReentrantLock();  // Held while writing to the socket
+
+  private PooledBuffer control;  // Control lines not yet written, from 0 to its position
+  private PooledBuffer bulk;  // Bulk lines not yet written, from 0 to its position
+  private String signal;  // The latest signal not yet written
+  private Runnable deferred;  // Run once the thread writing lets go
+  private boolean error;
+
+  /**
+   * Create a writer over a socket.
+   *
+   * @param socket The socket
+   * @throws IOException If the output stream of the socket cannot be opened
+   * @since 1.0
+   */
+  public LineWriter(Socket socket) throws IOException {
+    this.channel = socket.getChannel();
+    this.out = channel == null ? socket.getOutputStream() : null;
+    this.pool = channel == null ? BufferPool.heap() : BufferPool.direct();
+  }
+
+  /**
+   * Appends a bulk line, to be written on the next flush.
+   *
+   * @param line The line, without a line ending; null lines are ignored
+   * @since 1.0
+   */
+  public void append(String line) {
+    append(line, Lane.BULK);
+  }
+
+  /**
+   * Appends a line to a lane, to be written on the next flush.
+   *
+   * @param line The line, without a line ending; null lines are ignored
+   * @param lane The lane of the line
+   * @since 1.1
+   */
+  public synchronized void append(String line, Lane lane) {
+    if (line == null || error) {
+      return;
+    }
+    if (lane == Lane.SIGNAL) {
+      signal = line;  // Replaces a signal still waiting
+      return;
+    }
+    int length = line.length();
+    ByteBuffer buffer = ensureRemaining(lane, length + 1);
+    int start = buffer.position();
+    for (int i = 0; i < length; i++) {
+      char c = line.charAt(i);
+      if (c >= 0x80) {  // Not plain ASCII, encode the whole line instead
+        buffer.position(start);
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        buffer = ensureRemaining(lane, bytes.length + 1);
+        buffer.put(bytes);
+        break;
+      }
+      buffer.put((byte) c);
+    }
+    buffer.put((byte) '\n');
+  }
+
+  /**
+   * Appends a control line and writes it right away, ahead of any bulk lines still waiting.
+   *
+   * @param line The line, without a line ending; null lines are ignored
+   * @since 1.0
+   */
+  public void writeLine(String line) {
+    append(line, Lane.CONTROL);
+    flush();
+  }
+
+  /**
+   * Writes the appended lines of every lane to the socket, and returns the buffers.
+   * Blocks until all are written, unless another thread is writing already,
+   * in which case that thread writes them.
+   *
+   * @since 1.0
+   */
+  public void flush() {
+    while (writing.tryLock()) {
+      try {
+        drain();
+      } finally {
+        unlockWriting();
+      }
+      if (!hasPending()) {
+        return;
+      }
+      // Appended after the writing thread last looked, but before it let go of the lock
+    }
+  }
+
+  /**
+   * Writes the appended lines of every lane to the socket, and returns the buffers,
+   * unless another thread is writing already. The lines are then left to that thread,
+   * and the task is run on it once it lets go, for the caller to append more.
+   * A single task is kept; the caller appends no more until it runs.
+   *
+   * @param whenWritten The task to run once the thread writing lets go, if there is one
+   * @return True if the lines were written, false if the task will be run
+   * @since 1.4
+   */
+  public boolean flushOrDefer(Runnable whenWritten) {
+    while (!writing.tryLock()) {
+      synchronized (this) {
+        if (writing.isLocked()) {
+          deferred = whenWritten;
+          return false;
+        }
+      }
+      // Let go before we looked, try again
+    }
+    try {
+      drain();
+    } finally {
+      unlockWriting();
+    }
+    flush();  // Appended by others after the lanes were emptied
+    return true;
+  }
+
+  /**
+   * Lets go of the writing lock, and runs the task deferred to the thread that held it.
+   *
+   * @since 1.4
+   */
+  private void unlockWriting() {
+    writing.unlock();
+    Runnable task;
+    synchronized (this) {
+      task = deferred;
+      deferred = null;
+    }
+    if (task != null) {
+      task.run();
+    }
+  }
+
+  /**
+   * Writes lines until every lane is empty, control lines first and the signal last.
+   * Must hold the writing lock.
+   *
+   * @since 1.1
+   */
+  private void drain() {
+    PooledBuffer slicing = null;  // Bulk lines taken from their lane, written a slice at a time
+    int controlWrites = 0;
+    try {
+      while (true) {
+        PooledBuffer next;
+        synchronized (this) {
+          if (error) {
+            return;
+          }
+          boolean bulkWaiting = slicing != null || bulk != null;
+          if (control != null && (controlWrites < CONTROL_BURST || !bulkWaiting)) {
+            next = control;
+            control = null;
+          } else if (slicing == null && bulk != null) {
+            slicing = bulk;
+            bulk = null;
+            slicing.buffer().flip();
+            next = null;
+          } else if (slicing == null && signal != null) {
+            next = encode(signal);
+            signal = null;
+          } else if (slicing == null) {
+            return;
+          } else {
+            next = null;
+          }
+        }
+        if (next != null) {
+          ByteBuffer buffer = next.buffer();
+          buffer.flip();
+          try {
+            writeFully(buffer);
+          } finally {
+            next.release();
+          }
+          controlWrites++;
+          continue;
+        }
+        ByteBuffer buffer = slicing.buffer();
+        int limit = buffer.limit();
+        buffer.limit(sliceEnd(buffer));
+        writeFully(buffer);
+        buffer.limit(limit);
+        controlWrites = 0;
+        if (!buffer.hasRemaining()) {
+          slicing.release();
+          slicing = null;
+        }
+      }
+    } catch (IOException e) {
+      synchronized (this) {
+        error = true;
+        releaseLanes();
+      }
+    } finally {
+      if (slicing != null) {
+        slicing.release();
+      }
+    }
+  }
+
+  /**
+   * Encodes a single line into a pooled buffer, ready to be flipped and written.
+   *
+   * @param line The line, without a line ending
+   * @return The buffer, holding the line up to its position
+   * @since 1.2
+   */
+  private PooledBuffer encode(String line) {
+    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+    PooledBuffer pooled = pool.acquire(Math.max(bytes.length + 1, SMALLEST_BUFFER_SIZE));
+    pooled.buffer().put(bytes).put((byte) '\n');
+    return pooled;
+  }
+
+  /**
+   * Finds where the next bulk slice ends: after the last whole line that fits in a slice,
+   * or after the first line if that line alone is longer.
+   *
+   * @param buffer The bulk lines, from its position to its limit
+   * @return The end of the slice
+   * @since 1.1
+   */
+  private static int sliceEnd(ByteBuffer buffer) {
+    int start = buffer.position();
+    int limit = buffer.limit();
+    if (limit - start <= BULK_SLICE_BYTES) {
+      return limit;
+    }
+    for (int i = start + BULK_SLICE_BYTES - 1; i >= start; i--) {
+      if (buffer.get(i) == '\n') {
+        return i + 1;
+      }
+    }
+    for (int i = start + BULK_SLICE_BYTES; i < limit; i++) {
+      if (buffer.get(i) == '\n') {
+        return i + 1;
+      }
+    }
+    return limit;
+  }
+
+  /**
+   * Writes a buffer to the socket, from its position to its limit, blocking until all is written.
+   *
+   * @param buffer The bytes to write
+   * @throws IOException If the socket cannot be written to
+   * @since 1.1
+   */
+  private void writeFully(ByteBuffer buffer) throws IOException {
+    if (channel != null) {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    } else {
+      out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      out.flush();
+      buffer.position(buffer.limit());
+    }
+  }
+
+  /**
+   * Checks whether any lane has lines waiting to be written.
+   *
+   * @return True if there are lines to write
+   * @since 1.1
+   */
+  private synchronized boolean hasPending() {
+    return !error && (control != null || bulk != null || signal != null);
+  }
+
+  /**
+   * Makes sure the buffer of a lane has room for more bytes, borrowing or growing it as needed.
+   * Buffers at least double when they grow, so a long backlog is not copied once per line.
+   *
+   * @param lane The lane
+   * @param bytes The number of bytes to make room for
+   * @return The buffer of the lane
+   * @since 1.0
+   */
+  private ByteBuffer ensureRemaining(Lane lane, int bytes) {
+    PooledBuffer pooled = lane == Lane.CONTROL ? control : bulk;
+    if (pooled == null) {
+      pooled = pool.acquire(Math.max(bytes, SMALLEST_BUFFER_SIZE));
+    } else if (pooled.buffer().remaining() < bytes) {
+      ByteBuffer old = pooled.buffer();
+      PooledBuffer larger = pool.acquire(Math.max(old.position() + bytes, old.capacity() * 2));
+      old.flip();
+      larger.buffer().put(old);
+      pooled.release();
+      pooled = larger;
+    }
+    if (lane == Lane.CONTROL) {
+      control = pooled;
+    } else {
+      bulk = pooled;
+    }
+    return pooled.buffer();
+  }
+
+  /**
+   * Returns the buffers of the lanes, discarding their lines.
+   *
+   * @since 1.1
+   */
+  private void releaseLanes() {
+    signal = null;
+    if (control != null) {
+      control.release();
+      control = null;
+    }
+    if (bulk != null) {
+      bulk.release();
+      bulk = null;
+    }
+  }
+
+  /**
+   * Checks whether writing has failed.
+   *
+   * @return True if a write to the socket failed
+   * @since 1.0
+   */
+  public synchronized boolean checkError() {
+    return error;
+  }
+
+  /**
+   * Writes the appended lines and stops writing, waiting for a thread that is still writing.
+   * The socket itself is left open.
+   *
+   * @since 1.0
+   */
+  public void close() {
+    writing.lock();
+    try {
+      drain();
+      synchronized (this) {
+        error = true;
+        releaseLanes();
+      }
+    } finally {
+      unlockWriting();
+    }
+  }
+
+  /**
+   * Stops writing without writing anything more, and without waiting for a thread that is still writing.
+   * Meant for a socket that has been closed already, which makes such a thread fail and return its buffers.
+   *
+   * @since 1.3
+   */
+  public synchronized void discard() {
+    error = true;
+    releaseLanes();
+  }
+}
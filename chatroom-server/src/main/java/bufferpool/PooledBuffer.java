@@ -0,0 +1,118 @@
+package bufferpool;
+
+import eventlog.EventLog;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A buffer borrowed from a {@link BufferPool}.
+ * Release it once it is no longer needed; a buffer that is garbage collected
+ * without being released is reported as a leak, if it was tracked.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public final class PooledBuffer {
+  private static final EventLog LOG = EventLog.get(PooledBuffer.class);
+
+  private final BufferPool pool;
+  private final ByteBuffer buffer;
+  private final int sizeClass;
+  private final AtomicBoolean released = new AtomicBoolean();
+  private LeakTracker tracker;
+  private Cleaner.Cleanable cleanable;
+
+  /**
+   * Reports the buffer as leaked when it becomes unreachable before being released.
+   * Must not refer to the pooled buffer, or it would never become unreachable.
+   */
+  private static final class LeakTracker implements Runnable {
+    private final BufferPool pool;
+    private final int capacity;
+    private final Throwable acquiredAt;
+    private volatile boolean released;
+
+    private LeakTracker(BufferPool pool, int capacity, Throwable acquiredAt) {
+      this.pool = pool;
+      this.capacity = capacity;
+      this.acquiredAt = acquiredAt;
+    }
+
+    @Override
+    public void run() {
+      if (!released) {
+        pool.leaked(capacity, acquiredAt);
+      }
+    }
+  }
+
+  /**
+   * Wrap a buffer taken from a pool.
+   *
+   * @param pool The pool the buffer belongs to
+   * @param buffer The buffer
+   * @param sizeClass The size class of the buffer, or -1 if it is larger than all classes
+   * @since 1.0
+   */
+  PooledBuffer(BufferPool pool, ByteBuffer buffer, int sizeClass) {
+    this.pool = pool;
+    this.buffer = buffer;
+    this.sizeClass = sizeClass;
+  }
+
+  /**
+   * Start watching the buffer for leaks.
+   *
+   * @param cleaner The cleaner to register with
+   * @param recordSite Whether to record where the buffer was acquired, which is costly
+   * @since 1.0
+   */
+  void track(Cleaner cleaner, boolean recordSite) {
+    tracker = new LeakTracker(pool, buffer.capacity(), recordSite ? new Throwable() : null);
+    cleanable = cleaner.register(this, tracker);
+  }
+
+  /**
+   * Get the buffer.
+   *
+   * @return The buffer
+   * @throws IllegalStateException If the buffer has been released
+   * @since 1.0
+   */
+  public ByteBuffer buffer() {
+    if (released.get()) {
+      throw new IllegalStateException("Buffer used after release");
+    }
+    return buffer;
+  }
+
+  /**
+   * Get the capacity of the buffer.
+   *
+   * @return The capacity in bytes
+   * @since 1.0
+   */
+  public int capacity() {
+    return buffer.capacity();
+  }
+
+  /**
+   * Return the buffer to its pool.
+   * Releasing twice is a bug in the caller; it is logged, and the buffer is only returned once.
+   *
+   * @since 1.0
+   */
+  public void release() {
+    if (!released.compareAndSet(false, true)) {
+      LOG.error("buffer.double_release", "capacity", buffer.capacity());
+      return;
+    }
+    if (tracker != null) {
+      tracker.released = true;
+      cleanable.clean();
+    }
+    pool.recycle(buffer, sizeClass);
+  }
+}
@@ -0,0 +1,274 @@
+package gateway;
+
+import static config.ConnectionConfig.DRAIN_RETRY_AFTER_SECONDS;
+import static config.ConnectionConfig.SERVER_CLOSING_NOTICE;
+import static config.ConnectionConfig.TRANSPORT;
+import static config.GatewayConfig.GATEWAY_PORT;
+import static config.GatewayConfig.LINK_PORT;
+import static config.GatewayConfig.LINK_SECRET;
+import static config.GatewayConfig.UPSTREAM_HOST;
+import static config.GatewayConfig.UPSTREAM_LINKS;
+import static config.ServerConfig.BROADCAST_WRITER_THREADS;
+import static config.ServerConfig.TIMING_WHEEL_SIZE;
+import static config.ServerConfig.TIMING_WHEEL_TICK_MILLIS;
+
+import eventlog.EventLog;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import keyGen.TransportMode;
+import serverside.AdmissionControl;
+import serverside.BroadcastRing;
+import serverside.ClientHandler;
+import serverside.ConfigWatcher;
+import serverside.ConnectionHost;
+import serverside.ResumableChannel;
+import serverside.Server;
+import serverside.ServerMetrics;
+import serverside.Session;
+import serverside.TimingWheel;
+
+/**
+ * A gateway in front of the server.
+ * Clients connect to the gateway exactly as they would to the server.
+ * The gateway secures their connections and keeps them alive,
+ * and carries all of its users to the server over a few long-lived links,
+ * so the server handles one connection and one copy of every broadcast per link rather than per user.
+ *
+ * <p>The server only accepts links when both sides are started with the same
+ * {@code -Dchatroom.gateway.secret}.
+ *
+ * @version 1.6
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class Gateway implements Runnable, ConnectionHost {
+  private static final EventLog LOG = EventLog.get(Gateway.class);
+
+  private final int port;
+  private final TransportMode transport;
+  private final String upstreamHost;
+  private final int upstreamPort;
+  private final UpstreamLink[] links;
+  private final Set<ClientHandler> clients = ConcurrentHashMap.newKeySet();
+  private final Map<String, ResumableChannel> resumableChannels = new ConcurrentHashMap<>();
+  private final ServerMetrics metrics = new ServerMetrics();
+  private final AdmissionControl admission = new AdmissionControl();
+
+  private ServerSocket serverSocket;
+  private ExecutorService pool;
+  private ExecutorService broadcastWriters;  // Bounded, shared by the rings of every link
+  private TimingWheel timingWheel;
+  private volatile boolean running = true;
+  private int nextLink;
+
+  /**
+   * Create a gateway with the configured ports, transport and number of links.
+   *
+   * @since 1.0
+   */
+  public Gateway() {
+    this(GATEWAY_PORT, TRANSPORT, UPSTREAM_HOST, LINK_PORT, UPSTREAM_LINKS);
+  }
+
+  /**
+   * Create a gateway.
+   *
+   * @param port The port clients connect to
+   * @param transport How client connections are protected
+   * @param upstreamHost The host of the server
+   * @param upstreamPort The port the server accepts links on
+   * @param linkCount The number of links to the server
+   * @since 1.0
+   */
+  public Gateway(int port, TransportMode transport, String upstreamHost, int upstreamPort, int linkCount) {
+    this.port = port;
+    this.transport = transport;
+    this.upstreamHost = upstreamHost;
+    this.upstreamPort = upstreamPort;
+    this.links = new UpstreamLink[Math.max(1, linkCount)];
+  }
+
+  /**
+   * Connects the links to the server, then accepts clients until the gateway shuts down.
+   *
+   * @since 1.0
+   */
+  @Override
+  public void run() {
+    if (LINK_SECRET == null) {
+      LOG.error("gateway.no_secret", "property", "chatroom.gateway.secret");
+      return;
+    }
+    try {
+      LOG.info("gateway.starting");
+      pool = Executors.newCachedThreadPool();
+      broadcastWriters = Executors.newFixedThreadPool(BROADCAST_WRITER_THREADS);
+      timingWheel = new TimingWheel("gateway-wheel", TIMING_WHEEL_TICK_MILLIS, TIMING_WHEEL_SIZE, pool);
+      new ConfigWatcher(timingWheel).start();
+      for (int i = 0; i < links.length; i++) {
+        links[i] = UpstreamLink.connect(upstreamHost, upstreamPort, LINK_SECRET, pool, broadcastWriters);
+      }
+
+      serverSocket = Server.openServerSocket(transport, port);
+      LOG.info("gateway.started", "port", port, "transport", transport, "links", links.length);
+
+      while (running) {
+        Socket client = serverSocket.accept();
+        client.setTcpNoDelay(true);  // Chat lines are small and latency sensitive
+        if (!admission.admitConnection(clients.size())) {
+          admission.reject(client);
+          metrics.connectionRejectedFull();
+          continue;
+        }
+        ClientHandler clientHandler = new ClientHandler(client, this);
+        clients.add(clientHandler);
+        metrics.connectionAccepted();
+        pool.execute(clientHandler);
+      }
+    } catch (IOException e) {
+      if (running) {
+        LOG.error("gateway.failed", "error", e.getMessage());
+      }
+      shutdown();
+    }
+  }
+
+  /**
+   * Opens a stream to the server for a client, spreading clients over the links in turn.
+   * A link that was lost is reconnected first.
+   *
+   * @param channel The channel to reach the client through
+   * @return The stream, or null if the server cannot be reached
+   * @since 1.0
+   */
+  @Override
+  public Session openSession(ResumableChannel channel) {
+    UpstreamLink link = nextOpenLink();
+    return link == null ? null : link.open(channel);
+  }
+
+  /**
+   * Returns the channels of the clients that joined, by resume token.
+   * A client that reconnects to this gateway can resume its stream, which the server never saw drop.
+   *
+   * @return The resumable channels
+   * @since 1.3
+   */
+  @Override
+  public Map<String, ResumableChannel> getResumableChannels() {
+    return resumableChannels;
+  }
+
+  /**
+   * Picks the next link in turn, reconnecting it if it was lost.
+   *
+   * @return The link, or null if no link to the server could be opened
+   * @since 1.0
+   */
+  private synchronized UpstreamLink nextOpenLink() {
+    for (int attempt = 0; attempt < links.length && running; attempt++) {
+      int index = nextLink++ % links.length;
+      if (links[index] == null || links[index].isClosed()) {
+        try {
+          links[index] = UpstreamLink.connect(upstreamHost, upstreamPort, LINK_SECRET, pool, broadcastWriters);
+        } catch (IOException e) {
+          LOG.warn("gateway.link_failed", "error", e.getMessage());
+          continue;
+        }
+      }
+      return links[index];
+    }
+    return null;
+  }
+
+  @Override
+  public AdmissionControl getAdmission() {
+    return admission;
+  }
+
+  @Override
+  public ServerMetrics getMetrics() {
+    return metrics;
+  }
+
+  @Override
+  public TimingWheel getTimingWheel() {
+    return timingWheel;
+  }
+
+  /**
+   * Returns no ring, since every upstream link has a ring of its own,
+   * which its users subscribe to when the server tells that they joined.
+   *
+   * @return Null
+   * @since 1.0
+   */
+  @Override
+  public BroadcastRing getBroadcastRing() {
+    return null;
+  }
+
+  @Override
+  public void removeClient(ClientHandler connection) {
+    if (clients.remove(connection)) {
+      metrics.connectionClosed();
+    }
+  }
+
+  /**
+   * Shuts down the gateway.
+   * Every client is sent a closing notice, then the links to the server are closed,
+   * which ends the users' sessions on the server.
+   *
+   * @since 1.0
+   */
+  public synchronized void shutdown() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    try {
+      if (serverSocket != null) {
+        serverSocket.close();
+      }
+    } catch (IOException ignored) {/* Ignored */}
+
+    String notice = SERVER_CLOSING_NOTICE + " " + DRAIN_RETRY_AFTER_SECONDS.get();
+    new ArrayList<>(clients).forEach(clientHandler -> clientHandler.close(notice));
+    for (UpstreamLink link : links) {
+      if (link != null) {
+        link.close();
+      }
+    }
+    if (timingWheel != null) {
+      timingWheel.stop();
+    }
+    if (pool != null) {
+      pool.shutdown();
+    }
+    if (broadcastWriters != null) {
+      broadcastWriters.shutdown();
+    }
+    admission.shutdown();
+    LOG.info("gateway.stopped");
+  }
+
+  /**
+   * Starts the gateway.
+   *
+   * @param args The command line arguments, discarded
+   * @since 1.0
+   */
+  public static void main(String[] args) {
+    Gateway gateway = new Gateway();
+    Runtime.getRuntime().addShutdownHook(new Thread(gateway::shutdown, "gateway-shutdown"));
+    gateway.run();
+  }
+}
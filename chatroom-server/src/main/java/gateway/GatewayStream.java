@@ -0,0 +1,111 @@
+package gateway;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import serverside.ResumableChannel;
+import serverside.Session;
+
+/**
+ * A user of the gateway, carried to the server as one stream of an upstream link.
+ * Lines from the user are forwarded to the server, which runs the user's chat session.
+ *
+ * @version 1.2
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class GatewayStream implements Session {
+  private final UpstreamLink link;
+  private final int id;
+  private final ResumableChannel connection;
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private volatile boolean joined;
+
+  /**
+   * Create a stream for a user.
+   *
+   * @param link The upstream link carrying the stream
+   * @param id The number of the stream on the link
+   * @param connection The channel to the connection of the user
+   * @since 1.0
+   */
+  GatewayStream(UpstreamLink link, int id, ResumableChannel connection) {
+    this.link = link;
+    this.id = id;
+    this.connection = connection;
+  }
+
+  @Override
+  public void onLine(String input) {
+    link.forward(id, input);
+  }
+
+  @Override
+  public boolean isJoined() {
+    return joined;
+  }
+
+  /**
+   * Delivers a message from the server to the user.
+   *
+   * @param message The message
+   * @since 1.0
+   */
+  void deliver(String message) {
+    connection.send(message);
+  }
+
+  /**
+   * Delivers an ephemeral signal from the server to the user, who may miss it.
+   *
+   * @param message The signal
+   * @since 1.2
+   */
+  void signal(String message) {
+    connection.signal(message);
+  }
+
+  /**
+   * Marks the user as joined, so broadcasts on the link are delivered to them.
+   *
+   * @since 1.0
+   */
+  void markJoined() {
+    joined = true;
+    connection.joined();
+    connection.subscribe(link.getBroadcastRing());
+  }
+
+  /**
+   * Closes the user's connection after the server ended the stream.
+   *
+   * @since 1.0
+   */
+  void closedByServer() {
+    if (closed.compareAndSet(false, true)) {
+      connection.disconnect();
+    }
+  }
+
+  @Override
+  public void shutdown() {
+    if (closed.compareAndSet(false, true)) {
+      link.closeStream(id);
+      connection.disconnect();
+    }
+  }
+
+  @Override
+  public void close(String notice) {
+    if (closed.compareAndSet(false, true)) {
+      if (notice != null) {
+        connection.send(notice);
+      }
+      link.closeStream(id);
+      connection.disconnect();
+    }
+  }
+
+  @Override
+  public void evicted() {
+    shutdown();
+  }
+}
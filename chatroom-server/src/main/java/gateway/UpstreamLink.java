@@ -0,0 +1,252 @@
+package gateway;
+
+import static config.ConnectionConfig.DRAIN_RETRY_AFTER_SECONDS;
+import static config.ConnectionConfig.SERVER_CLOSING_NOTICE;
+import static config.GatewayConfig.FRAME_BROADCAST;
+import static config.GatewayConfig.FRAME_CLOSE;
+import static config.GatewayConfig.FRAME_DATA;
+import static config.GatewayConfig.FRAME_JOINED;
+import static config.GatewayConfig.FRAME_OPEN;
+import static config.GatewayConfig.FRAME_SIGNAL;
+import static config.GatewayConfig.LINK_HELLO;
+import static config.ServerConfig.BROADCAST_RING_CAPACITY;
+
+import eventlog.EventLog;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import serverside.BroadcastRing;
+import serverside.GatewayFrame;
+import serverside.ResumableChannel;
+
+/**
+ * The gateway's end of a link to the server, carrying many users as numbered streams.
+ * Frames from the server are handled by one thread, in order.
+ * Broadcast frames are published to a ring that the joined users of the link read at their own pace,
+ * so a slow user does not hold up the link.
+ * Signal frames are handed to every joined user right away, and dropped for users who are behind.
+ *
+ * @version 1.4
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class UpstreamLink implements Runnable {
+  private static final EventLog LOG = EventLog.get(UpstreamLink.class);
+
+  private final Socket socket;
+  private final PrintWriter out;
+  private final BufferedReader in;
+  private final Map<Integer, GatewayStream> streams = new ConcurrentHashMap<>();
+  private final AtomicInteger nextStreamId = new AtomicInteger();
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private final BroadcastRing broadcasts;
+
+  /**
+   * Create a link over a connected socket.
+   *
+   * @param socket The socket, connected to the server
+   * @param writers The executor users write broadcasts on
+   * @throws IOException If the streams of the socket cannot be opened
+   * @since 1.0
+   */
+  private UpstreamLink(Socket socket, Executor writers) throws IOException {
+    this.socket = socket;
+    this.broadcasts = new BroadcastRing(BROADCAST_RING_CAPACITY, writers);
+    out = new PrintWriter(new BufferedWriter(
+        new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+    in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Connect a link to the server and start reading from it.
+   *
+   * @param host The host of the server
+   * @param port The port the server accepts links on
+   * @param secret The secret shared with the server
+   * @param executor The executor to run the reading thread on
+   * @param writers The executor users write broadcasts on
+   * @return The link
+   * @throws IOException If the server cannot be reached
+   * @since 1.4
+   */
+  public static UpstreamLink connect(String host, int port, String secret, Executor executor, Executor writers)
+      throws IOException {
+    Socket socket = new Socket(host, port);
+    socket.setTcpNoDelay(true);
+    UpstreamLink link = new UpstreamLink(socket, writers);
+    synchronized (link) {
+      link.out.println(LINK_HELLO + " " + secret);
+      link.out.flush();
+    }
+    executor.execute(link);
+    LOG.info("link.connected", "remote", socket.getRemoteSocketAddress());
+    return link;
+  }
+
+  /**
+   * Reads frames from the server until the link closes.
+   *
+   * @since 1.0
+   */
+  @Override
+  public void run() {
+    try {
+      String line;
+      while ((line = in.readLine()) != null) {
+        GatewayFrame frame = GatewayFrame.parse(line);
+        if (frame == null) {
+          LOG.warn("link.malformed_frame");
+          continue;
+        }
+        handleFrame(frame);
+      }
+    } catch (IOException ignored) {/* Link lost */}
+    close();
+  }
+
+  /**
+   * Handles a frame from the server.
+   *
+   * @param frame The frame
+   * @since 1.0
+   */
+  private void handleFrame(GatewayFrame frame) {
+    if (frame.type() == FRAME_BROADCAST) {
+      broadcasts.publish(frame.payload());
+      return;
+    }
+    if (frame.type() == FRAME_SIGNAL) {
+      for (GatewayStream stream : streams.values()) {
+        if (stream.isJoined()) {
+          stream.signal(frame.payload());
+        }
+      }
+      return;
+    }
+
+    GatewayStream stream = streams.get(frame.stream());
+    if (stream == null) {
+      return;  // Already closed on our side
+    }
+    switch (frame.type()) {
+      case FRAME_DATA -> stream.deliver(frame.payload());
+      case FRAME_JOINED -> stream.markJoined();
+      case FRAME_CLOSE -> {
+        streams.remove(frame.stream());
+        stream.closedByServer();
+      }
+      default -> LOG.warn("link.unknown_frame", "type", frame.type());
+    }
+  }
+
+  /**
+   * Opens a stream for a user whose connection completed its handshake.
+   *
+   * @param channel The channel to reach the user through
+   * @return The stream
+   * @since 1.0
+   */
+  public GatewayStream open(ResumableChannel channel) {
+    int id = nextStreamId.incrementAndGet();
+    GatewayStream stream = new GatewayStream(this, id, channel);
+    streams.put(id, stream);
+    write(new GatewayFrame(FRAME_OPEN, id, channel.getRemoteAddress()));
+    return stream;
+  }
+
+  /**
+   * Forwards a line from a user to the server.
+   *
+   * @param stream The stream of the user
+   * @param line The line
+   * @since 1.0
+   */
+  void forward(int stream, String line) {
+    write(new GatewayFrame(FRAME_DATA, stream, line));
+  }
+
+  /**
+   * Tells the server that a stream ended on the gateway's side.
+   *
+   * @param stream The stream
+   * @since 1.0
+   */
+  void closeStream(int stream) {
+    if (streams.remove(stream) != null) {
+      write(new GatewayFrame(FRAME_CLOSE, stream, null));
+    }
+  }
+
+  /**
+   * Writes a frame to the server.
+   *
+   * @param frame The frame
+   * @since 1.0
+   */
+  private synchronized void write(GatewayFrame frame) {
+    out.println(frame.encode());
+    out.flush();
+  }
+
+  /**
+   * Returns the ring the broadcasts of this link are published to.
+   *
+   * @return The broadcast ring
+   * @since 1.0
+   */
+  BroadcastRing getBroadcastRing() {
+    return broadcasts;
+  }
+
+  /**
+   * Returns the number of users on this link.
+   *
+   * @return The number of open streams
+   * @since 1.0
+   */
+  public int getStreamCount() {
+    return streams.size();
+  }
+
+  /**
+   * Checks whether the link has been closed.
+   *
+   * @return True if the link is closed
+   * @since 1.0
+   */
+  public boolean isClosed() {
+    return closed.get();
+  }
+
+  /**
+   * Closes the link.
+   * Every user of the link is sent a closing notice, so they reconnect later, and disconnected.
+   *
+   * @since 1.0
+   */
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    LOG.info("link.closed", "remote", socket.getRemoteSocketAddress(), "streams", streams.size());
+    String notice = SERVER_CLOSING_NOTICE + " " + DRAIN_RETRY_AFTER_SECONDS.get();
+    streams.values().forEach(stream -> stream.close(notice));
+    streams.clear();
+    try {
+      synchronized (this) {
+        out.close();
+      }
+      socket.close();
+    } catch (IOException ignored) {/* Ignored */}
+  }
+}
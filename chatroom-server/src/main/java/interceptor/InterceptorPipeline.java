@@ -0,0 +1,247 @@
+package interceptor;
+
+import static config.ServerConfig.INTERCEPTOR_QUEUE;
+import static config.ServerConfig.INTERCEPTOR_THREADS;
+
+import eventlog.EventLog;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs chat messages and broadcasts through the {@link MessageInterceptor stages} found on the class path.
+ * Stages run on a small pool of threads of the pipeline, and the caller gets a future of the result
+ * instead of waiting, so the thread reading a connection goes on reading. Callers that need their
+ * messages to keep their order chain each one after the one before. A stage can delay a message
+ * by its budget at most: a stage that overruns its budget is interrupted, one that throws is ignored,
+ * and when the pool is too busy to take a stage at all, the stage is left out. In each case the message
+ * goes on unchanged and the stage is counted, so a slow or broken plugin shows in {@code /stats}
+ * instead of in chat latency.
+ *
+ * <p>Without any stages, messages pass straight through, the futures are complete at once,
+ * and no threads are started.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class InterceptorPipeline {
+  private static final EventLog LOG = EventLog.get(InterceptorPipeline.class);
+
+  private final List<Stage> stages;
+  private final ThreadPoolExecutor pool;  // Null without stages
+  private final ScheduledExecutorService budgets;  // Ends stages that overrun, null without stages
+
+  /**
+   * A stage of the pipeline with its counters.
+   *
+   * @version 1.0
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  private static final class Stage {
+    private final MessageInterceptor interceptor;
+    private final String name;
+    private final LongAdder passed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder overruns = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Create a stage.
+     *
+     * @param interceptor The interceptor the stage runs
+     * @since 1.0
+     */
+    private Stage(MessageInterceptor interceptor) {
+      this.interceptor = interceptor;
+      this.name = interceptor.getName();
+    }
+  }
+
+  /**
+   * Create a pipeline of stages.
+   *
+   * @param interceptors The stages, in the order they run
+   * @since 1.0
+   */
+  public InterceptorPipeline(List<MessageInterceptor> interceptors) {
+    stages = interceptors.stream().map(Stage::new).toList();
+    if (stages.isEmpty()) {
+      pool = null;
+      budgets = null;
+      return;
+    }
+    AtomicInteger threadCounter = new AtomicInteger();
+    pool = new ThreadPoolExecutor(INTERCEPTOR_THREADS, INTERCEPTOR_THREADS, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(INTERCEPTOR_QUEUE), task -> {
+          Thread thread = new Thread(task, "interceptor-" + threadCounter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    budgets = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "interceptor-budgets");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Create a pipeline of the stages registered with {@link ServiceLoader}.
+   * A stage that cannot be loaded is logged and left out.
+   *
+   * @return The pipeline
+   * @since 1.0
+   */
+  public static InterceptorPipeline load() {
+    List<MessageInterceptor> interceptors = new ArrayList<>();
+    for (ServiceLoader.Provider<MessageInterceptor> provider
+        : ServiceLoader.load(MessageInterceptor.class).stream().toList()) {
+      try {
+        MessageInterceptor interceptor = provider.get();
+        interceptors.add(interceptor);
+        LOG.info("interceptor.loaded", "name", interceptor.getName(), "class", provider.type().getName());
+      } catch (ServiceConfigurationError e) {
+        LOG.error("interceptor.load_failed", "class", provider.type().getName(), "error", e.getMessage());
+      }
+    }
+    return new InterceptorPipeline(interceptors);
+  }
+
+  /**
+   * Runs a chat message through every stage.
+   *
+   * @param username The user who sent the message
+   * @param message The message
+   * @return The message to broadcast once every stage has run, or null if a stage dropped it
+   * @since 1.0
+   */
+  public CompletableFuture<String> inbound(String username, String message) {
+    CompletableFuture<String> result = CompletableFuture.completedFuture(message);
+    for (Stage stage : stages) {
+      result = result.thenCompose(current -> current == null ? completed(null)
+          : run(stage, current, () -> stage.interceptor.inbound(username, current)));
+    }
+    return result;
+  }
+
+  /**
+   * Runs a broadcast through every stage.
+   *
+   * @param message The broadcast
+   * @return The broadcast to send once every stage has run, or null if a stage dropped it
+   * @since 1.0
+   */
+  public CompletableFuture<String> outbound(String message) {
+    CompletableFuture<String> result = CompletableFuture.completedFuture(message);
+    for (Stage stage : stages) {
+      result = result.thenCompose(current -> current == null ? completed(null)
+          : run(stage, current, () -> stage.interceptor.outbound(current)));
+    }
+    return result;
+  }
+
+  /**
+   * Returns a future that is already complete.
+   *
+   * @param message The message
+   * @return The future of the message
+   * @since 1.1
+   */
+  private static CompletableFuture<String> completed(String message) {
+    return CompletableFuture.completedFuture(message);
+  }
+
+  /**
+   * Runs one stage on the pool, giving up on it once its budget has passed.
+   * The future is completed by the stage, or by the budget, whichever comes first.
+   *
+   * @param stage The stage
+   * @param message The message the stage is given
+   * @param call The call to the stage
+   * @return What the stage returned, or the message unchanged if the stage was skipped
+   * @since 1.0
+   */
+  private CompletableFuture<String> run(Stage stage, String message, Callable<String> call) {
+    CompletableFuture<String> result = new CompletableFuture<>();
+    Future<?> task;
+    try {
+      task = pool.submit(() -> {
+        try {
+          String intercepted = call.call();
+          if (result.complete(intercepted)) {
+            (intercepted == null ? stage.dropped : stage.passed).increment();
+          }
+        } catch (Exception e) {
+          if (result.complete(message)) {
+            stage.failures.increment();
+            LOG.warn("interceptor.failed", "name", stage.name, "error", String.valueOf(e));
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      stage.rejected.increment();
+      return completed(message);
+    }
+    try {
+      budgets.schedule(() -> {
+        if (result.complete(message)) {
+          task.cancel(true);
+          stage.overruns.increment();
+          LOG.debug("interceptor.overrun", "name", stage.name);
+        }
+      }, stage.interceptor.getBudgetMillis(), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      task.cancel(true);  // Shutting down
+      result.complete(message);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the counters of every stage, by name.
+   *
+   * @return The counters
+   * @since 1.0
+   */
+  public Map<String, Long> snapshot() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put("interceptor.stages", (long) stages.size());
+    for (Stage stage : stages) {
+      String prefix = "interceptor." + stage.name + ".";
+      stats.put(prefix + "passed", stage.passed.sum());
+      stats.put(prefix + "dropped", stage.dropped.sum());
+      stats.put(prefix + "overruns", stage.overruns.sum());
+      stats.put(prefix + "failures", stage.failures.sum());
+      stats.put(prefix + "rejected", stage.rejected.sum());
+    }
+    return stats;
+  }
+
+  /**
+   * Stops the threads of the pipeline, interrupting stages still running.
+   *
+   * @since 1.0
+   */
+  public void shutdown() {
+    if (pool != null) {
+      pool.shutdownNow();
+      budgets.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package interceptor;
+
+import static config.ServerConfig.INTERCEPTOR_BUDGET_MILLIS;
+
+/**
+ * A stage of the server's message pipeline, such as a moderation filter, a formatter or a bot.
+ * Stages see chat messages as users send them, and every broadcast before it goes out,
+ * and may pass a message on unchanged, change it, or drop it.
+ *
+ * <p>Stages are found with {@link java.util.ServiceLoader}: a jar on the server's class path lists
+ * its implementations in {@code META-INF/services/interceptor.MessageInterceptor},
+ * and they run in the order they are found. Implementations need a public constructor without arguments.
+ *
+ * <p>Stages run on the threads of the pipeline, never on the thread reading a connection,
+ * and may be called from several threads at once. A stage that does not return within its budget,
+ * or throws, is skipped: the message goes on as if the stage had passed it unchanged.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public interface MessageInterceptor {
+
+  /**
+   * Intercepts a chat message a user sent, before it is broadcast as theirs.
+   * Commands, attachments and login lines are not chat messages.
+   *
+   * @param username The user who sent the message
+   * @param message The message
+   * @return The message to broadcast, or null to drop it
+   * @since 1.0
+   */
+  default String inbound(String username, String message) {
+    return message;
+  }
+
+  /**
+   * Intercepts a broadcast before it goes out to every user.
+   * Broadcasts include chat messages as {@code username: message}, presence announcements and shared files.
+   *
+   * @param message The broadcast
+   * @return The broadcast to send, or null to drop it
+   * @since 1.0
+   */
+  default String outbound(String message) {
+    return message;
+  }
+
+  /**
+   * Returns the name the stage is counted under in the server metrics.
+   *
+   * @return The name of the stage
+   * @since 1.0
+   */
+  default String getName() {
+    return getClass().getSimpleName();
+  }
+
+  /**
+   * Returns how long the stage may take with one message before it is skipped.
+   *
+   * @return The budget in milliseconds
+   * @since 1.0
+   */
+  default long getBudgetMillis() {
+    return INTERCEPTOR_BUDGET_MILLIS.get();
+  }
+}
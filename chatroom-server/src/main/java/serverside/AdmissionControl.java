@@ -0,0 +1,128 @@
+package serverside;
+
+import static config.ServerConfig.HANDSHAKE_QUEUE_TIMEOUT_MILLIS;
+import static config.ServerConfig.MAX_CONCURRENT_HANDSHAKES;
+import static config.ServerConfig.MAX_CONNECTIONS;
+import static config.ServerConfig.REJECT_QUEUE;
+import static config.ServerConfig.REJECT_THREADS;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * Decides which connections the server takes on.
+ * Caps the total number of connections, and the number of CPU heavy key exchanges in flight,
+ * so that a connect storm queues up instead of starving users that are already logged in.
+ * Connections that are not taken on are turned away on a few threads at most.
+ *
+ * @version 1.2
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class AdmissionControl {
+  private final Semaphore handshakes = new Semaphore(MAX_CONCURRENT_HANDSHAKES, true);
+  private final ThreadPoolExecutor rejecting = new ThreadPoolExecutor(
+      REJECT_THREADS, REJECT_THREADS, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(REJECT_QUEUE));
+
+  /**
+   * Create the admission control of a server or gateway.
+   *
+   * @since 1.2
+   */
+  public AdmissionControl() {
+    rejecting.allowCoreThreadTimeOut(true);  // No threads held while nobody is turned away
+  }
+
+  /**
+   * Check whether another connection may be accepted.
+   *
+   * @param connections The number of connections already open
+   * @return True if the connection may be accepted
+   * @since 1.0
+   */
+  public boolean admitConnection(int connections) {
+    return connections < MAX_CONNECTIONS.get();
+  }
+
+  /**
+   * Tells a connection that was not admitted that the server is busy, and closes it.
+   * A plain socket is told at once, since the single line fits in its empty send buffer.
+   * Over TLS the handshake waits on the client, so the rejection runs on the few threads kept for it,
+   * and once as many are waiting as the reject queue holds, further connections are closed without a word.
+   *
+   * @param client The connection to turn away
+   * @since 1.2
+   */
+  public void reject(Socket client) {
+    if (!(client instanceof SSLSocket)) {
+      Server.rejectBusy(client);
+      return;
+    }
+    try {
+      rejecting.execute(() -> Server.rejectBusy(client));
+    } catch (RejectedExecutionException e) {
+      try {
+        client.close();
+      } catch (IOException ignored) {/* Ignored */}
+    }
+  }
+
+  /**
+   * Stops turning connections away, once those already waiting are told.
+   *
+   * @since 1.2
+   */
+  public void shutdown() {
+    rejecting.shutdown();
+  }
+
+  /**
+   * Wait for a handshake slot, for at most the handshake queue timeout.
+   *
+   * @return True if a slot was acquired and must be released, false if the server is too busy
+   * @since 1.0
+   */
+  public boolean acquireHandshake() {
+    try {
+      return handshakes.tryAcquire(HANDSHAKE_QUEUE_TIMEOUT_MILLIS.get(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Release a handshake slot acquired with {@link #acquireHandshake()}.
+   *
+   * @since 1.0
+   */
+  public void releaseHandshake() {
+    handshakes.release();
+  }
+
+  /**
+   * Get the number of handshakes in flight.
+   *
+   * @return The number of handshake slots taken
+   * @since 1.0
+   */
+  public int getHandshakesInFlight() {
+    return MAX_CONCURRENT_HANDSHAKES - handshakes.availablePermits();
+  }
+
+  /**
+   * Get the number of connections waiting for a handshake slot.
+   *
+   * @return The approximate number of queued handshakes
+   * @since 1.0
+   */
+  public int getQueuedHandshakes() {
+    return handshakes.getQueueLength();
+  }
+}
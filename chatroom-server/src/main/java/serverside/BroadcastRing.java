@@ -0,0 +1,285 @@
+package serverside;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ring buffer of sequenced broadcasts, in the style of the Disruptor.
+ * Each broadcast is stored once, in the slot of its sequence number,
+ * and every subscriber reads the ring at a cursor of its own.
+ * Publishing only stores the message and wakes idle subscribers,
+ * so a slow connection never holds up the sender or the other subscribers.
+ * A woken subscriber writes everything up to the head and flushes once,
+ * which batches bursts of broadcasts into few writes.
+ * A subscriber that cannot flush while another thread writes to it yields instead of waiting,
+ * and its cursor is scheduled again once it can go on, so waiting subscribers hold no thread
+ * and a bounded executor serves any number of them.
+ *
+ * <p>The ring does not wait for slow subscribers. A subscriber whose cursor trails the head
+ * by more than the capacity has lost messages; it is told so and its cursor is closed.
+ * How far cursors trail the head is available as the lag.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class BroadcastRing {
+  private final AtomicReferenceArray<Entry> slots;
+  private final int mask;
+  private final Executor executor;
+  private final Set<Cursor> cursors = ConcurrentHashMap.newKeySet();
+
+  private volatile long head;  // Sequence of the next broadcast
+
+  /**
+   * A broadcast in its slot. Stamped with its sequence, so a reader can tell it was overwritten.
+   *
+   * @param sequence The sequence of the broadcast
+   * @param message The message
+   */
+  private record Entry(long sequence, String message) {}
+
+  /**
+   * Receives the broadcasts of a ring, in order.
+   *
+   * @version 1.1
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  public interface Subscriber {
+
+    /**
+     * Writes a broadcast, possibly without flushing it.
+     *
+     * @param message The message
+     * @since 1.0
+     */
+    void deliver(String message);
+
+    /**
+     * Flushes the broadcasts written so far, once the subscriber has caught up with the head.
+     * If another thread is still writing to the subscriber, the subscriber may yield instead,
+     * and run resume once that thread is done. The cursor writes nothing meanwhile.
+     *
+     * @param resume Continues the cursor after the subscriber yielded
+     * @return True if flushed, false if the subscriber yielded
+     * @since 1.1
+     */
+    boolean flush(Runnable resume);
+
+    /**
+     * Called when the subscriber fell so far behind that broadcasts were overwritten.
+     * The cursor is closed; the subscriber may subscribe again to continue from the head.
+     *
+     * @param missed The number of broadcasts the subscriber did not receive
+     * @since 1.0
+     */
+    void overrun(long missed);
+  }
+
+  /**
+   * Create a ring.
+   *
+   * @param capacity The number of broadcasts kept, rounded up to a power of two
+   * @param executor The executor subscribers write on, which may be bounded
+   * @since 1.0
+   */
+  public BroadcastRing(int capacity, Executor executor) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    this.slots = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+    this.executor = executor;
+  }
+
+  /**
+   * Publish a broadcast to every subscriber.
+   * Broadcasts are sequenced in the order their publishers get here.
+   *
+   * @param message The message
+   * @since 1.0
+   */
+  public void publish(String message) {
+    synchronized (this) {  // A single producer at a time
+      long sequence = head;
+      slots.set((int) sequence & mask, new Entry(sequence, message));
+      head = sequence + 1;
+    }
+    for (Cursor cursor : cursors) {
+      cursor.signal();
+    }
+  }
+
+  /**
+   * Subscribe to the broadcasts published from now on.
+   *
+   * @param subscriber The subscriber
+   * @return The cursor of the subscriber, to be closed when it no longer wants broadcasts
+   * @since 1.0
+   */
+  public Cursor subscribe(Subscriber subscriber) {
+    Cursor cursor = new Cursor(subscriber, head);
+    cursors.add(cursor);
+    if (cursor.next < head) {
+      cursor.signal();  // Published before the cursor was added, so it was not woken
+    }
+    return cursor;
+  }
+
+  /**
+   * Returns the sequence the next broadcast will get, which is the number of broadcasts so far.
+   *
+   * @return The head of the ring
+   * @since 1.0
+   */
+  public long getHead() {
+    return head;
+  }
+
+  /**
+   * Returns the number of subscribers.
+   *
+   * @return The number of open cursors
+   * @since 1.0
+   */
+  public int getSubscriberCount() {
+    return cursors.size();
+  }
+
+  /**
+   * Returns how many broadcasts the furthest behind subscriber has yet to write.
+   *
+   * @return The largest lag of any cursor
+   * @since 1.0
+   */
+  public long getMaxLag() {
+    long maxLag = 0;
+    for (Cursor cursor : cursors) {
+      maxLag = Math.max(maxLag, cursor.getLag());
+    }
+    return maxLag;
+  }
+
+  /**
+   * The position of one subscriber in the ring.
+   * At most one task writes for a cursor at a time.
+   *
+   * @version 1.1
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  public final class Cursor {
+    private final Subscriber subscriber;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile long next;  // Sequence of the next broadcast to write
+    private volatile boolean closed;
+
+    /**
+     * Create a cursor.
+     *
+     * @param subscriber The subscriber
+     * @param next The sequence of the first broadcast to write
+     * @since 1.0
+     */
+    private Cursor(Subscriber subscriber, long next) {
+      this.subscriber = subscriber;
+      this.next = next;
+    }
+
+    /**
+     * Schedules a write of the broadcasts after the cursor, unless one is already scheduled.
+     *
+     * @since 1.0
+     */
+    private void signal() {
+      if (!closed && scheduled.compareAndSet(false, true)) {
+        schedule();
+      }
+    }
+
+    /**
+     * Runs a write on the executor, while the cursor is marked as scheduled.
+     *
+     * @since 1.1
+     */
+    private void schedule() {
+      try {
+        executor.execute(this::drain);
+      } catch (RejectedExecutionException e) {
+        scheduled.set(false);  // Shutting down
+      }
+    }
+
+    /**
+     * Writes the broadcasts after the cursor until it reaches the head, then flushes.
+     * If the subscriber yields, the cursor stays scheduled, and the subscriber schedules it again.
+     *
+     * @since 1.0
+     */
+    private void drain() {
+      boolean yielded = false;
+      try {
+        long sequence = next;
+        long available = head;
+        while (!closed && sequence < available) {
+          Entry entry = slots.get((int) sequence & mask);
+          if (entry == null || entry.sequence() != sequence) {
+            overrun(sequence);
+            return;
+          }
+          subscriber.deliver(entry.message());
+          next = ++sequence;
+          if (sequence == available) {
+            if (!subscriber.flush(this::schedule)) {
+              yielded = true;
+              return;
+            }
+            available = head;  // Pick up whatever was published in the meantime
+          }
+        }
+      } finally {
+        if (!yielded) {
+          scheduled.set(false);
+        }
+      }
+      if (next < head) {
+        signal();  // Published after we last looked, but before we cleared the flag
+      }
+    }
+
+    /**
+     * Closes the cursor after broadcasts were overwritten before it read them.
+     *
+     * @param sequence The sequence the cursor was at
+     * @since 1.0
+     */
+    private void overrun(long sequence) {
+      long missed = head - (mask + 1) - sequence;  // Up to the oldest broadcast still in the ring
+      close();
+      subscriber.overrun(Math.max(1, missed));
+    }
+
+    /**
+     * Returns how many broadcasts this subscriber has yet to write.
+     *
+     * @return The distance between the cursor and the head
+     * @since 1.0
+     */
+    public long getLag() {
+      return head - next;
+    }
+
+    /**
+     * Stops receiving broadcasts.
+     *
+     * @since 1.0
+     */
+    public void close() {
+      closed = true;
+      cursors.remove(this);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package serverside;
+
+import static config.ConnectionConfig.HISTORY_ID_PREFIX;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The latest broadcasts of the server, numbered, so clients that keep messages of their own
+ * can ask for only those newer than the last one they have.
+ * Every broadcast goes out with its number, see {@link #stamp}, and the oldest ones are forgotten
+ * once the capacity is reached.
+ * Numbers start from when the server started, so they keep growing across restarts,
+ * and a client never mistakes a broadcast of a restarted server for one it already has.
+ * A standby keeps the broadcasts of its primary under the primary's numbers, and numbers its own
+ * from when it took over, see {@link #put} and {@link #renumberFrom}.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class ChatHistory {
+  private final Entry[] entries;
+  private long count;  // Broadcasts kept so far, the latest at (count - 1) modulo the capacity
+  private long last = System.currentTimeMillis() * 1000;  // Room for a thousand broadcasts a millisecond
+
+  /**
+   * A broadcast as kept in the history.
+   *
+   * @param id The number of the broadcast
+   * @param message The broadcast, without its number
+   */
+  public record Entry(long id, String message) {}
+
+  /**
+   * Create an empty history.
+   *
+   * @param capacity The number of broadcasts kept
+   * @since 1.0
+   */
+  public ChatHistory(int capacity) {
+    this.entries = new Entry[Math.max(1, capacity)];
+  }
+
+  /**
+   * Numbers a broadcast and keeps it.
+   * Callers that need broadcasts to go out in the order of their numbers hold the lock of the history
+   * until the broadcast is published.
+   *
+   * @param message The broadcast
+   * @return The number of the broadcast
+   * @since 1.0
+   */
+  public synchronized long add(String message) {
+    last++;
+    entries[(int) (count++ % entries.length)] = new Entry(last, message);
+    return last;
+  }
+
+  /**
+   * Keeps a broadcast numbered by the primary, on a standby.
+   * An empty history takes on the numbers of the primary; after that, broadcasts it has already are ignored.
+   *
+   * @param id The number of the broadcast
+   * @param message The broadcast
+   * @since 1.1
+   */
+  public synchronized void put(long id, String message) {
+    if (count > 0 && id <= last) {
+      return;
+    }
+    last = id;
+    entries[(int) (count++ % entries.length)] = new Entry(id, message);
+  }
+
+  /**
+   * Numbers the next broadcasts from a number on, if the latest is lower.
+   * A standby that takes over does this, so its broadcasts are never numbered like one
+   * the primary sent but did not replicate before it failed.
+   *
+   * @param id The number to go on from
+   * @since 1.1
+   */
+  public synchronized void renumberFrom(long id) {
+    last = Math.max(last, id);
+  }
+
+  /**
+   * Returns the broadcasts after a number that are still kept, oldest first.
+   * A client whose last broadcast is older than the oldest one kept gets all of them, and misses the ones between.
+   *
+   * @param after The number of the last broadcast the client has, 0 for none
+   * @return The broadcasts
+   * @since 1.0
+   */
+  public synchronized List<Entry> since(long after) {
+    List<Entry> kept = new ArrayList<>();
+    for (long index = Math.max(0, count - entries.length); index < count; index++) {
+      Entry entry = entries[(int) (index % entries.length)];
+      if (entry.id() > after) {
+        kept.add(entry);
+      }
+    }
+    return kept;
+  }
+
+  /**
+   * Puts the number of a broadcast in front of it, as it is sent: {@code /id <id> <message>}.
+   *
+   * @param id The number of the broadcast
+   * @param message The broadcast
+   * @return The numbered broadcast
+   * @since 1.0
+   */
+  public static String stamp(long id, String message) {
+    return HISTORY_ID_PREFIX + " " + id + " " + message;
+  }
+}
@@ -0,0 +1,797 @@
+package serverside;
+
+import static config.ConnectionConfig.HISTORY_COMMAND;
+import static config.ConnectionConfig.HISTORY_END_MESSAGE;
+import static config.ConnectionConfig.HISTORY_MESSAGE;
+import static config.ConnectionConfig.LATENCY_COMMAND;
+import static config.ConnectionConfig.LOGIN_COMMAND;
+import static config.ConnectionConfig.LOGIN_FAILED_MESSAGE;
+import static config.ConnectionConfig.LOGIN_STEP_PASSWORD;
+import static config.ConnectionConfig.LOGIN_STEP_USERNAME;
+import static config.ConnectionConfig.PASSWORD;
+import static config.ConnectionConfig.PASSWORD_INCORRECT_MESSAGE;
+import static config.ConnectionConfig.PASSWORD_SUCCESS_MESSAGE;
+import static config.ConnectionConfig.TRACE_COMMAND;
+import static config.ConnectionConfig.TRACE_RATE_MESSAGE;
+import static config.ServerConfig.INTERCEPTOR_SESSION_PENDING;
+import static config.ServerConfig.PASSWORD_TIMEOUT_MILLIS;
+import static config.ServerConfig.TRACE_SAMPLE_RATE;
+import static config.ServerConfig.USERNAME_TIMEOUT_MILLIS;
+import static config.UserConfig.CONFIG_COMMAND;
+import static config.UserConfig.HELP_COMMAND;
+import static config.UserConfig.KICK_COMMAND;
+import static config.UserConfig.LIST_USERS_COMMAND;
+import static config.UserConfig.MESSAGE_USER_COMMAND;
+import static config.UserConfig.NEW_NICKNAME_COMMAND;
+import static config.UserConfig.QUIT_COMMAND;
+import static config.UserConfig.SHUTDOWN_COMMAND;
+import static config.UserConfig.STATS_COMMAND;
+import static config.UserConfig.TYPING_COMMAND;
+import static config.UserConfig.USERNAME_NOT_SET;
+import static eventlog.EventLogConfig.HIGH_VOLUME_SAMPLE_RATE;
+
+import attachment.AttachmentStore;
+import attachment.AttachmentTransfers;
+import config.RuntimeConfig;
+import config.Setting;
+import eventlog.EventLog;
+import eventlog.Sampler;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.crypto.SecretKey;
+import traffic.TrafficEvent;
+import traffic.TrafficRecorder;
+
+/**
+ * The chat session of one user on the server: logging in, commands and chat messages.
+ * Independent of how the user is connected, so the same session serves users with a connection
+ * of their own and users multiplexed over a gateway link.
+ * Lines are handed in one at a time and in order, by the thread reading the user's connection,
+ * or for a user of a gateway by a thread of the server.
+ * Once joined, the user can share attachments, which are announced to everyone with their id.
+ * The transfers of a session are only created once the user first shares or saves one.
+ *
+ * <p>Users log in with the password and then the username, each answered on its own,
+ * or with both at once in a single login command, which is answered once.
+ *
+ * <p>While the user types, the client signals it now and then. Typing signals are handed
+ * to the server's typing coalescer and never logged, and sending a message ends them.
+ *
+ * <p>Chat messages pass through the server's interceptor stages before they are broadcast,
+ * which may change or drop them. The stages run while the session goes on reading,
+ * and the user's messages are broadcast in the order they were sent. The client traces some of them, stamped with when they were sent,
+ * and reports the latencies it measured, see {@link LatencyReports}.
+ * A client that keeps messages of its own asks for the broadcasts newer than its last one,
+ * and gets those the server still has, see {@link ChatHistory}.
+ *
+ * <p>When the server records its traffic, the session records when it connected, joined and left,
+ * and the kind and length of each message, but not what was written.
+ *
+ * <p>When the server has a standby, the user is told where to find it, and the standby is told
+ * when the user joins, changes name, resumes with a new key or leaves, so it can take the session over.
+ * A session taken over starts out joined, and is sent the broadcasts its client missed once it resumes.
+ *
+ * @version 1.12
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class ChatSession implements Session {
+  private static final EventLog LOG = EventLog.get(ChatSession.class);
+  private static final Sampler MESSAGE_SAMPLER = new Sampler(HIGH_VOLUME_SAMPLE_RATE);
+
+  /**
+   * The steps a user goes through, in order.
+   */
+  private enum Phase { PASSWORD, USERNAME, CHAT }
+
+  private final Server server;
+  private final SessionChannel channel;
+  private volatile AttachmentTransfers attachments;  // Null until the user first transfers an attachment
+  private final long trafficId;  // The number of the session in the traffic recording, 0 when not recording
+
+  private Phase phase = Phase.PASSWORD;
+  private String username = USERNAME_NOT_SET;
+  private boolean administrator = false;
+  private volatile boolean joined = false;
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private volatile TimingWheel.Timeout deadline;
+  private CompletableFuture<Void> intercepting =  // The user's last chat message, until it is broadcast
+      CompletableFuture.completedFuture(null);
+  private final AtomicInteger pending = new AtomicInteger();  // The user's chat messages not yet broadcast
+
+  /**
+   * Create the chat session of a user.
+   * The user has to send the password first.
+   *
+   * @param server The server
+   * @param channel The way to reach the user
+   * @since 1.0
+   */
+  public ChatSession(Server server, SessionChannel channel) {
+    this.server = server;
+    this.channel = channel;
+    this.trafficId = server.getRecorder().connected();
+    deadline = startPhase("password", PASSWORD_TIMEOUT_MILLIS.get());
+  }
+
+  /**
+   * Create the chat session of a user that joined on a failed server, taken over by this server as its standby.
+   * The user is joined already, and is not announced again.
+   *
+   * @param server The server that took over
+   * @param channel The way to reach the user, parked until the client resumes
+   * @param username The username
+   * @param administrator Whether the user logged in with the administrator password
+   * @since 1.10
+   */
+  ChatSession(Server server, SessionChannel channel, String username, boolean administrator) {
+    this.server = server;
+    this.channel = channel;
+    this.trafficId = server.getRecorder().connected();
+    this.username = username;
+    this.administrator = administrator;
+    this.phase = Phase.CHAT;
+    this.joined = true;
+  }
+
+  @Override
+  public void onLine(String input) {
+    if (closed.get()) {
+      return;
+    }
+    switch (phase) {
+      case PASSWORD -> {
+        if (input.startsWith(LOGIN_COMMAND + " ")) {
+          login(input.substring(LOGIN_COMMAND.length() + 1));
+        } else {
+          checkPassword(input);
+        }
+      }
+      case USERNAME -> checkUsername(input);
+      default -> {
+        if (input.equals(TYPING_COMMAND)) {
+          server.getRecorder().record(trafficId, TrafficEvent.Kind.TYPING, 0, 0);
+          server.getTyping().typing(username);
+          return;
+        }
+        if (input.startsWith(LATENCY_COMMAND + " ")) {
+          server.getLatency().report(input.substring(LATENCY_COMMAND.length() + 1));
+          return;
+        }
+        if (input.startsWith(HISTORY_COMMAND + " ")) {
+          sendHistory(input.substring(HISTORY_COMMAND.length() + 1));
+          return;
+        }
+        String trace = null;
+        String line = input;
+        if (input.startsWith(TRACE_COMMAND + " ")) {
+          String[] parts = input.split(" ", 4);
+          if (parts.length == 4 && isStamp(parts[1]) && isStamp(parts[2])) {
+            trace = parts[1] + " " + parts[2] + " " + System.currentTimeMillis();
+            line = parts[3];
+          }
+        }
+        if (LOG.isDebugEnabled() && MESSAGE_SAMPLER.sample()) {
+          LOG.debug("message.received", "user", username, "body", EventLog.body(line));
+        }
+        if (AttachmentTransfers.isTransfer(line)) {
+          attachments().handle(line);
+          return;
+        }
+        record(line);
+        if (!handleIfCommand(line)) {
+          server.getTyping().stopped(username);
+          intercept(line, trace);
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs a chat message through the interceptor stages and broadcasts it, after the user's messages before it.
+   * The stages run on their own threads, so the caller goes on reading the user's lines meanwhile.
+   * A user with too many messages still in the stages is told the message was dropped,
+   * rather than have the reader wait, which would hold up the pings and commands of the user as well.
+   *
+   * @param line The chat message
+   * @param trace The stamps of a traced message, or null
+   * @since 1.11
+   */
+  private void intercept(String line, String trace) {
+    if (pending.incrementAndGet() > INTERCEPTOR_SESSION_PENDING.get()) {
+      pending.decrementAndGet();
+      server.getMetrics().messageDropped();
+      send("Message not sent, your earlier messages are still being handled.");
+      return;
+    }
+    String sender = username;
+    intercepting = intercepting
+        .thenCompose(previous -> server.getInterceptors().inbound(sender, line))
+        .thenCompose(message -> message == null ? CompletableFuture.<Void>completedFuture(null)
+            : server.broadcastToAll(sender + ": " + message, trace))
+        .exceptionally(error -> {
+          LOG.error("message.broadcast_failed", "user", sender, "error", String.valueOf(error));
+          return null;
+        })
+        .whenComplete((ignored, error) -> pending.decrementAndGet());
+  }
+
+  /**
+   * Sends the broadcasts the server still has that are newer than the last one the client has,
+   * each with its number, and then marks the end.
+   *
+   * @param after The number of the last broadcast the client has, 0 for none
+   * @since 1.9
+   */
+  private void sendHistory(String after) {
+    long last;
+    try {
+      last = Long.parseLong(after.trim());
+    } catch (NumberFormatException e) {
+      last = 0;
+    }
+    for (ChatHistory.Entry entry : server.getHistory().since(last)) {
+      send(HISTORY_MESSAGE + " " + entry.id() + " " + entry.message());
+    }
+    send(HISTORY_END_MESSAGE);
+  }
+
+  /**
+   * Checks whether a stamp of a traced message is a number.
+   *
+   * @param stamp The stamp
+   * @return True if the stamp is a number of milliseconds
+   * @since 1.6
+   */
+  private static boolean isStamp(String stamp) {
+    try {
+      Long.parseLong(stamp);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the attachment transfers of the session, creating them on first use.
+   * Only the thread handing in lines creates them; if the session closed meanwhile, they are closed too.
+   *
+   * @return The transfers
+   * @since 1.8
+   */
+  private AttachmentTransfers attachments() {
+    AttachmentTransfers transfers = attachments;
+    if (transfers == null) {
+      transfers = new AttachmentTransfers(server.getAttachments(), channel, this::getUsername, this::shared);
+      attachments = transfers;
+      if (closed.get()) {
+        transfers.close();
+      }
+    }
+    return transfers;
+  }
+
+  /**
+   * Closes the attachment transfers of the session, if it has any.
+   *
+   * @since 1.8
+   */
+  private void closeAttachments() {
+    AttachmentTransfers transfers = attachments;
+    if (transfers != null) {
+      transfers.close();
+    }
+  }
+
+  /**
+   * Records the kind and length of a chat message or command, if the server records its traffic.
+   * Quitting is recorded once the session has ended.
+   *
+   * @param line The chat message or command, without stamps
+   * @since 1.7
+   */
+  private void record(String line) {
+    TrafficRecorder recorder = server.getRecorder();
+    if (!recorder.isRecording()) {
+      return;
+    }
+    if (!line.startsWith("/")) {
+      recorder.record(trafficId, TrafficEvent.Kind.CHAT, line.length(), 0);
+      return;
+    }
+    String[] parts = line.split(" ", 3);
+    switch (parts[0]) {
+      case MESSAGE_USER_COMMAND -> {
+        if (parts.length < 3) {
+          recorder.record(trafficId, TrafficEvent.Kind.COMMAND, 0, 0);
+          return;
+        }
+        long peer = server.getSessions()
+            .filter(session -> session.getUsername().equals(parts[1]))
+            .mapToLong(session -> session.trafficId)
+            .findFirst()
+            .orElse(0);
+        recorder.record(trafficId, TrafficEvent.Kind.WHISPER, parts[2].length(), peer);
+      }
+      case LIST_USERS_COMMAND -> recorder.record(trafficId, TrafficEvent.Kind.LIST, 0, 0);
+      case NEW_NICKNAME_COMMAND -> recorder.record(trafficId, TrafficEvent.Kind.NICK, 0, 0);
+      case QUIT_COMMAND -> {
+        // Recorded once the session has ended
+      }
+      default -> recorder.record(trafficId, TrafficEvent.Kind.COMMAND, 0, 0);
+    }
+  }
+
+  /**
+   * Tells everyone that the user shared an attachment, and how to save it.
+   *
+   * @param attachment The attachment, complete
+   * @since 1.2
+   */
+  private void shared(AttachmentStore.Attachment attachment) {
+    LOG.info("attachment.shared", "user", username, "id", attachment.getId(), "bytes", attachment.getSize());
+    server.broadcastToAll(username + " shared " + attachment.getName() + " (" + attachment.getSize()
+        + " bytes), type /save " + attachment.getId() + " to download it");
+  }
+
+  /**
+   * Starts the deadline of a login phase.
+   * If the phase has not completed by then, the session is closed.
+   *
+   * @param phase The name of the phase
+   * @param timeoutMillis The time the user has to complete the phase
+   * @return The deadline, to be cancelled when the phase completes
+   * @since 1.0
+   */
+  private TimingWheel.Timeout startPhase(String phase, long timeoutMillis) {
+    TimingWheel timingWheel = server.getTimingWheel();
+    if (timingWheel == null) {
+      return null;
+    }
+    return timingWheel.schedule(() -> {
+      if (!closed.get()) {
+        LOG.info("handshake.timeout", "phase", phase, "remote", channel.getRemoteAddress());
+        server.getMetrics().handshakeTimedOut();
+        close(null);
+      }
+    }, timeoutMillis);
+  }
+
+  /**
+   * Cancels the deadline of the current phase, if there is one.
+   *
+   * @since 1.0
+   */
+  private void cancelDeadline() {
+    TimingWheel.Timeout pending = deadline;
+    if (pending != null) {
+      pending.cancel();
+      deadline = null;
+    }
+  }
+
+  /**
+   * Checks a password attempt.
+   * The user may try again until the password deadline passes.
+   *
+   * @param input The password attempt
+   * @since 1.0
+   */
+  private void checkPassword(String input) {
+    if (!authenticate(input)) {
+      send(PASSWORD_INCORRECT_MESSAGE);
+      return;
+    }
+    send(PASSWORD_SUCCESS_MESSAGE);
+    passwordAccepted();
+  }
+
+  /**
+   * Checks a password, and whether it is the administrator password.
+   *
+   * @param input The password attempt
+   * @return True if the password is correct
+   * @since 1.3
+   */
+  private boolean authenticate(String input) {
+    administrator = input.equals(PASSWORD.get());  // Administrator password
+    return administrator || input.equalsIgnoreCase(new PasswordFactory().getPassword());
+  }
+
+  /**
+   * Moves on to the username, once the password was accepted.
+   *
+   * @since 1.3
+   */
+  private void passwordAccepted() {
+    cancelDeadline();
+    phase = Phase.USERNAME;
+    deadline = startPhase("username", USERNAME_TIMEOUT_MILLIS.get());
+  }
+
+  /**
+   * Logs in with the username and the password at once, answering once.
+   * The user joins right away, or is told which step failed and why.
+   * After a rejected username the password stays accepted,
+   * so the user can go on by sending another username on its own.
+   *
+   * @param credentials The username, a space and the password
+   * @since 1.3
+   */
+  private void login(String credentials) {
+    int space = credentials.indexOf(' ');
+    String name = space < 0 ? credentials : credentials.substring(0, space);
+    String password = space < 0 ? "" : credentials.substring(space + 1);
+    if (!authenticate(password)) {
+      send(LOGIN_FAILED_MESSAGE + " " + LOGIN_STEP_PASSWORD + " Incorrect password.");
+      return;
+    }
+    passwordAccepted();
+    String problem = usernameProblem(name);
+    if (problem != null) {
+      send(LOGIN_FAILED_MESSAGE + " " + LOGIN_STEP_USERNAME + " " + problem);
+      return;
+    }
+    join(name);
+  }
+
+  /**
+   * Checks a requested username, and joins the chat once a valid one is given.
+   *
+   * @param input The requested username
+   * @since 1.0
+   */
+  private void checkUsername(String input) {
+    if (isInvalidUsername(input)) {
+      return;
+    }
+    join(input);
+  }
+
+  /**
+   * Joins the chat with a valid username, and tells the user and everyone else.
+   *
+   * @param name The username
+   * @since 1.3
+   */
+  private void join(String name) {
+    setUsername(name);
+    send(PASSWORD_SUCCESS_MESSAGE);
+    send("Welcome " + this.username + "!");
+    send(TRACE_RATE_MESSAGE + " " + TRACE_SAMPLE_RATE.get());
+    cancelDeadline();
+    phase = Phase.CHAT;
+
+    LOG.info("client.joined", "user", username, "admin", administrator);
+    joined = true;
+    channel.joined();
+    String standby = server.getStandbyNotice();
+    if (standby != null && channel instanceof ResumableChannel resumable && resumable.getSecretKey() != null) {
+      send(standby);
+    }
+    server.replicate(toReplicationRecord());
+    server.getPresence().joined(username);
+    server.getRecorder().record(trafficId, TrafficEvent.Kind.JOIN, 0, 0);
+  }
+
+  /**
+   * Validates whether the username is valid.
+   * Will send a message to the user if the username is invalid and return true.
+   *
+   * @param username The username to validate
+   * @return whether the username is valid, true if invalid, false otherwise
+   * @since 1.0
+   */
+  private boolean isInvalidUsername(String username) {
+    String response = usernameProblem(username);
+    if (response != null) {
+      send(response);
+    }
+
+    return username == null || username.isEmpty() || server.isUsernameTaken(username);
+  }
+
+  /**
+   * Describes what is wrong with a requested username.
+   *
+   * @param username The username to check
+   * @return The reason the username cannot be used, or null if it can
+   * @since 1.3
+   */
+  private String usernameProblem(String username) {
+    if (username == null) {
+      return "Invalid username.";
+    } else if (username.isEmpty() || username.isBlank()) {
+      return "Username cannot be blank.";
+    } else if (server.isUsernameTaken(username)) {
+      return "Username already taken.";
+    }
+    return null;
+  }
+
+  /**
+   * Returns the username of the user.
+   *
+   * @return The username of the user
+   * @since 1.0
+   */
+  public String getUsername() {
+    return username;
+  }
+
+  /**
+   * Sets the username of the user.
+   * Must not be null, empty or blank.
+   *
+   * @param username The username to set
+   * @since 1.0
+   */
+  public void setUsername(String username) {
+    if (username != null && !username.isEmpty() && !username.isBlank()) {
+      this.username = username;
+      return;
+    }
+    this.username = USERNAME_NOT_SET;
+  }
+
+  @Override
+  public boolean isJoined() {
+    return joined;
+  }
+
+  /**
+   * Tells the standby about the new key of the client, and sends a session taken over from a failed server
+   * the broadcasts its client missed, before it receives broadcasts again.
+   * Such a session has a new token, and the standby forgets the old one.
+   *
+   * @param lastBroadcast The number of the last broadcast the client received, 0 if unknown
+   * @since 1.10
+   */
+  @Override
+  public void resumed(long lastBroadcast) {
+    if (channel instanceof ResumableChannel resumable) {
+      String retired = resumable.takeRetiredToken();
+      if (retired != null) {
+        server.replicate(ReplicationRecord.left(retired));
+      }
+    }
+    server.replicate(toReplicationRecord());
+    if (channel instanceof ResumableChannel resumable && !resumable.isSubscribed()) {
+      server.catchUp(resumable, lastBroadcast);
+    }
+  }
+
+  /**
+   * Describes the session for the standby, which restores it if the server fails.
+   * Only users with a connection of their own and an AES key can be taken over.
+   *
+   * @return The record, or null if the session cannot be taken over
+   * @since 1.10
+   */
+  ReplicationRecord toReplicationRecord() {
+    if (!joined || closed.get() || !(channel instanceof ResumableChannel resumable)) {
+      return null;
+    }
+    String token = resumable.getToken();
+    SecretKey key = resumable.getSecretKey();
+    return token == null || key == null ? null : ReplicationRecord.session(token, administrator, key, username);
+  }
+
+  /**
+   * Tells the standby that the user left, if it knows the user.
+   *
+   * @since 1.10
+   */
+  private void replicateLeft() {
+    if (joined && channel instanceof ResumableChannel resumable && resumable.getToken() != null) {
+      server.replicate(ReplicationRecord.left(resumable.getToken()));
+    }
+  }
+
+  /**
+   * If it is a legal command, it will be handled and return true. Otherwise, it will return false.
+   * It is a command if it starts with a forward slash. (e.g., /help)
+   *
+   * @param input The input from the user
+   * @return True if the input was a command, false otherwise
+   * @since 1.0
+   */
+  private boolean handleIfCommand(String input) {
+    if (!input.startsWith("/")) {
+      return false;
+    }
+
+    String[] parts = input.split(" ");
+    switch (parts[0]) {
+      case HELP_COMMAND:
+        send("Available commands:");
+        send("/help - Displays this message");
+        send("/list - Lists all connected users");
+        send("/msg <username> <message> - Sends a private message to a user");
+        send("/nick <new username> - Changes your username");
+        send("/quit - Disconnects from the server");
+        send("/send <path> - Shares a file with everyone");
+        send("/save <id> - Downloads a shared file");
+        if (administrator) {
+          send("/kick <username> - Kicks a user from the server");
+          send("/stats - Shows server metrics");
+          send("/config [reload] - Shows every setting, or reloads the configuration");
+          send("/shutdown - Shuts down the server");
+        }
+        break;
+      case MESSAGE_USER_COMMAND:
+        if (parts.length < 3) {
+          send("Usage: /msg <username> <message>");
+          break;
+        }
+        String recipient = parts[1];
+        String message = input.substring(input.indexOf(recipient) + recipient.length() + 1);
+
+        server
+            .getSessions()
+            .filter(session -> session.getUsername().equals(recipient))
+            .findFirst()
+            .ifPresentOrElse(
+                session -> session.send(username + " whispers: " + message),
+                () -> send("User not found. Use /list to see connected users.")
+            );
+        break;
+      case QUIT_COMMAND:
+        send("Goodbye!");
+        shutdown();
+        break;
+      case NEW_NICKNAME_COMMAND:
+        if (parts.length < 2) {
+          send("Usage: /nick <new username>");
+          break;
+        }
+
+        String newUsername = parts[1];
+        if (isInvalidUsername(newUsername)) {
+          break;
+        }
+
+        send("Username changed to " + newUsername);
+        server.getTyping().stopped(username);
+        server.getPresence().renamed(username, newUsername);
+        username = newUsername;
+        server.replicate(toReplicationRecord());
+        break;
+      case LIST_USERS_COMMAND:
+        StringBuilder users = new StringBuilder("Connected users:");
+        server
+            .getSessions()
+            .forEach(session -> users.append("\n").append(session.getUsername()));
+        send(String.valueOf(users));
+        break;
+      case KICK_COMMAND:
+        if (!administrator) {
+          send("You do not have permission to use this command.");
+          break;
+        }
+        if (parts.length < 2) {
+          send("Usage: /kick <username>");
+          break;
+        }
+        String userToKick = parts[1];
+        server
+            .getSessions()
+            .filter(session -> session.getUsername().equals(userToKick))
+            .findFirst()
+            .ifPresent(session -> {
+              session.send("You have been kicked from the server.");
+              session.shutdown();
+            });
+        send("User " + userToKick + " has been kicked from the server.");
+        break;
+      case STATS_COMMAND:
+        if (!administrator) {
+          send("You do not have permission to use this command.");
+          break;
+        }
+        StringBuilder stats = new StringBuilder("Server metrics:");
+        server.getStats().forEach(
+            (name, value) -> stats.append("\n").append(name).append(" = ").append(value));
+        send(String.valueOf(stats));
+        break;
+      case CONFIG_COMMAND:
+        if (!administrator) {
+          send("You do not have permission to use this command.");
+          break;
+        }
+        if (parts.length > 1 && parts[1].equals("reload")) {
+          List<String> changes = ConfigWatcher.reload();
+          send(changes.isEmpty() ? "Configuration unchanged." : "Configuration reloaded:\n"
+              + String.join("\n", changes));
+          break;
+        }
+        StringBuilder settings = new StringBuilder("Configuration (" + RuntimeConfig.getFile() + "):");
+        for (Setting<?> setting : RuntimeConfig.getSettings()) {
+          settings.append("\n").append(setting.getName()).append(" = ").append(setting.describe())
+              .append("  [").append(setting.getSource()).append(setting.isLive() ? ", live]" : "]");
+        }
+        send(String.valueOf(settings));
+        break;
+      case SHUTDOWN_COMMAND:
+        if (!administrator) {
+          send("You do not have permission to use this command.");
+          break;
+        }
+        server.shutdown();
+        break;
+      default:
+        send("Unknown command, type /help for a list of available commands");
+    }
+    return true;
+  }
+
+  /**
+   * Sends a message to the user.
+   *
+   * @param message The message to send
+   * @since 1.0
+   */
+  public void send(String message) {
+    channel.send(message);
+  }
+
+  /**
+   * Ends the session and tells the other users that the user left, if the user had joined.
+   *
+   * @since 1.0
+   */
+  @Override
+  public void shutdown() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    cancelDeadline();
+    closeAttachments();
+    if (joined) {
+      server.getTyping().stopped(username);
+      server.getPresence().left(username);
+    }
+    send(QUIT_COMMAND);
+    server.getRecorder().record(trafficId, TrafficEvent.Kind.QUIT, 0, 0);
+    server.removeSession(this);
+    replicateLeft();
+    channel.disconnect();
+  }
+
+  @Override
+  public void close(String notice) {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    cancelDeadline();
+    closeAttachments();
+    if (joined) {
+      server.getTyping().stopped(username);
+    }
+    if (notice != null) {
+      send(notice);
+    }
+    server.getRecorder().record(trafficId, TrafficEvent.Kind.DROP, 0, 0);
+    server.removeSession(this);
+    channel.disconnect();
+  }
+
+  @Override
+  public void evicted() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    cancelDeadline();
+    closeAttachments();
+    if (joined) {
+      server.getTyping().stopped(username);
+      server.getPresence().left(username);
+    }
+    server.getRecorder().record(trafficId, TrafficEvent.Kind.DROP, 0, 0);
+    server.removeSession(this);
+    replicateLeft();
+    channel.disconnect();
+  }
+}
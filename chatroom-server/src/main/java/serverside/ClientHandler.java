@@ -0,0 +1,729 @@
+package serverside;
+
+import static config.ConnectionConfig.ACK_COMMAND;
+import static config.ConnectionConfig.DRAIN_RETRY_AFTER_SECONDS;
+import static config.ConnectionConfig.PING_MESSAGE;
+import static config.ConnectionConfig.PONG_MESSAGE;
+import static config.ConnectionConfig.REATTACH_COMMAND;
+import static config.ConnectionConfig.RESUME_COMMAND;
+import static config.ConnectionConfig.RESUME_FAILED_MESSAGE;
+import static config.ConnectionConfig.SECRET_KEY_COMMAND;
+import static config.ConnectionConfig.SERVER_CLOSING_NOTICE;
+import static config.ConnectionConfig.TLS_READY_MESSAGE;
+import static config.ServerConfig.HEARTBEAT_DEAD_PEER_TIMEOUT_MILLIS;
+import static config.ServerConfig.HEARTBEAT_IDLE_TIMEOUT_MILLIS;
+import static config.ServerConfig.KEY_EXCHANGE_TIMEOUT_MILLIS;
+import static config.ServerConfig.MAX_LINE_BYTES;
+import static keyGen.KeyConfig.ASYMMETRIC_ALGORITHM_CREATE_KEY;
+import static keyGen.KeyConfig.ASYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT;
+import static keyGen.KeyConfig.SYMMETRIC_ALGORITHM_CREATE_KEY;
+import static keyGen.KeyConfig.SYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT;
+
+import bufferpool.Lane;
+import bufferpool.LineReader;
+import bufferpool.LineWriter;
+import eventlog.EventLog;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.Socket;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import javax.net.ssl.SSLSocket;
+import keyGen.KeyClass;
+import keyGen.TlsTransport;
+
+/**
+ * The handler class is responsible for handling the client connection.
+ * It secures the connection, keeps it alive with heartbeats,
+ * and hands the decrypted lines to the session its host opens for it.
+ * Lines are read and written through pooled buffers, which an idle connection does not hold.
+ * The session is reached through a {@link ResumableChannel}, which outlives the connection,
+ * so a client that reconnects can resume its session on a new connection instead of logging in.
+ * Heartbeats, notices and replies go out in the control lane, ahead of waiting broadcasts.
+ * The RSA keys of the connection are forgotten once the keys are exchanged.
+ *
+ * <p>Clients of a failed server reattach to the standby that took over their sessions on a port of its own,
+ * where no keys are exchanged: the client names its session by an id derived from its resume token,
+ * and proves it has the session's AES key with an encrypted resume request, see {@link #reattach()}.
+ *
+ * @version 1.18
+ * @author Jonas Birkeli
+ * @since 08.06.2024
+ */
+public class ClientHandler extends KeyClass implements Runnable {
+  private static final EventLog LOG = EventLog.get(ClientHandler.class);
+
+  private final Socket client;
+  private final ConnectionHost host;
+  private final boolean tls;  // Lines are protected by TLS rather than by our own AES key
+  private final boolean reattach;  // Resumes a session taken over from a failed server, with its AES key
+
+  private LineWriter out;
+  private LineReader in;
+
+  private volatile ResumableChannel channel;
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  private volatile long lastReadNanos = System.nanoTime();
+  private volatile long pingSentNanos;  // 0 while no ping is outstanding
+  private volatile TimingWheel.Timeout heartbeat;
+
+  /**
+   * Constructor for the handler class.
+   *
+   * @param client The client socket
+   * @param host The server or gateway that accepted the connection
+   * @since 1.0
+   */
+  public ClientHandler(Socket client, ConnectionHost host) {
+    this(client, host, false);
+  }
+
+  /**
+   * Constructor for the handler class, choosing whether the client reattaches to a session taken over.
+   *
+   * @param client The client socket
+   * @param host The server or gateway that accepted the connection
+   * @param reattach Whether the connection skips the key exchange, see {@link #reattach()}
+   * @since 1.16
+   */
+  public ClientHandler(Socket client, ConnectionHost host, boolean reattach) {
+    super(false);  // Keys are generated once a handshake slot is free
+
+    this.client = client;
+    this.host = host;
+    this.tls = client instanceof SSLSocket;
+    this.reattach = reattach && !tls;
+  }
+
+  /**
+   * The run method is called when the thread is started.
+   *
+   * @since 1.0
+   */
+  @Override
+  public void run() {
+    String encryptedInput;
+    String input;
+    try {
+      out = new LineWriter(client);
+      in = new LineReader(client, MAX_LINE_BYTES.get());
+
+      if (reattach) {
+        reattach();
+      } else {
+        exchangeKeys();
+        if (closed.get()) {
+          return;  // Closed while the keys were exchanged
+        }
+
+        channel = ResumableChannel.open(host, this);
+        if (channel == null) {
+          sendEncryptedMessage(SERVER_CLOSING_NOTICE + " " + DRAIN_RETRY_AFTER_SECONDS.get());
+          disconnect();
+          return;
+        }
+      }
+
+      // MAIN LOOP - Read input from the client and hand it to the session
+      while ((encryptedInput = in.readLine()) != null && !client.isClosed()) {
+        lastReadNanos = System.nanoTime();
+        pingSentNanos = 0;
+        input = symmetricDecryptMessage(encryptedInput);
+
+        if (input == null) {
+          sendEncryptedMessage("Failed to decrypt message. Mitm-attack? You will be disconnected.");
+          throw new IOException();
+        }
+
+        if (input.startsWith(ACK_COMMAND + " ")) {
+          channel.acknowledge(parseSequence(input.substring(ACK_COMMAND.length() + 1)));
+        } else if (input.startsWith(RESUME_COMMAND + " ") && !channel.getSession().isJoined()) {
+          resume(input.substring(RESUME_COMMAND.length() + 1));
+        } else if (!input.equals(PONG_MESSAGE)) {  // Reading a pong already counted as activity
+          channel.getSession().onLine(input);
+        }
+      }
+    } catch (Exception ignored) {
+    } finally {
+      if (in != null) {
+        in.release();
+      }
+    }
+    shutdown();
+  }
+
+  /**
+   * Generates the keys of this connection and exchanges them with the client,
+   * or completes the TLS handshake when the connection uses TLS.
+   * A client logging in fast answers the public key with an AES key of its own choosing,
+   * in the same flight as its login, rather than with its public key.
+   * Otherwise, the client is sent an AES key of the server's choosing.
+   * Generating the keys and the RSA work on the client's answer each hold one of the host's handshake slots,
+   * since they are CPU heavy, but waiting for the client does not, so a client that never answers
+   * only holds up itself until the deadline. The TLS handshake reads from the client throughout,
+   * so it only runs under the deadline.
+   * If no slot becomes free in time, the client is told that the server is busy.
+   * Either way, only the AES key is kept afterwards.
+   *
+   * @throws IOException If the key exchange fails, or the server is busy
+   * @throws NoSuchAlgorithmException If the key algorithm is not available
+   * @throws InvalidKeySpecException If the client's public key is malformed
+   * @since 1.6
+   */
+  private void exchangeKeys() throws IOException, NoSuchAlgorithmException, InvalidKeySpecException {
+    TimingWheel.Timeout deadline = startKeyExchangeDeadline();
+    try {
+      if (tls) {
+        ((SSLSocket) client).startHandshake();
+        out.writeLine(TLS_READY_MESSAGE);
+        return;
+      }
+      acquireHandshakeSlot();
+      try {
+        generateKeys();
+      } finally {
+        host.getAdmission().releaseHandshake();
+      }
+      sendPublicKey();
+
+      String reply = readLine();
+      String encryptedKey = null;
+      acquireHandshakeSlot();
+      try {
+        if (reply.startsWith(SECRET_KEY_COMMAND + " ")) {
+          receiveSecretKey(reply.substring(SECRET_KEY_COMMAND.length() + 1));
+        } else {
+          receivePublicKey(reply);
+          encryptedKey = encryptSecretKey();
+        }
+      } finally {
+        host.getAdmission().releaseHandshake();
+      }
+      if (encryptedKey != null) {
+        out.writeLine(encryptedKey);
+      }
+    } finally {
+      forgetAsymmetricKeys();
+      if (deadline != null) {
+        deadline.cancel();
+      }
+    }
+  }
+
+  /**
+   * Waits for one of the host's handshake slots, which the caller must release.
+   * If none becomes free in time, the client is told that the server is busy, and the connection is closed.
+   *
+   * @throws IOException If the server is busy
+   * @since 1.17
+   */
+  private void acquireHandshakeSlot() throws IOException {
+    if (!host.getAdmission().acquireHandshake()) {
+      LOG.info("handshake.rejected_busy", "remote", client.getRemoteSocketAddress());
+      host.getMetrics().connectionRejectedBusy();
+      Server.rejectBusy(client);
+      disconnect();
+      throw new IOException("Server busy");
+    }
+  }
+
+  /**
+   * Resumes a session taken over from a failed server without exchanging keys.
+   * The client names the session in plain text by the id derived from its resume token, which does not give
+   * the token away, and then sends its resume request encrypted with the AES key it used with the failed server.
+   * The connection takes over that key, and only resumes the session if the request decrypts,
+   * and holds the token the id was derived from. The session then gets a new token.
+   * Otherwise, the client is told so in plain text, and the connection is closed.
+   * The client has until the key exchange deadline to do this.
+   *
+   * @throws IOException If the session cannot be resumed
+   * @since 1.16
+   */
+  private void reattach() throws IOException {
+    TimingWheel.Timeout deadline = startKeyExchangeDeadline();
+    try {
+      String hello = readLine();
+      String id = hello.startsWith(REATTACH_COMMAND + " ") ? hello.substring(REATTACH_COMMAND.length() + 1) : "";
+      ResumableChannel parked = host.getResumableChannels().get(id);
+      SecretKey key = parked == null || !parked.isRestored() ? null : parked.getSecretKey();
+      if (key == null) {
+        LOG.info("session.reattach_failed", "remote", getRemoteAddress());
+        host.getMetrics().resumeFailed();
+        out.writeLine(RESUME_FAILED_MESSAGE);
+        throw new IOException("No session to reattach to");
+      }
+      setSecretKey(key);
+      String request = symmetricDecryptMessage(readLine());
+      String[] parts = request == null || !request.startsWith(RESUME_COMMAND + " ")
+          ? new String[0] : request.substring(RESUME_COMMAND.length() + 1).split(" ");
+      if (parts.length == 0 || !KeyClass.sessionId(parts[0]).equals(id) || !resume(parked, parts)) {
+        throw new IOException("Reattach refused");
+      }
+    } finally {
+      if (deadline != null) {
+        deadline.cancel();
+      }
+    }
+  }
+
+  /**
+   * Starts the deadline of the key exchange.
+   * If the keys have not been exchanged by then, the connection is closed.
+   *
+   * @return The deadline, to be cancelled when the key exchange completes
+   * @since 1.6
+   */
+  private TimingWheel.Timeout startKeyExchangeDeadline() {
+    TimingWheel timingWheel = host.getTimingWheel();
+    if (timingWheel == null) {
+      return null;
+    }
+    return timingWheel.schedule(() -> {
+      if (!closed.get()) {
+        LOG.info("handshake.timeout", "phase", "key_exchange", "remote", getRemoteAddress());
+        host.getMetrics().handshakeTimedOut();
+        disconnect();
+      }
+    }, KEY_EXCHANGE_TIMEOUT_MILLIS.get());
+  }
+
+  /**
+   * Reads a line from the client.
+   *
+   * @return The line
+   * @throws IOException If reading fails or the client closed the connection
+   * @since 1.6
+   */
+  private String readLine() throws IOException {
+    String line = in.readLine();
+    if (line == null) {
+      throw new EOFException("Client closed the connection");
+    }
+    return line;
+  }
+
+  /**
+   * Encrypts the secret key with the client's public key, to be sent to the client.
+   *
+   * @return The encrypted key, in Base64
+   * @throws IOException If the key cannot be encrypted
+   * @since 1.2
+   */
+  private String encryptSecretKey() throws IOException {
+    String message = Base64.getEncoder().encodeToString(getSecretKey().getEncoded());
+    try {
+      // Encrypting our secret key with the client's public key
+      Cipher cipher = Cipher.getInstance(ASYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT);
+      cipher.init(Cipher.ENCRYPT_MODE, getOtherPartyPublicKey());
+      return Base64.getEncoder().encodeToString(cipher.doFinal(message.getBytes()));
+    } catch (Exception e) {
+      LOG.error("handshake.secret_key_failed", "error", e.getMessage());
+      throw new IOException("Failed to encrypt the secret key", e);
+    }
+  }
+
+  /**
+   * Takes the AES key the client chose, encrypted with the public key of this connection.
+   *
+   * @param encryptedKey The encrypted key, in Base64
+   * @throws IOException If the key cannot be decrypted
+   * @since 1.14
+   */
+  private void receiveSecretKey(String encryptedKey) throws IOException {
+    try {
+      Cipher cipher = Cipher.getInstance(ASYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT);
+      cipher.init(Cipher.DECRYPT_MODE, getPrivateKey());
+      String key = new String(cipher.doFinal(Base64.getDecoder().decode(encryptedKey)));
+      setSecretKey(new SecretKeySpec(Base64.getDecoder().decode(key), SYMMETRIC_ALGORITHM_CREATE_KEY));
+    } catch (Exception e) {
+      throw new IOException("Malformed secret key from client", e);
+    }
+  }
+
+  /**
+   * Receives the public key from the client.
+   *
+   * @param clientPublicKey The public key, in Base64
+   * @since 1.1
+   */
+  private void receivePublicKey(String clientPublicKey)
+      throws NoSuchAlgorithmException, InvalidKeySpecException {
+    byte[] serverPublicKeyBytes = Base64.getDecoder().decode(clientPublicKey);
+    X509EncodedKeySpec spec = new X509EncodedKeySpec(serverPublicKeyBytes);
+    KeyFactory keyFactory = KeyFactory.getInstance(ASYMMETRIC_ALGORITHM_CREATE_KEY);
+    setOtherPartyPublicKey(keyFactory.generatePublic(spec));
+  }
+
+  /**
+   * Sends the public key to the client.
+   *
+   * @since 1.1
+   */
+  private void sendPublicKey() {
+    out.writeLine(Base64.getEncoder().encodeToString(getPublicKey().getEncoded()));
+  }
+
+  /**
+   * Resumes the session of an earlier connection of the client, in place of the fresh one, if there is one.
+   * The fresh session is dropped and the missed messages are replayed.
+   * If the session cannot be resumed, the client is told so and may log in as usual.
+   *
+   * @param request The resume token, the last sequence number the client received,
+   *     and optionally the number of the last broadcast it received
+   * @return True if the session was resumed
+   * @since 1.12
+   */
+  private boolean resume(String request) {
+    String[] parts = request.split(" ");
+    ResumableChannel parked = host.getResumableChannels().get(parts[0]);
+    return resume(parked == null || parked.isRestored() ? null : parked, parts);  // Restored ones only reattach
+  }
+
+  /**
+   * Resumes a session in place of the fresh one, if there is one.
+   *
+   * @param parked The session to resume, or null if there is none
+   * @param parts The resume token, the last sequence number the client received,
+   *     and optionally the number of the last broadcast it received
+   * @return True if the session was resumed
+   * @since 1.16
+   */
+  private boolean resume(ResumableChannel parked, String[] parts) {
+    boolean wellFormed = parts.length == 2 || parts.length == 3;
+    long lastSeen = wellFormed ? parseSequence(parts[1]) : -1;
+    if (parked == null || lastSeen < 0 || !parked.resume(this, lastSeen)) {
+      LOG.info("session.resume_failed", "remote", getRemoteAddress());
+      host.getMetrics().resumeFailed();
+      sendEncryptedMessage(RESUME_FAILED_MESSAGE);
+      return false;
+    }
+    ResumableChannel fresh = channel;
+    channel = parked;
+    if (fresh != null) {
+      fresh.abandon();
+    }
+    parked.getSession().resumed(parts.length == 3 ? Math.max(0, parseSequence(parts[2])) : 0);
+    return true;
+  }
+
+  /**
+   * Parses a sequence number sent by the client.
+   *
+   * @param sequence The sequence number
+   * @return The sequence number, or -1 if it is malformed
+   * @since 1.12
+   */
+  private static long parseSequence(String sequence) {
+    try {
+      return Long.parseLong(sequence);
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Returns the session of the connection.
+   *
+   * @return The session, or null while the keys are still being exchanged
+   * @since 1.8
+   */
+  public Session getSession() {
+    ResumableChannel current = channel;
+    return current == null ? null : current.getSession();
+  }
+
+  /**
+   * Returns the AES key of the connection, which the client can reattach to a standby with.
+   *
+   * @return The key, or null if the connection uses TLS
+   * @since 1.16
+   */
+  SecretKey getSessionKey() {
+    return tls ? null : getSecretKey();
+  }
+
+  /**
+   * Encrypts a message and writes it to a lane without flushing.
+   *
+   * @param message The message
+   * @param lane The lane of the message
+   * @since 1.13
+   */
+  void append(String message, Lane lane) {
+    out.append(symmetricEncryptMessage(message), lane);
+  }
+
+  /**
+   * Flushes the messages written so far.
+   *
+   * @since 1.9
+   */
+  void flush() {
+    out.flush();
+  }
+
+  /**
+   * Flushes the broadcasts written so far, unless another thread is writing to the client already.
+   * A client that cannot keep up then holds up its own cursor in the broadcast ring,
+   * which disconnects it once it falls behind by the ring's capacity, rather than piling broadcasts up here.
+   *
+   * @param whenWritten The task to run once the other thread is done, if there is one
+   * @return True if flushed, false if the task will be run
+   * @since 1.18
+   */
+  boolean flushBroadcasts(Runnable whenWritten) {
+    return out.flushOrDefer(whenWritten);
+  }
+
+  /**
+   * Closes the connection because the client quit or the connection was lost.
+   * The session of a joined user is kept for the client to resume, any other session ends.
+   *
+   * @since 1.0
+   */
+  public void shutdown() {
+    lost(false);
+  }
+
+  /**
+   * Tells the channel that the connection is gone, and closes it.
+   *
+   * @param evicted Whether the client stopped answering
+   * @since 1.12
+   */
+  private void lost(boolean evicted) {
+    ResumableChannel current = channel;
+    if (current != null) {
+      current.connectionLost(this, evicted);
+    }
+    disconnect();
+  }
+
+  /**
+   * Closes the connection to the client quietly, as part of draining.
+   * Sends a single notice to the client, but nothing to the other clients.
+   *
+   * @param notice The notice to send before closing, or null for none
+   * @since 1.4
+   */
+  public void close(String notice) {
+    ResumableChannel current = channel;
+    if (current != null) {
+      current.getSession().close(notice);
+    } else {
+      disconnect();  // No keys yet to send the notice with
+    }
+  }
+
+  /**
+   * Evicts the client after it stopped answering heartbeats.
+   * The socket is closed before anything else, since writing to a dead peer may block.
+   *
+   * @since 1.5
+   */
+  private void evict() {
+    if (closed.get()) {
+      return;
+    }
+    LOG.info("client.evicted", "remote", getRemoteAddress(),
+        "idle_millis", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastReadNanos));
+    host.getMetrics().connectionEvicted();
+    try {
+      client.close();  // Before anything else, since writing to a dead peer may block
+    } catch (IOException ignored) {/* Ignored */}
+    lost(true);
+  }
+
+  /**
+   * Drops a connection that can no longer be written to, or was replaced by a newer one,
+   * without touching the session.
+   * The socket is closed before anything else, since writing to the client may block.
+   *
+   * @since 1.12
+   */
+  void abort() {
+    try {
+      client.close();
+    } catch (IOException ignored) {/* Ignored */}
+    disconnect();
+  }
+
+  /**
+   * Schedules the next heartbeat check on the host's timing wheel.
+   *
+   * @param delayMillis The delay until the check
+   * @since 1.5
+   */
+  private void scheduleHeartbeat(long delayMillis) {
+    TimingWheel timingWheel = host.getTimingWheel();
+    if (timingWheel != null && !closed.get()) {
+      heartbeat = timingWheel.schedule(this::checkHeartbeat, delayMillis);
+    }
+  }
+
+  /**
+   * Checks whether the client is still alive.
+   * A client that has been silent for the idle timeout is sent a ping.
+   * A client that has not answered a ping within the dead peer timeout is evicted.
+   * Otherwise, the next check is scheduled for when the client could next time out,
+   * so a busy connection costs one check per idle timeout rather than one per message.
+   *
+   * @since 1.5
+   */
+  private void checkHeartbeat() {
+    if (closed.get()) {
+      return;
+    }
+    long now = System.nanoTime();
+    long idleMillis = TimeUnit.NANOSECONDS.toMillis(now - lastReadNanos);
+    if (idleMillis < HEARTBEAT_IDLE_TIMEOUT_MILLIS.get()) {
+      scheduleHeartbeat(HEARTBEAT_IDLE_TIMEOUT_MILLIS.get() - idleMillis);
+      return;
+    }
+
+    long pingSent = pingSentNanos;
+    if (pingSent == 0) {
+      pingSentNanos = now;
+      sendEncryptedMessage(PING_MESSAGE);
+      host.getMetrics().pingSent();
+      scheduleHeartbeat(HEARTBEAT_DEAD_PEER_TIMEOUT_MILLIS.get());
+      return;
+    }
+
+    long waitingMillis = TimeUnit.NANOSECONDS.toMillis(now - pingSent);
+    if (waitingMillis < HEARTBEAT_DEAD_PEER_TIMEOUT_MILLIS.get()) {
+      scheduleHeartbeat(HEARTBEAT_DEAD_PEER_TIMEOUT_MILLIS.get() - waitingMillis);
+      return;
+    }
+    evict();
+  }
+
+  /**
+   * Starts the heartbeats once the client has joined the chat, or resumed its session.
+   * Clients are not pinged while logging in, since they read the replies to their login themselves.
+   *
+   * @since 1.12
+   */
+  void startHeartbeats() {
+    scheduleHeartbeat(HEARTBEAT_IDLE_TIMEOUT_MILLIS.get());
+  }
+
+  /**
+   * Closes the connection and tells the host that it is gone.
+   * Only the first call has any effect.
+   *
+   * @since 1.8
+   */
+  public void disconnect() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    host.removeClient(this);
+    if (out != null) {
+      out.close();  // Writes what is still appended, such as a closing notice
+    }
+    closeSocket();
+  }
+
+  /**
+   * Describes where the client connects from, for logging.
+   *
+   * @return The remote address of the client
+   * @since 1.8
+   */
+  public String getRemoteAddress() {
+    return String.valueOf(client.getRemoteSocketAddress());
+  }
+
+  /**
+   * Closes the socket of the client, discarding anything not yet written.
+   * The socket is closed first, so a thread blocked writing to a client that stopped reading fails at once,
+   * and nothing here waits for it. Used as is when draining runs out of time.
+   * The reader returns its buffer itself, once its thread stops reading.
+   *
+   * @since 1.4
+   */
+  void closeSocket() {
+    TimingWheel.Timeout pendingHeartbeat = heartbeat;
+    if (pendingHeartbeat != null) {
+      pendingHeartbeat.cancel();
+    }
+    try {
+      if (!client.isClosed()) {
+        client.close();
+      }
+    } catch (IOException ignored) {/* Ignored */}
+    if (out != null) {
+      out.discard();
+    }
+  }
+
+  /**
+   * Encrypts and sends a message to the client, in the control lane.
+   * The message is sent to the client output stream.
+   *
+   * @param message The message to send
+   * @since 1.0
+   */
+  public void sendEncryptedMessage(String message) {
+    out.writeLine(symmetricEncryptMessage(message));
+  }
+
+  /**
+   * Encrypt the message using symmetric encryption, allowing for longer messages.
+   * Over TLS, the message is only escaped to fit on one line.
+   * If the encryption fails, the client shuts down.
+   *
+   * @param message The message to encrypt
+   * @return The encrypted message
+   * @since 1.3
+   */
+  private String symmetricEncryptMessage(String message) {
+    if (tls) {
+      return TlsTransport.escape(message);
+    }
+    try {
+      Cipher cipher = Cipher.getInstance(SYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT);
+      cipher.init(Cipher.ENCRYPT_MODE, getSecretKey());
+      byte[] encryptedMessageBytes = cipher.doFinal(message.getBytes());
+      return Base64.getEncoder().encodeToString(encryptedMessageBytes);
+    } catch (Exception e) {
+      LOG.error("encrypt.failed", "remote", getRemoteAddress(), "error", e.getMessage());
+      shutdown();
+    }
+    return null;
+  }
+
+  /**
+   * Decrypt the message using symmetric decryption.
+   * If the decryption fails, the client shuts down.
+   *
+   * @param encryptedMessage The message to decrypt
+   * @return The decrypted message
+   * @since 1.3
+   */
+  private String symmetricDecryptMessage(String encryptedMessage) {
+    if (tls) {
+      return TlsTransport.unescape(encryptedMessage);
+    }
+    try {
+      Cipher cipher = Cipher.getInstance(SYMMETRIC_ALGORITHM_ENCRYPT_DECRYPT);
+      cipher.init(Cipher.DECRYPT_MODE, getSecretKey());
+      byte[] decryptedMessageBytes = cipher.doFinal(Base64.getDecoder().decode(encryptedMessage));
+      return new String(decryptedMessageBytes);
+    } catch (Exception e) {
+      LOG.warn("decrypt.failed", "remote", getRemoteAddress(), "error", e.getMessage());
+      shutdown();
+    }
+    return null;
+  }
+}
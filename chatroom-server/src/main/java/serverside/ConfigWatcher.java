@@ -0,0 +1,71 @@
+package serverside;
+
+import static config.ServerConfig.CONFIG_POLL_MILLIS;
+
+import config.RuntimeConfig;
+import eventlog.EventLog;
+import java.util.List;
+
+/**
+ * Reloads the configuration whenever its file changes, checking on a timing wheel.
+ * Live settings take their new values; every change is logged.
+ * Checking stops when the timing wheel is stopped.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public final class ConfigWatcher implements Runnable {
+  private static final EventLog LOG = EventLog.get(ConfigWatcher.class);
+
+  private final TimingWheel timingWheel;
+
+  /**
+   * Create a watcher.
+   *
+   * @param timingWheel The timing wheel to check on
+   * @since 1.0
+   */
+  public ConfigWatcher(TimingWheel timingWheel) {
+    this.timingWheel = timingWheel;
+  }
+
+  /**
+   * Reports values that were malformed at startup, and starts checking the file.
+   *
+   * @since 1.0
+   */
+  public void start() {
+    LOG.info("config.loaded", "file", RuntimeConfig.getFile().toAbsolutePath());
+    RuntimeConfig.getStartupProblems().forEach(problem -> LOG.warn("config.problem", "detail", problem));
+    timingWheel.schedule(this, CONFIG_POLL_MILLIS);
+  }
+
+  @Override
+  public void run() {
+    report(RuntimeConfig.reloadIfChanged());
+    timingWheel.schedule(this, CONFIG_POLL_MILLIS);
+  }
+
+  /**
+   * Reloads the configuration now, whether or not its file changed.
+   *
+   * @return What the reload changed, see {@link RuntimeConfig#reload()}
+   * @since 1.0
+   */
+  public static List<String> reload() {
+    return report(RuntimeConfig.reload());
+  }
+
+  /**
+   * Logs what a reload changed.
+   *
+   * @param changes The changes
+   * @return The changes
+   * @since 1.0
+   */
+  private static List<String> report(List<String> changes) {
+    changes.forEach(change -> LOG.info("config.reloaded", "change", change));
+    return changes;
+  }
+}
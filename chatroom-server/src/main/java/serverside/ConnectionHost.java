@@ -0,0 +1,74 @@
+package serverside;
+
+import java.util.Map;
+
+/**
+ * A process that accepts client connections, the server itself or a gateway in front of it.
+ * Provides what a {@link ClientHandler} needs to secure and supervise its connection.
+ *
+ * @version 1.2
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public interface ConnectionHost {
+
+  /**
+   * Returns the admission control, which limits connections and handshakes in flight.
+   *
+   * @return The admission control
+   * @since 1.0
+   */
+  AdmissionControl getAdmission();
+
+  /**
+   * Returns the metrics of the host.
+   *
+   * @return The metrics
+   * @since 1.0
+   */
+  ServerMetrics getMetrics();
+
+  /**
+   * Returns the timing wheel used for heartbeats and other connection timeouts.
+   *
+   * @return The timing wheel, or null if the host has not been started
+   * @since 1.0
+   */
+  TimingWheel getTimingWheel();
+
+  /**
+   * Returns the ring of broadcasts that connections subscribe to once their user joins the chat.
+   *
+   * @return The broadcast ring, or null if the host subscribes connections itself
+   * @since 1.1
+   */
+  BroadcastRing getBroadcastRing();
+
+  /**
+   * Opens the session of a connection that has completed its handshake.
+   *
+   * @param channel The channel to reach the user through, which outlives the connection
+   * @return The session to hand the user's messages to, or null if none can be opened right now
+   * @since 1.0
+   */
+  Session openSession(ResumableChannel channel);
+
+  /**
+   * Returns the channels of the users that joined, by resume token.
+   * A channel stays here while its session is parked, until it is resumed or expires.
+   * Channels taken over from a failed server are kept by the id derived from their token until they are resumed,
+   * see {@link ResumableChannel#restore}.
+   *
+   * @return The resumable channels, shared and modifiable
+   * @since 1.2
+   */
+  Map<String, ResumableChannel> getResumableChannels();
+
+  /**
+   * Forgets a connection that has been closed.
+   *
+   * @param connection The connection
+   * @since 1.0
+   */
+  void removeClient(ClientHandler connection);
+}
@@ -0,0 +1,14 @@
+package serverside;
+
+/**
+ * The outcome of draining the server.
+ *
+ * @param clients The number of clients connected when the drain started
+ * @param forced The number of clients whose sockets were closed without the notice, after the deadline
+ * @param durationMillis How long the drain took
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public record DrainReport(int clients, int forced, long durationMillis) {
+}
@@ -0,0 +1,51 @@
+package serverside;
+
+import keyGen.TlsTransport;
+
+/**
+ * One frame on a link between a gateway and the server.
+ * Frames are single lines of the form {@code <type> <stream> [payload]},
+ * with the payload escaped so that multi-line messages stay on one line.
+ * Broadcasts are not tied to a stream and use stream 0.
+ *
+ * @param type The kind of frame, one of the {@code FRAME_} constants in {@code GatewayConfig}
+ * @param stream The stream the frame belongs to
+ * @param payload The payload, or null for none
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public record GatewayFrame(char type, int stream, String payload) {
+
+  /**
+   * Parse a frame from a line read from a link.
+   *
+   * @param line The line
+   * @return The frame, or null if the line is not a frame
+   * @since 1.0
+   */
+  public static GatewayFrame parse(String line) {
+    if (line.length() < 3 || line.charAt(1) != ' ') {
+      return null;
+    }
+    int end = line.indexOf(' ', 2);
+    try {
+      int stream = Integer.parseInt(end < 0 ? line.substring(2) : line.substring(2, end));
+      String payload = end < 0 ? null : TlsTransport.unescape(line.substring(end + 1));
+      return new GatewayFrame(line.charAt(0), stream, payload);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Encode the frame as a line to write to a link.
+   *
+   * @return The line, without the line terminator
+   * @since 1.0
+   */
+  public String encode() {
+    String header = type + " " + stream;
+    return payload == null ? header : header + " " + TlsTransport.escape(payload);
+  }
+}
@@ -0,0 +1,421 @@
+package serverside;
+
+import static config.ConnectionConfig.DRAIN_RETRY_AFTER_SECONDS;
+import static config.ConnectionConfig.SERVER_CLOSING_NOTICE;
+import static config.GatewayConfig.FRAME_BROADCAST;
+import static config.GatewayConfig.FRAME_CLOSE;
+import static config.GatewayConfig.FRAME_DATA;
+import static config.GatewayConfig.FRAME_JOINED;
+import static config.GatewayConfig.FRAME_OPEN;
+import static config.GatewayConfig.FRAME_SIGNAL;
+import static config.GatewayConfig.LINK_HELLO;
+import static config.GatewayConfig.LINK_SECRET;
+import static config.GatewayConfig.STREAM_QUEUE;
+
+import eventlog.EventLog;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The server's end of a link from a gateway.
+ * The gateway terminates the connections of many users and multiplexes them over this link,
+ * each user as a numbered stream. Every stream gets its own chat session,
+ * while the link reads the broadcast ring at a single cursor, writing each broadcast once
+ * for the gateway to copy to its users. Signals are written once as well,
+ * unless the link is behind on broadcasts.
+ * Frames are read by one thread, which hands the lines of each user to the user's session
+ * on the server's threads, one at a time and in order. A user whose login waits, or who sends faster
+ * than the session keeps up, holds up no one else on the link, and is dropped once too many lines wait.
+ *
+ * @version 1.5
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class GatewayLink implements Runnable, BroadcastRing.Subscriber {
+  private static final EventLog LOG = EventLog.get(GatewayLink.class);
+
+  private final Socket socket;
+  private final Server server;
+  private final Map<Integer, Stream> streams = new ConcurrentHashMap<>();
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  private PrintWriter out;
+  private BufferedReader in;
+  private volatile BroadcastRing.Cursor broadcasts;
+
+  /**
+   * Create the server's end of a link.
+   *
+   * @param socket The socket of the link
+   * @param server The server
+   * @since 1.0
+   */
+  public GatewayLink(Socket socket, Server server) {
+    this.socket = socket;
+    this.server = server;
+  }
+
+  /**
+   * Reads frames from the gateway until the link closes.
+   *
+   * @since 1.0
+   */
+  @Override
+  public void run() {
+    try {
+      out = new PrintWriter(new BufferedWriter(
+          new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+      in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+      if (!isAuthenticated(in.readLine())) {
+        LOG.warn("gateway.rejected", "remote", socket.getRemoteSocketAddress());
+        close(null);
+        return;
+      }
+      LOG.info("gateway.connected", "remote", socket.getRemoteSocketAddress());
+      subscribe();
+
+      String line;
+      while ((line = in.readLine()) != null) {
+        GatewayFrame frame = GatewayFrame.parse(line);
+        if (frame == null) {
+          LOG.warn("gateway.malformed_frame", "remote", socket.getRemoteSocketAddress());
+          continue;
+        }
+        handleFrame(frame);
+      }
+    } catch (IOException ignored) {/* Link lost */}
+    lost();
+  }
+
+  /**
+   * Checks the first line of the link against the shared secret.
+   *
+   * @param hello The first line
+   * @return True if the gateway knows the secret
+   * @since 1.0
+   */
+  private static boolean isAuthenticated(String hello) {
+    String expected = LINK_HELLO + " " + LINK_SECRET;
+    return hello != null && MessageDigest.isEqual(
+        hello.getBytes(StandardCharsets.UTF_8), expected.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Handles a frame from the gateway.
+   *
+   * @param frame The frame
+   * @since 1.0
+   */
+  private void handleFrame(GatewayFrame frame) {
+    switch (frame.type()) {
+      case FRAME_OPEN -> open(frame.stream(), frame.payload());
+      case FRAME_DATA -> {
+        Stream stream = streams.get(frame.stream());
+        String line = frame.payload();
+        if (stream != null && line != null && !stream.enqueue(() -> stream.session.onLine(line))) {
+          LOG.warn("gateway.stream_overflow", "stream", stream.id, "user", stream.session.getUsername());
+          stream.session.evicted();
+        }
+      }
+      case FRAME_CLOSE -> {
+        Stream stream = streams.get(frame.stream());
+        if (stream != null && !stream.enqueue(stream.session::shutdown)) {
+          stream.session.shutdown();
+        }
+      }
+      default -> LOG.warn("gateway.unknown_frame", "type", frame.type());
+    }
+  }
+
+  /**
+   * Opens the chat session of a new stream.
+   * If the server is draining, the stream is closed right away with a closing notice.
+   *
+   * @param stream The stream
+   * @param remoteAddress The address of the user, as seen by the gateway
+   * @since 1.0
+   */
+  private void open(int stream, String remoteAddress) {
+    Stream channel = new Stream(stream, remoteAddress);
+    ChatSession session = server.openChatSession(channel);
+    if (session == null) {
+      write(new GatewayFrame(FRAME_DATA, stream, SERVER_CLOSING_NOTICE + " " + DRAIN_RETRY_AFTER_SECONDS.get()));
+      write(new GatewayFrame(FRAME_CLOSE, stream, null));
+      return;
+    }
+    channel.session = session;
+    streams.put(stream, channel);
+  }
+
+  /**
+   * Starts reading the server's broadcast ring from its head.
+   *
+   * @since 1.1
+   */
+  private void subscribe() {
+    BroadcastRing ring = server.getBroadcastRing();
+    if (ring != null && !closed.get()) {
+      broadcasts = ring.subscribe(this);
+    }
+  }
+
+  /**
+   * Writes a broadcast to the gateway, for every joined user of the gateway, in a single frame.
+   *
+   * @param message The message to broadcast
+   * @since 1.1
+   */
+  @Override
+  public void deliver(String message) {
+    synchronized (this) {
+      if (out != null) {
+        out.println(new GatewayFrame(FRAME_BROADCAST, 0, message).encode());  // Flushed with the batch
+      }
+    }
+  }
+
+  /**
+   * Writes an ephemeral signal to the gateway, for every joined user of the gateway, in a single frame.
+   * Dropped while the link is behind on broadcasts.
+   *
+   * @param message The signal
+   * @since 1.3
+   */
+  void signal(String message) {
+    BroadcastRing.Cursor cursor = broadcasts;
+    if (closed.get() || (cursor != null && cursor.getLag() > 0)) {
+      server.getMetrics().signalDropped();
+      return;
+    }
+    write(new GatewayFrame(FRAME_SIGNAL, 0, message));
+    server.getMetrics().signalSent();
+  }
+
+  /**
+   * Flushes the broadcasts written so far. The link never yields, since it only waits for its own lock.
+   *
+   * @param resume Not used
+   * @return Always true
+   * @since 1.5
+   */
+  @Override
+  public boolean flush(Runnable resume) {
+    synchronized (this) {
+      if (out != null) {
+        out.flush();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Continues from the head of the broadcast ring after the link fell too far behind.
+   * Dropping the link would disconnect every user of the gateway, so the users miss the broadcasts instead.
+   *
+   * @param missed The number of broadcasts the gateway did not receive
+   * @since 1.1
+   */
+  @Override
+  public void overrun(long missed) {
+    LOG.warn("broadcast.overrun", "remote", socket.getRemoteSocketAddress(), "missed", missed);
+    server.getMetrics().broadcastOverrun();
+    subscribe();
+  }
+
+  /**
+   * Returns the number of users on this link.
+   *
+   * @return The number of open streams
+   * @since 1.0
+   */
+  public int getStreamCount() {
+    return streams.size();
+  }
+
+  /**
+   * Writes a frame to the gateway.
+   *
+   * @param frame The frame
+   * @since 1.0
+   */
+  private void write(GatewayFrame frame) {
+    synchronized (this) {
+      if (out != null) {
+        out.println(frame.encode());
+        out.flush();
+      }
+    }
+  }
+
+  /**
+   * Ends all sessions of the link after the link was lost,
+   * telling the other users that they left.
+   *
+   * @since 1.0
+   */
+  private void lost() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    LOG.info("gateway.disconnected", "remote", socket.getRemoteSocketAddress(), "streams", streams.size());
+    server.removeGatewayLink(this);
+    streams.values().forEach(stream -> stream.session.evicted());
+    streams.clear();
+    closeSocket();
+  }
+
+  /**
+   * Closes the link quietly, as part of draining the server.
+   * Every user of the link is sent the notice, and nothing is sent to the other users.
+   *
+   * @param notice The notice to send to every user, or null for none
+   * @since 1.0
+   */
+  public void close(String notice) {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    server.removeGatewayLink(this);
+    streams.values().forEach(stream -> stream.session.close(notice));
+    streams.clear();
+    closeSocket();
+  }
+
+  /**
+   * Closes the socket of the link. Frames for users, such as the closing notices, are flushed as they are sent,
+   * along with the broadcasts batched before them, so at most a batch of broadcasts is left unwritten.
+   * The socket is closed first, so a thread blocked writing to a gateway that stopped reading fails at once
+   * and lets go of the writer.
+   *
+   * @since 1.0
+   */
+  void closeSocket() {
+    BroadcastRing.Cursor cursor = broadcasts;
+    if (cursor != null) {
+      cursor.close();
+    }
+    try {
+      socket.close();
+    } catch (IOException ignored) {/* Ignored */}
+    synchronized (this) {
+      if (out != null) {
+        out.close();
+      }
+    }
+  }
+
+  /**
+   * A user multiplexed over the link, as seen by its chat session.
+   * Holds the lines of the user that wait for the session.
+   *
+   * @version 1.1
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  private final class Stream implements SessionChannel {
+    private final int id;
+    private final String remoteAddress;
+    private final Queue<Runnable> inbox = new ConcurrentLinkedQueue<>();  // Frames waiting for the session
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private ChatSession session;  // Set before the stream is found by its id
+    private volatile boolean disconnected;
+
+    /**
+     * Create a stream.
+     *
+     * @param id The number of the stream on the link
+     * @param remoteAddress The address of the user, as seen by the gateway
+     * @since 1.0
+     */
+    private Stream(int id, String remoteAddress) {
+      this.id = id;
+      this.remoteAddress = remoteAddress;
+    }
+
+    /**
+     * Hands a frame to the session after those before it, on a thread of the server.
+     *
+     * @param task What the frame does to the session
+     * @return False if too many frames are waiting already
+     * @since 1.1
+     */
+    private boolean enqueue(Runnable task) {
+      if (waiting.incrementAndGet() > STREAM_QUEUE) {
+        waiting.decrementAndGet();
+        return false;
+      }
+      inbox.add(task);
+      if (draining.compareAndSet(false, true)) {
+        try {
+          server.getExecutor().execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          draining.set(false);  // The server is stopping
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Runs the frames waiting for the session, in order, until none are left.
+     *
+     * @since 1.1
+     */
+    private void drain() {
+      do {
+        Runnable task;
+        while ((task = inbox.poll()) != null) {
+          waiting.decrementAndGet();
+          try {
+            task.run();
+          } catch (RuntimeException e) {
+            LOG.error("gateway.stream_failed", "stream", id, "error", String.valueOf(e));
+          }
+        }
+        draining.set(false);
+      } while (!inbox.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    @Override
+    public void send(String message) {
+      if (!disconnected) {
+        write(new GatewayFrame(FRAME_DATA, id, message));
+      }
+    }
+
+    @Override
+    public void disconnect() {
+      if (disconnected) {
+        return;
+      }
+      disconnected = true;
+      streams.remove(id);
+      write(new GatewayFrame(FRAME_CLOSE, id, null));
+    }
+
+    @Override
+    public void joined() {
+      write(new GatewayFrame(FRAME_JOINED, id, null));
+    }
+
+    @Override
+    public String getRemoteAddress() {
+      return remoteAddress;
+    }
+  }
+}
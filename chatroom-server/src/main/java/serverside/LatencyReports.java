@@ -0,0 +1,101 @@
+package serverside;
+
+import static config.ServerConfig.LATENCY_WINDOW_MILLIS;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import latency.LatencyHistogram;
+import latency.LatencySegment;
+
+/**
+ * Adds up the latency histograms clients report, per leg of a message's way, for {@code /stats}.
+ * Reports are collected in windows; the latest full window and the current one are shown,
+ * so the percentiles follow what users experience now rather than since the server started.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class LatencyReports {
+  private final Map<LatencySegment, LatencyHistogram> current = new EnumMap<>(LatencySegment.class);
+  private final Map<LatencySegment, LatencyHistogram> previous = new EnumMap<>(LatencySegment.class);
+  private long windowStartMillis = System.currentTimeMillis();
+  private long reports;
+
+  /**
+   * Create empty latency reports.
+   *
+   * @since 1.0
+   */
+  public LatencyReports() {
+    for (LatencySegment segment : LatencySegment.values()) {
+      current.put(segment, new LatencyHistogram());
+      previous.put(segment, new LatencyHistogram());
+    }
+  }
+
+  /**
+   * Adds a report of a client: {@code <segment>=<histogram>} pairs separated by spaces.
+   * Unknown segments and malformed pairs are skipped.
+   *
+   * @param report The report, without the command
+   * @since 1.0
+   */
+  public synchronized void report(String report) {
+    rotate();
+    for (String pair : report.split(" ")) {
+      int equals = pair.indexOf('=');
+      LatencySegment segment = equals < 0 ? null : LatencySegment.parse(pair.substring(0, equals));
+      if (segment != null) {
+        current.get(segment).add(LatencyHistogram.decode(pair.substring(equals + 1)));
+      }
+    }
+    reports++;
+  }
+
+  /**
+   * Starts a new window once the current one is over.
+   * After a window without any reports, nothing older is shown.
+   *
+   * @since 1.0
+   */
+  private void rotate() {
+    long now = System.currentTimeMillis();
+    long window = LATENCY_WINDOW_MILLIS.get();
+    if (now - windowStartMillis < window) {
+      return;
+    }
+    for (LatencySegment segment : LatencySegment.values()) {
+      previous.get(segment).clear();
+      if (now - windowStartMillis < 2 * window) {
+        previous.get(segment).add(current.get(segment));
+      }
+      current.get(segment).clear();
+    }
+    windowStartMillis = now;
+  }
+
+  /**
+   * Returns the median, the 99th percentile and the count of every leg over the recent windows,
+   * and the number of reports received.
+   *
+   * @return The latencies, by name
+   * @since 1.0
+   */
+  public synchronized Map<String, Long> snapshot() {
+    rotate();
+    Map<String, Long> stats = new LinkedHashMap<>();
+    stats.put("latency.reports", reports);
+    for (LatencySegment segment : LatencySegment.values()) {
+      LatencyHistogram recent = new LatencyHistogram();
+      recent.add(previous.get(segment));
+      recent.add(current.get(segment));
+      String prefix = "latency." + segment.getName() + ".";
+      stats.put(prefix + "count", recent.getCount());
+      stats.put(prefix + "p50_millis", recent.getPercentile(0.50));
+      stats.put(prefix + "p99_millis", recent.getPercentile(0.99));
+    }
+    return stats;
+  }
+}
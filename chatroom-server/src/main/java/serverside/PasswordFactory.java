@@ -0,0 +1,114 @@
+package serverside;
+
+import static config.ServerConfig.PASSWORD_FETCH_RETRY_MILLIS;
+import static config.ServerConfig.PASSWORD_FETCH_TIMEOUT_MILLIS;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import org.json.JSONObject;
+
+/**
+ * The PasswordFactory class is responsible for generating passwords for the Wordle game.
+ * The solution is fetched once a day and kept, since logins wait for it.
+ * A fetch gives up after the fetch timeout, and a failed fetch is not tried again before the retry interval,
+ * so logins fail quickly while the solution cannot be had.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 13.06.2024
+ */
+public class PasswordFactory {
+  private static LocalDate fetchedFor;  // The day of the solution kept, null before the first fetch
+  private static String solution;  // Null if the last fetch failed
+  private static long retryAfterNanos;
+
+  private String password;
+
+  public PasswordFactory() {
+    this.password = solutionFor(LocalDate.now());
+  }
+
+  /**
+   * Get the password.
+   *
+   * @return the password as a string, or null if it could not be fetched
+   * @since 1.0
+   */
+  public String getPassword() {
+    return this.password;
+  }
+
+  /**
+   * Returns the solution of a day, fetching it unless it was fetched already.
+   * Logins at the same time wait for a single fetch.
+   *
+   * @param date The day
+   * @return The solution, or null if it could not be fetched
+   * @since 1.1
+   */
+  private static synchronized String solutionFor(LocalDate date) {
+    boolean kept = date.equals(fetchedFor)
+        && (solution != null || System.nanoTime() - retryAfterNanos < 0);
+    if (!kept) {
+      solution = getWordleSolution(date);
+      fetchedFor = date;
+      retryAfterNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PASSWORD_FETCH_RETRY_MILLIS);
+    }
+    return solution;
+  }
+
+  /**
+   * Get the Wordle password for a date.
+   *
+   * @param date The date
+   * @return The Wordle password, or null if it could not be fetched
+   * @since 1.0
+   */
+  private static String getWordleSolution(LocalDate date) {
+    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    try {
+      String urlString = "https://www.nytimes.com/svc/wordle/v2/" + date.format(formatter) + ".json";
+
+      JSONObject jsonResponse = new JSONObject(createRequestUrl(urlString));
+      return(jsonResponse.getString("solution"));
+    } catch (Exception e) {
+      Logger.getLogger(PasswordFactory.class.getName()).severe("Failed to get Wordle solution");
+    }
+    return null;
+  }
+
+  /**
+   * Create a request to the given URL.
+   *
+   * @param urlString The URL to request
+   * @throws IOException If an error occurs
+   * @since 1.0
+   */
+  private static String createRequestUrl(String urlString) throws IOException {
+    URL url = new URL(urlString);
+
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setRequestMethod("GET");
+    connection.setConnectTimeout(PASSWORD_FETCH_TIMEOUT_MILLIS);
+    connection.setReadTimeout(PASSWORD_FETCH_TIMEOUT_MILLIS);
+
+    BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+    String inputLine;
+    StringBuilder content = new StringBuilder();
+    while ((inputLine = in.readLine()) != null) {
+      content.append(inputLine);
+    }
+
+    in.close();
+    connection.disconnect();
+
+    return String.valueOf(content);
+  }
+}
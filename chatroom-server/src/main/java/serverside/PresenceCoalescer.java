@@ -0,0 +1,209 @@
+package serverside;
+
+import static config.ServerConfig.PRESENCE_COALESCE_THRESHOLD;
+import static config.ServerConfig.PRESENCE_MAX_DEFERRALS;
+import static config.ServerConfig.PRESENCE_SUMMARY_NAME_LIMIT;
+import static config.ServerConfig.PRESENCE_WINDOW_MILLIS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Announces users joining, leaving and changing their username.
+ * In small rooms every event is broadcast right away.
+ * Once the room grows past a threshold, events are buffered for a short window
+ * and broadcast as a single summary, so that a mass reconnect does not flood every client
+ * with one message per user.
+ * A summary is held back while chat messages are being broadcast, so chat goes first.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class PresenceCoalescer {
+  private final Server server;
+  private final List<String> joined = new ArrayList<>();
+  private final List<String> left = new ArrayList<>();
+  private final List<String> renamed = new ArrayList<>();
+
+  private ScheduledExecutorService scheduler;
+  private boolean flushScheduled;
+  private boolean stopped;
+  private int deferrals;
+
+  /**
+   * Create a presence coalescer for a server.
+   *
+   * @param server The server to broadcast to
+   * @since 1.0
+   */
+  public PresenceCoalescer(Server server) {
+    this.server = server;
+  }
+
+  /**
+   * Announce that a user joined.
+   *
+   * @param username The user that joined
+   * @since 1.0
+   */
+  public void joined(String username) {
+    if (!shouldCoalesce()) {
+      server.broadcastPresence(username + " has joined the chat.");
+      return;
+    }
+    buffer(joined, username);
+  }
+
+  /**
+   * Announce that a user left.
+   *
+   * @param username The user that left
+   * @since 1.0
+   */
+  public void left(String username) {
+    if (!shouldCoalesce()) {
+      server.broadcastPresence(username + " has left the chat.");
+      return;
+    }
+    buffer(left, username);
+  }
+
+  /**
+   * Announce that a user changed their username.
+   *
+   * @param oldUsername The previous username
+   * @param newUsername The new username
+   * @since 1.0
+   */
+  public void renamed(String oldUsername, String newUsername) {
+    if (!shouldCoalesce()) {
+      server.broadcastPresence(oldUsername + " changed their username to " + newUsername);
+      return;
+    }
+    buffer(renamed, oldUsername + " is now " + newUsername);
+  }
+
+  /**
+   * Check whether the room is large enough for presence events to be coalesced.
+   *
+   * @return True if events should be buffered
+   * @since 1.0
+   */
+  private boolean shouldCoalesce() {
+    return server.getClientCount() >= PRESENCE_COALESCE_THRESHOLD.get();
+  }
+
+  /**
+   * Buffer an event and make sure a flush is scheduled.
+   *
+   * @param events The buffer of the event's kind
+   * @param event The event
+   * @since 1.0
+   */
+  private synchronized void buffer(List<String> events, String event) {
+    events.add(event);
+    if (!flushScheduled) {
+      flushScheduled = true;
+      schedule();
+    }
+  }
+
+  /**
+   * Schedule a flush at the end of the current window.
+   *
+   * @since 1.0
+   */
+  private synchronized void schedule() {
+    if (stopped) {
+      return;
+    }
+    if (scheduler == null) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "presence-coalescer");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    scheduler.schedule(this::flush, PRESENCE_WINDOW_MILLIS.get(), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Broadcast the buffered events as one summary.
+   * Deferred by another window while chat messages are being broadcast, a limited number of times.
+   *
+   * @since 1.0
+   */
+  private void flush() {
+    String summary;
+    synchronized (this) {
+      if (server.isBroadcastingChat() && deferrals < PRESENCE_MAX_DEFERRALS.get()) {
+        deferrals++;
+        schedule();
+        return;
+      }
+      summary = summarize();
+      joined.clear();
+      left.clear();
+      renamed.clear();
+      deferrals = 0;
+      flushScheduled = false;
+    }
+    if (!summary.isEmpty()) {
+      server.broadcastPresence(summary);
+    }
+  }
+
+  /**
+   * Build the summary of the buffered events, for example "12 users joined, 3 left.".
+   * Names are listed instead of counts when there are only a few of them.
+   *
+   * @return The summary, or an empty string if nothing happened
+   * @since 1.0
+   */
+  private String summarize() {
+    List<String> parts = new ArrayList<>(3);
+    if (!joined.isEmpty()) {
+      parts.add(describe(joined, "joined"));
+    }
+    if (!left.isEmpty()) {
+      parts.add(describe(left, "left"));
+    }
+    if (!renamed.isEmpty()) {
+      parts.add(renamed.size() <= PRESENCE_SUMMARY_NAME_LIMIT.get()
+          ? String.join(", ", renamed)
+          : renamed.size() + " users changed their username");
+    }
+    return parts.isEmpty() ? "" : String.join(", ", parts) + ".";
+  }
+
+  /**
+   * Describe a group of users that did the same thing.
+   *
+   * @param usernames The users
+   * @param verb What they did
+   * @return The description
+   * @since 1.0
+   */
+  private static String describe(List<String> usernames, String verb) {
+    if (usernames.size() <= PRESENCE_SUMMARY_NAME_LIMIT.get()) {
+      return String.join(", ", usernames) + " " + verb;
+    }
+    return usernames.size() + " users " + verb;
+  }
+
+  /**
+   * Stop the coalescer, broadcasting nothing more.
+   *
+   * @since 1.0
+   */
+  public synchronized void shutdown() {
+    stopped = true;
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+}
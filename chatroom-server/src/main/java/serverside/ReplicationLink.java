@@ -0,0 +1,187 @@
+package serverside;
+
+import static config.ConnectionConfig.STANDBY_MESSAGE;
+import static config.ReplicationConfig.FAILOVER_TIMEOUT_MILLIS;
+import static config.ReplicationConfig.RECORD_PING;
+import static config.ReplicationConfig.RECORD_STANDBY;
+import static config.ReplicationConfig.RECORD_STEP_DOWN;
+import static config.ReplicationConfig.REPLICATION_HELLO;
+import static config.ReplicationConfig.REPLICATION_QUEUE;
+import static config.ReplicationConfig.REPLICATION_SECRET;
+
+import eventlog.EventLog;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The primary's end of a link to a standby server.
+ * The standby names itself with the shared secret and tells where clients reach it once it takes over,
+ * which the primary passes on to its clients. It is then sent a snapshot of the joined users
+ * and the latest broadcasts, followed by every change as it happens, see {@link ReplicationRecord}.
+ * A ping goes out whenever there was nothing else to send for a while, so the standby can tell
+ * a silent primary from a failed one.
+ *
+ * <p>A standby that took over from this server while it was only cut off names itself on a link of its own,
+ * and the server steps down, see {@link Standby#fence()}.
+ *
+ * <p>Records are not encrypted, and carry every user's AES key and resume token, so links must stay
+ * on the loopback address or a private network.
+ *
+ * <p>Changes are queued by the threads making them and written by the link's own thread, so a slow standby
+ * never holds up the primary. A standby that falls more than the queue behind is dropped,
+ * and starts over from a fresh snapshot when it reconnects.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class ReplicationLink implements Runnable {
+  private static final EventLog LOG = EventLog.get(ReplicationLink.class);
+
+  private final Socket socket;
+  private final Server server;
+  private final BlockingQueue<String> records = new LinkedBlockingQueue<>(REPLICATION_QUEUE);
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  /**
+   * Create the primary's end of a link.
+   *
+   * @param socket The socket of the link
+   * @param server The server
+   * @since 1.0
+   */
+  public ReplicationLink(Socket socket, Server server) {
+    this.socket = socket;
+    this.server = server;
+  }
+
+  /**
+   * Writes the snapshot and then the changes to the standby until the link closes.
+   *
+   * @since 1.0
+   */
+  @Override
+  public void run() {
+    try {
+      PrintWriter out = new PrintWriter(new BufferedWriter(
+          new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)));
+      BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+      if (!isAuthenticated(in.readLine())) {
+        LOG.warn("standby.rejected", "remote", socket.getRemoteSocketAddress());
+        close();
+        return;
+      }
+      String advertised = in.readLine();
+      ReplicationRecord standby = advertised == null ? null : ReplicationRecord.parse(advertised);
+      if (standby != null && standby.type() == RECORD_STEP_DOWN) {
+        if (server.isRunning() && !server.getInstanceId().equals(standby.payload())) {
+          out.println(new ReplicationRecord(RECORD_PING, null).encode());  // Tells the standby this server stops
+          out.flush();
+          close();
+          server.stepDown(standby.payload());
+        } else {
+          close();
+        }
+        return;
+      }
+      if (standby == null || standby.type() != RECORD_STANDBY || standby.payload() == null
+          || standby.payload().split(" ").length != 3) {
+        LOG.warn("standby.malformed_record", "remote", socket.getRemoteSocketAddress());
+        close();
+        return;
+      }
+      out.println(new ReplicationRecord(RECORD_PING, null).encode());  // Tells the standby it was accepted
+
+      List<ReplicationRecord> snapshot = server.addStandby(this, STANDBY_MESSAGE + " " + standby.payload());
+      if (snapshot == null) {
+        close();  // The server is shutting down, the standby takes over
+        return;
+      }
+      for (ReplicationRecord record : snapshot) {
+        out.println(record.encode());
+      }
+      out.flush();
+      LOG.info("standby.connected", "remote", socket.getRemoteSocketAddress(), "standby", standby.payload(),
+          "records", snapshot.size());
+
+      long pingMillis = Math.max(1, FAILOVER_TIMEOUT_MILLIS / 3);
+      String ping = new ReplicationRecord(RECORD_PING, null).encode();
+      while (!closed.get()) {
+        String record = records.poll(pingMillis, TimeUnit.MILLISECONDS);
+        out.println(record == null ? ping : record);
+        while ((record = records.poll()) != null) {
+          out.println(record);
+        }
+        out.flush();
+        if (out.checkError()) {
+          break;
+        }
+      }
+    } catch (IOException ignored) {
+      // Link lost
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (!closed.get()) {
+      LOG.warn("standby.disconnected", "remote", socket.getRemoteSocketAddress());
+    }
+    close();
+  }
+
+  /**
+   * Checks the first line of the link against the shared secret.
+   *
+   * @param hello The first line
+   * @return True if the standby knows the secret
+   * @since 1.0
+   */
+  private static boolean isAuthenticated(String hello) {
+    String expected = REPLICATION_HELLO + " " + REPLICATION_SECRET;
+    return hello != null && MessageDigest.isEqual(
+        hello.getBytes(StandardCharsets.UTF_8), expected.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Queues a change for the standby, without waiting.
+   * If the standby is too far behind, the link is dropped instead.
+   *
+   * @param record The change
+   * @since 1.0
+   */
+  void replicate(ReplicationRecord record) {
+    if (!records.offer(record.encode()) && !closed.get()) {
+      LOG.warn("standby.behind", "remote", socket.getRemoteSocketAddress(), "queued", records.size());
+      close();
+    }
+  }
+
+  /**
+   * Closes the link. The standby reconnects if the server is still running, and takes over if not.
+   * Only the first call has any effect.
+   *
+   * @since 1.0
+   */
+  public void close() {
+    if (!closed.compareAndSet(false, true)) {
+      return;
+    }
+    server.removeStandby(this);
+    records.clear();
+    try {
+      socket.close();
+    } catch (IOException ignored) {/* Ignored */}
+  }
+}
@@ -0,0 +1,86 @@
+package serverside;
+
+import static config.ReplicationConfig.RECORD_BROADCAST;
+import static config.ReplicationConfig.RECORD_LEFT;
+import static config.ReplicationConfig.RECORD_SESSION;
+
+import java.util.Base64;
+import javax.crypto.SecretKey;
+import keyGen.TlsTransport;
+
+/**
+ * One record on a link between a primary server and its standby.
+ * Records are single lines of the form {@code <type> [payload]},
+ * with the payload escaped so that multi-line messages stay on one line.
+ *
+ * @param type The kind of record, one of the {@code RECORD_} constants in {@code ReplicationConfig}
+ * @param payload The payload, or null for none
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public record ReplicationRecord(char type, String payload) {
+
+  /**
+   * Describes a joined user, for the standby to restore the session from.
+   * The username goes last, since it may contain spaces.
+   *
+   * @param token The resume token of the session
+   * @param administrator Whether the user logged in with the administrator password
+   * @param key The AES key of the user's connection
+   * @param username The username
+   * @return The record
+   * @since 1.0
+   */
+  public static ReplicationRecord session(String token, boolean administrator, SecretKey key, String username) {
+    return new ReplicationRecord(RECORD_SESSION, token + " " + (administrator ? 1 : 0) + " "
+        + Base64.getEncoder().encodeToString(key.getEncoded()) + " " + username);
+  }
+
+  /**
+   * Tells the standby that a user left.
+   *
+   * @param token The resume token of the session
+   * @return The record
+   * @since 1.0
+   */
+  public static ReplicationRecord left(String token) {
+    return new ReplicationRecord(RECORD_LEFT, token);
+  }
+
+  /**
+   * Hands the standby a broadcast, with its number.
+   *
+   * @param id The number of the broadcast
+   * @param message The broadcast
+   * @return The record
+   * @since 1.0
+   */
+  public static ReplicationRecord broadcast(long id, String message) {
+    return new ReplicationRecord(RECORD_BROADCAST, id + " " + message);
+  }
+
+  /**
+   * Parse a record from a line read from a link.
+   *
+   * @param line The line
+   * @return The record, or null if the line is not a record
+   * @since 1.0
+   */
+  public static ReplicationRecord parse(String line) {
+    if (line.isEmpty() || (line.length() > 1 && line.charAt(1) != ' ')) {
+      return null;
+    }
+    return new ReplicationRecord(line.charAt(0), line.length() > 2 ? TlsTransport.unescape(line.substring(2)) : null);
+  }
+
+  /**
+   * Encode the record as a line to write to a link.
+   *
+   * @return The line, without the line terminator
+   * @since 1.0
+   */
+  public String encode() {
+    return payload == null ? String.valueOf(type) : type + " " + TlsTransport.escape(payload);
+  }
+}
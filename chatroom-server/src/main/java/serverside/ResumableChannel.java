@@ -0,0 +1,612 @@
+package serverside;
+
+import static config.AttachmentConfig.CHUNK_COMMAND;
+import static config.ConnectionConfig.RESUMED_MESSAGE;
+import static config.ConnectionConfig.SEQUENCED_CONTROL_PREFIX;
+import static config.ConnectionConfig.SEQUENCED_PREFIX;
+import static config.ConnectionConfig.SESSION_TOKEN_MESSAGE;
+import static config.ConnectionConfig.TRACE_COMMAND;
+import static config.ServerConfig.REPLAY_CAPACITY;
+import static config.ServerConfig.RESUME_WINDOW_MILLIS;
+
+import bufferpool.Lane;
+import eventlog.EventLog;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import javax.crypto.SecretKey;
+import keyGen.KeyClass;
+
+/**
+ * The channel between a session and the connection of its user, which outlives the connection.
+ * Once the user has joined, every message to the user carries the next sequence number
+ * and is kept until the client acknowledges it, or the oldest is dropped at the replay capacity.
+ * When the connection is lost, the session is parked rather than ended,
+ * and keeps recording broadcasts. A client that reconnects within the resume window
+ * hands in its token and the last sequence number it saw, and is sent only what it missed.
+ *
+ * <p>Sequence numbers, the replay buffer and the connection are guarded by the channel's lock,
+ * so messages reach the connection in the order of their sequence numbers.
+ *
+ * <p>Attachment chunks are neither numbered nor kept, so they do not fill the replay buffer.
+ * Chunks written while parked are dropped, and the client fetches the rest once it has resumed.
+ *
+ * <p>Messages sent to the user alone, such as replies and notices, go out in the control lane,
+ * and broadcasts and chunks in the bulk lane, so a reply overtakes a backlog of broadcasts.
+ * Both lanes share one sequence, so a single number is acknowledged and resumed from, but messages
+ * of the control lane are marked, and the client shows them as they arrive. Only broadcasts are put
+ * back in order of their numbers. Replayed messages are all in order, and go unmarked.
+ * Messages are written outside the channel's lock, so a slow connection does not hold up the sender.
+ *
+ * <p>Signals, such as who is typing, are neither numbered nor kept, and go in the signal lane.
+ * They are dropped while the session is parked or the connection is behind on broadcasts.
+ *
+ * <p>Traced broadcasts are stamped with when they are written to the connection.
+ * Only the message is kept for replay, so messages replayed after a resume are not traced.
+ *
+ * <p>A standby that takes over from a failed server restores the channels of its users, parked,
+ * with the AES keys of their connections, so their clients can resume without exchanging keys.
+ * A restored channel numbers messages on from the last one the client received from the failed server,
+ * and only receives broadcasts once resumed, see {@link #restore}.
+ * Until then, it is known by the id derived from its token rather than by the token, so it can only be resumed
+ * by a client that proves it has the AES key. The client is given a new token once it resumed,
+ * since it named its session in plain text.
+ *
+ * @version 1.7
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class ResumableChannel implements SessionChannel, BroadcastRing.Subscriber {
+  private static final EventLog LOG = EventLog.get(ResumableChannel.class);
+  private static final SecureRandom TOKENS = new SecureRandom();
+
+  private final ConnectionHost host;
+  private Session session;
+
+  private volatile ClientHandler connection;  // Null while parked
+  private volatile String remoteAddress;
+  private volatile boolean closed;
+  private boolean sequencing;  // Set once the user joined
+  private String token;
+  private SecretKey secretKey;  // Of the current connection, or the last one while parked; null over TLS
+  private boolean restored;  // Taken over from a failed server, and not resumed yet
+  private String retiredToken;  // Replaced when the restored session was resumed, not yet replicated as left
+  private final ArrayDeque<String> unacknowledged = new ArrayDeque<>();
+  private long firstUnacknowledged = 1;  // Sequence of the oldest message kept
+  private long nextSequence = 1;
+  private TimingWheel.Timeout expiry;
+  private volatile BroadcastRing.Cursor broadcasts;
+
+  /**
+   * Create the channel of a connection.
+   *
+   * @param host The server or gateway that accepted the connection
+   * @param connection The connection
+   * @since 1.0
+   */
+  private ResumableChannel(ConnectionHost host, ClientHandler connection) {
+    this.host = host;
+    this.connection = connection;
+    this.remoteAddress = connection.getRemoteAddress();
+  }
+
+  /**
+   * Create the channel of a session a standby took over, parked.
+   *
+   * @param host The server that took over the session
+   * @param token The resume token of the session
+   * @param secretKey The AES key the client uses
+   * @since 1.5
+   */
+  private ResumableChannel(ConnectionHost host, String token, SecretKey secretKey) {
+    this.host = host;
+    this.remoteAddress = "restored";
+    this.token = token;
+    this.secretKey = secretKey;
+    this.sequencing = true;
+    this.restored = true;
+  }
+
+  /**
+   * Opens the session of a connection that has completed its handshake.
+   *
+   * @param host The server or gateway that accepted the connection
+   * @param connection The connection
+   * @return The channel of the new session, or null if the host cannot open one right now
+   * @since 1.0
+   */
+  static ResumableChannel open(ConnectionHost host, ClientHandler connection) {
+    ResumableChannel channel = new ResumableChannel(host, connection);
+    channel.session = host.openSession(channel);
+    return channel.session == null ? null : channel;
+  }
+
+  /**
+   * Restores the session of a user that joined on a failed server, parked until its client resumes it.
+   * The session expires as usual if the client does not come back within the resume window.
+   * Until then, the channel is kept by the id derived from the token, see {@link KeyClass#sessionId}.
+   *
+   * @param server The standby that took over
+   * @param token The resume token of the session
+   * @param secretKey The AES key the client uses
+   * @param username The username
+   * @param administrator Whether the user logged in with the administrator password
+   * @return The channel of the restored session, or null if the server cannot open one right now
+   * @since 1.5
+   */
+  static ResumableChannel restore(Server server, String token, SecretKey secretKey, String username,
+      boolean administrator) {
+    ResumableChannel channel = new ResumableChannel(server, token, secretKey);
+    channel.session = server.restoreChatSession(channel, username, administrator);
+    if (channel.session == null) {
+      return null;
+    }
+    server.getResumableChannels().put(KeyClass.sessionId(token), channel);
+    TimingWheel timingWheel = server.getTimingWheel();
+    synchronized (channel) {
+      if (timingWheel != null) {
+        channel.expiry = timingWheel.schedule(() -> channel.expire("timeout"), RESUME_WINDOW_MILLIS.get());
+      }
+    }
+    return channel;
+  }
+
+  /**
+   * Returns the session of the channel.
+   *
+   * @return The session
+   * @since 1.0
+   */
+  public Session getSession() {
+    return session;
+  }
+
+  @Override
+  public void send(String message) {
+    write(message, null, message.startsWith(CHUNK_COMMAND + " ") ? Lane.BULK : Lane.CONTROL, true);
+  }
+
+  @Override
+  public void deliver(String message) {
+    String trace = null;
+    if (message.startsWith(TRACE_COMMAND + " ")) {
+      int start = TRACE_COMMAND.length() + 1;
+      int end = start;
+      for (int stamps = 0; stamps < 4 && end >= 0; stamps++) {
+        end = message.indexOf(' ', end + 1);
+      }
+      if (end > 0) {
+        trace = TRACE_COMMAND + " " + System.currentTimeMillis() + " " + message.substring(start, end);
+        message = message.substring(end + 1);
+      }
+    }
+    write(message, trace, Lane.BULK, false);  // Flushed with the batch
+  }
+
+  /**
+   * Sends an ephemeral signal to the joined user, unless the connection is parked or falling behind.
+   * The signal is written after everything else queued for the connection, and is replaced
+   * by the next signal if it has not been written by then.
+   *
+   * @param message The signal
+   * @since 1.3
+   */
+  public void signal(String message) {
+    ClientHandler current = connection;
+    BroadcastRing.Cursor cursor = broadcasts;
+    if (current == null || closed || (cursor != null && cursor.getLag() > 0)) {
+      host.getMetrics().signalDropped();
+      return;
+    }
+    current.append(message, Lane.SIGNAL);
+    current.flush();
+    host.getMetrics().signalSent();
+  }
+
+  /**
+   * Flushes the messages written so far.
+   *
+   * @since 1.0
+   */
+  public void flush() {
+    ClientHandler current = connection;
+    if (current != null) {
+      current.flush();
+    }
+  }
+
+  /**
+   * Flushes the broadcasts written so far, or yields to another thread writing to the connection,
+   * so a connection that cannot keep up falls behind in the ring rather than in its writer.
+   *
+   * @param resume Continues the cursor once the other thread is done
+   * @return True if flushed, false if resume will be run
+   * @since 1.7
+   */
+  @Override
+  public boolean flush(Runnable resume) {
+    ClientHandler current = connection;
+    return current == null || current.flushBroadcasts(resume);
+  }
+
+  /**
+   * Ends the session after the user fell so far behind on broadcasts that some were overwritten
+   * before they were recorded, which no resume could make up for.
+   * The connection is closed before anything else, since writing to the client may block.
+   *
+   * @param missed The number of broadcasts the user did not receive
+   * @since 1.0
+   */
+  @Override
+  public void overrun(long missed) {
+    if (closed) {
+      return;
+    }
+    LOG.warn("broadcast.overrun", "remote", remoteAddress, "missed", missed);
+    host.getMetrics().broadcastOverrun();
+    ClientHandler current = connection;
+    if (current != null) {
+      current.abort();
+    }
+    session.evicted();
+  }
+
+  /**
+   * Numbers and records a message once the user has joined, and writes it if connected.
+   * Attachment chunks are neither numbered nor recorded.
+   * A parked session whose replay buffer overflows can no longer be resumed without a gap,
+   * so it ends right away.
+   *
+   * @param message The message
+   * @param trace The stamps to write ahead of the message, but not to record, or null
+   * @param lane The lane to write the message in
+   * @param flush Whether to flush the message right away
+   * @since 1.2
+   */
+  private void write(String message, String trace, Lane lane, boolean flush) {
+    boolean gap = false;
+    ClientHandler current;
+    synchronized (this) {
+      String line = trace == null ? message : trace + " " + message;
+      if (sequencing && !message.startsWith(CHUNK_COMMAND + " ")) {
+        line = (lane == Lane.CONTROL ? SEQUENCED_CONTROL_PREFIX : SEQUENCED_PREFIX) + " " + nextSequence++ + " " + line;
+        unacknowledged.addLast(message);
+        if (unacknowledged.size() > REPLAY_CAPACITY) {
+          unacknowledged.removeFirst();
+          firstUnacknowledged++;
+          gap = connection == null;
+        }
+      }
+      current = connection;
+      if (current != null) {
+        current.append(line, lane);
+      }
+    }
+    if (flush && current != null) {
+      current.flush();
+    }
+    if (gap) {
+      expire("replay_overflow");
+    }
+  }
+
+  /**
+   * Drops the messages the client has acknowledged from the replay buffer.
+   * Acknowledgements are cumulative.
+   *
+   * @param sequence The last sequence number the client received
+   * @since 1.0
+   */
+  synchronized void acknowledge(long sequence) {
+    while (firstUnacknowledged <= sequence && !unacknowledged.isEmpty()) {
+      unacknowledged.removeFirst();
+      firstUnacknowledged++;
+    }
+  }
+
+  /**
+   * Starts numbering messages once the user has joined, and gives the client its resume token.
+   * Broadcasts of the host are received from now on, if it has a ring.
+   *
+   * @since 1.0
+   */
+  @Override
+  public void joined() {
+    ClientHandler current;
+    synchronized (this) {
+      token = newToken();
+      current = connection;
+      secretKey = current == null ? null : current.getSessionKey();
+      if (current != null) {
+        current.append(SESSION_TOKEN_MESSAGE + " " + token, Lane.CONTROL);
+      }
+      sequencing = true;
+    }
+    host.getResumableChannels().put(token, this);
+    if (current != null) {
+      current.flush();
+      current.startHeartbeats();
+    }
+    BroadcastRing ring = host.getBroadcastRing();
+    if (ring != null) {
+      subscribe(ring);
+    }
+  }
+
+  /**
+   * Draws a new resume token.
+   *
+   * @return The token, in URL-safe Base64
+   * @since 1.5
+   */
+  private static String newToken() {
+    byte[] bytes = new byte[16];
+    TOKENS.nextBytes(bytes);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+  }
+
+  /**
+   * Starts receiving the broadcasts of a ring.
+   *
+   * @param ring The broadcast ring
+   * @since 1.0
+   */
+  public void subscribe(BroadcastRing ring) {
+    if (!closed) {
+      broadcasts = ring.subscribe(this);
+    }
+  }
+
+  /**
+   * Checks whether the channel receives broadcasts, which a restored one only does once resumed.
+   *
+   * @return True if the channel reads the broadcast ring
+   * @since 1.5
+   */
+  boolean isSubscribed() {
+    return broadcasts != null;
+  }
+
+  /**
+   * Returns the resume token of the session.
+   *
+   * @return The token, or null if the user has not joined
+   * @since 1.5
+   */
+  synchronized String getToken() {
+    return token;
+  }
+
+  /**
+   * Returns the AES key the client uses, which a standby needs to let the client resume without a key exchange.
+   *
+   * @return The key, or null if the connection uses TLS or the user has not joined
+   * @since 1.5
+   */
+  synchronized SecretKey getSecretKey() {
+    return secretKey;
+  }
+
+  /**
+   * Checks whether the channel was taken over from a failed server, and its client has not resumed it yet.
+   *
+   * @return True if the channel waits for its client to reattach
+   * @since 1.5
+   */
+  synchronized boolean isRestored() {
+    return restored;
+  }
+
+  /**
+   * Returns the token the session had before it was resumed after a take over, once,
+   * so a standby of this server can be told to forget it.
+   *
+   * @return The replaced token, or null if there is none, or it was returned already
+   * @since 1.5
+   */
+  synchronized String takeRetiredToken() {
+    String retired = retiredToken;
+    retiredToken = null;
+    return retired;
+  }
+
+  /**
+   * Handles the loss of the connection.
+   * The session of a joined user is parked for the resume window; any other session ends.
+   * Only the connection the channel currently uses can be lost, a replaced one is ignored.
+   *
+   * @param lost The connection that was lost
+   * @param evicted Whether the connection stopped answering, so nothing more can be written to it
+   * @since 1.0
+   */
+  void connectionLost(ClientHandler lost, boolean evicted) {
+    synchronized (this) {
+      if (connection != lost || closed) {
+        return;
+      }
+      TimingWheel timingWheel = host.getTimingWheel();
+      long windowMillis = RESUME_WINDOW_MILLIS.get();
+      if (sequencing && windowMillis > 0 && timingWheel != null) {
+        connection = null;
+        expiry = timingWheel.schedule(() -> expire("timeout"), windowMillis);
+        LOG.info("session.parked", "remote", remoteAddress, "sequence", nextSequence - 1);
+        host.getMetrics().sessionParked();
+        return;
+      }
+    }
+    if (evicted) {
+      session.evicted();
+    } else {
+      session.shutdown();
+    }
+  }
+
+  /**
+   * Ends a parked session that was not resumed in time, or can no longer be resumed without a gap.
+   * The other users are told that the user left.
+   *
+   * @param reason Why the session ends, for logging
+   * @since 1.0
+   */
+  private void expire(String reason) {
+    synchronized (this) {
+      if (connection != null || closed) {
+        return;  // Resumed in the meantime
+      }
+      closed = true;  // So no resume slips in before the session has ended
+    }
+    release();
+    LOG.info("session.expired", "remote", remoteAddress, "reason", reason);
+    host.getMetrics().sessionExpired();
+    session.evicted();
+  }
+
+  /**
+   * Moves the session to a new connection of the same client,
+   * and replays every message after the last one the client saw.
+   * If the old connection is still open, which happens when the client noticed the loss first,
+   * it is closed.
+   * A client that missed messages which were already dropped cannot resume,
+   * and its session ends so that the user can log in again.
+   * A restored session has none of the messages of the failed server, and numbers on from the client's last one,
+   * starting with the messages sent to the user while it was parked. Its client is given a new token.
+   *
+   * @param replacement The new connection
+   * @param lastSeen The last sequence number the client received
+   * @return True if the session was resumed
+   * @since 1.0
+   */
+  boolean resume(ClientHandler replacement, long lastSeen) {
+    ClientHandler previous;
+    int replayed;
+    String reattachId = null;
+    synchronized (this) {
+      if (closed) {
+        return false;
+      }
+      if (restored) {
+        firstUnacknowledged = lastSeen + 1;
+        nextSequence = firstUnacknowledged + unacknowledged.size();
+        restored = false;
+        reattachId = KeyClass.sessionId(token);
+        retiredToken = token;
+        token = newToken();
+      }
+      boolean covered = lastSeen >= firstUnacknowledged - 1 && lastSeen < nextSequence;
+      if (covered) {
+        previous = connection;
+        connection = replacement;
+        remoteAddress = replacement.getRemoteAddress();
+        secretKey = replacement.getSessionKey();
+        if (expiry != null) {
+          expiry.cancel();
+          expiry = null;
+        }
+        acknowledge(lastSeen);
+        replayed = unacknowledged.size();
+        replacement.append(RESUMED_MESSAGE + " " + replayed, Lane.CONTROL);
+        if (reattachId != null) {
+          replacement.append(SESSION_TOKEN_MESSAGE + " " + token, Lane.CONTROL);
+        }
+        long sequence = firstUnacknowledged;
+        for (String message : unacknowledged) {
+          replacement.append(SEQUENCED_PREFIX + " " + sequence++ + " " + message, Lane.BULK);
+        }
+      } else {
+        previous = null;
+        replayed = -1;
+      }
+    }
+    if (reattachId != null) {
+      host.getResumableChannels().remove(reattachId, this);
+      host.getResumableChannels().put(getToken(), this);
+    }
+    if (replayed < 0) {
+      LOG.info("session.resume_gap", "remote", remoteAddress, "missed_from", lastSeen + 1);
+      session.evicted();
+      return false;
+    }
+    if (previous != null) {
+      previous.abort();
+    }
+    replacement.flush();
+    replacement.startHeartbeats();
+    LOG.info("session.resumed", "remote", remoteAddress, "replayed", replayed);
+    host.getMetrics().sessionResumed();
+    return true;
+  }
+
+  /**
+   * Ends the fresh session of a connection that resumed an older one instead,
+   * without closing the connection.
+   *
+   * @since 1.0
+   */
+  void abandon() {
+    connection = null;
+    session.close(null);
+  }
+
+  /**
+   * Checks whether the session is waiting for its client to reconnect.
+   *
+   * @return True if the session is parked
+   * @since 1.0
+   */
+  public boolean isParked() {
+    return connection == null && !closed;
+  }
+
+  /**
+   * Closes the channel and its connection for good, after the session ended.
+   * Only the first call has any effect.
+   *
+   * @since 1.0
+   */
+  @Override
+  public void disconnect() {
+    ClientHandler current;
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      current = connection;
+    }
+    release();
+    if (current != null) {
+      current.disconnect();
+    }
+  }
+
+  /**
+   * Stops receiving broadcasts and forgets the resume token, or the id of a restored channel,
+   * once the channel is closed.
+   *
+   * @since 1.0
+   */
+  private void release() {
+    BroadcastRing.Cursor cursor = broadcasts;
+    if (cursor != null) {
+      cursor.close();
+    }
+    TimingWheel.Timeout pending;
+    String resumeToken;
+    synchronized (this) {
+      pending = expiry;
+      expiry = null;
+      resumeToken = token == null || !restored ? token : KeyClass.sessionId(token);
+    }
+    if (pending != null) {
+      pending.cancel();
+    }
+    if (resumeToken != null) {
+      host.getResumableChannels().remove(resumeToken, this);
+    }
+  }
+
+  @Override
+  public String getRemoteAddress() {
+    return remoteAddress;
+  }
+}
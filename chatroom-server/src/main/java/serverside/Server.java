@@ -0,0 +1,963 @@
+package serverside;
+
+import static config.ConnectionConfig.DRAIN_DEADLINE_MILLIS;
+import static config.ConnectionConfig.DRAIN_PARALLELISM;
+import static config.ConnectionConfig.DRAIN_RETRY_AFTER_SECONDS;
+import static config.ConnectionConfig.PORT;
+import static config.ConnectionConfig.SERVER_BUSY_MESSAGE;
+import static config.ConnectionConfig.SERVER_CLOSING_NOTICE;
+import static config.ConnectionConfig.TRACE_COMMAND;
+import static config.ConnectionConfig.TRANSPORT;
+import static config.GatewayConfig.LINK_ADDRESS;
+import static config.GatewayConfig.LINK_PORT;
+import static config.GatewayConfig.LINK_SECRET;
+import static config.ReplicationConfig.PRIMARY_HOST;
+import static config.ReplicationConfig.REATTACH_PORT;
+import static config.ReplicationConfig.REPLICATION_ADDRESS;
+import static config.ReplicationConfig.REPLICATION_PORT;
+import static config.ReplicationConfig.REPLICATION_SECRET;
+import static config.ServerConfig.BROADCAST_RING_CAPACITY;
+import static config.ServerConfig.BROADCAST_WRITER_THREADS;
+import static config.ServerConfig.HISTORY_CAPACITY;
+import static config.ServerConfig.REJECT_TIMEOUT_MILLIS;
+import static config.ServerConfig.TIMING_WHEEL_SIZE;
+import static config.ServerConfig.TIMING_WHEEL_TICK_MILLIS;
+
+import attachment.AttachmentStore;
+import bufferpool.BufferPool;
+import eventlog.EventLog;
+import interceptor.InterceptorPipeline;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import keyGen.TlsTransport;
+import keyGen.TransportMode;
+import traffic.TrafficRecorder;
+
+/**
+ * The server class is responsible for handling the server side of the chatroom.
+ * It will listen for incoming connections and create a new thread for each connection.
+ * Gateways can carry many users over a few links instead, when a link secret is configured.
+ *
+ * <p>Besides broadcasts, which every user receives in order, the server sends ephemeral signals,
+ * such as who is typing, which users may miss.
+ * Chat messages and broadcasts pass through the interceptor stages found on the class path, if any.
+ * Some chat messages are traced on their way to each recipient, who report the latencies back.
+ * The shape of the traffic can be recorded, to be replayed against another build.
+ * Broadcasts are numbered and the latest are kept, so a client that keeps messages of its own
+ * only fetches what is newer, see {@link ChatHistory}.
+ *
+ * <p>With a replication secret, a standby server can follow the server, see {@link ReplicationLink}.
+ * A server given the host of a primary is such a standby, and only accepts clients once it took over,
+ * see {@link Standby}. Clients of the failed primary then reattach to their sessions on a port of its own,
+ * without exchanging keys or logging in. A primary that was taken over while it was only cut off steps down
+ * as soon as the standby reaches it.
+ *
+ * @version 1.24
+ * @author Jonas Birkeli
+ * @since 08.06.2024
+ */
+public class Server implements Runnable, ConnectionHost {
+  private static final EventLog LOG = EventLog.get(Server.class);
+
+  private ServerSocket serverSocket;
+  private ServerSocket linkSocket;
+  private ServerSocket replicationSocket;
+  private ServerSocket reattachSocket;
+  private final Set<ClientHandler> clients;  // Connections of their own
+  private final Set<ChatSession> sessions;  // All users, including those behind gateways
+  private final Set<GatewayLink> gatewayLinks;
+  private final Set<ReplicationLink> standbys = ConcurrentHashMap.newKeySet();
+  private volatile String standbyNotice;  // Tells clients where the standby is, null while there is none
+  private volatile Standby standby;  // Set on a standby, following its primary or, once it took over, fencing it
+  private final String instanceId = UUID.randomUUID().toString();  // Tells this server from others on a link
+  private final Map<String, ResumableChannel> resumableChannels = new ConcurrentHashMap<>();
+  private final ServerMetrics metrics;
+  private final PresenceCoalescer presence;
+  private final TypingCoalescer typing;
+  private final InterceptorPipeline interceptors;
+  private final LatencyReports latency = new LatencyReports();
+  private final ChatHistory history = new ChatHistory(HISTORY_CAPACITY);
+  private final TrafficRecorder recorder;
+  private final AdmissionControl admission;
+  private final AtomicInteger chatBroadcasts = new AtomicInteger();
+  private volatile boolean running;
+  private ExecutorService pool;
+  private ExecutorService broadcastWriters;  // Bounded, since subscribers that wait give their thread back
+  private TimingWheel timingWheel;
+  private volatile BroadcastRing broadcastRing;
+  private volatile AttachmentStore attachments;
+  private DrainReport drainReport;
+  private final int port;
+  private final TransportMode transport;
+
+  /**
+   * Constructor for the server class.
+   * Listens on the configured port with the configured transport.
+   *
+   * @since 1.0
+   */
+  public Server() {
+    this(PORT, TRANSPORT);
+  }
+
+  /**
+   * Constructor for the server class.
+   *
+   * @param port The port to listen on
+   * @param transport How connections are protected
+   * @since 1.7
+   */
+  public Server(int port, TransportMode transport) {
+    this.port = port;
+    this.transport = transport;
+    clients = ConcurrentHashMap.newKeySet();
+    sessions = ConcurrentHashMap.newKeySet();
+    gatewayLinks = ConcurrentHashMap.newKeySet();
+    metrics = new ServerMetrics();
+    presence = new PresenceCoalescer(this);
+    typing = new TypingCoalescer(this);
+    interceptors = InterceptorPipeline.load();
+    recorder = TrafficRecorder.open();
+    admission = new AdmissionControl();
+    running = true;
+  }
+
+  /**
+   * The run method is called when the thread is started.
+   *
+   * @since 1.0
+   */
+  @Override
+  public void run() {
+    try {
+      LOG.info("server.starting");
+
+      pool = Executors.newCachedThreadPool();
+      timingWheel = new TimingWheel("heartbeat-wheel", TIMING_WHEEL_TICK_MILLIS, TIMING_WHEEL_SIZE, pool);
+      broadcastWriters = Executors.newFixedThreadPool(BROADCAST_WRITER_THREADS);
+      broadcastRing = new BroadcastRing(BROADCAST_RING_CAPACITY, broadcastWriters);
+      attachments = AttachmentStore.open();
+      new ConfigWatcher(timingWheel).start();
+
+      boolean tookOver = false;
+      if (PRIMARY_HOST != null && REPLICATION_SECRET != null) {
+        standby = new Standby(this);
+        if (!standby.follow() || !running) {
+          return;
+        }
+        standby.takeOver();
+        pool.execute(standby::fence);
+        tookOver = true;
+      }
+
+      serverSocket = openServerSocket(transport, port);
+      LOG.info("server.started", "port", port, "transport", transport);
+      if (LINK_SECRET != null) {
+        linkSocket = new ServerSocket(LINK_PORT, 50, InetAddress.getByName(LINK_ADDRESS));
+        pool.execute(this::acceptGatewayLinks);
+        LOG.info("server.gateway_links_open", "address", LINK_ADDRESS, "port", LINK_PORT);
+      }
+      if (tookOver) {
+        reattachSocket = openServerSocket(TransportMode.RSA_AES, REATTACH_PORT);
+        pool.execute(this::acceptReattachments);
+        LOG.info("server.reattach_open", "port", REATTACH_PORT);
+      }
+      if (REPLICATION_SECRET != null) {
+        InetAddress replicationAddress = InetAddress.getByName(REPLICATION_ADDRESS);
+        replicationSocket = new ServerSocket(REPLICATION_PORT, 50, replicationAddress);
+        pool.execute(this::acceptStandbys);
+        LOG.info("server.replication_open", "address", REPLICATION_ADDRESS, "port", REPLICATION_PORT);
+        if (!replicationAddress.isLoopbackAddress()) {
+          LOG.warn("server.replication_unencrypted", "address", REPLICATION_ADDRESS);  // Carries keys in plain text
+        }
+      }
+
+      while (running) {
+        Socket client = serverSocket.accept();
+        client.setTcpNoDelay(true);  // Chat lines are small and latency sensitive
+        if (!admission.admitConnection(clients.size())) {
+          admission.reject(client);
+          metrics.connectionRejectedFull();
+          continue;
+        }
+        ClientHandler clientHandler = new ClientHandler(client, this);
+        clients.add(clientHandler);
+        metrics.connectionAccepted();
+        pool.execute(clientHandler);
+      }
+    } catch (IOException e) {
+      if (running) {
+        LOG.error("server.accept_failed", "error", e.getMessage());
+      }
+      shutdown();
+    }
+  }
+
+  /**
+   * Accepts links from gateways until the server shuts down.
+   *
+   * @since 1.8
+   */
+  private void acceptGatewayLinks() {
+    try {
+      while (running) {
+        Socket socket = linkSocket.accept();
+        socket.setTcpNoDelay(true);
+        GatewayLink link = new GatewayLink(socket, this);
+        gatewayLinks.add(link);
+        pool.execute(link);
+      }
+    } catch (IOException e) {
+      if (running) {
+        LOG.error("server.link_accept_failed", "error", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Accepts links from standby servers until the server shuts down.
+   *
+   * @since 1.19
+   */
+  private void acceptStandbys() {
+    try {
+      while (running) {
+        Socket socket = replicationSocket.accept();
+        socket.setTcpNoDelay(true);
+        pool.execute(new ReplicationLink(socket, this));
+      }
+    } catch (IOException e) {
+      if (running) {
+        LOG.error("server.replication_accept_failed", "error", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Accepts clients of a failed primary, reattaching to the sessions this server took over,
+   * until the server shuts down. They skip the key exchange, see {@link ClientHandler}.
+   *
+   * @since 1.19
+   */
+  private void acceptReattachments() {
+    try {
+      while (running) {
+        Socket client = reattachSocket.accept();
+        client.setTcpNoDelay(true);
+        if (!admission.admitConnection(clients.size())) {
+          admission.reject(client);
+          metrics.connectionRejectedFull();
+          continue;
+        }
+        ClientHandler clientHandler = new ClientHandler(client, this, true);
+        clients.add(clientHandler);
+        metrics.connectionAccepted();
+        pool.execute(clientHandler);
+      }
+    } catch (IOException e) {
+      if (running) {
+        LOG.error("server.reattach_accept_failed", "error", e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Opens the socket clients connect to.
+   * Plain sockets are opened through a channel, so their connections are read and written
+   * from pooled direct buffers without a copy; TLS sockets only offer streams.
+   *
+   * @param transport How connections are protected
+   * @param port The port to listen on
+   * @return The server socket
+   * @throws IOException If the port cannot be bound
+   * @since 1.10
+   */
+  public static ServerSocket openServerSocket(TransportMode transport, int port) throws IOException {
+    if (transport == TransportMode.TLS) {
+      return TlsTransport.createServerSocket(port);
+    }
+    return ServerSocketChannel.open().bind(new InetSocketAddress(port)).socket();
+  }
+
+  /**
+   * Tells a connection that the server is busy and closes it.
+   * Sent in plain text, in place of the server's public key, before any key material is generated.
+   * Over TLS the first write runs the handshake, which reads from the client, so a client that stays silent
+   * is given up on after the reject timeout.
+   *
+   * @param client The connection to reject
+   * @since 1.6
+   */
+  public static void rejectBusy(Socket client) {
+    try (client) {
+      client.setSoTimeout(REJECT_TIMEOUT_MILLIS);
+      OutputStream output = client.getOutputStream();
+      output.write((SERVER_BUSY_MESSAGE + "\n").getBytes(StandardCharsets.UTF_8));
+      output.flush();
+    } catch (IOException ignored) {/* Ignored */}
+  }
+
+  /**
+   * Checks if the username is already taken.
+   *
+   * @param username The username to validate
+   * @return True if the username is invalid, false otherwise
+   * @since 1.0
+   */
+  public boolean isUsernameTaken(String username) {
+    return username == null
+        || username.isEmpty()
+        || sessions.stream().anyMatch(session -> session.getUsername().equals(username));
+  }
+
+  /**
+   * Broadcasts a message to all connected clients.
+   *
+   * @param message The message to broadcast
+   * @since 1.0
+   */
+  public void broadcastToAll(String message) {
+    broadcastToAll(message, null);
+  }
+
+  /**
+   * Broadcasts a chat message to all connected clients, traced if the sender stamped it.
+   * The stamps go along with the message, together with when it was broadcast,
+   * and each recipient's connection adds when it wrote the message.
+   *
+   * @param message The message to broadcast
+   * @param trace When the sender sent the message, the offset of its clock, and when the server read it,
+   *     separated by spaces, or null if the message is not traced
+   * @return Completed once the message was published, or dropped by an interceptor stage
+   * @since 1.16
+   */
+  public CompletableFuture<Void> broadcastToAll(String message, String trace) {
+    chatBroadcasts.incrementAndGet();
+    try {
+      return broadcast(message, trace).whenComplete((done, error) -> chatBroadcasts.decrementAndGet());
+    } catch (RuntimeException e) {
+      chatBroadcasts.decrementAndGet();
+      throw e;
+    }
+  }
+
+  /**
+   * Broadcasts a presence announcement to all connected clients.
+   * Used by the presence coalescer; does not count as chat traffic.
+   *
+   * @param message The announcement to broadcast
+   * @since 1.4
+   */
+  void broadcastPresence(String message) {
+    broadcast(message, null);
+  }
+
+  /**
+   * Sends a message to every user that has joined the chat.
+   * The message is numbered and kept in the history, then published once to the broadcast ring,
+   * and written to the users in the background. The history is held until the message is published,
+   * so the numbers go out in order.
+   * Users behind a gateway are reached with a single frame per gateway link.
+   * The interceptor stages see the message first, and may change or drop it; the message is published
+   * by whichever thread finishes the last stage, or by the caller without stages.
+   *
+   * @param message The message to send
+   * @param trace The stamps of a traced message, or null
+   * @return Completed once the message was published, or dropped
+   * @since 1.4
+   */
+  private CompletableFuture<Void> broadcast(String message, String trace) {
+    return interceptors.outbound(message).thenAccept(intercepted -> publish(intercepted, trace));
+  }
+
+  /**
+   * Numbers a message that passed the interceptor stages, and publishes it to the broadcast ring.
+   *
+   * @param intercepted The message, or null if a stage dropped it
+   * @param trace The stamps of a traced message, or null
+   * @since 1.22
+   */
+  private void publish(String intercepted, String trace) {
+    BroadcastRing ring = broadcastRing;
+    if (ring == null || intercepted == null) {
+      return;
+    }
+    synchronized (history) {
+      long id = history.add(intercepted);
+      String numbered = ChatHistory.stamp(id, intercepted);
+      ring.publish(trace == null ? numbered
+          : TRACE_COMMAND + " " + trace + " " + System.currentTimeMillis() + " " + numbered);
+      if (!standbys.isEmpty()) {
+        replicate(ReplicationRecord.broadcast(id, intercepted));
+      }
+    }
+  }
+
+  /**
+   * Sends a session taken over from a failed server the broadcasts its client missed,
+   * and then every broadcast from the ring. The history is held meanwhile, so none is missed or sent twice.
+   *
+   * @param channel The channel of the session, resumed
+   * @param after The number of the last broadcast the client received, 0 if unknown
+   * @since 1.19
+   */
+  void catchUp(ResumableChannel channel, long after) {
+    BroadcastRing ring = broadcastRing;
+    synchronized (history) {
+      for (ChatHistory.Entry entry : history.since(after)) {
+        channel.deliver(ChatHistory.stamp(entry.id(), entry.message()));
+      }
+      if (ring != null) {
+        channel.subscribe(ring);
+      }
+    }
+    channel.flush();
+  }
+
+  /**
+   * Registers a standby, tells the clients where to find it, and describes what it needs to take over:
+   * every user that can be taken over, and the latest broadcasts.
+   * Changes from now on are queued for the standby, and go out after the snapshot.
+   *
+   * @param link The link to the standby
+   * @param notice What to tell clients about the standby
+   * @return The snapshot, or null if the server is shutting down
+   * @since 1.19
+   */
+  synchronized List<ReplicationRecord> addStandby(ReplicationLink link, String notice) {
+    if (!running) {
+      return null;
+    }
+    standbys.add(link);
+    if (transport != TransportMode.TLS) {
+      standbyNotice = notice;
+      resumableChannels.values().forEach(channel -> channel.send(notice));
+    }
+    List<ReplicationRecord> snapshot = new ArrayList<>();
+    sessions.forEach(session -> {
+      ReplicationRecord record = session.toReplicationRecord();
+      if (record != null) {
+        snapshot.add(record);
+      }
+    });
+    history.since(0).forEach(entry -> snapshot.add(ReplicationRecord.broadcast(entry.id(), entry.message())));
+    return snapshot;
+  }
+
+  /**
+   * Forgets a standby whose link closed.
+   *
+   * @param link The link to the standby
+   * @since 1.19
+   */
+  void removeStandby(ReplicationLink link) {
+    standbys.remove(link);
+  }
+
+  /**
+   * Sends a change to every standby.
+   *
+   * @param record The change, or null for none
+   * @since 1.19
+   */
+  void replicate(ReplicationRecord record) {
+    if (record != null) {
+      standbys.forEach(link -> link.replicate(record));
+    }
+  }
+
+  /**
+   * Steps down when a standby that took over from this server tells it to, because it was only cut off:
+   * the server drains, and its clients fail over to the standby.
+   *
+   * @param fencer The instance id of the server that took over
+   * @return False if the request came from this server itself, which is then not stopped
+   * @since 1.19
+   */
+  boolean stepDown(String fencer) {
+    if (instanceId.equals(fencer)) {
+      return false;
+    }
+    LOG.warn("server.stepping_down", "fencer", fencer);
+    shutdown();
+    return true;
+  }
+
+  /**
+   * Returns the id of this server process, which a standby that took over names itself with when fencing.
+   *
+   * @return The instance id
+   * @since 1.19
+   */
+  String getInstanceId() {
+    return instanceId;
+  }
+
+  /**
+   * Checks whether the server is running, and has not been drained.
+   *
+   * @return True while the server runs
+   * @since 1.19
+   */
+  boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Returns the threads of the server, for work handed off by the threads that read connections.
+   *
+   * @return The executor
+   * @since 1.20
+   */
+  Executor getExecutor() {
+    return pool;
+  }
+
+  /**
+   * Returns what to tell clients about the standby that takes over if this server fails.
+   *
+   * @return The notice, or null if there is no standby
+   * @since 1.19
+   */
+  String getStandbyNotice() {
+    return standbyNotice;
+  }
+
+  /**
+   * Sends an ephemeral signal to every user that has joined the chat.
+   * Unlike a broadcast, the signal is neither numbered nor kept for replay, and goes out after
+   * everything else queued for a connection. Users who are parked or behind on broadcasts do not get it.
+   * Users behind a gateway are reached with a single frame per gateway link.
+   *
+   * @param message The signal to send
+   * @since 1.14
+   */
+  void signal(String message) {
+    resumableChannels.values().forEach(channel -> channel.signal(message));
+    gatewayLinks.forEach(link -> link.signal(message));
+  }
+
+  /**
+   * Checks whether chat messages are being broadcast right now.
+   *
+   * @return True if at least one chat broadcast is in progress
+   * @since 1.4
+   */
+  boolean isBroadcastingChat() {
+    return chatBroadcasts.get() > 0;
+  }
+
+  /**
+   * Returns the number of connected users, including those behind gateways.
+   *
+   * @return The number of connected users
+   * @since 1.4
+   */
+  public int getClientCount() {
+    return sessions.size();
+  }
+
+  /**
+   * Returns the presence coalescer, which announces users joining and leaving.
+   *
+   * @return The presence coalescer
+   * @since 1.4
+   */
+  public PresenceCoalescer getPresence() {
+    return presence;
+  }
+
+  /**
+   * Returns the typing coalescer, which tells everyone who is typing.
+   *
+   * @return The typing coalescer
+   * @since 1.14
+   */
+  public TypingCoalescer getTyping() {
+    return typing;
+  }
+
+  /**
+   * Returns the latencies clients reported for traced messages.
+   *
+   * @return The latency reports
+   * @since 1.16
+   */
+  public LatencyReports getLatency() {
+    return latency;
+  }
+
+  /**
+   * Returns the latest broadcasts, for clients catching up on what they missed.
+   *
+   * @return The history
+   * @since 1.18
+   */
+  public ChatHistory getHistory() {
+    return history;
+  }
+
+  /**
+   * Returns the interceptor stages chat messages and broadcasts pass through.
+   *
+   * @return The interceptor pipeline
+   * @since 1.15
+   */
+  public InterceptorPipeline getInterceptors() {
+    return interceptors;
+  }
+
+  /**
+   * Returns the recorder of the traffic of the server, which records nothing unless configured to.
+   *
+   * @return The traffic recorder
+   * @since 1.17
+   */
+  public TrafficRecorder getRecorder() {
+    return recorder;
+  }
+
+  /**
+   * Shuts down the server and all connected clients.
+   * Drains the server with the default deadline and retry-after hint.
+   *
+   * @since 1.0
+   */
+  public void shutdown() {
+    drain(DRAIN_DEADLINE_MILLIS.get(), DRAIN_RETRY_AFTER_SECONDS.get());
+  }
+
+  /**
+   * Drains the server.
+   * Stops accepting new connections, then sends every client a single closing notice
+   * with a retry-after hint, flushes it and closes the socket, for all clients in parallel.
+   * Clients that are not closed within the deadline have their sockets closed forcibly.
+   * No leave messages are broadcast while draining.
+   *
+   * @param deadlineMillis The maximum time to spend closing clients
+   * @param retryAfterSeconds How long clients should wait before reconnecting
+   * @return A report of the drain, also recorded in the server metrics
+   * @since 1.3
+   */
+  public synchronized DrainReport drain(long deadlineMillis, int retryAfterSeconds) {
+    if (drainReport != null) {
+      return drainReport;  // Already drained
+    }
+    long start = System.nanoTime();
+    running = false;
+    Standby following = standby;
+    if (following != null) {
+      following.close();
+    }
+    try {
+      if (serverSocket != null && !serverSocket.isClosed()) {
+        serverSocket.close();
+      }
+      if (linkSocket != null && !linkSocket.isClosed()) {
+        linkSocket.close();
+      }
+      if (replicationSocket != null && !replicationSocket.isClosed()) {
+        replicationSocket.close();
+      }
+      if (reattachSocket != null && !reattachSocket.isClosed()) {
+        reattachSocket.close();
+      }
+    } catch (IOException ignored) {/* Ignored */}
+    new ArrayList<>(standbys).forEach(ReplicationLink::close);  // Before any session closes, so standbys keep them
+
+    List<ClientHandler> draining = new ArrayList<>(clients);
+    List<GatewayLink> drainingLinks = new ArrayList<>(gatewayLinks);
+    int users = draining.size() + drainingLinks.stream().mapToInt(GatewayLink::getStreamCount).sum();
+    String notice = SERVER_CLOSING_NOTICE + " " + retryAfterSeconds;
+    ExecutorService closers = Executors.newFixedThreadPool(
+        Math.max(1, Math.min(DRAIN_PARALLELISM.get(), draining.size() + drainingLinks.size())));
+
+    List<Future<?>> closing = new ArrayList<>(draining.size());
+    for (ClientHandler clientHandler : draining) {
+      closing.add(closers.submit(() -> clientHandler.close(notice)));
+    }
+    List<Future<?>> closingLinks = new ArrayList<>(drainingLinks.size());
+    for (GatewayLink link : drainingLinks) {
+      closingLinks.add(closers.submit(() -> link.close(notice)));
+    }
+    closers.shutdown();
+
+    int forced = 0;
+    try {
+      if (!closers.awaitTermination(deadlineMillis, TimeUnit.MILLISECONDS)) {
+        closers.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      closers.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    for (int i = 0; i < draining.size(); i++) {
+      if (!closing.get(i).isDone() || closing.get(i).isCancelled()) {
+        draining.get(i).closeSocket();
+        forced++;
+      }
+    }
+    for (int i = 0; i < drainingLinks.size(); i++) {
+      if (!closingLinks.get(i).isDone() || closingLinks.get(i).isCancelled()) {
+        drainingLinks.get(i).closeSocket();
+        forced++;
+      }
+    }
+    clients.clear();
+    sessions.clear();
+    resumableChannels.clear();
+    gatewayLinks.clear();
+    presence.shutdown();
+    typing.shutdown();
+    interceptors.shutdown();
+    admission.shutdown();
+    recorder.close();
+    if (timingWheel != null) {
+      timingWheel.stop();
+    }
+    if (attachments != null) {
+      attachments.close();
+    }
+
+    if (pool != null) {
+      pool.shutdown();
+    }
+    if (broadcastWriters != null) {
+      broadcastWriters.shutdown();
+    }
+
+    drainReport = new DrainReport(
+        users, forced, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    metrics.drained(drainReport);
+    LOG.info("server.drained", "clients", drainReport.clients(), "forced", drainReport.forced(),
+        "millis", drainReport.durationMillis());
+    return drainReport;
+  }
+
+  /**
+   * Returns all metrics of the server along with its current gauges, by name.
+   * This is what administrators see with {@code /stats}.
+   *
+   * @return The metrics and gauges
+   * @since 1.5
+   */
+  public Map<String, Long> getStats() {
+    Map<String, Long> stats = metrics.snapshot();
+    stats.put("clients.connected", (long) clients.size());
+    stats.put("sessions.active", (long) sessions.size());
+    stats.put("gateway.links", (long) gatewayLinks.size());
+    stats.put("replication.standbys", (long) standbys.size());
+    stats.put("resume.waiting",
+        resumableChannels.values().stream().filter(ResumableChannel::isParked).count());
+    BroadcastRing ring = broadcastRing;
+    stats.put("broadcast.sequence", ring == null ? 0L : ring.getHead());
+    stats.put("broadcast.subscribers", ring == null ? 0L : ring.getSubscriberCount());
+    stats.put("broadcast.max_lag", ring == null ? 0L : ring.getMaxLag());
+    stats.put("heartbeat.scheduled", timingWheel == null ? 0L : timingWheel.size());
+    stats.put("handshake.in_flight", (long) admission.getHandshakesInFlight());
+    stats.put("handshake.queued", (long) admission.getQueuedHandshakes());
+    stats.put("eventlog.dropped", EventLog.getDroppedEvents());
+    stats.putAll(BufferPool.direct().snapshot());
+    stats.putAll(BufferPool.heap().snapshot());
+    stats.putAll(interceptors.snapshot());
+    stats.putAll(latency.snapshot());
+    stats.putAll(recorder.snapshot());
+    AttachmentStore store = attachments;
+    if (store != null) {
+      stats.putAll(store.snapshot());
+    }
+    return stats;
+  }
+
+  /**
+   * Returns how connections to the server are protected.
+   *
+   * @return The transport mode
+   * @since 1.7
+   */
+  public TransportMode getTransport() {
+    return transport;
+  }
+
+  /**
+   * Returns the ring every broadcast is published to.
+   * Directly connected clients and gateway links each read it at their own cursor.
+   *
+   * @return The broadcast ring, or null if the server has not been started
+   * @since 1.9
+   */
+  @Override
+  public BroadcastRing getBroadcastRing() {
+    return broadcastRing;
+  }
+
+  /**
+   * Returns the store of the attachments users share.
+   *
+   * @return The attachment store, or null if the server has not been started
+   * @since 1.13
+   */
+  public AttachmentStore getAttachments() {
+    return attachments;
+  }
+
+  /**
+   * Returns the admission control, which limits connections and handshakes in flight.
+   *
+   * @return The admission control
+   * @since 1.6
+   */
+  @Override
+  public AdmissionControl getAdmission() {
+    return admission;
+  }
+
+  /**
+   * Returns the timing wheel used for heartbeats and other connection timeouts.
+   *
+   * @return The timing wheel, or null if the server has not been started
+   * @since 1.5
+   */
+  @Override
+  public TimingWheel getTimingWheel() {
+    return timingWheel;
+  }
+
+  /**
+   * Returns the metrics of the server.
+   *
+   * @return The server metrics
+   * @since 1.3
+   */
+  @Override
+  public ServerMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Returns a stream of all connected users, including those behind gateways.
+   *
+   * @return A stream of the chat sessions of all users
+   * @since 1.0
+   */
+  public Stream<ChatSession> getSessions() {
+    return sessions.stream();
+  }
+
+  /**
+   * Opens the chat session of a client that connected directly and completed its handshake.
+   *
+   * @param channel The channel to reach the client through
+   * @return The chat session, or null if the server is shutting down
+   * @since 1.8
+   */
+  @Override
+  public Session openSession(ResumableChannel channel) {
+    return openChatSession(channel);
+  }
+
+  @Override
+  public Map<String, ResumableChannel> getResumableChannels() {
+    return resumableChannels;
+  }
+
+  /**
+   * Opens the chat session of a user.
+   *
+   * @param channel The way to reach the user
+   * @return The chat session, or null if the server is shutting down
+   * @since 1.8
+   */
+  ChatSession openChatSession(SessionChannel channel) {
+    if (!running) {
+      return null;
+    }
+    ChatSession session = new ChatSession(this, channel);
+    sessions.add(session);
+    return session;
+  }
+
+  /**
+   * Restores the chat session of a user that joined on a failed server, once this server took over.
+   *
+   * @param channel The way to reach the user, parked
+   * @param username The username
+   * @param administrator Whether the user logged in with the administrator password
+   * @return The chat session, or null if the server is shutting down
+   * @since 1.19
+   */
+  ChatSession restoreChatSession(SessionChannel channel, String username, boolean administrator) {
+    if (!running) {
+      return null;
+    }
+    ChatSession session = new ChatSession(this, channel, username, administrator);
+    sessions.add(session);
+    return session;
+  }
+
+  /**
+   * Removes the chat session of a user that left.
+   *
+   * @param session The session to remove
+   * @since 1.8
+   */
+  void removeSession(ChatSession session) {
+    sessions.remove(session);
+  }
+
+  /**
+   * Removes the link of a gateway that disconnected or was closed.
+   *
+   * @param link The link to remove
+   * @since 1.8
+   */
+  void removeGatewayLink(GatewayLink link) {
+    gatewayLinks.remove(link);
+  }
+
+  /**
+   * Removes a client from the server.
+   *
+   * @param clientHandler The client to remove
+   * @since 1.2
+   */
+  @Override
+  public void removeClient(ClientHandler clientHandler) {
+    if (clients.remove(clientHandler)) {
+      metrics.connectionClosed();
+    }
+  }
+
+  /**
+   * Starts the server.
+   * The server is drained when the JVM is asked to shut down, for example by SIGTERM.
+   *
+   * @param args The command line arguments, discarded
+   * @since 1.3
+   */
+  public static void main(String[] args) {
+    Server server = new Server();
+    Runtime.getRuntime().addShutdownHook(new Thread(server::shutdown, "server-drain"));
+    server.run();
+  }
+}
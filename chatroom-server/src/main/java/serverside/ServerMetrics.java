@@ -0,0 +1,220 @@
+package serverside;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing the state of the server, readable by administrators with {@code /stats}.
+ *
+ * @version 1.4
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class ServerMetrics {
+  private final LongAdder connectionsAccepted = new LongAdder();
+  private final LongAdder connectionsClosed = new LongAdder();
+  private final LongAdder connectionsEvicted = new LongAdder();
+  private final LongAdder connectionsRejectedFull = new LongAdder();
+  private final LongAdder connectionsRejectedBusy = new LongAdder();
+  private final LongAdder handshakeTimeouts = new LongAdder();
+  private final LongAdder pingsSent = new LongAdder();
+  private final LongAdder broadcastOverruns = new LongAdder();
+  private final LongAdder sessionsParked = new LongAdder();
+  private final LongAdder sessionsResumed = new LongAdder();
+  private final LongAdder sessionsExpired = new LongAdder();
+  private final LongAdder resumesFailed = new LongAdder();
+  private final LongAdder signalsSent = new LongAdder();
+  private final LongAdder signalsDropped = new LongAdder();
+  private final LongAdder messagesDropped = new LongAdder();
+  private final AtomicLong lastDrainMillis = new AtomicLong(-1);
+  private final AtomicLong lastDrainClients = new AtomicLong();
+  private final AtomicLong lastDrainForced = new AtomicLong();
+
+  /**
+   * Record an accepted connection.
+   *
+   * @since 1.0
+   */
+  public void connectionAccepted() {
+    connectionsAccepted.increment();
+  }
+
+  /**
+   * Record a closed connection.
+   *
+   * @since 1.0
+   */
+  public void connectionClosed() {
+    connectionsClosed.increment();
+  }
+
+  /**
+   * Record a connection evicted for not answering heartbeats.
+   *
+   * @since 1.0
+   */
+  public void connectionEvicted() {
+    connectionsEvicted.increment();
+  }
+
+  /**
+   * Record a subscriber that fell too far behind the broadcast ring.
+   *
+   * @since 1.1
+   */
+  public void broadcastOverrun() {
+    broadcastOverruns.increment();
+  }
+
+  /**
+   * Record a session kept for its client to resume after the connection was lost.
+   *
+   * @since 1.2
+   */
+  public void sessionParked() {
+    sessionsParked.increment();
+  }
+
+  /**
+   * Record a session resumed on a new connection.
+   *
+   * @since 1.2
+   */
+  public void sessionResumed() {
+    sessionsResumed.increment();
+  }
+
+  /**
+   * Record a parked session that ended without being resumed.
+   *
+   * @since 1.2
+   */
+  public void sessionExpired() {
+    sessionsExpired.increment();
+  }
+
+  /**
+   * Record a client that could not resume its session, and has to log in again.
+   *
+   * @since 1.2
+   */
+  public void resumeFailed() {
+    resumesFailed.increment();
+  }
+
+  /**
+   * Record a connection rejected because the connection cap was reached.
+   *
+   * @since 1.0
+   */
+  public void connectionRejectedFull() {
+    connectionsRejectedFull.increment();
+  }
+
+  /**
+   * Record a connection rejected because no handshake slot became free in time.
+   *
+   * @since 1.0
+   */
+  public void connectionRejectedBusy() {
+    connectionsRejectedBusy.increment();
+  }
+
+  /**
+   * Record a connection closed for not completing a handshake phase in time.
+   *
+   * @since 1.0
+   */
+  public void handshakeTimedOut() {
+    handshakeTimeouts.increment();
+  }
+
+  /**
+   * Record a heartbeat ping sent to an idle connection.
+   *
+   * @since 1.0
+   */
+  public void pingSent() {
+    pingsSent.increment();
+  }
+
+  /**
+   * Record an ephemeral signal written to a user or a gateway.
+   *
+   * @since 1.3
+   */
+  public void signalSent() {
+    signalsSent.increment();
+  }
+
+  /**
+   * Record an ephemeral signal dropped because its recipient was parked or behind on broadcasts.
+   *
+   * @since 1.3
+   */
+  public void signalDropped() {
+    signalsDropped.increment();
+  }
+
+  /**
+   * Record a chat message dropped because too many of its sender's messages were still in the interceptor stages.
+   *
+   * @since 1.4
+   */
+  public void messageDropped() {
+    messagesDropped.increment();
+  }
+
+  /**
+   * Record the outcome of a drain.
+   *
+   * @param report The drain report
+   * @since 1.0
+   */
+  public void drained(DrainReport report) {
+    lastDrainMillis.set(report.durationMillis());
+    lastDrainClients.set(report.clients());
+    lastDrainForced.set(report.forced());
+  }
+
+  /**
+   * Get the duration of the last drain.
+   *
+   * @return The duration in milliseconds, or -1 if the server has not been drained
+   * @since 1.0
+   */
+  public long getLastDrainMillis() {
+    return lastDrainMillis.get();
+  }
+
+  /**
+   * Get all metrics by name, in a stable order.
+   *
+   * @return The metrics
+   * @since 1.0
+   */
+  public Map<String, Long> snapshot() {
+    Map<String, Long> metrics = new LinkedHashMap<>();
+    metrics.put("connections.accepted", connectionsAccepted.sum());
+    metrics.put("connections.closed", connectionsClosed.sum());
+    metrics.put("connections.evicted", connectionsEvicted.sum());
+    metrics.put("connections.rejected_full", connectionsRejectedFull.sum());
+    metrics.put("connections.rejected_busy", connectionsRejectedBusy.sum());
+    metrics.put("handshake.timeouts", handshakeTimeouts.sum());
+    metrics.put("heartbeat.pings_sent", pingsSent.sum());
+    metrics.put("broadcast.overruns", broadcastOverruns.sum());
+    metrics.put("resume.parked", sessionsParked.sum());
+    metrics.put("resume.resumed", sessionsResumed.sum());
+    metrics.put("resume.expired", sessionsExpired.sum());
+    metrics.put("resume.failed", resumesFailed.sum());
+    metrics.put("signal.sent", signalsSent.sum());
+    metrics.put("signal.dropped", signalsDropped.sum());
+    metrics.put("message.dropped", messagesDropped.sum());
+    metrics.put("drain.last_millis", lastDrainMillis.get());
+    metrics.put("drain.last_clients", lastDrainClients.get());
+    metrics.put("drain.last_forced", lastDrainForced.get());
+    return metrics;
+  }
+}
@@ -0,0 +1,61 @@
+package serverside;
+
+/**
+ * What a connection hands the messages of its user to, once the connection is secured.
+ * On the server this is the user's chat session; on a gateway it is a stream to the server.
+ *
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public interface Session {
+
+  /**
+   * Handles a decrypted line from the user.
+   *
+   * @param input The line
+   * @since 1.0
+   */
+  void onLine(String input);
+
+  /**
+   * Checks whether the user has logged in and receives chat broadcasts.
+   *
+   * @return True if the user joined the chat
+   * @since 1.0
+   */
+  boolean isJoined();
+
+  /**
+   * Called once the client resumed the session on a new connection.
+   *
+   * @param lastBroadcast The number of the last broadcast the client received, 0 if it did not say
+   * @since 1.1
+   */
+  default void resumed(long lastBroadcast) {}
+
+  /**
+   * Ends the session because the user quit or the connection was lost.
+   * Only the first call to this, {@link #close(String)} or {@link #evicted()} has any effect.
+   *
+   * @since 1.0
+   */
+  void shutdown();
+
+  /**
+   * Ends the session quietly, as part of draining.
+   * Nothing is sent to other users.
+   *
+   * @param notice A notice to send to the user before closing, or null for none
+   * @since 1.0
+   */
+  void close(String notice);
+
+  /**
+   * Ends the session because the connection stopped answering.
+   * Nothing more is written to the connection.
+   *
+   * @since 1.0
+   */
+  void evicted();
+}
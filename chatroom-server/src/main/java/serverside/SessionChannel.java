@@ -0,0 +1,42 @@
+package serverside;
+
+/**
+ * The way a chat session reaches its user.
+ * Either a connection of its own, or a stream multiplexed over a gateway link.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public interface SessionChannel {
+
+  /**
+   * Sends a message to the user.
+   *
+   * @param message The message to send
+   * @since 1.0
+   */
+  void send(String message);
+
+  /**
+   * Closes the channel, after anything already sent.
+   *
+   * @since 1.0
+   */
+  void disconnect();
+
+  /**
+   * Called once the user has joined the chat and should receive broadcasts from now on.
+   *
+   * @since 1.0
+   */
+  default void joined() {}
+
+  /**
+   * Describes where the user connects from, for logging.
+   *
+   * @return The remote address of the user
+   * @since 1.0
+   */
+  String getRemoteAddress();
+}
@@ -0,0 +1,311 @@
+package serverside;
+
+import static config.ConnectionConfig.PORT;
+import static config.ReplicationConfig.ADVERTISED_HOST;
+import static config.ReplicationConfig.FAILOVER_TIMEOUT_MILLIS;
+import static config.ReplicationConfig.PRIMARY_HOST;
+import static config.ReplicationConfig.REATTACH_PORT;
+import static config.ReplicationConfig.RECORD_BROADCAST;
+import static config.ReplicationConfig.RECORD_LEFT;
+import static config.ReplicationConfig.RECORD_PING;
+import static config.ReplicationConfig.RECORD_SESSION;
+import static config.ReplicationConfig.RECORD_STANDBY;
+import static config.ReplicationConfig.RECORD_STEP_DOWN;
+import static config.ReplicationConfig.REPLICATION_HELLO;
+import static config.ReplicationConfig.REPLICATION_PORT;
+import static config.ReplicationConfig.REPLICATION_SECRET;
+import static keyGen.KeyConfig.SYMMETRIC_ALGORITHM_CREATE_KEY;
+
+import eventlog.EventLog;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A server following its primary as a hot standby, until it takes over.
+ * The standby keeps the joined users of the primary, with their resume tokens and AES keys,
+ * and the primary's latest broadcasts, as the primary sends them over a replication link.
+ * It accepts no clients while it follows.
+ *
+ * <p>When the link is lost, or the primary stays silent for the failover timeout, the standby reconnects.
+ * A silent primary may only be paused, or slow, so the standby only takes over once the primary cannot be connected to,
+ * and nothing was heard from it for the failover timeout. Every user is then restored as a parked session,
+ * which the user's client resumes without logging in or exchanging keys, see {@link ResumableChannel#restore}.
+ * Users that do not come back within the resume window are told to have left.
+ * Until the primary was reached once, the standby keeps trying, and never takes over.
+ *
+ * <p>A primary that was only cut off from the standby may still be serving when the standby takes over.
+ * Once it took over, the standby keeps trying to reach the old primary, and tells it to step down when it does,
+ * see {@link #fence()}. The old primary then drains, and its clients fail over.
+ *
+ * <p>The standby does not know which messages each client received. Clients resume with the number
+ * of their last broadcast, and are sent the ones they missed from the history.
+ * Replies and whispers the primary sent just before it failed may be lost.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+class Standby {
+  private static final EventLog LOG = EventLog.get(Standby.class);
+
+  private final Server server;
+  private final Map<String, Replica> replicas = new LinkedHashMap<>();  // By resume token
+  private volatile Socket socket;
+  private volatile boolean following;  // Set once the primary accepted the standby
+  private volatile long lastContactNanos;  // When the primary was last connected to, or heard from
+  private volatile boolean closed;
+
+  /**
+   * A joined user of the primary, as the standby restores it.
+   *
+   * @param token The resume token of the session
+   * @param administrator Whether the user logged in with the administrator password
+   * @param key The AES key of the user's connection
+   * @param username The username
+   */
+  private record Replica(String token, boolean administrator, SecretKey key, String username) {}
+
+  /**
+   * Create the standby of a server.
+   *
+   * @param server The server that takes over once the primary fails
+   * @since 1.0
+   */
+  Standby(Server server) {
+    this.server = server;
+  }
+
+  /**
+   * Follows the primary until it fails, or the standby is closed.
+   *
+   * @return True if the standby should take over, false if it was closed
+   * @since 1.0
+   */
+  boolean follow() {
+    LOG.info("standby.starting", "primary", PRIMARY_HOST, "port", REPLICATION_PORT);
+    while (!closed) {
+      try (Socket link = new Socket()) {
+        socket = link;
+        try {
+          link.connect(new InetSocketAddress(PRIMARY_HOST, REPLICATION_PORT), FAILOVER_TIMEOUT_MILLIS);
+        } catch (IOException e) {
+          if (!following || closed) {
+            throw e;
+          }
+          if (System.nanoTime() - lastContactNanos >= TimeUnit.MILLISECONDS.toNanos(FAILOVER_TIMEOUT_MILLIS)) {
+            LOG.warn("standby.primary_lost", "error", e.getMessage());
+            return true;
+          }
+          pause(FAILOVER_TIMEOUT_MILLIS / 10);  // Try again until the primary has been away for the failover timeout
+          continue;
+        }
+        lastContactNanos = System.nanoTime();
+        link.setSoTimeout(FAILOVER_TIMEOUT_MILLIS);
+        if (read(link) && !closed) {
+          LOG.warn("standby.link_lost");
+          continue;  // Reconnect right away, and take over if the primary is gone
+        }
+      } catch (SocketTimeoutException e) {
+        if (following && !closed) {
+          LOG.warn("standby.primary_silent", "millis", FAILOVER_TIMEOUT_MILLIS);
+          continue;  // Only taken over once it cannot be connected to
+        }
+      } catch (IOException e) {
+        if (following && !closed) {
+          LOG.warn("standby.link_lost", "error", e.getMessage());
+          continue;
+        }
+      }
+      pause(FAILOVER_TIMEOUT_MILLIS);  // The primary was not reached, or refused the standby
+    }
+    return false;
+  }
+
+  /**
+   * Waits before trying the primary again. An interrupt closes the standby.
+   *
+   * @param millis How long to wait
+   * @since 1.0
+   */
+  private void pause(long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      closed = true;
+    }
+  }
+
+  /**
+   * Names the standby to the primary, and applies the records of the primary until the link closes.
+   * The first record starts a fresh snapshot.
+   *
+   * @param link The socket of the link
+   * @return True if the primary accepted the standby, false if it closed the link right away
+   * @throws IOException If the link is lost, or the primary stays silent
+   * @since 1.0
+   */
+  private boolean read(Socket link) throws IOException {
+    PrintWriter out = new PrintWriter(new BufferedWriter(
+        new OutputStreamWriter(link.getOutputStream(), StandardCharsets.UTF_8)));
+    BufferedReader in = new BufferedReader(new InputStreamReader(link.getInputStream(), StandardCharsets.UTF_8));
+    out.println(REPLICATION_HELLO + " " + REPLICATION_SECRET);
+    out.println(new ReplicationRecord(RECORD_STANDBY, ADVERTISED_HOST + " " + PORT + " " + REATTACH_PORT).encode());
+    out.flush();
+
+    String line = in.readLine();
+    if (line == null) {
+      LOG.warn("standby.rejected");  // Most likely a different secret
+      return false;
+    }
+    synchronized (replicas) {
+      replicas.clear();
+    }
+    following = true;
+    LOG.info("standby.following", "primary", PRIMARY_HOST);
+    while ((line = in.readLine()) != null) {
+      lastContactNanos = System.nanoTime();
+      ReplicationRecord record = ReplicationRecord.parse(line);
+      if (record == null) {
+        LOG.warn("standby.malformed_record");
+        continue;
+      }
+      apply(record);
+    }
+    return true;
+  }
+
+  /**
+   * Applies a record of the primary.
+   *
+   * @param record The record
+   * @since 1.0
+   */
+  private void apply(ReplicationRecord record) {
+    switch (record.type()) {
+      case RECORD_SESSION -> {
+        String[] parts = record.payload() == null ? new String[0] : record.payload().split(" ", 4);
+        if (parts.length < 4) {
+          LOG.warn("standby.malformed_record", "type", record.type());
+          return;
+        }
+        SecretKey key;
+        try {
+          key = new SecretKeySpec(Base64.getDecoder().decode(parts[2]), SYMMETRIC_ALGORITHM_CREATE_KEY);
+        } catch (IllegalArgumentException e) {
+          LOG.warn("standby.malformed_record", "type", record.type());
+          return;
+        }
+        synchronized (replicas) {
+          replicas.put(parts[0], new Replica(parts[0], parts[1].equals("1"), key, parts[3]));
+        }
+      }
+      case RECORD_LEFT -> {
+        synchronized (replicas) {
+          replicas.remove(record.payload());
+        }
+      }
+      case RECORD_BROADCAST -> {
+        String[] parts = record.payload() == null ? new String[0] : record.payload().split(" ", 2);
+        try {
+          server.getHistory().put(Long.parseLong(parts[0]), parts.length > 1 ? parts[1] : "");
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+          LOG.warn("standby.malformed_record", "type", record.type());
+        }
+      }
+      case RECORD_PING -> {
+        // Only keeps the link from timing out
+      }
+      default -> LOG.warn("standby.unknown_record", "type", record.type());
+    }
+  }
+
+  /**
+   * Takes over from the failed primary: numbers broadcasts from now on,
+   * and restores the session of every user, parked until its client resumes it.
+   *
+   * @return The number of sessions restored
+   * @since 1.0
+   */
+  int takeOver() {
+    server.getHistory().renumberFrom(System.currentTimeMillis() * 1000);
+    int restored = 0;
+    synchronized (replicas) {
+      for (Replica replica : replicas.values()) {
+        if (ResumableChannel.restore(server, replica.token(), replica.key(), replica.username(),
+            replica.administrator()) != null) {
+          restored++;
+        }
+      }
+      replicas.clear();
+    }
+    LOG.info("standby.took_over", "sessions", restored);
+    return restored;
+  }
+
+  /**
+   * Tells the old primary to step down, once the standby took over, for as long as the server runs.
+   * Tries every failover timeout until the old primary confirms, or the replication port of its host
+   * turns out to be this server's own, which means the old primary is not running there any more.
+   * The old primary drains, and its clients fail over to this server.
+   *
+   * @since 1.0
+   */
+  void fence() {
+    String stepDown = new ReplicationRecord(RECORD_STEP_DOWN, server.getInstanceId()).encode();
+    while (server.isRunning()) {
+      try (Socket link = new Socket()) {
+        link.connect(new InetSocketAddress(PRIMARY_HOST, REPLICATION_PORT), FAILOVER_TIMEOUT_MILLIS);
+        link.setSoTimeout(FAILOVER_TIMEOUT_MILLIS);
+        PrintWriter out = new PrintWriter(new BufferedWriter(
+            new OutputStreamWriter(link.getOutputStream(), StandardCharsets.UTF_8)));
+        out.println(REPLICATION_HELLO + " " + REPLICATION_SECRET);
+        out.println(stepDown);
+        out.flush();
+        String reply = new BufferedReader(new InputStreamReader(link.getInputStream(), StandardCharsets.UTF_8))
+            .readLine();
+        if (reply == null) {
+          LOG.info("standby.fence_done", "reason", "own_port");
+        } else {
+          LOG.warn("standby.fenced_primary", "primary", PRIMARY_HOST);
+        }
+        return;
+      } catch (IOException e) {
+        // The old primary cannot be reached, and cannot be serving clients that reach it either
+      }
+      pause(FAILOVER_TIMEOUT_MILLIS);
+      if (closed) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Stops following the primary, when the server shuts down before it took over.
+   *
+   * @since 1.0
+   */
+  void close() {
+    closed = true;
+    Socket link = socket;
+    if (link != null) {
+      try {
+        link.close();
+      } catch (IOException ignored) {/* Ignored */}
+    }
+  }
+}
@@ -0,0 +1,310 @@
+package serverside;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel for tracking large numbers of coarse timeouts.
+ * The wheel is a ring of buckets, each holding the timeouts that expire on that tick,
+ * possibly some rounds later.
+ * Scheduling and cancelling a timeout is O(1) no matter how many are pending,
+ * and a single worker thread advances the wheel, handing expired tasks to an executor.
+ * Timeouts fire up to one tick late.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class TimingWheel implements Runnable {
+  private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+  private final long tickNanos;
+  private final Bucket[] buckets;
+  private final int mask;
+  private final Executor executor;
+  private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger size = new AtomicInteger();
+  private final long startNanos = System.nanoTime();
+  private final Thread worker;
+
+  private volatile boolean running = true;
+  private long tick;  // Only touched by the worker
+
+  /**
+   * A scheduled task that can be cancelled until it expires.
+   *
+   * @since 1.0
+   */
+  public static final class Timeout {
+    private static final int WAITING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final TimingWheel wheel;
+    private final Runnable task;
+    private final long deadlineNanos;
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+    private long remainingRounds;
+    private Bucket bucket;
+    private Timeout previous;
+    private Timeout next;
+
+    private Timeout(TimingWheel wheel, Runnable task, long deadlineNanos) {
+      this.wheel = wheel;
+      this.task = task;
+      this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Cancel the timeout, unless it has already expired.
+     *
+     * @return True if the timeout was cancelled by this call
+     * @since 1.0
+     */
+    public boolean cancel() {
+      if (!state.compareAndSet(WAITING, CANCELLED)) {
+        return false;
+      }
+      wheel.cancelled.add(this);
+      return true;
+    }
+
+    /**
+     * Check whether the timeout was cancelled.
+     *
+     * @return True if the timeout was cancelled
+     * @since 1.0
+     */
+    public boolean isCancelled() {
+      return state.get() == CANCELLED;
+    }
+  }
+
+  /**
+   * A doubly linked list of the timeouts in one slot of the wheel.
+   *
+   * @since 1.0
+   */
+  private static final class Bucket {
+    private Timeout head;
+    private Timeout tail;
+
+    private void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = tail = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.previous = tail;
+        tail = timeout;
+      }
+    }
+
+    private Timeout remove(Timeout timeout) {
+      Timeout next = timeout.next;
+      if (timeout.previous != null) {
+        timeout.previous.next = next;
+      }
+      if (timeout.next != null) {
+        timeout.next.previous = timeout.previous;
+      }
+      if (timeout == head) {
+        head = next;
+      }
+      if (timeout == tail) {
+        tail = timeout.previous;
+      }
+      timeout.previous = null;
+      timeout.next = null;
+      timeout.bucket = null;
+      return next;
+    }
+  }
+
+  /**
+   * Create and start a timing wheel.
+   *
+   * @param name The name of the worker thread
+   * @param tickMillis The duration of one tick, the resolution of the wheel
+   * @param wheelSize The number of buckets, rounded up to a power of two
+   * @param executor The executor running expired tasks
+   * @since 1.0
+   */
+  public TimingWheel(String name, long tickMillis, int wheelSize, Executor executor) {
+    this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+    int normalizedSize = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+    this.buckets = new Bucket[normalizedSize];
+    for (int i = 0; i < normalizedSize; i++) {
+      buckets[i] = new Bucket();
+    }
+    this.mask = normalizedSize - 1;
+    this.executor = executor;
+
+    worker = new Thread(this, name);
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Schedule a task to run once the delay has passed.
+   *
+   * @param task The task to run
+   * @param delayMillis The delay in milliseconds
+   * @return The timeout, which can be used to cancel the task
+   * @since 1.0
+   */
+  public Timeout schedule(Runnable task, long delayMillis) {
+    long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+    Timeout timeout = new Timeout(this, task, deadline);
+    size.incrementAndGet();
+    pending.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Get the number of timeouts that have neither expired nor been cancelled.
+   *
+   * @return The number of pending timeouts
+   * @since 1.0
+   */
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * Stop the wheel. Pending timeouts never fire.
+   *
+   * @since 1.0
+   */
+  public void stop() {
+    running = false;
+    worker.interrupt();
+  }
+
+  /**
+   * The run method is called when the thread is started.
+   * Advances the wheel one tick at a time, expiring the timeouts of each bucket.
+   *
+   * @since 1.0
+   */
+  @Override
+  public void run() {
+    while (running) {
+      long deadline = waitForNextTick();
+      if (deadline < 0) {
+        continue;
+      }
+      removeCancelled();
+      transferPending();
+      expire(buckets[(int) (tick & mask)], deadline);
+      tick++;
+    }
+  }
+
+  /**
+   * Sleep until the next tick is due.
+   *
+   * @return The time of the tick relative to the start of the wheel, or -1 if interrupted
+   * @since 1.0
+   */
+  private long waitForNextTick() {
+    long deadline = tickNanos * (tick + 1);
+    while (true) {
+      long current = System.nanoTime() - startNanos;
+      long sleepMillis = TimeUnit.NANOSECONDS.toMillis(deadline - current + 999_999);
+      if (sleepMillis <= 0) {
+        return current;
+      }
+      try {
+        Thread.sleep(sleepMillis);
+      } catch (InterruptedException e) {
+        if (!running) {
+          return -1;
+        }
+      }
+    }
+  }
+
+  /**
+   * Move newly scheduled timeouts into their buckets.
+   *
+   * @since 1.0
+   */
+  private void transferPending() {
+    for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+      Timeout timeout = pending.poll();
+      if (timeout == null) {
+        return;
+      }
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      long expiryTick = timeout.deadlineNanos / tickNanos;
+      timeout.remainingRounds = (expiryTick - tick) / buckets.length;
+      long targetTick = Math.max(expiryTick, tick);  // Never schedule into the past
+      buckets[(int) (targetTick & mask)].add(timeout);
+    }
+  }
+
+  /**
+   * Unlink cancelled timeouts from their buckets.
+   *
+   * @since 1.0
+   */
+  private void removeCancelled() {
+    Timeout timeout;
+    while ((timeout = cancelled.poll()) != null) {
+      size.decrementAndGet();
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  /**
+   * Expire the timeouts of a bucket that are due, and count down the rounds of the rest.
+   *
+   * @param bucket The bucket of the current tick
+   * @param deadline The time of the current tick
+   * @since 1.0
+   */
+  private void expire(Bucket bucket, long deadline) {
+    Timeout timeout = bucket.head;
+    while (timeout != null) {
+      if (timeout.remainingRounds > 0) {
+        timeout.remainingRounds--;
+        timeout = timeout.next;
+        continue;
+      }
+      if (timeout.deadlineNanos > deadline) {
+        timeout = timeout.next;  // Not due yet, can only happen through clock rounding
+        continue;
+      }
+      Timeout next = bucket.remove(timeout);
+      if (timeout.state.compareAndSet(Timeout.WAITING, Timeout.EXPIRED)) {
+        size.decrementAndGet();
+        dispatch(timeout.task);
+      }
+      timeout = next;
+    }
+  }
+
+  /**
+   * Hand an expired task to the executor.
+   *
+   * @param task The task to run
+   * @since 1.0
+   */
+  private void dispatch(Runnable task) {
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException ignored) {
+      // Executor is shutting down
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package serverside;
+
+import static config.ServerConfig.TYPING_EXPIRY_MILLIS;
+import static config.ServerConfig.TYPING_INTERVAL_MILLIS;
+import static config.ServerConfig.TYPING_NAME_LIMIT;
+import static config.UserConfig.TYPING_COMMAND;
+import static config.UserConfig.TYPING_NAME_SEPARATOR;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tells everyone in the chat who is typing.
+ * Clients signal now and then while their user types. A signal lasts for a while unless repeated,
+ * and ends early when the user sends a message or leaves.
+ * Changes are collected and sent at most once per interval, as one update for the whole chat,
+ * naming the users who type, or only counting them once there are many.
+ * A signal that only extends a user's typing changes nothing, and sends nothing.
+ *
+ * <p>Updates are signals rather than broadcasts: they are not numbered, kept for replay or logged,
+ * and users who are behind on broadcasts miss them, see {@link Server#signal(String)}.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class TypingCoalescer {
+  private final Server server;
+  private final Map<String, Long> typing = new LinkedHashMap<>();  // When each user's signal expires
+
+  private ScheduledExecutorService scheduler;
+  private long nextUpdateMillis = Long.MAX_VALUE;  // When the earliest scheduled update runs
+  private boolean stopped;
+  private long lastUpdateMillis;
+  private String lastUpdate = TYPING_COMMAND + " 0";
+
+  /**
+   * Create a typing coalescer for a server.
+   *
+   * @param server The server to signal to
+   * @since 1.0
+   */
+  public TypingCoalescer(Server server) {
+    this.server = server;
+  }
+
+  /**
+   * Record that a user is typing.
+   *
+   * @param username The user
+   * @since 1.0
+   */
+  public synchronized void typing(String username) {
+    long expires = System.currentTimeMillis() + TYPING_EXPIRY_MILLIS.get();
+    if (typing.put(username, expires) == null) {
+      scheduleUpdate();
+    }
+  }
+
+  /**
+   * Record that a user stopped typing, because they sent their message, left or changed their name.
+   *
+   * @param username The user
+   * @since 1.0
+   */
+  public synchronized void stopped(String username) {
+    if (typing.remove(username) != null) {
+      scheduleUpdate();
+    }
+  }
+
+  /**
+   * Make sure an update is scheduled, no sooner than an interval after the last one.
+   *
+   * @since 1.0
+   */
+  private synchronized void scheduleUpdate() {
+    long due = lastUpdateMillis + TYPING_INTERVAL_MILLIS.get() - System.currentTimeMillis();
+    schedule(Math.max(0, due));
+  }
+
+  /**
+   * Schedule an update, unless one is scheduled to run sooner already.
+   *
+   * @param delayMillis How long from now
+   * @since 1.0
+   */
+  private synchronized void schedule(long delayMillis) {
+    long at = System.currentTimeMillis() + delayMillis;
+    if (stopped || at >= nextUpdateMillis) {
+      return;
+    }
+    if (scheduler == null) {
+      scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "typing-coalescer");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    nextUpdateMillis = at;
+    scheduler.schedule(this::update, delayMillis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Forget expired signals, and send an update if who is typing has changed since the last one.
+   * While anyone is still typing, another update is scheduled for when the first signal expires.
+   *
+   * @since 1.0
+   */
+  private void update() {
+    String update;
+    synchronized (this) {
+      nextUpdateMillis = Long.MAX_VALUE;  // Any update still scheduled runs later
+      long now = System.currentTimeMillis();
+      typing.values().removeIf(expires -> expires <= now);
+      if (!typing.isEmpty()) {
+        long firstExpiry = typing.values().stream().mapToLong(Long::longValue).min().orElse(now);
+        schedule(Math.max(TYPING_INTERVAL_MILLIS.get(), firstExpiry - now));
+      }
+      update = describe();
+      if (update.equals(lastUpdate)) {
+        return;
+      }
+      long due = lastUpdateMillis + TYPING_INTERVAL_MILLIS.get() - now;
+      if (due > 0) {
+        schedule(due);  // Woken early by an update scheduled before the last one was sent
+        return;
+      }
+      lastUpdate = update;
+      lastUpdateMillis = now;
+    }
+    server.signal(update);
+  }
+
+  /**
+   * Build the update, for example {@code /typing 2 alice<TAB>bob}, or {@code /typing 7}.
+   *
+   * @return The update
+   * @since 1.0
+   */
+  private String describe() {
+    if (typing.isEmpty() || typing.size() > TYPING_NAME_LIMIT.get()) {
+      return TYPING_COMMAND + " " + typing.size();
+    }
+    return TYPING_COMMAND + " " + typing.size() + " " + String.join(TYPING_NAME_SEPARATOR, typing.keySet());
+  }
+
+  /**
+   * Stop the coalescer, signalling nothing more.
+   *
+   * @since 1.0
+   */
+  public synchronized void shutdown() {
+    stopped = true;
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+}
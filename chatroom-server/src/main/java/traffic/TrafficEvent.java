@@ -0,0 +1,91 @@
+package traffic;
+
+import java.util.Locale;
+
+/**
+ * One event of a recorded session, as a line of a recording:
+ * {@code <millis> <session> <kind> [<size> [<peer>]]}.
+ * Only the shape of the traffic is recorded, never what users wrote:
+ * chat messages and whispers by their length, whispers with the session they went to.
+ *
+ * @param millis When the event happened, in milliseconds since the recording started
+ * @param session The number of the session in the recording
+ * @param kind What happened
+ * @param size The length of a chat message or whisper, otherwise 0
+ * @param peer The session a whisper went to, otherwise 0
+ * @version 1.1
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public record TrafficEvent(long millis, long session, Kind kind, int size, long peer) {
+
+  /**
+   * What can happen in a session.
+   */
+  public enum Kind {
+    CONNECT,  // The connection completed its handshake
+    JOIN,  // The user logged in
+    CHAT,  // A chat message to everyone
+    WHISPER,  // A private message to another user
+    LIST,  // A request for the list of users
+    NICK,  // A change of username
+    TYPING,  // A typing signal
+    COMMAND,  // Any other command
+    QUIT,  // The user quit, or was kicked
+    DROP;  // The connection was lost and not resumed, or closed by the server
+
+    /**
+     * Returns the name of the kind in recordings.
+     *
+     * @return The name, in lower case
+     * @since 1.0
+     */
+    public String getName() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  /**
+   * Parse an event from a line of a recording.
+   *
+   * @param line The line
+   * @return The event, or null if the line is a comment or malformed
+   * @since 1.0
+   */
+  public static TrafficEvent parse(String line) {
+    if (line.isBlank() || line.startsWith("#")) {
+      return null;
+    }
+    String[] parts = line.trim().split(" ");
+    if (parts.length < 3) {
+      return null;
+    }
+    try {
+      Kind kind = Kind.valueOf(parts[2].toUpperCase(Locale.ROOT));
+      return new TrafficEvent(Long.parseLong(parts[0]), Long.parseLong(parts[1]), kind,
+          parts.length > 3 ? Integer.parseInt(parts[3]) : 0,
+          parts.length > 4 ? Long.parseLong(parts[4]) : 0);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Formats the event as a line of a recording, leaving out a size and peer of 0.
+   *
+   * @return The line, without a line break
+   * @since 1.0
+   */
+  @Override
+  public String toString() {
+    StringBuilder line = new StringBuilder().append(millis).append(' ').append(session)
+        .append(' ').append(kind.getName());
+    if (size > 0 || peer > 0) {
+      line.append(' ').append(size);
+    }
+    if (peer > 0) {
+      line.append(' ').append(peer);
+    }
+    return line.toString();
+  }
+}
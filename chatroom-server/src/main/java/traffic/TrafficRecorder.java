@@ -0,0 +1,212 @@
+package traffic;
+
+import static config.ServerConfig.TRAFFIC_RECORD_FILE;
+import static config.ServerConfig.TRAFFIC_RECORD_QUEUE;
+
+import eventlog.EventLog;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records the shape of the traffic of the server into a file, for {@code benchmark.TrafficReplay}
+ * to drive a server with the same workload later. Every session is numbered, and its connection,
+ * login, messages, commands and leaving are recorded with when they happened, see {@link TrafficEvent}.
+ * A recording whose name ends in {@code .gz} is compressed.
+ *
+ * <p>Sessions hand events to a queue, and a thread of the recorder writes them,
+ * so recording never makes a session wait for the disk. When the queue is full, events are dropped
+ * and counted rather than waited for.
+ *
+ * <p>Without a recording file configured, nothing is recorded and no thread is started.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class TrafficRecorder {
+  private static final EventLog LOG = EventLog.get(TrafficRecorder.class);
+  private static final long POLL_MILLIS = 100;
+
+  private final BlockingQueue<TrafficEvent> queue;  // Null when not recording
+  private final Writer output;
+  private final Thread writer;
+  private final long startMillis = System.currentTimeMillis();
+  private final AtomicLong sessionCounter = new AtomicLong();
+  private final LongAdder recorded = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private volatile boolean running = true;
+
+  /**
+   * Create a recorder writing to a stream, or one that records nothing.
+   *
+   * @param output The stream to write the recording to, or null to record nothing
+   * @param capacity The number of events that may wait to be written
+   * @since 1.0
+   */
+  private TrafficRecorder(OutputStream output, int capacity) {
+    if (output == null) {
+      queue = null;
+      this.output = null;
+      writer = null;
+      return;
+    }
+    queue = new ArrayBlockingQueue<>(capacity);
+    this.output = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    writer = new Thread(this::write, "traffic-recorder");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Create a recorder for the configured recording file.
+   * If there is none, or it cannot be opened, nothing is recorded.
+   *
+   * @return The recorder
+   * @since 1.0
+   */
+  public static TrafficRecorder open() {
+    String file = TRAFFIC_RECORD_FILE;
+    if (file == null || file.isBlank()) {
+      return new TrafficRecorder(null, 0);
+    }
+    try {
+      OutputStream output = new FileOutputStream(file);
+      if (file.endsWith(".gz")) {
+        output = new GZIPOutputStream(output, true);
+      }
+      LOG.info("traffic.recording", "file", file);
+      return new TrafficRecorder(output, TRAFFIC_RECORD_QUEUE);
+    } catch (IOException e) {
+      LOG.error("traffic.open_failed", "file", file, "error", e.getMessage());
+      return new TrafficRecorder(null, 0);
+    }
+  }
+
+  /**
+   * Checks whether traffic is being recorded.
+   *
+   * @return True if events are recorded
+   * @since 1.0
+   */
+  public boolean isRecording() {
+    return queue != null;
+  }
+
+  /**
+   * Numbers a new session and records its connection.
+   *
+   * @return The number of the session in the recording, or 0 when not recording
+   * @since 1.0
+   */
+  public long connected() {
+    if (queue == null) {
+      return 0;
+    }
+    long session = sessionCounter.incrementAndGet();
+    record(session, TrafficEvent.Kind.CONNECT, 0, 0);
+    return session;
+  }
+
+  /**
+   * Records an event of a session.
+   *
+   * @param session The number of the session, 0 for a session that is not recorded
+   * @param kind What happened
+   * @param size The length of a chat message or whisper, otherwise 0
+   * @param peer The session a whisper went to, otherwise 0
+   * @since 1.0
+   */
+  public void record(long session, TrafficEvent.Kind kind, int size, long peer) {
+    if (queue == null || session == 0 || !running) {
+      return;
+    }
+    TrafficEvent event = new TrafficEvent(System.currentTimeMillis() - startMillis, session, kind, size, peer);
+    if (queue.offer(event)) {
+      recorded.increment();
+    } else {
+      dropped.increment();
+    }
+  }
+
+  /**
+   * Writes the header of the recording, then events as they come,
+   * flushing whenever the queue runs empty, until the recorder is closed and every event has been written.
+   *
+   * @since 1.0
+   */
+  private void write() {
+    List<TrafficEvent> batch = new ArrayList<>();
+    try {
+      output.write("# chatroom traffic, recorded from " + startMillis + "\n");
+      while (running || !queue.isEmpty()) {
+        TrafficEvent first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch);
+        for (TrafficEvent event : batch) {
+          output.write(event.toString());
+          output.write('\n');
+        }
+        batch.clear();
+        output.flush();
+      }
+    } catch (IOException e) {
+      running = false;
+      LOG.error("traffic.write_failed", "error", e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      output.close();
+    } catch (IOException ignored) {/* Ignored */}
+  }
+
+  /**
+   * Returns how many events were recorded and dropped.
+   *
+   * @return The counters, by name, or none when not recording
+   * @since 1.0
+   */
+  public Map<String, Long> snapshot() {
+    Map<String, Long> stats = new LinkedHashMap<>();
+    if (queue != null) {
+      stats.put("traffic.recorded", recorded.sum());
+      stats.put("traffic.dropped", dropped.sum());
+    }
+    return stats;
+  }
+
+  /**
+   * Stops recording, and waits briefly for the events recorded so far to be written.
+   *
+   * @since 1.0
+   */
+  public void close() {
+    if (writer == null || !running) {
+      return;
+    }
+    running = false;
+    try {
+      writer.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,301 @@
+package benchmark;
+
+import static config.ConnectionConfig.LOCALHOST;
+import static config.ConnectionConfig.PASSWORD;
+import static config.ConnectionConfig.TRANSPORT;
+import static config.UserConfig.QUIT_COMMAND;
+
+import clientside.backend.Client;
+import clientside.backend.ConnectionFailedException;
+import clientside.backend.LoginResult;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.ObjectName;
+import serverside.Server;
+
+/**
+ * Measures how much memory the server keeps per idle connection, and fails above the target.
+ * A server is started in this process, and a second process connects and logs in
+ * the given number of clients, which then sit idle. So that only the server is measured,
+ * the clients live in the other process.
+ *
+ * <p>The heap is measured by a class histogram of the live objects before and after the clients
+ * joined, which also shows the classes that take the most per connection.
+ * Threads and direct buffer memory per connection are shown apart, since they are not on the heap.
+ * The target, {@value #TARGET_BYTES_PER_CONNECTION} bytes of heap per idle connection,
+ * puts 100,000 idle users at about 400 MiB of heap.
+ *
+ * <p>Every connection costs the server a key pair to set up, which takes a while on few cores;
+ * the keys are dropped once the keys are exchanged, so a smaller key size only speeds the run up:
+ * <pre>
+ * java -Dchatroom.keys.asymmetric_size=1024 -Dchatroom.log.level=WARN benchmark.IdleFootprint [connections]
+ * </pre>
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class IdleFootprint {
+  private static final int PORT = 18691;
+  private static final long TARGET_BYTES_PER_CONNECTION = 4096;
+  private static final int CONNECTING_THREADS = 8;
+  private static final long JOIN_TIMEOUT_MILLIS = 30 * 60_000;
+  private static final long QUIT_TIMEOUT_MILLIS = 5_000;
+  private static final long SETTLE_MILLIS = 3_000;  // For presence updates to go out
+  private static final int TOP_CLASSES = 20;
+  private static final String READY = "ready";
+
+  /**
+   * The live instances and bytes of a class.
+   *
+   * @param instances The number of instances
+   * @param bytes The bytes they take
+   * @version 1.0
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  private record ClassUsage(long instances, long bytes) {}
+
+  /**
+   * Run the benchmark, or hold idle clients for it when started as its second process.
+   *
+   * @param args The number of connections, or {@code --clients <port> <connections>} for the second process
+   * @throws Exception If the benchmark cannot run
+   * @since 1.0
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length == 3 && args[0].equals("--clients")) {
+      holdClients(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+      return;
+    }
+    int connections = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+    Server server = new Server(PORT, TRANSPORT);
+    Thread serverThread = new Thread(server, "footprint-server");
+    serverThread.setDaemon(true);
+    serverThread.start();
+    Thread.sleep(500);  // Let the server bind its port
+    warmUp();
+
+    Map<String, ClassUsage> before = histogram();
+    int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+    long directBefore = directMemory();
+
+    Process clients = startClients(connections);
+    BufferedReader output = new BufferedReader(
+        new InputStreamReader(clients.getInputStream(), StandardCharsets.UTF_8));
+    String line;
+    while ((line = output.readLine()) != null && !line.startsWith(READY)) {
+      System.out.println(line);
+    }
+    long joined = awaitSessions(server, connections);
+    Thread.sleep(SETTLE_MILLIS);
+
+    Map<String, ClassUsage> after = histogram();
+    int threads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+    long direct = directMemory() - directBefore;
+    long heap = total(after) - total(before);
+    Map<String, Long> stats = server.getStats();
+
+    System.out.printf("%d of %d connections joined%n", joined, connections);
+    if (joined == 0) {
+      System.out.println("FAIL no connection joined");
+      System.exit(1);
+    }
+    System.out.printf("heap %d bytes per connection, target %d%n", heap / joined, TARGET_BYTES_PER_CONNECTION);
+    System.out.printf("threads %.2f per connection, direct memory %d bytes per connection%n",
+        (double) threads / joined, direct / joined);
+    System.out.printf("pooled buffers in use: %d direct, %d heap%n",
+        stats.getOrDefault("buffers.direct.in_use", 0L), stats.getOrDefault("buffers.heap.in_use", 0L));
+    System.out.printf("%12s %12s  %s%n", "bytes/conn", "objs/conn", "class");
+    after.entrySet().stream()
+        .map(entry -> Map.entry(entry.getKey(), difference(entry.getValue(), before.get(entry.getKey()))))
+        .sorted(Comparator.comparingLong(
+            (Map.Entry<String, ClassUsage> entry) -> entry.getValue().bytes()).reversed())
+        .limit(TOP_CLASSES)
+        .forEach(entry -> System.out.printf("%12d %12.2f  %s%n", entry.getValue().bytes() / joined,
+            (double) entry.getValue().instances() / joined, entry.getKey()));
+
+    clients.getOutputStream().close();  // Lets the clients go
+    clients.waitFor(1, TimeUnit.MINUTES);
+    server.shutdown();
+
+    boolean passed = joined == connections && heap / joined <= TARGET_BYTES_PER_CONNECTION;
+    System.out.println(passed ? "PASS" : "FAIL");
+    System.exit(passed ? 0 : 1);
+  }
+
+  /**
+   * Logs in and quits once, so that classes loaded and caches filled by the first connection
+   * are not counted against the idle ones.
+   *
+   * @throws ConnectionFailedException If the client cannot connect
+   * @since 1.0
+   */
+  private static void warmUp() throws ConnectionFailedException {
+    Client client = Client.connect(LOCALHOST, PORT, TRANSPORT, true);
+    if (client.attemptLogin(PASSWORD.get(), "warmup") == LoginResult.JOINED) {
+      client.sendSymmetricEncryptedMessage(QUIT_COMMAND);
+      client.awaitDisconnect(QUIT_TIMEOUT_MILLIS);
+    }
+    client.shutdown();
+  }
+
+  /**
+   * Waits for the clients to join the server, or for the time they have to.
+   *
+   * @param server The server
+   * @param connections The number of clients
+   * @return The number of sessions on the server
+   * @throws InterruptedException If interrupted while waiting
+   * @since 1.0
+   */
+  private static long awaitSessions(Server server, int connections) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + JOIN_TIMEOUT_MILLIS;
+    long joined = server.getStats().getOrDefault("sessions.active", 0L);
+    while (joined < connections && System.currentTimeMillis() < deadline) {
+      Thread.sleep(200);
+      joined = server.getStats().getOrDefault("sessions.active", 0L);
+    }
+    return joined;
+  }
+
+  /**
+   * Starts the process holding the clients, with the settings of this one.
+   *
+   * @param connections The number of clients
+   * @return The process
+   * @throws IOException If the process cannot be started
+   * @since 1.0
+   */
+  private static Process startClients(int connections) throws IOException {
+    List<String> command = new ArrayList<>();
+    command.add(ProcessHandle.current().info().command().orElse("java"));
+    System.getProperties().stringPropertyNames().stream()
+        .filter(name -> name.startsWith("chatroom."))
+        .forEach(name -> command.add("-D" + name + "=" + System.getProperty(name)));
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add(IdleFootprint.class.getName());
+    command.add("--clients");
+    command.add(String.valueOf(PORT));
+    command.add(String.valueOf(connections));
+    return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+  }
+
+  /**
+   * Connects and logs in clients, tells the first process once they have, and holds them
+   * until standard input closes.
+   *
+   * @param port The port of the server
+   * @param connections The number of clients
+   * @throws InterruptedException If interrupted while connecting
+   * @throws IOException If standard input cannot be read
+   * @since 1.0
+   */
+  private static void holdClients(int port, int connections) throws InterruptedException, IOException {
+    List<Client> clients = new ArrayList<>(connections);
+    AtomicInteger counter = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+    ExecutorService connecting = Executors.newFixedThreadPool(CONNECTING_THREADS);
+    for (int i = 0; i < connections; i++) {
+      connecting.execute(() -> {
+        try {
+          Client client = Client.connect(LOCALHOST, port, TRANSPORT, true);
+          if (client.attemptLogin(PASSWORD.get(), "idle" + counter.incrementAndGet()) == LoginResult.JOINED) {
+            synchronized (clients) {
+              clients.add(client);
+            }
+          } else {
+            failed.incrementAndGet();
+            client.shutdown();
+          }
+        } catch (ConnectionFailedException e) {
+          failed.incrementAndGet();
+        }
+      });
+    }
+    connecting.shutdown();
+    connecting.awaitTermination(JOIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    System.out.println(READY + " " + clients.size() + " joined, " + failed.get() + " failed");
+    System.out.flush();
+
+    while (System.in.read() >= 0) {
+      // Until the first process is done measuring
+    }
+    clients.forEach(Client::shutdown);
+    System.exit(0);
+  }
+
+  /**
+   * Takes a class histogram of the live objects of this process, after a full garbage collection.
+   *
+   * @return The usage of every class, by class name
+   * @throws Exception If the histogram cannot be taken
+   * @since 1.0
+   */
+  private static Map<String, ClassUsage> histogram() throws Exception {
+    String histogram = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+        new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+        new Object[] {new String[0]}, new String[] {String[].class.getName()});
+    Map<String, ClassUsage> usage = new HashMap<>();
+    for (String line : histogram.split("\n")) {
+      String[] parts = line.trim().split("\\s+");
+      if (parts.length >= 4 && parts[0].endsWith(":")) {
+        usage.merge(parts[3], new ClassUsage(Long.parseLong(parts[1]), Long.parseLong(parts[2])),
+            (a, b) -> new ClassUsage(a.instances() + b.instances(), a.bytes() + b.bytes()));
+      }
+    }
+    return usage;
+  }
+
+  /**
+   * Adds up the bytes of every class in a histogram.
+   *
+   * @param histogram The histogram
+   * @return The bytes
+   * @since 1.0
+   */
+  private static long total(Map<String, ClassUsage> histogram) {
+    return histogram.values().stream().mapToLong(ClassUsage::bytes).sum();
+  }
+
+  /**
+   * Returns how much a class grew between two histograms.
+   *
+   * @param after The usage of the class in the later histogram
+   * @param before The usage in the earlier one, or null if the class had no instances then
+   * @return The growth
+   * @since 1.0
+   */
+  private static ClassUsage difference(ClassUsage after, ClassUsage before) {
+    return before == null ? after
+        : new ClassUsage(after.instances() - before.instances(), after.bytes() - before.bytes());
+  }
+
+  /**
+   * Returns the memory taken by direct buffers in this process.
+   *
+   * @return The bytes
+   * @since 1.0
+   */
+  private static long directMemory() {
+    return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+        .filter(pool -> pool.getName().equals("direct"))
+        .mapToLong(BufferPoolMXBean::getMemoryUsed)
+        .sum();
+  }
+}
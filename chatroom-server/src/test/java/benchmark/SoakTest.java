@@ -0,0 +1,393 @@
+package benchmark;
+
+import static config.ConnectionConfig.LOCALHOST;
+import static config.ConnectionConfig.PASSWORD;
+import static config.ServerConfig.RESUME_WINDOW_MILLIS;
+import static config.UserConfig.QUIT_COMMAND;
+
+import clientside.backend.Client;
+import clientside.backend.ConnectionFailedException;
+import clientside.backend.LoginResult;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import keyGen.TransportMode;
+import serverside.Server;
+
+/**
+ * Churns connections against an in-process server for hours, and fails if anything leaks.
+ * Workers connect, log in, chat and leave over and over. Most leave with {@code /quit},
+ * some drop the connection so their session is parked for resuming,
+ * and some abandon the handshake or break it with a malformed key.
+ *
+ * <p>Every sample, the heap after a garbage collection, the threads and the open file descriptors
+ * of the process are recorded, along with the connections, sessions and parked sessions of the server.
+ * A gauge fails when its peak over the last third of the run exceeds its peak over the first third
+ * by more than steady churn explains. Once the churn stops and parked sessions have expired,
+ * the server must be back to no connections, no sessions and no leaked buffers,
+ * and the threads and descriptors back near where they started.
+ * The process exits with status 1 if any of this fails.
+ *
+ * <p>Clients run in the same process, so their threads and sockets are counted too.
+ * A short resume window and full leak detection make a run more telling, for example:
+ * <pre>
+ * java -Dchatroom.session.resume_window_millis=5000 -Dchatroom.buffers.leak_detection=paranoid \
+ *     -Dchatroom.log.level=WARN benchmark.SoakTest [minutes] [workers] [sample seconds]
+ * </pre>
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class SoakTest {
+  private static final int PORT = 18689;
+  private static final int ABANDON_PERCENT = 5;  // Close the connection before the handshake completes
+  private static final int BREAK_PERCENT = 5;  // Answer the public key with garbage
+  private static final int DROP_PERCENT = 20;  // Log in and drop the connection without quitting
+  private static final int MAX_MESSAGES = 5;
+  private static final long QUIT_TIMEOUT_MILLIS = 5_000;
+  private static final long SETTLE_MILLIS = 90_000;  // Idle pooled threads end after a minute
+  private static final int THREAD_SLACK = 16;  // Threads started once and kept, such as the coalescers
+  private static final int DESCRIPTOR_SLACK = 16;
+
+  private final Server server = new Server(PORT, TransportMode.RSA_AES);
+  private final int workers;
+  private final List<Sample> samples = new ArrayList<>();
+  private final List<String> failures = new ArrayList<>();
+  private final AtomicLong usernameCounter = new AtomicLong();
+  private final LongAdder quit = new LongAdder();
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder abandoned = new LongAdder();
+  private final LongAdder broken = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final long start = System.currentTimeMillis();
+  private volatile long churnUntil;
+
+  /**
+   * The state of the server and the process at one point of the run.
+   *
+   * @param seconds Seconds since the run started
+   * @param handlers Connections the server holds
+   * @param sessions Chat sessions, parked ones included
+   * @param parked Sessions waiting to be resumed
+   * @param heapBytes Heap in use after a garbage collection
+   * @param threads Live threads
+   * @param descriptors Open file descriptors, or -1 where they cannot be counted
+   * @param bufferLeaks Pooled buffers found unreturned
+   * @version 1.0
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  private record Sample(long seconds, long handlers, long sessions, long parked,
+      long heapBytes, long threads, long descriptors, long bufferLeaks) {}
+
+  /**
+   * Create a soak test.
+   *
+   * @param workers The number of connections churned at once
+   * @since 1.0
+   */
+  private SoakTest(int workers) {
+    this.workers = workers;
+  }
+
+  /**
+   * Run the soak test and print the samples and the verdict.
+   *
+   * @param minutes How long to churn connections
+   * @param sampleSeconds How often to sample
+   * @return True if nothing leaked
+   * @throws InterruptedException If interrupted while waiting
+   * @since 1.0
+   */
+  private boolean run(double minutes, int sampleSeconds) throws InterruptedException {
+    Thread serverThread = new Thread(server, "soak-server");
+    serverThread.setDaemon(true);
+    serverThread.start();
+    Thread.sleep(500);  // Let the server bind its port
+
+    Sample baseline = sample();
+    System.out.printf("%8s %8s %8s %8s %10s %10s %8s %8s %8s%n", "seconds", "handlers", "sessions",
+        "parked", "heap KiB", "B/conn", "threads", "fds", "leaks");
+    print(baseline, baseline);
+
+    churnUntil = System.currentTimeMillis() + (long) (minutes * 60_000);
+    AtomicInteger workerCounter = new AtomicInteger();
+    ExecutorService churners = Executors.newFixedThreadPool(workers, task -> {
+      Thread thread = new Thread(task, "soak-worker-" + workerCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    for (int i = 0; i < workers; i++) {
+      churners.execute(this::churn);
+    }
+    churners.shutdown();
+    while (!churners.awaitTermination(sampleSeconds, TimeUnit.SECONDS)) {
+      Sample sample = sample();
+      samples.add(sample);
+      print(sample, baseline);
+    }
+
+    Sample settled = settle(baseline);
+    print(settled, baseline);
+    System.out.printf("cycles: %d quit, %d dropped, %d abandoned, %d broken, %d rejected, %d errors%n",
+        quit.sum(), dropped.sum(), abandoned.sum(), broken.sum(), rejected.sum(), errors.sum());
+
+    checkGrowth("handlers", Sample::handlers, workers);
+    checkGrowth("sessions", Sample::sessions, workers);
+    checkGrowth("parked", Sample::parked, workers);
+    checkGrowth("threads", Sample::threads, 2L * workers);
+    checkGrowth("descriptors", Sample::descriptors, 4L * workers);
+    checkGrowth("heap", Sample::heapBytes, -1);
+    checkSettled(settled, baseline);
+    server.shutdown();
+
+    failures.forEach(failure -> System.out.println("FAIL " + failure));
+    System.out.println(failures.isEmpty() ? "PASS" : "FAIL");
+    return failures.isEmpty();
+  }
+
+  /**
+   * Churns connections until the run is over, one at a time.
+   *
+   * @since 1.0
+   */
+  private void churn() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    while (System.currentTimeMillis() < churnUntil) {
+      int roll = random.nextInt(100);
+      try {
+        if (roll < ABANDON_PERCENT) {
+          abandonHandshake();
+        } else if (roll < ABANDON_PERCENT + BREAK_PERCENT) {
+          breakHandshake();
+        } else {
+          chat(roll >= ABANDON_PERCENT + BREAK_PERCENT + DROP_PERCENT, random);
+        }
+      } catch (ConnectionFailedException | IOException e) {
+        errors.increment();
+      }
+    }
+  }
+
+  /**
+   * Connects and closes the connection before the keys are exchanged.
+   *
+   * @throws IOException If the connection cannot be opened
+   * @since 1.0
+   */
+  private void abandonHandshake() throws IOException {
+    new Socket(LOCALHOST, PORT).close();
+    abandoned.increment();
+  }
+
+  /**
+   * Connects and answers the server's public key with something that is not a key,
+   * then waits for the server to close the connection.
+   *
+   * @throws IOException If the connection cannot be opened, or the server does not close it
+   * @since 1.0
+   */
+  private void breakHandshake() throws IOException {
+    try (Socket socket = new Socket(LOCALHOST, PORT)) {
+      socket.setSoTimeout((int) QUIT_TIMEOUT_MILLIS);
+      BufferedReader in = new BufferedReader(
+          new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+      in.readLine();  // The public key, or word that the server is busy
+      OutputStream out = socket.getOutputStream();
+      out.write("not a key\n".getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      while (in.readLine() != null) {
+        // Until the server closes the connection
+      }
+    }
+    broken.increment();
+  }
+
+  /**
+   * Logs in, sends a few chat messages, and leaves.
+   *
+   * @param quitting Whether to quit, rather than drop the connection and leave the session parked
+   * @param random The random numbers of this worker
+   * @throws ConnectionFailedException If the connection cannot be opened
+   * @since 1.0
+   */
+  private void chat(boolean quitting, ThreadLocalRandom random) throws ConnectionFailedException {
+    Client client = Client.connect(LOCALHOST, PORT, TransportMode.RSA_AES, true);
+    try {
+      if (client.attemptLogin(PASSWORD.get(), "soak" + usernameCounter.incrementAndGet())
+          != LoginResult.JOINED) {
+        rejected.increment();
+        return;
+      }
+      int messages = 1 + random.nextInt(MAX_MESSAGES);
+      for (int i = 0; i < messages; i++) {
+        client.queueSymmetricEncryptedMessage("soak " + i);
+      }
+      client.flush();
+      if (quitting) {
+        client.sendSymmetricEncryptedMessage(QUIT_COMMAND);
+        client.awaitDisconnect(QUIT_TIMEOUT_MILLIS);
+        quit.increment();
+      } else {
+        dropped.increment();
+      }
+    } finally {
+      client.shutdown();
+    }
+  }
+
+  /**
+   * Waits for parked sessions to expire and idle threads to end, then samples once more.
+   * Gives up once that should long have happened.
+   *
+   * @param baseline The sample taken before the churn started
+   * @return The last sample
+   * @throws InterruptedException If interrupted while waiting
+   * @since 1.0
+   */
+  private Sample settle(Sample baseline) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + RESUME_WINDOW_MILLIS.get() + SETTLE_MILLIS;
+    Sample sample = sample();
+    while (!isSettled(sample, baseline) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(1_000);
+      sample = sample();
+    }
+    return sample;
+  }
+
+  /**
+   * Checks whether the server holds nothing, and the process is back near where it started.
+   *
+   * @param sample The sample to check
+   * @param baseline The sample taken before the churn started
+   * @return True if nothing is left over
+   * @since 1.0
+   */
+  private static boolean isSettled(Sample sample, Sample baseline) {
+    return sample.handlers() == 0 && sample.sessions() == 0 && sample.parked() == 0
+        && sample.threads() <= baseline.threads() + THREAD_SLACK
+        && sample.descriptors() <= baseline.descriptors() + DESCRIPTOR_SLACK;
+  }
+
+  /**
+   * Records what is left over once the churn has stopped and the server has settled.
+   *
+   * @param settled The last sample
+   * @param baseline The sample taken before the churn started
+   * @since 1.0
+   */
+  private void checkSettled(Sample settled, Sample baseline) {
+    if (settled.handlers() != 0) {
+      failures.add(settled.handlers() + " connections left after the churn");
+    }
+    if (settled.sessions() != 0 || settled.parked() != 0) {
+      failures.add(settled.sessions() + " sessions, " + settled.parked() + " parked, left after the churn");
+    }
+    if (settled.threads() > baseline.threads() + THREAD_SLACK) {
+      failures.add(settled.threads() + " threads after the churn, " + baseline.threads() + " before");
+    }
+    if (settled.descriptors() > baseline.descriptors() + DESCRIPTOR_SLACK) {
+      failures.add(settled.descriptors() + " descriptors after the churn, " + baseline.descriptors() + " before");
+    }
+    if (settled.bufferLeaks() != 0) {
+      failures.add(settled.bufferLeaks() + " pooled buffers leaked");
+    }
+  }
+
+  /**
+   * Records a gauge that grew over the run: its peak over the last third of the samples exceeds
+   * its peak over the first third by more than allowed.
+   *
+   * @param name The name of the gauge
+   * @param gauge The gauge, read from a sample
+   * @param allowance How much more the later peak may be, or -1 for a quarter of the earlier peak,
+   *     and at least 16 MiB
+   * @since 1.0
+   */
+  private void checkGrowth(String name, ToLongFunction<Sample> gauge, long allowance) {
+    int third = samples.size() / 3;
+    if (third == 0) {
+      return;  // Too short a run to tell
+    }
+    long early = samples.subList(0, third).stream().mapToLong(gauge).max().orElse(0);
+    long late = samples.subList(samples.size() - third, samples.size()).stream().mapToLong(gauge).max().orElse(0);
+    long allowed = allowance >= 0 ? allowance : Math.max(early / 4, 16L << 20);
+    if (late > early + allowed) {
+      failures.add(name + " grew from a peak of " + early + " to " + late + ", more than " + allowed);
+    }
+  }
+
+  /**
+   * Samples the server and the process, after a garbage collection.
+   *
+   * @return The sample
+   * @since 1.0
+   */
+  private Sample sample() {
+    System.gc();
+    Map<String, Long> stats = server.getStats();
+    long descriptors = -1;
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    if (os instanceof com.sun.management.UnixOperatingSystemMXBean unix) {
+      descriptors = unix.getOpenFileDescriptorCount();
+    }
+    return new Sample(
+        TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - start),
+        stats.getOrDefault("clients.connected", 0L),
+        stats.getOrDefault("sessions.active", 0L),
+        stats.getOrDefault("resume.waiting", 0L),
+        ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed(),
+        ManagementFactory.getThreadMXBean().getThreadCount(),
+        descriptors,
+        stats.getOrDefault("buffers.direct.leaks", 0L) + stats.getOrDefault("buffers.heap.leaks", 0L));
+  }
+
+  /**
+   * Print a sample, with the heap it holds above the baseline per connection or parked session.
+   *
+   * @param sample The sample
+   * @param baseline The sample taken before the churn started
+   * @since 1.0
+   */
+  private static void print(Sample sample, Sample baseline) {
+    long connections = sample.handlers() + sample.parked();
+    long perConnection = connections == 0 ? 0 : (sample.heapBytes() - baseline.heapBytes()) / connections;
+    System.out.printf("%8d %8d %8d %8d %10d %10d %8d %8d %8d%n", sample.seconds(), sample.handlers(),
+        sample.sessions(), sample.parked(), sample.heapBytes() >> 10, perConnection,
+        sample.threads(), sample.descriptors(), sample.bufferLeaks());
+  }
+
+  /**
+   * Run the soak test.
+   *
+   * @param args Optional minutes to churn, number of workers, and seconds between samples
+   * @throws Exception If the soak test cannot run
+   * @since 1.0
+   */
+  public static void main(String[] args) throws Exception {
+    double minutes = args.length > 0 ? Double.parseDouble(args[0]) : 120;
+    int workers = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+    int sampleSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+
+    boolean passed = new SoakTest(workers).run(minutes, sampleSeconds);
+    System.exit(passed ? 0 : 1);
+  }
+}
@@ -0,0 +1,521 @@
+package benchmark;
+
+import static config.ConnectionConfig.LOCALHOST;
+import static config.ConnectionConfig.PASSWORD;
+import static config.ConnectionConfig.TRANSPORT;
+import static config.UserConfig.HELP_COMMAND;
+import static config.UserConfig.LIST_USERS_COMMAND;
+import static config.UserConfig.MESSAGE_USER_COMMAND;
+import static config.UserConfig.NEW_NICKNAME_COMMAND;
+import static config.UserConfig.QUIT_COMMAND;
+import static config.UserConfig.TYPING_COMMAND;
+
+import clientside.backend.Client;
+import clientside.backend.ConnectionFailedException;
+import clientside.backend.LoginResult;
+import clientside.backend.RecieveChatObserver;
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
+import latency.LatencyHistogram;
+import serverside.Server;
+import traffic.TrafficEvent;
+
+/**
+ * Replays a traffic recording against a server, to compare builds under the workload of real users.
+ * Every recorded session becomes a client that connects, logs in, chats, whispers, lists users,
+ * renames itself and leaves when the recorded session did, at the recorded pace or faster,
+ * see {@code traffic.TrafficRecorder}. Messages are filled to their recorded length.
+ *
+ * <p>The replay measures how long logging in takes, how long a chat message takes to come back to
+ * its sender, a whisper to reach its recipient and the list of users to arrive, and how many
+ * messages per second were sent and delivered. The results are printed as {@code name=value} lines;
+ * saved to a file, they can be the baseline of a later replay, which fails when a median,
+ * a 99th percentile or a throughput is more than a fifth worse than the baseline's.
+ * The process exits with status 1 on any such regression.
+ *
+ * <p>Without a server given, the replay starts one in the same process, for example:
+ * <pre>
+ * java -Dchatroom.traffic.record_file=traffic.gz serverside.Server
+ * java -Dchatroom.log.level=WARN benchmark.TrafficReplay traffic.gz 1 - &gt; baseline.txt
+ * java -Dchatroom.log.level=WARN benchmark.TrafficReplay traffic.gz 1 baseline.txt
+ * </pre>
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class TrafficReplay {
+  private static final int PORT = 18690;
+  private static final long GRACE_MILLIS = 3_000;  // Wait for answers once the last event is replayed
+  private static final long QUIT_TIMEOUT_MILLIS = 5_000;
+  private static final double TOLERANCE = 0.2;  // How much worse than the baseline is a regression
+  private static final long NOISE_MILLIS = 2;  // Latencies this close to the baseline are never regressions
+  private static final char TOKEN = '~';  // Around the token that identifies a replayed message
+  private static final String USER_LIST = "Connected users:";
+
+  private final String host;
+  private final int port;
+  private final double speed;
+  private final Map<Long, Replayed> sessions = new ConcurrentHashMap<>();
+  private final Map<String, Long> pending = new ConcurrentHashMap<>();  // Send times of messages, by token
+  private final ExecutorService pool;
+  private final LatencyHistogram joins = new LatencyHistogram();
+  private final LatencyHistogram chats = new LatencyHistogram();
+  private final LatencyHistogram whispers = new LatencyHistogram();
+  private final LatencyHistogram lists = new LatencyHistogram();
+  private final LatencyHistogram lag = new LatencyHistogram();
+  private final LongAdder sent = new LongAdder();
+  private final LongAdder delivered = new LongAdder();
+  private final LongAdder failedLogins = new LongAdder();
+  private final LongAdder skipped = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+
+  /**
+   * A recorded session, replayed by a client of its own.
+   * Its events are replayed one after the other on the pool of the replay.
+   *
+   * @version 1.0
+   * @author Jonas Birkeli
+   * @since 19.10.2026
+   */
+  private final class Replayed implements RecieveChatObserver {
+    private final long id;
+    private final Queue<Long> listRequests = new ConcurrentLinkedQueue<>();
+    private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+    private volatile Client client;
+    private boolean joined;
+    private volatile String username;  // Read by the sessions whispering to this one
+    private int renames;
+    private int messages;
+
+    /**
+     * Create a replayed session.
+     *
+     * @param id The number of the session in the recording
+     * @since 1.0
+     */
+    private Replayed(long id) {
+      this.id = id;
+      this.username = "replay" + id;
+    }
+
+    /**
+     * Queues an event, to be replayed once the events before it are.
+     *
+     * @param event The event
+     * @param dueNanos When the event is due, by {@link System#nanoTime()}
+     * @since 1.0
+     */
+    private void schedule(TrafficEvent event, long dueNanos) {
+      tail = tail.thenRunAsync(() -> {
+        record(lag, dueNanos);
+        try {
+          replay(event);
+        } catch (ConnectionFailedException | RuntimeException e) {
+          errors.increment();
+        }
+      }, pool);
+    }
+
+    /**
+     * Replays an event. Events of a session that is not connected or not logged in are skipped.
+     *
+     * @param event The event
+     * @throws ConnectionFailedException If the client cannot connect
+     * @since 1.0
+     */
+    private void replay(TrafficEvent event) throws ConnectionFailedException {
+      if (event.kind() == TrafficEvent.Kind.CONNECT) {
+        client = Client.connect(host, port, TRANSPORT, true);
+        client.addSubscriber(this);
+        return;
+      }
+      if (client == null || (!joined && event.kind() != TrafficEvent.Kind.JOIN
+          && event.kind() != TrafficEvent.Kind.QUIT && event.kind() != TrafficEvent.Kind.DROP)) {
+        skipped.increment();
+        return;
+      }
+      switch (event.kind()) {
+        case JOIN -> {
+          long start = System.nanoTime();
+          joined = client.attemptLogin(PASSWORD.get(), username) == LoginResult.JOINED;
+          if (joined) {
+            record(joins, start);
+          } else {
+            failedLogins.increment();
+          }
+        }
+        case CHAT -> send(fill(token(), event.size()));
+        case WHISPER -> {
+          Replayed peer = sessions.get(event.peer());
+          String recipient = peer == null ? null : peer.username;
+          if (recipient == null || peer.client == null) {
+            skipped.increment();
+            return;
+          }
+          send(MESSAGE_USER_COMMAND + " " + recipient + " " + fill(token(), event.size()));
+        }
+        case LIST -> {
+          listRequests.add(System.nanoTime());
+          send(LIST_USERS_COMMAND);
+        }
+        case NICK -> {
+          username = "replay" + id + "n" + ++renames;
+          send(NEW_NICKNAME_COMMAND + " " + username);
+        }
+        case TYPING -> send(TYPING_COMMAND);
+        case COMMAND -> send(HELP_COMMAND);
+        case QUIT -> {
+          if (joined) {
+            client.sendSymmetricEncryptedMessage(QUIT_COMMAND);
+            client.awaitDisconnect(QUIT_TIMEOUT_MILLIS);
+          }
+          leave();
+        }
+        case DROP -> leave();
+        default -> skipped.increment();
+      }
+    }
+
+    /**
+     * Creates the token of the next message of the session, and remembers when it was sent.
+     *
+     * @return The token
+     * @since 1.0
+     */
+    private String token() {
+      String token = TOKEN + (id + "." + ++messages) + TOKEN;
+      pending.put(token, System.nanoTime());
+      return token;
+    }
+
+    /**
+     * Sends a message, counting it.
+     *
+     * @param message The message
+     * @since 1.0
+     */
+    private void send(String message) {
+      client.sendSymmetricEncryptedMessage(message);
+      sent.increment();
+    }
+
+    /**
+     * Closes the connection without quitting, as a lost connection would.
+     *
+     * @since 1.0
+     */
+    private void leave() {
+      Client leaving = client;
+      client = null;
+      joined = false;
+      if (leaving != null) {
+        leaving.shutdown();
+      }
+    }
+
+    /**
+     * Counts a delivered message, and measures it if it answers one this session sent,
+     * or is a whisper to this session.
+     *
+     * @param message The message
+     * @since 1.0
+     */
+    @Override
+    public void receiveChat(String message) {
+      delivered.increment();
+      if (message.startsWith(USER_LIST)) {
+        Long requested = listRequests.poll();
+        if (requested != null) {
+          record(lists, requested);
+        }
+        return;
+      }
+      int start = message.indexOf(TOKEN);
+      int end = start < 0 ? -1 : message.indexOf(TOKEN, start + 1);
+      if (end < 0) {
+        return;
+      }
+      String token = message.substring(start, end + 1);
+      boolean whisper = message.contains(" whispers: ");
+      boolean own = token.startsWith(TOKEN + (id + "."));
+      if (whisper != own) {  // An echo of our chat message, or a whisper to us
+        Long sentAt = pending.remove(token);
+        if (sentAt != null) {
+          record(whisper ? whispers : chats, sentAt);
+        }
+      }
+    }
+  }
+
+  /**
+   * Create a replay.
+   *
+   * @param host The host of the server
+   * @param port The port of the server
+   * @param speed How many times faster than recorded to replay
+   * @since 1.0
+   */
+  private TrafficReplay(String host, int port, double speed) {
+    this.host = host;
+    this.port = port;
+    this.speed = speed;
+    AtomicInteger threadCounter = new AtomicInteger();
+    pool = Executors.newCachedThreadPool(task -> {
+      Thread thread = new Thread(task, "replay-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Replays the events of a recording and returns the results.
+   *
+   * @param events The events, in the order they happened
+   * @return The results, by name
+   * @throws InterruptedException If interrupted while waiting
+   * @since 1.0
+   */
+  private Map<String, Number> run(List<TrafficEvent> events) throws InterruptedException {
+    warmUp();
+    long first = events.isEmpty() ? 0 : events.get(0).millis();
+    long start = System.nanoTime();
+    for (TrafficEvent event : events) {
+      long due = start + (long) ((event.millis() - first) * 1_000_000 / speed);
+      for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+        LockSupport.parkNanos(wait);
+      }
+      sessions.computeIfAbsent(event.session(), Replayed::new).schedule(event, due);
+    }
+    try {
+      CompletableFuture.allOf(sessions.values().stream().map(session -> session.tail)
+          .toArray(CompletableFuture[]::new)).get(1, TimeUnit.MINUTES);
+    } catch (TimeoutException | ExecutionException e) {
+      errors.increment();
+    }
+    long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+    Thread.sleep(GRACE_MILLIS);
+    sessions.values().forEach(Replayed::leave);
+    pool.shutdown();
+
+    Map<String, Number> results = new LinkedHashMap<>();
+    results.put("replay.speed", speed);
+    results.put("replay.sessions", sessions.size());
+    results.put("replay.events", events.size());
+    results.put("replay.seconds", seconds);
+    results.put("replay.failed_logins", failedLogins.sum());
+    results.put("replay.skipped", skipped.sum());
+    results.put("replay.errors", errors.sum());
+    results.put("replay.lag.p99_millis", lag.getPercentile(0.99));
+    results.put("throughput.sent_per_second", Math.round(sent.sum() * 10.0 / seconds) / 10.0);
+    results.put("throughput.delivered_per_second", Math.round(delivered.sum() * 10.0 / seconds) / 10.0);
+    put(results, "join", joins);
+    put(results, "chat", chats);
+    put(results, "whisper", whispers);
+    put(results, "list", lists);
+    return results;
+  }
+
+  /**
+   * Logs in and quits once before the replay starts, so the first recorded session
+   * does not fall behind while classes are loaded and keys generated for the first time.
+   *
+   * @since 1.0
+   */
+  private void warmUp() {
+    try {
+      Client client = Client.connect(host, port, TRANSPORT, true);
+      if (client.attemptLogin(PASSWORD.get(), "replay-warmup") == LoginResult.JOINED) {
+        client.sendSymmetricEncryptedMessage(QUIT_COMMAND);
+        client.awaitDisconnect(QUIT_TIMEOUT_MILLIS);
+      }
+      client.shutdown();
+    } catch (ConnectionFailedException e) {
+      errors.increment();
+    }
+  }
+
+  /**
+   * Counts the time since something was sent in a histogram.
+   *
+   * @param histogram The histogram
+   * @param sentNanos When it was sent, by {@link System#nanoTime()}
+   * @since 1.0
+   */
+  private static void record(LatencyHistogram histogram, long sentNanos) {
+    long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentNanos);
+    synchronized (histogram) {
+      histogram.record(millis);
+    }
+  }
+
+  /**
+   * Adds the count, median and 99th percentile of a histogram to the results.
+   *
+   * @param results The results
+   * @param name The name of what the histogram measured
+   * @param histogram The histogram
+   * @since 1.0
+   */
+  private static void put(Map<String, Number> results, String name, LatencyHistogram histogram) {
+    synchronized (histogram) {
+      results.put("latency." + name + ".count", histogram.getCount());
+      results.put("latency." + name + ".p50_millis", histogram.getPercentile(0.50));
+      results.put("latency." + name + ".p99_millis", histogram.getPercentile(0.99));
+    }
+  }
+
+  /**
+   * Pads a message to the recorded length.
+   *
+   * @param token The token the message starts with
+   * @param size The recorded length
+   * @return The message
+   * @since 1.0
+   */
+  private static String fill(String token, int size) {
+    return token.length() >= size ? token : token + "x".repeat(size - token.length());
+  }
+
+  /**
+   * Reads the events of a recording, compressed if its name ends in {@code .gz}.
+   * A compressed recording cut short, by a server that was killed, is read as far as it goes.
+   *
+   * @param file The recording
+   * @return The events, in the order they happened
+   * @throws IOException If the recording cannot be read
+   * @since 1.0
+   */
+  private static List<TrafficEvent> read(String file) throws IOException {
+    List<TrafficEvent> events = new ArrayList<>();
+    InputStream input = new FileInputStream(file);
+    if (file.endsWith(".gz")) {
+      input = new GZIPInputStream(input);
+    }
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        TrafficEvent event = TrafficEvent.parse(line);
+        if (event != null) {
+          events.add(event);
+        }
+      }
+    } catch (EOFException e) {
+      // Cut short, replay what there is
+    }
+    events.sort(Comparator.comparingLong(TrafficEvent::millis));
+    return events;
+  }
+
+  /**
+   * Compares results with those of an earlier replay, and prints every regression.
+   * Medians and 99th percentiles regress when they grow, throughputs when they shrink.
+   *
+   * @param results The results of this replay
+   * @param baselineFile The saved output of the earlier replay
+   * @return True if nothing regressed
+   * @throws IOException If the baseline cannot be read
+   * @since 1.0
+   */
+  private static boolean compare(Map<String, Number> results, String baselineFile) throws IOException {
+    Map<String, Double> baseline = new LinkedHashMap<>();
+    for (String line : Files.readAllLines(Path.of(baselineFile), StandardCharsets.UTF_8)) {
+      int equals = line.indexOf('=');
+      try {
+        baseline.put(line.substring(0, Math.max(0, equals)), Double.parseDouble(line.substring(equals + 1)));
+      } catch (NumberFormatException e) {
+        // Not a result
+      }
+    }
+    if (!baseline.getOrDefault("replay.speed", 0.0).equals(results.get("replay.speed").doubleValue())) {
+      System.out.println("# the baseline was replayed at another speed, throughputs are not comparable");
+    }
+    boolean passed = true;
+    for (Map.Entry<String, Number> result : results.entrySet()) {
+      String name = result.getKey();
+      Double before = baseline.get(name);
+      double now = result.getValue().doubleValue();
+      boolean regressed;
+      if (before == null) {
+        continue;
+      } else if (name.startsWith("latency.") && name.endsWith("_millis")) {
+        regressed = now > before * (1 + TOLERANCE) && now - before > NOISE_MILLIS;
+      } else if (name.startsWith("throughput.")) {
+        regressed = now < before * (1 - TOLERANCE);
+      } else {
+        continue;
+      }
+      System.out.printf("# %-36s %10.1f -> %10.1f%s%n", name, before, now, regressed ? "  REGRESSED" : "");
+      passed &= !regressed;
+    }
+    return passed;
+  }
+
+  /**
+   * Replay a recording.
+   *
+   * @param args The recording, then optionally how many times faster to replay it,
+   *     a baseline to compare with or {@code -} for none, and the server as {@code host:port},
+   *     without which a server is started in this process
+   * @throws Exception If the replay cannot run
+   * @since 1.0
+   */
+  public static void main(String[] args) throws Exception {
+    if (args.length < 1) {
+      System.err.println("Usage: TrafficReplay <recording> [speed] [baseline|-] [host:port]");
+      System.exit(1);
+    }
+    double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+    String baseline = args.length > 2 && !args[2].equals("-") ? args[2] : null;
+    String host = LOCALHOST;
+    int port = PORT;
+    Server server = null;
+    if (args.length > 3) {
+      int colon = args[3].lastIndexOf(':');
+      host = args[3].substring(0, colon);
+      port = Integer.parseInt(args[3].substring(colon + 1));
+    } else {
+      server = new Server(PORT, TRANSPORT);
+      Thread serverThread = new Thread(server, "replay-server");
+      serverThread.setDaemon(true);
+      serverThread.start();
+      Thread.sleep(500);  // Let the server bind its port
+    }
+
+    Map<String, Number> results = new TrafficReplay(host, port, speed).run(read(args[0]));
+    results.forEach((name, value) -> System.out.println(name + "=" + value));
+    boolean passed = baseline == null || compare(results, baseline);
+    if (server != null) {
+      server.shutdown();
+    }
+    if (baseline != null) {
+      System.out.println(passed ? "# PASS" : "# FAIL");
+    }
+    System.exit(passed ? 0 : 1);
+  }
+}
@@ -0,0 +1,230 @@
+package benchmark;
+
+import static config.ConnectionConfig.LOCALHOST;
+import static config.ConnectionConfig.PASSWORD;
+import static config.UserConfig.QUIT_COMMAND;
+import static keyGen.KeyConfig.TLS_KEYSTORE;
+
+import clientside.backend.Client;
+import clientside.backend.ConnectionFailedException;
+import clientside.backend.LoginResult;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import keyGen.TransportMode;
+import serverside.Server;
+
+/**
+ * Compares the RSA+AES transport with the TLS 1.3 transport.
+ * Starts an in-process server for each transport on loopback and measures, per transport,
+ * the time from opening a connection to being logged in, and the echo throughput of chat messages.
+ * Connections are opened one after another from the same process, so TLS sessions are resumed.
+ * The setup time is measured both with fast login and with the password and the username
+ * sent step by step.
+ *
+ * <p>The TLS transport is only measured when a keystore is given, for example:
+ * <pre>
+ * keytool -genkeypair -alias chatroom -keyalg EC -dname CN=localhost -validity 365 \
+ *     -storetype PKCS12 -keystore chatroom.p12 -storepass changeit
+ * java -Dchatroom.tls.keystore=chatroom.p12 -Dchatroom.tls.keystore.password=changeit \
+ *     -Dchatroom.tls.truststore=chatroom.p12 -Dchatroom.tls.truststore.password=changeit \
+ *     benchmark.TransportBenchmark [connections] [messages]
+ * </pre>
+ *
+ * @version 1.2
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+public class TransportBenchmark {
+  private static final int RSA_AES_PORT = 18687;
+  private static final int TLS_PORT = 18688;
+  private static final int WARMUP_CONNECTIONS = 5;
+  private static final long ECHO_TIMEOUT_SECONDS = 60;
+
+  private final TransportMode transport;
+  private final int port;
+  private int usernameCounter;
+
+  /**
+   * Create a benchmark for one transport.
+   *
+   * @param transport The transport to measure
+   * @param port The port of the in-process server
+   * @since 1.0
+   */
+  private TransportBenchmark(TransportMode transport, int port) {
+    this.transport = transport;
+    this.port = port;
+  }
+
+  /**
+   * Connect and log in a new client, with fast login.
+   *
+   * @return The logged in client
+   * @throws ConnectionFailedException If the connection or login fails
+   * @since 1.0
+   */
+  private Client login() throws ConnectionFailedException {
+    return login(true);
+  }
+
+  /**
+   * Connect and log in a new client.
+   *
+   * @param fastLogin Whether to send the password and the username at once
+   * @return The logged in client
+   * @throws ConnectionFailedException If the connection or login fails
+   * @since 1.2
+   */
+  private Client login(boolean fastLogin) throws ConnectionFailedException {
+    Client client = Client.connect(LOCALHOST, port, transport, fastLogin);
+    String username = transport.name().toLowerCase() + usernameCounter++;
+    if (client.attemptLogin(PASSWORD.get(), username) != LoginResult.JOINED) {
+      client.shutdown();
+      throw new ConnectionFailedException("Login rejected");
+    }
+    return client;
+  }
+
+  /**
+   * Log out a client and wait for the server to close the connection.
+   *
+   * @param client The client to log out
+   * @since 1.0
+   */
+  private static void logout(Client client) {
+    client.sendSymmetricEncryptedMessage(QUIT_COMMAND);
+    client.awaitDisconnect(TimeUnit.SECONDS.toMillis(5));
+    client.shutdown();
+  }
+
+  /**
+   * Measure the time from opening a connection to being logged in.
+   *
+   * @param connections The number of connections to measure
+   * @param fastLogin Whether to send the password and the username at once
+   * @return The setup time of each connection in microseconds
+   * @throws ConnectionFailedException If a connection fails
+   * @since 1.0
+   */
+  private long[] measureSetup(int connections, boolean fastLogin) throws ConnectionFailedException {
+    for (int i = 0; i < WARMUP_CONNECTIONS; i++) {
+      logout(login(fastLogin));
+    }
+    long[] micros = new long[connections];
+    for (int i = 0; i < connections; i++) {
+      long start = System.nanoTime();
+      Client client = login(fastLogin);
+      micros[i] = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+      logout(client);
+    }
+    return micros;
+  }
+
+  /**
+   * Measure how many chat messages per second one client gets echoed back.
+   *
+   * @param messages The number of messages to send
+   * @return Messages per second, or -1 if not all echoes arrived in time
+   * @throws ConnectionFailedException If the connection fails
+   * @throws InterruptedException If interrupted while waiting for the echoes
+   * @since 1.0
+   */
+  private double measureEcho(int messages) throws ConnectionFailedException, InterruptedException {
+    Client client = login();
+    CountDownLatch echoes = new CountDownLatch(messages);
+    client.addSubscriber(message -> {
+      if (message.contains(": bench ")) {
+        echoes.countDown();
+      }
+    });
+
+    long start = System.nanoTime();
+    for (int i = 0; i < messages; i++) {
+      client.queueSymmetricEncryptedMessage("bench " + i);
+    }
+    client.flush();
+    boolean complete = echoes.await(ECHO_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    double seconds = (System.nanoTime() - start) / 1e9;
+    logout(client);
+    return complete ? messages / seconds : -1;
+  }
+
+  /**
+   * Run the benchmark for this transport and print the results.
+   *
+   * @param connections The number of connections to measure
+   * @param messages The number of messages for the echo measurement
+   * @throws Exception If the benchmark fails
+   * @since 1.0
+   */
+  private void run(int connections, int messages) throws Exception {
+    Server server = new Server(port, transport);
+    Thread serverThread = new Thread(server, "benchmark-server-" + transport);
+    serverThread.setDaemon(true);
+    serverThread.start();
+    Thread.sleep(500);  // Let the server bind its port
+
+    try {
+      long[] stepwise = measureSetup(connections, false);
+      long[] fast = measureSetup(connections, true);
+      double echo = measureEcho(messages);
+      printSetup("step", stepwise);
+      printSetup("fast", fast);
+      System.out.printf("%-8s echo %10.0f msg/s%n", transport, echo);
+    } finally {
+      server.shutdown();
+    }
+  }
+
+  /**
+   * Print the setup times of one way of logging in.
+   *
+   * @param login How the clients logged in
+   * @param setup The setup time of each connection in microseconds, sorted in place
+   * @since 1.2
+   */
+  private void printSetup(String login, long[] setup) {
+    Arrays.sort(setup);
+    System.out.printf("%-8s %s setup p50 %8.2f ms  p99 %8.2f ms  mean %8.2f ms%n",
+        transport, login,
+        percentile(setup, 0.50) / 1000.0,
+        percentile(setup, 0.99) / 1000.0,
+        Arrays.stream(setup).average().orElse(0) / 1000.0);
+  }
+
+  /**
+   * Get a percentile of sorted samples.
+   *
+   * @param sorted The samples, sorted ascending
+   * @param percentile The percentile, between 0 and 1
+   * @return The sample at the percentile
+   * @since 1.0
+   */
+  static long percentile(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+
+  /**
+   * Run the benchmark.
+   *
+   * @param args Optional number of connections and number of echo messages
+   * @throws Exception If the benchmark fails
+   * @since 1.0
+   */
+  public static void main(String[] args) throws Exception {
+    int connections = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+    int messages = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+    new TransportBenchmark(TransportMode.RSA_AES, RSA_AES_PORT).run(connections, messages);
+    if (TLS_KEYSTORE == null) {
+      System.out.println("TLS      skipped, set -Dchatroom.tls.keystore to include it");
+      return;
+    }
+    new TransportBenchmark(TransportMode.TLS, TLS_PORT).run(connections, messages);
+  }
+}
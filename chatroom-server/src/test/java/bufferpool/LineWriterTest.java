@@ -0,0 +1,174 @@
+package bufferpool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link LineWriter} and its lanes, over a loopback connection read line by line at the other end.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+class LineWriterTest {
+  private static final int SMALL_BUFFER_BYTES = 64 * 1024;
+
+  private ServerSocket server;
+  private Socket socket;
+  private Socket peer;
+  private BufferedReader in;
+  private LineWriter writer;
+
+  @BeforeEach
+  void connect() throws IOException {
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    server = new ServerSocket(0, 1, loopback);
+    server.setReceiveBufferSize(SMALL_BUFFER_BYTES);  // So a large backlog keeps the writer busy
+    socket = new Socket(loopback, server.getLocalPort());
+    socket.setSendBufferSize(SMALL_BUFFER_BYTES);
+    peer = server.accept();
+    in = new BufferedReader(new InputStreamReader(peer.getInputStream(), StandardCharsets.UTF_8));
+    writer = new LineWriter(socket);
+  }
+
+  @AfterEach
+  void close() throws IOException {
+    socket.close();
+    peer.close();
+    server.close();
+  }
+
+  @Test
+  void linesOfALaneAreWrittenInOrder() throws IOException {
+    writer.append("one");
+    writer.append("two");
+    writer.append("three");
+    writer.flush();
+
+    assertEquals(List.of("one", "two", "three"), readLines(3));
+  }
+
+  @Test
+  void nothingIsWrittenBeforeAFlush() throws IOException {
+    writer.append("waiting");
+    assertFalse(peer.getInputStream().available() > 0);
+    writer.flush();
+    assertEquals("waiting", in.readLine());
+  }
+
+  @Test
+  void controlLinesGoAheadOfWaitingBulkLines() throws IOException {
+    writer.append("bulk1", Lane.BULK);
+    writer.append("bulk2", Lane.BULK);
+    writer.append("control1", Lane.CONTROL);
+    writer.append("control2", Lane.CONTROL);
+    writer.flush();
+
+    assertEquals(List.of("control1", "control2", "bulk1", "bulk2"), readLines(4));
+  }
+
+  @Test
+  void onlyTheLatestSignalIsWrittenAfterEverythingElse() throws IOException {
+    writer.append("signal1", Lane.SIGNAL);
+    writer.append("bulk", Lane.BULK);
+    writer.append("signal2", Lane.SIGNAL);
+    writer.append("control", Lane.CONTROL);
+    writer.flush();
+    writer.writeLine("last");
+
+    assertEquals(List.of("control", "bulk", "signal2", "last"), readLines(4));
+  }
+
+  @Test
+  void linesBeyondAsciiAreWrittenAsUtf8() throws IOException {
+    writer.append("plain");
+    writer.append("bl\u00e5b\u00e6rsyltet\u00f8y \u2713");
+    writer.flush();
+
+    assertEquals(List.of("plain", "bl\u00e5b\u00e6rsyltet\u00f8y \u2713"), readLines(2));
+  }
+
+  @Test
+  void longBacklogIsWrittenWhole() throws IOException {
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      String line = i + " " + "x".repeat(i % 300);
+      expected.add(line);
+      writer.append(line);
+    }
+    Thread flusher = new Thread(writer::flush);
+    flusher.start();
+
+    assertEquals(expected, readLines(expected.size()));
+  }
+
+  @Test
+  void flushOrDeferWritesWhenNoOtherThreadIs() throws IOException {
+    writer.append("line", Lane.BULK);
+    assertTrue(writer.flushOrDefer(() -> { throw new AssertionError("Nothing to defer to"); }));
+    assertEquals("line", in.readLine());
+  }
+
+  @Test
+  void flushOrDeferLeavesLinesToTheThreadWritingAndRunsTheTaskAfter() throws Exception {
+    int backlog = 4096;
+    String padding = "x".repeat(2048);
+    for (int i = 0; i < backlog; i++) {
+      writer.append(i + " " + padding, Lane.BULK);
+    }
+    Thread busy = new Thread(writer::flush, "busy-writer");
+    busy.start();
+    assertTrue(in.readLine().startsWith("0 "));  // The busy thread is writing now, and has far more to write
+
+    CountDownLatch deferred = new CountDownLatch(1);
+    writer.append("urgent", Lane.CONTROL);
+    assertFalse(writer.flushOrDefer(deferred::countDown));
+
+    int bulkRead = 1;
+    String line;
+    while (!"urgent".equals(line = in.readLine())) {
+      assertTrue(line.endsWith(padding), "Only bulk lines before the control line");
+      bulkRead++;
+    }
+    assertTrue(bulkRead < backlog, "The control line overtakes the rest of the backlog");
+    for (int i = bulkRead; i < backlog; i++) {
+      assertTrue(in.readLine().startsWith(i + " "));
+    }
+    assertTrue(deferred.await(5, TimeUnit.SECONDS), "The task runs once the busy thread lets go");
+    busy.join();
+  }
+
+  @Test
+  void discardedWriterDropsItsLinesAndReportsAnError() {
+    writer.append("dropped");
+    writer.discard();
+    writer.flush();
+    writer.append("ignored");
+
+    assertTrue(writer.checkError());
+  }
+
+  private List<String> readLines(int count) throws IOException {
+    List<String> lines = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      lines.add(in.readLine());
+    }
+    return lines;
+  }
+}
@@ -0,0 +1,191 @@
+package serverside;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link BroadcastRing}. Cursors write on an executor that only runs its tasks when told,
+ * so every test decides exactly when subscribers catch up.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+class BroadcastRingTest {
+  private final ManualExecutor executor = new ManualExecutor();
+
+  @Test
+  void subscriberReceivesBroadcastsInOrderAndFlushesOncePerBatch() {
+    BroadcastRing ring = new BroadcastRing(8, executor);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    ring.subscribe(subscriber);
+
+    ring.publish("a");
+    ring.publish("b");
+    ring.publish("c");
+    assertEquals(1, executor.size(), "One write is scheduled for the whole batch");
+    executor.runAll();
+
+    assertEquals(List.of("a", "b", "c"), subscriber.delivered);
+    assertEquals(1, subscriber.flushes);
+    assertEquals(3, ring.getHead());
+  }
+
+  @Test
+  void everySubscriberReadsAtItsOwnPace() {
+    BroadcastRing ring = new BroadcastRing(8, executor);
+    RecordingSubscriber first = new RecordingSubscriber();
+    RecordingSubscriber second = new RecordingSubscriber();
+    ring.subscribe(first);
+    ring.publish("a");
+    ring.subscribe(second);  // Starts at the head, after "a"
+    ring.publish("b");
+    executor.runAll();
+
+    assertEquals(List.of("a", "b"), first.delivered);
+    assertEquals(List.of("b"), second.delivered);
+    assertEquals(2, ring.getSubscriberCount());
+    assertEquals(0, ring.getMaxLag());
+  }
+
+  @Test
+  void lagCountsBroadcastsNotYetWritten() {
+    BroadcastRing ring = new BroadcastRing(8, executor);
+    BroadcastRing.Cursor cursor = ring.subscribe(new RecordingSubscriber());
+    ring.publish("a");
+    ring.publish("b");
+
+    assertEquals(2, cursor.getLag());
+    assertEquals(2, ring.getMaxLag());
+    executor.runAll();
+    assertEquals(0, cursor.getLag());
+  }
+
+  @Test
+  void subscriberThatFallsACapacityBehindIsOverrunAndClosed() {
+    BroadcastRing ring = new BroadcastRing(4, executor);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    ring.subscribe(subscriber);
+    for (int i = 0; i < 10; i++) {
+      ring.publish("m" + i);
+    }
+    executor.runAll();
+
+    assertTrue(subscriber.delivered.isEmpty());
+    assertEquals(List.of(6L), subscriber.overruns, "Missed up to the oldest broadcast still in the ring");
+    assertEquals(0, ring.getSubscriberCount());
+
+    ring.publish("after");
+    executor.runAll();
+    assertTrue(subscriber.delivered.isEmpty(), "A closed cursor writes nothing more");
+  }
+
+  @Test
+  void subscriberExactlyACapacityBehindMissesNothing() {
+    BroadcastRing ring = new BroadcastRing(4, executor);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    ring.subscribe(subscriber);
+    for (int i = 0; i < 4; i++) {
+      ring.publish("m" + i);
+    }
+    executor.runAll();
+
+    assertEquals(List.of("m0", "m1", "m2", "m3"), subscriber.delivered);
+    assertTrue(subscriber.overruns.isEmpty());
+  }
+
+  @Test
+  void yieldingSubscriberHoldsNoThreadUntilItResumes() {
+    BroadcastRing ring = new BroadcastRing(8, executor);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    subscriber.yieldNextFlush = true;
+    ring.subscribe(subscriber);
+
+    ring.publish("a");
+    executor.runAll();
+    assertEquals(List.of("a"), subscriber.delivered);
+    assertEquals(0, executor.size());
+
+    ring.publish("b");
+    assertEquals(0, executor.size(), "A yielded cursor is not scheduled again until it resumes");
+
+    subscriber.resume.run();
+    executor.runAll();
+    assertEquals(List.of("a", "b"), subscriber.delivered);
+    assertEquals(1, subscriber.flushes);
+    assertEquals(0, ring.getMaxLag());
+  }
+
+  @Test
+  void closedCursorIsNotScheduled() {
+    BroadcastRing ring = new BroadcastRing(8, executor);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    ring.subscribe(subscriber).close();
+    ring.publish("a");
+
+    assertEquals(0, executor.size());
+    assertEquals(0, ring.getSubscriberCount());
+  }
+
+  /**
+   * Runs its tasks only when told, on the calling thread.
+   */
+  private static final class ManualExecutor implements Executor {
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+
+    @Override
+    public void execute(Runnable task) {
+      tasks.add(task);
+    }
+
+    int size() {
+      return tasks.size();
+    }
+
+    void runAll() {
+      Runnable task;
+      while ((task = tasks.poll()) != null) {
+        task.run();
+      }
+    }
+  }
+
+  /**
+   * Records what it is given, and yields its next flush when asked to.
+   */
+  private static final class RecordingSubscriber implements BroadcastRing.Subscriber {
+    private final List<String> delivered = new ArrayList<>();
+    private final List<Long> overruns = new ArrayList<>();
+    private int flushes;
+    private boolean yieldNextFlush;
+    private Runnable resume;
+
+    @Override
+    public void deliver(String message) {
+      delivered.add(message);
+    }
+
+    @Override
+    public boolean flush(Runnable resume) {
+      if (yieldNextFlush) {
+        yieldNextFlush = false;
+        this.resume = resume;
+        return false;
+      }
+      flushes++;
+      return true;
+    }
+
+    @Override
+    public void overrun(long missed) {
+      overruns.add(missed);
+    }
+  }
+}
@@ -0,0 +1,324 @@
+package serverside;
+
+import static config.ServerConfig.REPLAY_CAPACITY;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import bufferpool.Lane;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.crypto.SecretKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link ResumableChannel}, its numbering, acknowledgements and replay on resume.
+ * Connections only record the lines written to them, and the host has no broadcast ring,
+ * so every message reaches the channel from the test itself.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+class ResumableChannelTest {
+  private final TestHost host = new TestHost();
+  private TestConnection connection;
+  private ResumableChannel channel;
+
+  @BeforeEach
+  void open() {
+    connection = new TestConnection(host);
+    channel = ResumableChannel.open(host, connection);
+  }
+
+  @AfterEach
+  void stopWheel() {
+    host.timingWheel.stop();
+  }
+
+  @Test
+  void messagesAreNumberedOnlyOnceTheUserJoined() {
+    channel.send("welcome");
+    channel.joined();
+    channel.send("reply");
+    channel.deliver("broadcast");
+    channel.send("/chunk 7 AAAA");
+
+    assertEquals("welcome", connection.lines.get(0));
+    assertTrue(connection.lines.get(1).startsWith("/session "));
+    assertEquals(List.of("/seqc 1 reply", "/seq 2 broadcast", "/chunk 7 AAAA"), connection.lines.subList(2, 5));
+    assertSame(channel, host.channels.get(channel.getToken()));
+    assertTrue(connection.heartbeats);
+  }
+
+  @Test
+  void repliesGoInTheControlLaneAndBroadcastsInTheBulkLane() {
+    channel.joined();
+    channel.send("reply");
+    channel.deliver("broadcast");
+
+    assertEquals(List.of(Lane.CONTROL, Lane.CONTROL, Lane.BULK), connection.lanes);
+  }
+
+  @Test
+  void resumeReplaysWhatTheClientMissedInOrder() {
+    channel.joined();
+    channel.send("one");
+    channel.deliver("two");
+    channel.deliver("three");
+    channel.connectionLost(connection, false);
+    assertTrue(channel.isParked());
+    channel.send("four");  // Recorded while parked
+
+    TestConnection replacement = new TestConnection(host);
+    assertTrue(channel.resume(replacement, 1));
+
+    assertEquals(List.of("/resumed 3", "/seq 2 two", "/seq 3 three", "/seq 4 four"), replacement.lines);
+    assertFalse(channel.isParked());
+    assertEquals(1, host.metric("resume.parked"));
+    assertEquals(1, host.metric("resume.resumed"));
+    channel.send("five");
+    assertEquals("/seqc 5 five", replacement.lines.get(4));
+  }
+
+  @Test
+  void acknowledgedMessagesAreNotReplayed() {
+    channel.joined();
+    for (int i = 1; i <= 5; i++) {
+      channel.deliver("m" + i);
+    }
+    channel.acknowledge(4);
+    channel.connectionLost(connection, false);
+
+    TestConnection replacement = new TestConnection(host);
+    assertTrue(channel.resume(replacement, 4));
+    assertEquals(List.of("/resumed 1", "/seq 5 m5"), replacement.lines);
+  }
+
+  @Test
+  void resumeFromBeforeTheOldestKeptMessageEndsTheSession() {
+    channel.joined();
+    channel.deliver("m1");
+    channel.deliver("m2");
+    channel.acknowledge(2);
+    channel.connectionLost(connection, false);
+
+    assertFalse(channel.resume(new TestConnection(host), 0));
+    assertEquals(1, host.session.evictions);
+  }
+
+  @Test
+  void resumeFromBeyondTheLastMessageEndsTheSession() {
+    channel.joined();
+    channel.deliver("m1");
+    channel.connectionLost(connection, false);
+
+    assertFalse(channel.resume(new TestConnection(host), 2));
+    assertEquals(1, host.session.evictions);
+  }
+
+  @Test
+  void parkedSessionWhoseReplayBufferOverflowsExpires() {
+    channel.joined();
+    channel.connectionLost(connection, false);
+    for (int i = 0; i < REPLAY_CAPACITY; i++) {
+      channel.deliver("m" + i);
+    }
+    assertTrue(channel.isParked());
+    assertEquals(0, host.session.evictions);
+
+    channel.deliver("one too many");
+    assertFalse(channel.isParked());
+    assertEquals(1, host.session.evictions);
+    assertEquals(1, host.metric("resume.expired"));
+    assertFalse(channel.resume(new TestConnection(host), 0));
+    assertTrue(host.channels.isEmpty());
+  }
+
+  @Test
+  void connectedSessionDropsItsOldestMessagesAtTheReplayCapacity() {
+    channel.joined();
+    for (int i = 1; i <= REPLAY_CAPACITY + 2; i++) {
+      channel.deliver("m" + i);
+    }
+    assertEquals(0, host.session.evictions);
+    channel.connectionLost(connection, false);
+
+    TestConnection replacement = new TestConnection(host);
+    assertFalse(channel.resume(replacement, 1), "Message 2 was dropped");
+    assertEquals(1, host.session.evictions);
+  }
+
+  @Test
+  void resumingWhileStillConnectedAbortsThePreviousConnection() {
+    channel.joined();
+    channel.deliver("m1");
+
+    TestConnection replacement = new TestConnection(host);
+    assertTrue(channel.resume(replacement, 1));
+    assertTrue(connection.aborted);
+    assertEquals(List.of("/resumed 0"), replacement.lines);
+
+    channel.connectionLost(connection, false);  // The replaced connection is ignored
+    assertFalse(channel.isParked());
+  }
+
+  @Test
+  void lostConnectionOfAUserThatNeverJoinedEndsTheSession() {
+    channel.connectionLost(connection, false);
+
+    assertFalse(channel.isParked());
+    assertEquals(1, host.session.shutdowns);
+  }
+
+  @Test
+  void disconnectForgetsTheTokenAndClosesTheConnection() {
+    channel.joined();
+    String token = channel.getToken();
+    assertNotNull(host.channels.get(token));
+
+    channel.disconnect();
+    assertTrue(host.channels.isEmpty());
+    assertTrue(connection.disconnected);
+    assertFalse(channel.resume(new TestConnection(host), 0));
+  }
+
+  /**
+   * A host without a broadcast ring, whose sessions record how they ended.
+   */
+  private static final class TestHost implements ConnectionHost {
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final TimingWheel timingWheel = new TimingWheel("test-wheel", 10, 64, Runnable::run);
+    private final RecordingSession session = new RecordingSession();
+    private final Map<String, ResumableChannel> channels = new ConcurrentHashMap<>();
+
+    @Override
+    public AdmissionControl getAdmission() {
+      return null;
+    }
+
+    @Override
+    public ServerMetrics getMetrics() {
+      return metrics;
+    }
+
+    @Override
+    public TimingWheel getTimingWheel() {
+      return timingWheel;
+    }
+
+    @Override
+    public BroadcastRing getBroadcastRing() {
+      return null;
+    }
+
+    @Override
+    public Session openSession(ResumableChannel channel) {
+      return session;
+    }
+
+    @Override
+    public Map<String, ResumableChannel> getResumableChannels() {
+      return channels;
+    }
+
+    @Override
+    public void removeClient(ClientHandler connection) {}
+
+    long metric(String name) {
+      return metrics.snapshot().get(name);
+    }
+  }
+
+  /**
+   * A session that only counts how often it was ended, and how.
+   */
+  private static final class RecordingSession implements Session {
+    private int shutdowns;
+    private int evictions;
+
+    @Override
+    public void onLine(String input) {}
+
+    @Override
+    public boolean isJoined() {
+      return true;
+    }
+
+    @Override
+    public void shutdown() {
+      shutdowns++;
+    }
+
+    @Override
+    public void close(String notice) {
+      shutdowns++;
+    }
+
+    @Override
+    public void evicted() {
+      evictions++;
+    }
+  }
+
+  /**
+   * A connection that records the lines appended to it, unencrypted, instead of writing them to a socket.
+   */
+  private static final class TestConnection extends ClientHandler {
+    private final List<String> lines = new ArrayList<>();
+    private final List<Lane> lanes = new ArrayList<>();
+    private boolean heartbeats;
+    private boolean aborted;
+    private boolean disconnected;
+
+    TestConnection(ConnectionHost host) {
+      super(new Socket(), host);
+    }
+
+    @Override
+    void append(String message, Lane lane) {
+      lines.add(message);
+      lanes.add(lane);
+    }
+
+    @Override
+    void flush() {}
+
+    @Override
+    boolean flushBroadcasts(Runnable whenWritten) {
+      return true;
+    }
+
+    @Override
+    void startHeartbeats() {
+      heartbeats = true;
+    }
+
+    @Override
+    void abort() {
+      aborted = true;
+    }
+
+    @Override
+    public void disconnect() {
+      disconnected = true;
+    }
+
+    @Override
+    public String getRemoteAddress() {
+      return "test";
+    }
+
+    @Override
+    SecretKey getSessionKey() {
+      return null;
+    }
+  }
+}
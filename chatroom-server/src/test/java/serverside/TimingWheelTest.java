@@ -0,0 +1,99 @@
+package serverside;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link TimingWheel}. Expired tasks run on the worker thread itself,
+ * and delays are many ticks apart, so the order tasks run in does not depend on scheduling.
+ *
+ * @version 1.0
+ * @author Jonas Birkeli
+ * @since 19.10.2026
+ */
+class TimingWheelTest {
+  private static final long TICK_MILLIS = 5;
+
+  private final TimingWheel wheel = new TimingWheel("test-wheel", TICK_MILLIS, 8, Runnable::run);
+
+  @AfterEach
+  void stopWheel() {
+    wheel.stop();
+  }
+
+  @Test
+  void timeoutsExpireInTheOrderOfTheirDelays() throws InterruptedException {
+    List<String> expired = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(3);
+    wheel.schedule(() -> record(expired, "third", done), 150);
+    wheel.schedule(() -> record(expired, "first", done), 50);
+    wheel.schedule(() -> record(expired, "second", done), 100);
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertEquals(List.of("first", "second", "third"), expired);
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void timeoutNeverExpiresEarly() throws InterruptedException {
+    long delayMillis = 120;  // Several rounds of an 8 bucket wheel
+    CountDownLatch done = new CountDownLatch(1);
+    long start = System.nanoTime();
+    wheel.schedule(done::countDown, delayMillis);
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= delayMillis);
+  }
+
+  @Test
+  void cancelledTimeoutNeverExpires() throws InterruptedException {
+    CountDownLatch cancelledRan = new CountDownLatch(1);
+    CountDownLatch later = new CountDownLatch(1);
+    TimingWheel.Timeout timeout = wheel.schedule(cancelledRan::countDown, 50);
+    wheel.schedule(later::countDown, 100);
+
+    assertTrue(timeout.cancel());
+    assertTrue(timeout.isCancelled());
+    assertFalse(timeout.cancel(), "Only the first cancel counts");
+    assertTrue(later.await(5, TimeUnit.SECONDS));
+    assertEquals(1, cancelledRan.getCount());
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void expiredTimeoutCannotBeCancelled() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    TimingWheel.Timeout timeout = wheel.schedule(done::countDown, 10);
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    assertFalse(timeout.cancel());
+    assertFalse(timeout.isCancelled());
+  }
+
+  @Test
+  void sizeCountsPendingTimeouts() {
+    wheel.schedule(() -> { }, 60_000);
+    TimingWheel.Timeout cancelled = wheel.schedule(() -> { }, 60_000);
+    assertEquals(2, wheel.size());
+
+    cancelled.cancel();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (wheel.size() > 1 && System.nanoTime() < deadline) {
+      Thread.onSpinWait();  // Cancellations are counted on the next tick
+    }
+    assertEquals(1, wheel.size());
+  }
+
+  private static void record(List<String> expired, String name, CountDownLatch done) {
+    expired.add(name);
+    done.countDown();
+  }
+}
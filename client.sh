@@ -1,3 +1,7 @@
 #!/bin/bash
 
-mvn clean install -U exec:java -Dexec.mainClass="clientside.backend.Client"
\ No newline at end of file
+# The password and username are read from CHATROOM_PASSWORD and CHATROOM_USERNAME.
+# Arguments, if given, are handed on the same way, so they keep their spaces and stay off the java command line.
+if [ $# -ge 1 ]; then export CHATROOM_PASSWORD="$1"; fi
+if [ $# -ge 2 ]; then export CHATROOM_USERNAME="$2"; fi
+mvn -q -U -pl chatroom-core -am install && mvn -q -f chatroom-core exec:java
@@ -0,0 +1,24 @@
+#!/bin/bash
+# Records the classes the server loads while a client logs in and chats
+# into a class data sharing archive, so the server in the container maps them
+# from the archive at startup instead of loading and verifying them.
+#
+# Usage: train-cds.sh <runtime image> <archive>
+set -e
+RUNTIME="$1"
+ARCHIVE="$2"
+APP="$RUNTIME/app"
+
+"$RUNTIME/bin/java" -XX:ArchiveClassesAtExit="$ARCHIVE" -jar "$APP/chatroom-server.jar" &
+SERVER=$!
+for _ in $(seq 100); do
+  (echo > /dev/tcp/127.0.0.1/8687) 2>/dev/null && break
+  sleep 0.1
+done
+
+printf 'hello\n/list\n/stats\n' \
+  | "$RUNTIME/bin/java" -Dchatroom.host=127.0.0.1 -cp "$APP/lib/*" clientside.backend.Client password trainer
+
+kill -TERM "$SERVER"  # Drains and exits, which writes the archive
+wait "$SERVER" || true
+test -s "$ARCHIVE"
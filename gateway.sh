@@ -0,0 +1,4 @@
+#!/bin/bash
+
+# The link secret is read from CHATROOM_GATEWAY_SECRET
+mvn -q -U -pl chatroom-server -am package && java -cp chatroom-server/target/chatroom-server.jar gateway.Gateway
@@ -1,3 +1,3 @@
 #!/bin/bash
 
-mvn clean install -U exec:java -Dexec.mainClass="serverside.Server"
\ No newline at end of file
+mvn -q -U -pl chatroom-server -am package && java -jar chatroom-server/target/chatroom-server.jar